@@ -7,6 +7,9 @@ echo "========================================="
 
 javac -d bin -cp ".:bin" \
     src/main/java/com/prison/exception/*.java \
+    src/main/java/com/prison/util/*.java \
+    src/main/java/com/prison/event/*.java \
+    src/main/java/com/prison/tx/*.java \
     src/main/java/com/prison/model/*.java \
     src/test/java/com/prison/test/SimpleUnitTest.java \
     src/test/java/com/prison/model/InheritanceImplementationTest.java
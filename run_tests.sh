@@ -1,17 +1,19 @@
 #!/bin/bash
 # Compile all source and test files
 echo "Compiling..."
-javac -d out src/main/java/com/prison/exception/*.java src/main/java/com/prison/model/*.java src/test/java/com/prison/test/SimpleUnitTest.java src/test/java/com/prison/model/*.java
+javac -d out src/main/java/com/prison/exception/*.java src/main/java/com/prison/util/*.java src/main/java/com/prison/event/*.java src/main/java/com/prison/tx/*.java src/main/java/com/prison/model/*.java src/main/java/com/prison/view/*.java src/main/java/com/prison/search/*.java src/main/java/com/prison/intake/*.java src/main/java/com/prison/scheduling/*.java src/main/java/com/prison/metrics/*.java src/test/java/com/prison/test/SimpleUnitTest.java src/test/java/com/prison/model/*.java src/test/java/com/prison/util/*.java src/test/java/com/prison/event/*.java src/test/java/com/prison/view/*.java src/test/java/com/prison/tx/*.java src/test/java/com/prison/search/*.java src/test/java/com/prison/intake/*.java src/test/java/com/prison/scheduling/*.java src/test/java/com/prison/metrics/*.java src/test/java/com/prison/bench/*.java
 
 if [ $? -eq 0 ]; then
     echo "Compilation successful."
     echo "Running Tests..."
     
-    for testFile in src/test/java/com/prison/model/*Test.java; do
-        className=$(basename "$testFile" .java)
+    for testFile in src/test/java/com/prison/model/*Test.java src/test/java/com/prison/util/*Test.java src/test/java/com/prison/event/*Test.java src/test/java/com/prison/view/*Test.java src/test/java/com/prison/tx/*Test.java src/test/java/com/prison/search/*Test.java src/test/java/com/prison/intake/*Test.java src/test/java/com/prison/scheduling/*Test.java src/test/java/com/prison/metrics/*Test.java; do
+        className=${testFile#src/test/java/}
+        className=${className%.java}
+        className=${className//\//.}
         echo "--------------------------------------------------"
         echo "Running $className..."
-        java -cp out "com.prison.model.$className"
+        java -cp out "$className"
     done
 else
     echo "Compilation failed."
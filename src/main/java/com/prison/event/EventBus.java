@@ -0,0 +1,140 @@
+package com.prison.event;
+
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide bus for model mutation events.
+ *
+ * Model setters and association mutators call publish(...) after they change
+ * state. While nothing is subscribed, publish returns after a single volatile
+ * read - no event object is allocated. Synchronous subscribers run on the
+ * mutating thread before the mutator returns; asynchronous subscribers are fed
+ * through a ring buffer on a background thread.
+ */
+public final class EventBus {
+    private static final int ASYNC_BUFFER_CAPACITY = 8192;
+
+    private static final List<ModelEventListener> syncListeners = new CopyOnWriteArrayList<>();
+    private static final List<ModelEventListener> asyncListeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean active;
+    private static volatile RingBufferDispatcher dispatcher;
+
+    private EventBus() {
+    }
+
+    /**
+     * Subscribes a listener that is called synchronously by the mutating thread.
+     */
+    public static synchronized void subscribe(ModelEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        syncListeners.add(listener);
+        active = true;
+    }
+
+    /**
+     * Subscribes a listener that is called on the dispatcher thread, in publish order.
+     */
+    public static synchronized void subscribeAsync(ModelEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        if (dispatcher == null) {
+            dispatcher = new RingBufferDispatcher(ASYNC_BUFFER_CAPACITY, asyncListeners);
+        }
+        asyncListeners.add(listener);
+        active = true;
+    }
+
+    public static synchronized void unsubscribe(ModelEventListener listener) {
+        syncListeners.remove(listener);
+        asyncListeners.remove(listener);
+        active = !syncListeners.isEmpty() || !asyncListeners.isEmpty();
+    }
+
+    /**
+     * Removes all subscribers and stops the dispatcher thread.
+     */
+    public static synchronized void reset() {
+        syncListeners.clear();
+        asyncListeners.clear();
+        active = false;
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            dispatcher = null;
+        }
+    }
+
+    public static boolean hasSubscribers() {
+        return active;
+    }
+
+    /**
+     * Waits until all events published so far reached the async subscribers.
+     */
+    public static void flush() {
+        RingBufferDispatcher current = dispatcher;
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    public static void publish(ModelEvent.Type type, Object source, String property,
+                               Object oldValue, Object newValue) {
+        if (!active) {
+            return;
+        }
+        publish(new ModelEvent(type, source, property, oldValue, newValue));
+    }
+
+    /**
+     * Inside a unit of work the event is held back until commit (and dropped
+     * on rollback), so subscribers only see committed changes.
+     */
+    public static void publish(ModelEvent event) {
+        if (!active || UnitOfWork.deferEvent(() -> dispatch(event))) {
+            return;
+        }
+        dispatch(event);
+    }
+
+    private static void dispatch(ModelEvent event) {
+        for (ModelEventListener listener : syncListeners) {
+            listener.onEvent(event);
+        }
+        RingBufferDispatcher current = dispatcher;
+        if (current != null && !asyncListeners.isEmpty()) {
+            current.publish(event);
+        }
+    }
+
+    // Convenience emitters used by the model classes; they also feed the
+    // ModelMetrics counters, which cost one volatile read while metrics are off
+
+    public static void created(Object source) {
+        publish(ModelEvent.Type.CREATED, source, null, null, null);
+    }
+
+    public static void deleted(Object source) {
+        ModelMetrics.deleted(source);
+        publish(ModelEvent.Type.DELETED, source, null, null, null);
+    }
+
+    public static void changed(Object source, String property, Object oldValue, Object newValue) {
+        publish(ModelEvent.Type.CHANGED, source, property, oldValue, newValue);
+    }
+
+    public static void linked(Object source, String role, Object target) {
+        ModelMetrics.linked(source, role);
+        publish(ModelEvent.Type.LINKED, source, role, null, target);
+    }
+
+    public static void unlinked(Object source, String role, Object target) {
+        ModelMetrics.unlinked(source, role);
+        publish(ModelEvent.Type.UNLINKED, source, role, target, null);
+    }
+}
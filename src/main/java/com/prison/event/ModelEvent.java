@@ -0,0 +1,59 @@
+package com.prison.event;
+
+/**
+ * Immutable notification of a single model mutation.
+ * CHANGED carries the attribute's old and new value, LINKED/UNLINKED carry
+ * the other end of the association as newValue/oldValue.
+ */
+public class ModelEvent {
+
+    public enum Type {
+        CREATED, DELETED, CHANGED, LINKED, UNLINKED
+    }
+
+    private final Type type;
+    private final Object source;
+    private final String property;    // Attribute or association role name, null for CREATED/DELETED
+    private final Object oldValue;
+    private final Object newValue;
+
+    public ModelEvent(Type type, Object source, String property, Object oldValue, Object newValue) {
+        if (type == null || source == null) {
+            throw new IllegalArgumentException("Event type and source cannot be null.");
+        }
+        this.type = type;
+        this.source = source;
+        this.property = property;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    public Type getType() { return type; }
+
+    public Object getSource() { return source; }
+
+    public String getProperty() { return property; }
+
+    public Object getOldValue() { return oldValue; }
+
+    public Object getNewValue() { return newValue; }
+
+    /**
+     * True if this event was emitted by an instance of the given class
+     * for the given property.
+     */
+    public boolean is(Class<?> sourceType, String property) {
+        return sourceType.isInstance(source) && property.equals(this.property);
+    }
+
+    @Override
+    public String toString() {
+        return "ModelEvent{" +
+                "type=" + type +
+                ", source=" + source.getClass().getSimpleName() +
+                ", property='" + property + '\'' +
+                ", oldValue=" + oldValue +
+                ", newValue=" + newValue +
+                '}';
+    }
+}
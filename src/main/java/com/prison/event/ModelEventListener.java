@@ -0,0 +1,9 @@
+package com.prison.event;
+
+/**
+ * Receives model mutation events from the EventBus.
+ */
+@FunctionalInterface
+public interface ModelEventListener {
+    void onEvent(ModelEvent event);
+}
@@ -0,0 +1,119 @@
+package com.prison.event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer that delivers events
+ * to the asynchronous subscribers on one daemon thread, in publish order.
+ * Each slot carries a sequence number: a producer may write slot i only when
+ * its sequence equals the claimed position, the consumer may read it once the
+ * sequence is position + 1. When the buffer is full, producers spin until the
+ * consumer frees a slot (backpressure instead of dropping events).
+ */
+class RingBufferDispatcher {
+    private static final long IDLE_PARK_NANOS = 100_000L;
+
+    private final ModelEvent[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();   // Next position to claim
+    private volatile long head;                         // Next position to consume
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+    private final List<ModelEventListener> listeners;
+    private final Thread worker;
+
+    RingBufferDispatcher(int capacity, List<ModelEventListener> listeners) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two.");
+        }
+        this.buffer = new ModelEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.listeners = listeners;
+        this.worker = new Thread(this::consume, "model-event-dispatcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    void publish(ModelEvent event) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                // Buffer full - wait for the consumer
+                if (sleeping) {
+                    LockSupport.unpark(worker);
+                }
+                Thread.onSpinWait();
+            }
+        }
+        buffer[index] = event;
+        sequences.set(index, position + 1);
+        if (sleeping) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Blocks until every event published before this call has been delivered.
+     */
+    void flush() {
+        long target = tail.get();
+        while (head < target && running) {
+            LockSupport.unpark(worker);
+            Thread.yield();
+        }
+    }
+
+    void shutdown() {
+        flush();
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private void consume() {
+        long position = 0;
+        while (running) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) == position + 1) {
+                ModelEvent event = buffer[index];
+                buffer[index] = null;
+                sequences.set(index, position + buffer.length);
+                deliver(event);
+                position++;
+                head = position;
+            } else {
+                sleeping = true;
+                if (sequences.get(index) != position + 1) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    private void deliver(ModelEvent event) {
+        for (ModelEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                // An async subscriber must not stop delivery to the others
+                System.err.println("Async event listener failed on " + event + ": " + e);
+            }
+        }
+    }
+}
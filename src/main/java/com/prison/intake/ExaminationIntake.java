@@ -0,0 +1,597 @@
+package com.prison.intake;
+
+import com.prison.model.Doctor;
+import com.prison.model.MedicalExamination;
+import com.prison.model.MedicalRecord;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming intake of medical examinations, e.g. for the annual health
+ * screening: parse -> validate -> link -> persist.
+ *
+ * Each input line reads
+ *
+ *     recordKey;doctorLicense;yyyy-MM-dd;Reason;prescription|prescription
+ *
+ * where recordKey is resolved to a MedicalRecord by the caller's resolver and
+ * the prescription list may be empty. Stages run on their own threads and
+ * are joined by bounded queues, so a slow stage blocks the one before it
+ * (backpressure) instead of letting work pile up in memory. Linking mutates
+ * the doctor's and the record's lists, so it runs on several workers with
+ * each doctor owned by exactly one worker; a record shared by two doctors is
+ * locked while it is linked. Lines that fail a stage are reported as
+ * rejections and do not stop the run. Examinations of a batch the persister
+ * fails on are rejected too, and deleted again once the pipeline has
+ * drained, so a run leaves only persisted examinations linked.
+ *
+ * An exception that escapes a stage (or the input iterator) aborts the run:
+ * the other stages stop working, drain their input so no thread stays
+ * blocked, and pass the end marker on. Examinations not yet persisted are
+ * deleted and process() rethrows the exception.
+ */
+public class ExaminationIntake {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_PERSIST_BATCH = 500;
+
+    private static final String FIELD_SEPARATOR = ";";
+    private static final String PRESCRIPTION_SEPARATOR = "\\|";
+    private static final int CHUNK_SIZE = 64;   // Items handed between stages at once
+    private static final List<Item> END = new ArrayList<>(0);   // Marks the end of a stage's output
+
+    /**
+     * One line on its way through the stages.
+     */
+    private static final class Item {
+        final long lineNumber;
+        final String line;
+        String recordKey;
+        String license;
+        LocalDate date;
+        MedicalExamination.ReasonForVisit reason;
+        String[] prescriptions;
+        Doctor doctor;
+        MedicalRecord record;
+        MedicalExamination examination;
+
+        Item(long lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Collects one stage's output into chunks, so threads hand over queue
+     * slots (and wake each other) once per chunk rather than once per item.
+     */
+    private static final class Outbox {
+        final BlockingQueue<List<Item>> queue;
+        List<Item> pending = new ArrayList<>(CHUNK_SIZE);
+
+        Outbox(BlockingQueue<List<Item>> queue) {
+            this.queue = queue;
+        }
+
+        void add(Item item, StageStats stats) {
+            pending.add(item);
+            if (pending.size() == CHUNK_SIZE) {
+                flush(stats);
+            }
+        }
+
+        void flush(StageStats stats) {
+            if (!pending.isEmpty()) {
+                put(queue, pending, stats);
+                pending = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+
+        void close(StageStats stats) {
+            flush(stats);
+            put(queue, END, stats);
+        }
+    }
+
+    /**
+     * A line that did not make it through the pipeline.
+     */
+    public static final class Rejection {
+        private final long lineNumber;
+        private final String stage;
+        private final String reason;
+
+        Rejection(long lineNumber, String stage, String reason) {
+            this.lineNumber = lineNumber;
+            this.stage = stage;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() { return lineNumber; }
+        public String getStage() { return stage; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + " (" + stage + "): " + reason;
+        }
+    }
+
+    /**
+     * Counters of one stage. Busy time excludes waiting on the queues;
+     * blocked time is spent waiting for room downstream (backpressure).
+     */
+    public static final class StageStats {
+        private final String name;
+        private final int workers;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicLong blockedNanos = new AtomicLong();
+        private volatile long wallNanos;
+
+        StageStats(String name, int workers) {
+            this.name = name;
+            this.workers = workers;
+        }
+
+        public String getName() { return name; }
+        public int getWorkers() { return workers; }
+        public long getProcessed() { return processed.get(); }
+        public long getRejected() { return rejected.get(); }
+        public long getBusyNanos() { return busyNanos.get(); }
+        public long getBlockedNanos() { return blockedNanos.get(); }
+
+        /**
+         * Items handled per second of the stage's own work, summed over its workers.
+         */
+        public double getThroughput() {
+            long busy = busyNanos.get();
+            return busy == 0 ? 0 : (processed.get() + rejected.get()) * 1e9 * workers / busy;
+        }
+
+        /**
+         * Items handled per second of wall-clock time while the stage was running.
+         */
+        public double getWallThroughput() {
+            return wallNanos == 0 ? 0 : (processed.get() + rejected.get()) * 1e9 / wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s workers=%d processed=%d rejected=%d %.0f/s busy %.0f/s wall blocked=%dms",
+                name, workers, processed.get(), rejected.get(), getThroughput(), getWallThroughput(),
+                blockedNanos.get() / 1_000_000);
+        }
+    }
+
+    /**
+     * Outcome of one run.
+     */
+    public static final class Result {
+        private final List<StageStats> stages;
+        private final List<Rejection> rejections;
+        private final long elapsedNanos;
+
+        Result(List<StageStats> stages, List<Rejection> rejections, long elapsedNanos) {
+            this.stages = Collections.unmodifiableList(stages);
+            this.rejections = Collections.unmodifiableList(rejections);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<StageStats> getStages() { return stages; }
+        public List<Rejection> getRejections() { return rejections; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public long getPersisted() {
+            return stages.get(stages.size() - 1).getProcessed();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (StageStats stage : stages) {
+                text.append(stage).append('\n');
+            }
+            text.append(String.format("persisted=%d rejected=%d in %dms",
+                getPersisted(), rejections.size(), elapsedNanos / 1_000_000));
+            return text.toString();
+        }
+    }
+
+    private final Function<String, MedicalRecord> recordResolver;
+    private final Consumer<List<MedicalExamination>> persister;
+    private final int linkWorkers;
+    private final int queueCapacity;
+    private final int persistBatch;
+
+    /**
+     * Pipeline with the default queue capacity and batch size and one link
+     * worker per available processor.
+     */
+    public ExaminationIntake(Function<String, MedicalRecord> recordResolver,
+                             Consumer<List<MedicalExamination>> persister) {
+        this(recordResolver, persister, Runtime.getRuntime().availableProcessors(),
+            DEFAULT_QUEUE_CAPACITY, DEFAULT_PERSIST_BATCH);
+    }
+
+    public ExaminationIntake(Function<String, MedicalRecord> recordResolver,
+                             Consumer<List<MedicalExamination>> persister,
+                             int linkWorkers, int queueCapacity, int persistBatch) {
+        if (recordResolver == null || persister == null) {
+            throw new IllegalArgumentException("Record resolver and persister cannot be null.");
+        }
+        if (linkWorkers <= 0 || queueCapacity <= 0 || persistBatch <= 0) {
+            throw new IllegalArgumentException("Workers, queue capacity and batch size must be positive.");
+        }
+        this.recordResolver = recordResolver;
+        this.persister = persister;
+        this.linkWorkers = linkWorkers;
+        this.queueCapacity = queueCapacity;
+        this.persistBatch = persistBatch;
+    }
+
+    /**
+     * Runs the lines through all stages and returns once the last batch is
+     * persisted. Lines are pulled lazily, so the input may be a file stream.
+     * If a stage or the input fails, all stages are stopped and joined and
+     * the failure is rethrown.
+     */
+    public Result process(Iterable<String> lines) {
+        int chunksPerQueue = Math.max(1, queueCapacity / CHUNK_SIZE);
+        BlockingQueue<List<Item>> parsed = new ArrayBlockingQueue<>(chunksPerQueue);
+        List<Outbox> validated = new ArrayList<>();
+        for (int i = 0; i < linkWorkers; i++) {
+            validated.add(new Outbox(new ArrayBlockingQueue<>(Math.max(1, chunksPerQueue / linkWorkers))));
+        }
+        BlockingQueue<List<Item>> linked = new ArrayBlockingQueue<>(chunksPerQueue);
+        ConcurrentLinkedQueue<Rejection> rejections = new ConcurrentLinkedQueue<>();
+        List<Item> unpersisted = new ArrayList<>();   // Persist thread only, read after it is joined
+        AtomicReference<Throwable> failure = new AtomicReference<>();   // First exception that escaped a stage
+
+        StageStats parseStats = new StageStats("parse", 1);
+        StageStats validateStats = new StageStats("validate", 1);
+        StageStats linkStats = new StageStats("link", linkWorkers);
+        StageStats persistStats = new StageStats("persist", 1);
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(stageThread("intake-validate", validateStats,
+            () -> validate(parsed, validated, validateStats, rejections, failure)));
+        for (Outbox worker : validated) {
+            int index = threads.size() - 1;
+            threads.add(stageThread("intake-link-" + index, linkStats,
+                () -> link(worker.queue, new Outbox(linked), linkStats, rejections, failure)));
+        }
+        threads.add(stageThread("intake-persist", persistStats,
+            () -> persist(linked, persistStats, rejections, unpersisted, failure)));
+
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        parse(lines, new Outbox(parsed), parseStats, rejections, failure);   // On the calling thread, so input is read at the pace the pipeline allows
+        parseStats.wallNanos = System.nanoTime() - start;
+        for (Thread thread : threads) {
+            joinUninterruptibly(thread);
+        }
+        for (Item item : unpersisted) {
+            item.examination.delete();   // Only now: the link workers that own the doctors have stopped
+        }
+        Throwable failed = failure.get();
+        if (failed instanceof RuntimeException) {
+            throw (RuntimeException) failed;
+        }
+        if (failed != null) {
+            throw (Error) failed;
+        }
+        List<Rejection> sorted = new ArrayList<>(rejections);
+        sorted.sort((a, b) -> Long.compare(a.lineNumber, b.lineNumber));
+        return new Result(List.of(parseStats, validateStats, linkStats, persistStats), sorted,
+            System.nanoTime() - start);
+    }
+
+    // --- Stages ---
+
+    private void parse(Iterable<String> lines, Outbox output, StageStats stats,
+                       ConcurrentLinkedQueue<Rejection> rejections, AtomicReference<Throwable> failure) {
+        long lineNumber = 0;
+        try {
+            for (String line : lines) {
+                if (failure.get() != null) {
+                    break;   // A stage failed; stop reading input
+                }
+                lineNumber++;
+                long started = System.nanoTime();
+                Item item = new Item(lineNumber, line);
+                String error = parseFields(item);
+                stats.busyNanos.addAndGet(System.nanoTime() - started);
+                if (error != null) {
+                    reject(item, stats, error, rejections);
+                } else {
+                    stats.processed.incrementAndGet();
+                    output.add(item, stats);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            failure.compareAndSet(null, e);
+        }
+        output.close(stats);
+    }
+
+    private static String parseFields(Item item) {
+        if (item.line == null || item.line.trim().isEmpty()) {
+            return "Line is empty.";
+        }
+        String[] fields = item.line.split(FIELD_SEPARATOR, -1);
+        if (fields.length < 4 || fields.length > 5) {
+            return "Expected 4 or 5 fields but found " + fields.length + ".";
+        }
+        item.recordKey = fields[0].trim();
+        item.license = fields[1].trim();
+        try {
+            item.date = LocalDate.parse(fields[2].trim());
+        } catch (DateTimeParseException e) {
+            return "Invalid date: " + fields[2].trim() + ".";
+        }
+        try {
+            item.reason = MedicalExamination.ReasonForVisit.valueOf(fields[3].trim());
+        } catch (IllegalArgumentException e) {
+            return "Unknown reason for visit: " + fields[3].trim() + ".";
+        }
+        String prescriptions = fields.length == 5 ? fields[4].trim() : "";
+        item.prescriptions = prescriptions.isEmpty() ? new String[0] : prescriptions.split(PRESCRIPTION_SEPARATOR);
+        return null;
+    }
+
+    private void validate(BlockingQueue<List<Item>> input, List<Outbox> outputs, StageStats stats,
+                          ConcurrentLinkedQueue<Rejection> rejections, AtomicReference<Throwable> failure) {
+        List<Item> chunk;
+        while ((chunk = next(input, outputs, stats)) != END) {
+            if (failure.get() != null) {
+                continue;   // Aborted: drain the input so the parser is not left blocked
+            }
+            try {
+                for (Item item : chunk) {
+                    long started = System.nanoTime();
+                    String error = resolveTargets(item);
+                    stats.busyNanos.addAndGet(System.nanoTime() - started);
+                    if (error != null) {
+                        reject(item, stats, error, rejections);
+                    } else {
+                        stats.processed.incrementAndGet();
+                        // Every examination of a doctor goes to the same worker, which owns that doctor's lists
+                        int worker = Math.floorMod(System.identityHashCode(item.doctor), outputs.size());
+                        outputs.get(worker).add(item, stats);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+        for (Outbox output : outputs) {
+            output.close(stats);
+        }
+    }
+
+    private String resolveTargets(Item item) {
+        if (item.date.isAfter(LocalDate.now())) {
+            return "Examination date cannot be in the future.";
+        }
+        for (String prescription : item.prescriptions) {
+            if (prescription.trim().isEmpty()) {
+                return "Prescription item cannot be empty.";
+            }
+        }
+        item.doctor = Doctor.findByLicenseNumber(item.license);
+        if (item.doctor == null) {
+            return "No doctor with license number " + item.license + ".";
+        }
+        try {
+            item.record = recordResolver.apply(item.recordKey);
+        } catch (RuntimeException e) {
+            return "Record " + item.recordKey + " could not be resolved: " + e.getMessage();
+        }
+        if (item.record == null) {
+            return "No medical record for " + item.recordKey + ".";
+        }
+        return null;
+    }
+
+    private void link(BlockingQueue<List<Item>> input, Outbox output, StageStats stats,
+                      ConcurrentLinkedQueue<Rejection> rejections, AtomicReference<Throwable> failure) {
+        List<Item> chunk;
+        while ((chunk = next(input, List.of(output), stats)) != END) {
+            if (failure.get() != null) {
+                continue;   // Aborted: drain the input so validation is not left blocked
+            }
+            try {
+                for (Item item : chunk) {
+                    long started = System.nanoTime();
+                    String error = link(item);
+                    stats.busyNanos.addAndGet(System.nanoTime() - started);
+                    if (error != null) {
+                        reject(item, stats, error, rejections);
+                    } else {
+                        stats.processed.incrementAndGet();
+                        output.add(item, stats);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+        output.close(stats);
+    }
+
+    /**
+     * Creates and links the item's examination. If a link fails, the
+     * examination is deleted again so it does not stay on the doctor.
+     */
+    private static String link(Item item) {
+        MedicalExamination examination = null;
+        try {
+            examination = new MedicalExamination(item.date, item.reason, item.doctor);
+            for (String prescription : item.prescriptions) {
+                examination.addPrescription(prescription.trim());
+            }
+            synchronized (item.record) {   // Records are not partitioned; two doctors may share one
+                examination.setMedicalRecord(item.record);
+            }
+            item.examination = examination;
+            return null;
+        } catch (RuntimeException e) {
+            if (examination != null) {
+                synchronized (item.record) {
+                    examination.delete();
+                }
+            }
+            return e.getMessage();
+        }
+    }
+
+    private void persist(BlockingQueue<List<Item>> input, StageStats stats, ConcurrentLinkedQueue<Rejection> rejections,
+                         List<Item> unpersisted, AtomicReference<Throwable> failure) {
+        int running = linkWorkers;
+        List<Item> batch = new ArrayList<>(persistBatch);
+        while (running > 0) {
+            List<Item> chunk = take(input);
+            if (chunk == END) {
+                running--;
+                continue;
+            }
+            try {
+                for (Item item : chunk) {
+                    batch.add(item);
+                    if (batch.size() == persistBatch) {
+                        flush(batch, stats, rejections, unpersisted, failure);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+        flush(batch, stats, rejections, unpersisted, failure);
+    }
+
+    private void flush(List<Item> batch, StageStats stats, ConcurrentLinkedQueue<Rejection> rejections,
+                       List<Item> unpersisted, AtomicReference<Throwable> failure) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (failure.get() != null) {
+            unpersisted.addAll(batch);   // Aborted: linked but never persisted, so deleted with the rest
+            batch.clear();
+            return;
+        }
+        List<MedicalExamination> examinations = new ArrayList<>(batch.size());
+        for (Item item : batch) {
+            examinations.add(item.examination);
+        }
+        long started = System.nanoTime();
+        try {
+            persister.accept(examinations);
+            stats.processed.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            for (Item item : batch) {
+                reject(item, stats, e.getMessage(), rejections);
+            }
+            unpersisted.addAll(batch);
+        } catch (Error e) {
+            failure.compareAndSet(null, e);
+            unpersisted.addAll(batch);
+        }
+        stats.busyNanos.addAndGet(System.nanoTime() - started);
+        batch.clear();
+    }
+
+    // --- Plumbing ---
+
+    private static void reject(Item item, StageStats stats, String reason,
+                               ConcurrentLinkedQueue<Rejection> rejections) {
+        stats.rejected.incrementAndGet();
+        rejections.add(new Rejection(item.lineNumber, stats.name, reason));
+    }
+
+    private static Thread stageThread(String name, StageStats stats, Runnable body) {
+        Thread thread = new Thread(() -> {
+            long started = System.nanoTime();
+            body.run();
+            stats.wallNanos = Math.max(stats.wallNanos, System.nanoTime() - started);
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Next chunk of the input; downstream chunks still being filled are sent
+     * before this stage waits, so a trickle of input is not held back.
+     */
+    private static List<Item> next(BlockingQueue<List<Item>> input, List<Outbox> outputs, StageStats stats) {
+        List<Item> chunk = input.poll();
+        if (chunk == null) {
+            for (Outbox output : outputs) {
+                output.flush(stats);
+            }
+            chunk = take(input);
+        }
+        return chunk;
+    }
+
+    private static void put(BlockingQueue<List<Item>> queue, List<Item> chunk, StageStats stats) {
+        if (queue.offer(chunk)) {
+            return;
+        }
+        long started = System.nanoTime();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(chunk);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        stats.blockedNanos.addAndGet(System.nanoTime() - started);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Item> take(BlockingQueue<List<Item>> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
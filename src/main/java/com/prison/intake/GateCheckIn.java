@@ -0,0 +1,393 @@
+package com.prison.intake;
+
+import com.prison.metrics.LatencyHistogram;
+import com.prison.model.Director;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import com.prison.tx.UnitOfWork;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Check-in of visitors at the gate in bursts, e.g. on family visiting days.
+ *
+ * Badge scans (visitorIDs) go into a bounded queue; a small pool of workers
+ * takes whatever has queued up, at most maxBatch scans at a time, and
+ * handles them together:
+ *
+ * - each badge is resolved through the facility-wide visitorID index,
+ * - scans of the same badge in one batch are coalesced into one update,
+ * - the visit must be APPROVED and due today,
+ * - all check-ins of the batch become COMPLETED, and are linked to the
+ *   gate's Director, in one unit of work (events published once). If it
+ *   fails, it is rolled back in full and every scan of the batch is FAILED.
+ *
+ * Lookups and checks run in parallel; the model mutators are not
+ * thread-safe, so the batch update holds the director's lock, once per batch
+ * rather than once per visitor. That serialises the workers of this gate and
+ * of other gates of the same director, and nothing else: gates of other
+ * directors, or other code changing the same visits, must not run alongside.
+ * A full queue blocks scan() (backpressure). Workers never wait for a batch
+ * to fill, so queueing delay stays bounded by the time to work off the
+ * batches ahead; getStats() reports the latency percentiles from scan to
+ * result against the configured target.
+ */
+public class GateCheckIn implements AutoCloseable {
+    public static final int DEFAULT_WORKERS = 2;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_BATCH = 64;
+    public static final Duration DEFAULT_LATENCY_TARGET = Duration.ofMillis(50);
+
+    private static final Scan STOP = new Scan(null);   // One per worker on close
+
+    /**
+     * What happened to one badge scan.
+     */
+    public enum Outcome {
+        CHECKED_IN,
+        ALREADY_CHECKED_IN,   // Completed earlier, or a repeated scan of the same badge
+        UNKNOWN_BADGE,
+        NOT_APPROVED,
+        WRONG_DAY,
+        FAILED                // The batch's unit of work rolled back; nothing was applied
+    }
+
+    /**
+     * Result of one badge scan.
+     */
+    public static final class CheckIn {
+        private final String visitorID;
+        private final Visit visit;
+        private final Outcome outcome;
+        private final String reason;
+        private final long latencyNanos;
+
+        CheckIn(String visitorID, Visit visit, Outcome outcome, String reason, long latencyNanos) {
+            this.visitorID = visitorID;
+            this.visit = visit;
+            this.outcome = outcome;
+            this.reason = reason;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public String getVisitorID() { return visitorID; }
+        public Visit getVisit() { return visit; }
+        public Outcome getOutcome() { return outcome; }
+        public String getReason() { return reason; }
+        /** Time from scan() to the result. */
+        public long getLatencyNanos() { return latencyNanos; }
+
+        public boolean isCheckedIn() {
+            return outcome == Outcome.CHECKED_IN;
+        }
+
+        @Override
+        public String toString() {
+            return visitorID + ": " + outcome + (reason == null ? "" : " (" + reason + ")");
+        }
+    }
+
+    /**
+     * Counters and latency percentiles since the gate opened. Percentiles
+     * come from a LatencyHistogram, so they are within about 3%.
+     */
+    public static final class Stats {
+        private final long[] outcomes;
+        private final long batches;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+        private final Duration target;
+
+        Stats(long[] outcomes, long batches, LatencyHistogram latencies, Duration target) {
+            this.outcomes = outcomes;
+            this.batches = batches;
+            this.p50Nanos = latencies.getValueAtPercentile(50);
+            this.p99Nanos = latencies.getValueAtPercentile(99);
+            this.maxNanos = latencies.getMax();
+            this.target = target;
+        }
+
+        public long getCount(Outcome outcome) { return outcomes[outcome.ordinal()]; }
+        public long getBatches() { return batches; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getMaxNanos() { return maxNanos; }
+
+        public long getScans() {
+            return Arrays.stream(outcomes).sum();
+        }
+
+        public boolean isWithinTarget() {
+            return p99Nanos <= target.toNanos();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("scans=%d checkedIn=%d batches=%d p50=%.2fms p99=%.2fms max=%.2fms (target %dms)",
+                getScans(), getCount(Outcome.CHECKED_IN), batches, p50Nanos / 1e6, p99Nanos / 1e6,
+                maxNanos / 1e6, target.toMillis());
+        }
+    }
+
+    private static final class Scan {
+        final String visitorID;
+        final long scannedAt = System.nanoTime();
+        final CompletableFuture<CheckIn> result = new CompletableFuture<>();
+        Visit visit;
+
+        Scan(String visitorID) {
+            this.visitorID = visitorID;
+        }
+    }
+
+    private final Director director;
+    private final Clock clock;
+    private final int maxBatch;
+    private final Duration latencyTarget;
+    private final BlockingQueue<Scan> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicLong[] outcomes = new AtomicLong[Outcome.values().length];
+    private final AtomicLong batches = new AtomicLong();
+    private final LatencyHistogram latencies = new LatencyHistogram("gate.checkin");
+    private volatile boolean closed;
+    private volatile boolean stopped;   // Workers have exited; whatever is still queued is failed
+
+    public GateCheckIn(Director director) {
+        this(director, Clock.systemDefaultZone(), DEFAULT_WORKERS, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH,
+            DEFAULT_LATENCY_TARGET);
+    }
+
+    public GateCheckIn(Director director, Clock clock, int workers, int queueCapacity, int maxBatch,
+                       Duration latencyTarget) {
+        if (director == null || clock == null || latencyTarget == null) {
+            throw new IllegalArgumentException("Director, clock and latency target cannot be null.");
+        }
+        if (workers <= 0 || queueCapacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("Workers, queue capacity and batch size must be positive.");
+        }
+        this.director = director;
+        this.clock = clock;
+        this.maxBatch = maxBatch;
+        this.latencyTarget = latencyTarget;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new AtomicLong();
+        }
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::work, "gate-checkin-" + i);
+            worker.setDaemon(true);
+            this.workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues a badge scan; blocks while the queue is full. The future
+     * completes once the scan's batch is handled, or as FAILED if the gate
+     * closed before a worker took it.
+     */
+    public CompletableFuture<CheckIn> scan(String visitorID) {
+        if (closed) {
+            throw new IllegalStateException("Gate is closed.");
+        }
+        Scan scan = new Scan(visitorID);
+        putUninterruptibly(scan);
+        if (stopped) {
+            failQueued();   // Raced close() and landed behind the workers' stop markers
+        }
+        return scan.result;
+    }
+
+    /**
+     * Scans every badge and waits for all results, in input order.
+     */
+    public List<CheckIn> checkIn(Iterable<String> visitorIDs) {
+        List<CompletableFuture<CheckIn>> pending = new ArrayList<>();
+        for (String visitorID : visitorIDs) {
+            pending.add(scan(visitorID));
+        }
+        List<CheckIn> results = new ArrayList<>(pending.size());
+        for (CompletableFuture<CheckIn> future : pending) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    public Stats getStats() {
+        long[] counts = new long[outcomes.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = outcomes[i].get();
+        }
+        return new Stats(counts, batches.get(), latencies, latencyTarget);
+    }
+
+    /**
+     * Handles the scans already queued, then stops the workers. Scans that
+     * raced close() and were queued behind the stop markers are FAILED.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < workers.size(); i++) {
+            putUninterruptibly(STOP);
+        }
+        for (Thread worker : workers) {
+            boolean interrupted = false;
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        stopped = true;
+        failQueued();
+    }
+
+    private void failQueued() {
+        Scan scan;
+        while ((scan = queue.poll()) != null) {
+            if (scan != STOP) {
+                finish(scan, Outcome.FAILED, "Gate is closed.");
+            }
+        }
+    }
+
+    // --- Workers ---
+
+    private void work() {
+        List<Scan> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            batch.clear();
+            batch.add(take());
+            queue.drainTo(batch, maxBatch - 1);   // Whatever has queued up; never waits for more
+            boolean stop = batch.remove(STOP);
+            while (batch.remove(STOP)) {
+                putUninterruptibly(STOP);   // Belongs to another worker
+            }
+            if (!batch.isEmpty()) {
+                handle(batch);
+            }
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    private void handle(List<Scan> batch) {
+        LocalDate today = LocalDate.now(clock);
+        Map<Visit, List<Scan>> due = new LinkedHashMap<>();   // Repeated scans of one badge coalesce here
+        for (Scan scan : batch) {
+            Visit visit = Visitor.findVisitByVisitorID(scan.visitorID);
+            scan.visit = visit;
+            if (visit == null) {
+                finish(scan, Outcome.UNKNOWN_BADGE, "No visit for visitor ID " + scan.visitorID + ".");
+            } else if (!visit.getDate().equals(today)) {
+                finish(scan, Outcome.WRONG_DAY, "Visit is on " + visit.getDate() + ".");
+            } else if (visit.getApprovalStatus() == Visit.ApprovalStatus.COMPLETED) {
+                finish(scan, Outcome.ALREADY_CHECKED_IN, null);
+            } else if (visit.getApprovalStatus() != Visit.ApprovalStatus.APPROVED) {
+                finish(scan, Outcome.NOT_APPROVED, "Visit is " + visit.getApprovalStatus() + ".");
+            } else {
+                due.computeIfAbsent(visit, v -> new ArrayList<>(1)).add(scan);
+            }
+        }
+        if (due.isEmpty()) {
+            batches.incrementAndGet();
+            return;
+        }
+        Set<Visit> checkedIn = Collections.newSetFromMap(new IdentityHashMap<>());
+        RuntimeException failure = null;
+        synchronized (director) {
+            try {
+                UnitOfWork.run(() -> {
+                    checkedIn.clear();
+                    for (Visit visit : due.keySet()) {
+                        if (visit.getApprovalStatus() == Visit.ApprovalStatus.APPROVED) {   // Another worker may have got there first
+                            visit.setApprovalStatus(Visit.ApprovalStatus.COMPLETED);
+                            visit.addDirector(director);
+                            checkedIn.add(visit);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        batches.incrementAndGet();
+        for (Map.Entry<Visit, List<Scan>> entry : due.entrySet()) {
+            List<Scan> scans = entry.getValue();
+            boolean first = true;
+            for (Scan scan : scans) {
+                if (failure != null) {
+                    finish(scan, Outcome.FAILED, failure.getMessage());
+                } else if (first && checkedIn.contains(entry.getKey())) {
+                    finish(scan, Outcome.CHECKED_IN, null);
+                } else {
+                    finish(scan, Outcome.ALREADY_CHECKED_IN, null);
+                }
+                first = false;
+            }
+        }
+    }
+
+    private void finish(Scan scan, Outcome outcome, String reason) {
+        long latency = System.nanoTime() - scan.scannedAt;
+        outcomes[outcome.ordinal()].incrementAndGet();
+        latencies.record(latency);
+        scan.result.complete(new CheckIn(scan.visitorID, scan.visit, outcome, reason, latency));
+    }
+
+    private Scan take() {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void putUninterruptibly(Scan scan) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(scan);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
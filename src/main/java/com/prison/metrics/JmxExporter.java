@@ -0,0 +1,128 @@
+package com.prison.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the metrics as read-only attributes of one MBean,
+ * com.prison:type=Metrics, on the platform MBean server. The attribute set
+ * is read from the registry on each request, so metrics registered later
+ * show up too: a counter is one attribute, a gauge one attribute, and a
+ * histogram the attributes name.count, .mean, .p50, .p90, .p99 and .max.
+ */
+public final class JmxExporter implements DynamicMBean {
+    public static final String OBJECT_NAME = "com.prison:type=Metrics";
+
+    private static final String[] HISTOGRAM_FIELDS = {"count", "mean", "p50", "p90", "p99", "max"};
+
+    private JmxExporter() {
+    }
+
+    public static synchronized void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new JmxExporter(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME + ".", e);
+        }
+    }
+
+    public static synchronized void unregister() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister " + OBJECT_NAME + ".", e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Counter counter = Metrics.getCounters().get(attribute);
+        if (counter != null) {
+            return counter.get();
+        }
+        DoubleSupplier gauge = Metrics.getGauges().get(attribute);
+        if (gauge != null) {
+            return gauge.getAsDouble();
+        }
+        int dot = attribute.lastIndexOf('.');
+        LatencyHistogram histogram = dot < 0 ? null : Metrics.getHistograms().get(attribute.substring(0, dot));
+        if (histogram != null) {
+            switch (attribute.substring(dot + 1)) {
+                case "count": return histogram.getCount();
+                case "mean": return histogram.getMean();
+                case "p50": return histogram.getValueAtPercentile(50);
+                case "p90": return histogram.getValueAtPercentile(90);
+                case "p99": return histogram.getValueAtPercentile(99);
+                case "max": return histogram.getMax();
+                default: break;
+            }
+        }
+        throw new AttributeNotFoundException("No metric " + attribute + ".");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                result.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Left out, as the DynamicMBean contract allows
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only.");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("Metrics have no operations.");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : Metrics.getCounters().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "long", "Counter", true, false, false));
+        }
+        for (String name : Metrics.getHistograms().keySet()) {
+            for (String field : HISTOGRAM_FIELDS) {
+                String type = "mean".equals(field) ? "double" : "long";
+                attributes.add(new MBeanAttributeInfo(name + "." + field, type, "Latency (ns)", true, false, false));
+            }
+        }
+        for (String name : Metrics.getGauges().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "double", "Gauge", true, false, false));
+        }
+        return new MBeanInfo(JmxExporter.class.getName(), "Prison model metrics",
+            attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+}
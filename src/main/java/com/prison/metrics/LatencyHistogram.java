@@ -0,0 +1,122 @@
+package com.prison.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies in nanoseconds, bucketed log-linearly in the manner of
+ * HdrHistogram: values below 32 get a bucket each, and every power of two
+ * above is split into 32 buckets, so a bucket is at most about 3% wide.
+ * All buckets are allocated up front; record(...) is a few shifts and
+ * atomic adds and allocates nothing. Values above MAX_TRACKABLE (about 18
+ * minutes) land in the top bucket; getMax() stays exact.
+ */
+public final class LatencyHistogram {
+    public static final long MAX_TRACKABLE = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = index(MAX_TRACKABLE) + 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * A histogram of its own, e.g. for a component's stats; Metrics.histogram
+     * returns the registered, exported ones.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(Math.min(value, MAX_TRACKABLE)));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Lost to a concurrent larger or equal value; re-read
+        }
+    }
+
+    /**
+     * Records the time since started, a value of Metrics.start(); nothing
+     * when started is 0 (metrics were off when the operation began).
+     */
+    public void recordSince(long started) {
+        if (started != 0) {
+            record(System.nanoTime() - started);
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * The highest value of the bucket holding the given percentile (0-100)
+     * of the recorded values; 0 when nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();   // Counts still being written by a concurrent record
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value that maps to bucket i.
+     */
+    static long upperBound(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = i / SUB_BUCKETS - 1;
+        long subBucket = SUB_BUCKETS + i % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
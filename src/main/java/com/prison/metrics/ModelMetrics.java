@@ -0,0 +1,160 @@
+package com.prison.metrics;
+
+import com.prison.tx.UnitOfWork;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Instruments for the model classes, looked up per class without allocating.
+ *
+ * Counters (every committed operation, fed from VersionedExtent and
+ * EventBus; inside a unit of work they count at commit, not on rollback):
+ *   model.Cell.created, model.Charges.deleted,
+ *   model.Cell.linked.prisoners, model.Cell.unlinked.prisoners, ...
+ * Latency histograms (the timed call sites: constructors, the hot
+ * association mutators, delete cascades, save/load; successful calls only,
+ * including calls whose unit of work later rolls back):
+ *   model.Cell.create, model.Cell.link, model.Cell.unlink,
+ *   model.CourtCase.delete, model.Prisoner.save, model.Prisoner.load
+ * Gauges: extent.Cell.size (registered by VersionedExtent) and
+ *   fanout.Cell.prisoners.max / .mean (registered with fanOut(...)).
+ *
+ * Every hook returns at once while metrics are off.
+ */
+public final class ModelMetrics {
+
+    public enum Operation {
+        CREATE("create"), LINK("link"), UNLINK("unlink"), DELETE("delete"), SAVE("save"), LOAD("load");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * The instruments of one class, created on its first use.
+     */
+    private static final class Instruments {
+        final String prefix;
+        final Counter created;
+        final Counter deleted;
+        final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        final ConcurrentHashMap<String, Counter> linked = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Counter> unlinked = new ConcurrentHashMap<>();
+
+        Instruments(Class<?> type) {
+            prefix = "model." + nameOf(type);
+            created = Metrics.counter(prefix + ".created");
+            deleted = Metrics.counter(prefix + ".deleted");
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, Metrics.histogram(prefix + "." + operation.label));
+            }
+        }
+
+        Counter role(ConcurrentHashMap<String, Counter> roles, String kind, String role) {
+            Counter counter = roles.get(role);
+            return counter != null ? counter : roles.computeIfAbsent(role, r -> Metrics.counter(prefix + "." + kind + "." + r));
+        }
+    }
+
+    private static final ClassValue<Instruments> instruments = new ClassValue<>() {
+        @Override
+        protected Instruments computeValue(Class<?> type) {
+            return new Instruments(type);
+        }
+    };
+
+    private ModelMetrics() {
+    }
+
+    public static long start() {
+        return Metrics.start();
+    }
+
+    /**
+     * Records the latency of operation on a type since started (a value of
+     * start()); nothing when started is 0.
+     */
+    public static void time(Class<?> type, Operation operation, long started) {
+        if (started != 0) {
+            instruments.get(type).latencies.get(operation).recordSince(started);
+        }
+    }
+
+    // --- Counters ---
+
+    public static void created(Class<?> type) {
+        if (Metrics.isEnabled()) {
+            count(instruments.get(type).created);
+        }
+    }
+
+    public static void deleted(Object source) {
+        if (Metrics.isEnabled()) {
+            count(instruments.get(source.getClass()).deleted);
+        }
+    }
+
+    public static void linked(Object source, String role) {
+        if (Metrics.isEnabled()) {
+            Instruments forClass = instruments.get(source.getClass());
+            count(forClass.role(forClass.linked, "linked", role));
+        }
+    }
+
+    public static void unlinked(Object source, String role) {
+        if (Metrics.isEnabled()) {
+            Instruments forClass = instruments.get(source.getClass());
+            count(forClass.role(forClass.unlinked, "unlinked", role));
+        }
+    }
+
+    /**
+     * Increments counter now, or at commit when a unit of work is active.
+     */
+    private static void count(Counter counter) {
+        if (!UnitOfWork.deferEvent(counter::increment)) {
+            counter.increment();
+        }
+    }
+
+    // --- Gauges ---
+
+    /**
+     * Registers fanout.name.max and fanout.name.mean: the largest and mean
+     * number of links per member of the given extent. Walks the extent when
+     * exported, not on the hot path.
+     */
+    public static <T> void fanOut(String name, Supplier<? extends Collection<T>> members, ToIntFunction<? super T> links) {
+        Metrics.gauge("fanout." + name + ".max", () -> {
+            int max = 0;
+            for (T member : members.get()) {
+                max = Math.max(max, links.applyAsInt(member));
+            }
+            return max;
+        });
+        Metrics.gauge("fanout." + name + ".mean", () -> {
+            Collection<T> all = members.get();
+            long total = 0;
+            for (T member : all) {
+                total += links.applyAsInt(member);
+            }
+            return all.isEmpty() ? 0 : (double) total / all.size();
+        });
+    }
+
+    static String nameOf(Class<?> type) {
+        String simple = type.getSimpleName();
+        return simple.isEmpty() ? type.getName() : simple;
+    }
+}
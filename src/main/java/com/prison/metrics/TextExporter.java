@@ -0,0 +1,63 @@
+package com.prison.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Plain-text dump of every metric, one per line, sorted by name:
+ *
+ *   counter model.Cell.created 120
+ *   histogram model.Prisoner.save count=3 mean=812345.0 p50=786431 p90=851967 p99=851967 max=850112
+ *   gauge extent.Cell.size 120
+ *
+ * Histogram values are nanoseconds.
+ */
+public final class TextExporter {
+
+    private TextExporter() {
+    }
+
+    public static String format() {
+        StringBuilder out = new StringBuilder();
+        Metrics.getCounters().forEach((name, counter) ->
+            out.append("counter ").append(name).append(' ').append(counter.get()).append('\n'));
+        Metrics.getHistograms().forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                out.append("histogram ").append(name)
+                    .append(" count=").append(histogram.getCount())
+                    .append(" mean=").append(String.format(Locale.ROOT, "%.1f", histogram.getMean()))
+                    .append(" p50=").append(histogram.getValueAtPercentile(50))
+                    .append(" p90=").append(histogram.getValueAtPercentile(90))
+                    .append(" p99=").append(histogram.getValueAtPercentile(99))
+                    .append(" max=").append(histogram.getMax()).append('\n');
+            }
+        });
+        Metrics.getGauges().forEach((name, gauge) ->
+            out.append("gauge ").append(name).append(' ').append(formatGauge(gauge.getAsDouble())).append('\n'));
+        return out.toString();
+    }
+
+    /**
+     * Writes format() to file, replacing it in one step so a reader never
+     * sees a half-written dump.
+     */
+    public static void writeTo(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, format().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String formatGauge(double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value)
+            ? Long.toString((long) value) : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
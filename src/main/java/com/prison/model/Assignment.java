@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -9,16 +13,21 @@ import java.util.List;
 public class Assignment implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private static List<Assignment> extent = new ArrayList<>();
+    private static final VersionedExtent<Assignment> extent = new VersionedExtent<>(Assignment.class);
     private String name;
     private String description;
     private List<Director> directors;  // Director[0..*] to Assignment[0..*] - many-to-many
+    private transient boolean constructing = true;
     
     public Assignment(String name, String description) {
+        long started = ModelMetrics.start();
         setName(name);
         setDescription(description);
         this.directors = new ArrayList<>();
+        constructing = false;
         extent.add(this);
+        EventBus.created(this);
+        ModelMetrics.time(Assignment.class, ModelMetrics.Operation.CREATE, started);
     }
     public String getName() {
         return name;
@@ -28,7 +37,9 @@ public class Assignment implements Serializable {
         if (name == null || name.trim().isEmpty()) {
             throw new EmptyStringException("Name cannot be empty.");
         }
+        String oldName = this.name;
         this.name = name;
+        UnitOfWork.recordUndo(this, () -> this.name = oldName);
     }
 
     public String getDescription() {
@@ -39,7 +50,12 @@ public class Assignment implements Serializable {
         if (description == null || description.trim().isEmpty()) {
             throw new EmptyStringException("Description cannot be empty.");
         }
+        String oldDescription = this.description;
         this.description = description;
+        UnitOfWork.recordUndo(this, () -> this.description = oldDescription);
+        if (!constructing && !oldDescription.equals(description)) {
+            EventBus.changed(this, "description", oldDescription, description);
+        }
     }
     public void manageAssignment() {
         System.out.println("Managing assignment: " + name);
@@ -53,6 +69,7 @@ public class Assignment implements Serializable {
         }
         if (!directors.contains(director)) {
             directors.add(director);
+            UnitOfWork.recordUndo(this, () -> directors.remove(director));
             if (!director.getAssignments().contains(this)) {
                 director.addAssignment(this);
             }
@@ -61,7 +78,9 @@ public class Assignment implements Serializable {
     
     public void removeDirector(Director director) {
         if (director != null && directors.contains(director)) {
-            directors.remove(director);
+            int position = directors.indexOf(director);
+            directors.remove(position);
+            UnitOfWork.recordUndo(this, () -> directors.add(position, director));
             if (director.getAssignments().contains(this)) {
                 director.removeAssignment(this);
             }
@@ -78,29 +97,35 @@ public class Assignment implements Serializable {
     }
     
     public void setDirector(Director director) {
+        List<Director> oldDirectors = new ArrayList<>(directors);
         directors.clear();
+        UnitOfWork.recordUndo(this, () -> directors.addAll(oldDirectors));
         if (director != null) {
             addDirector(director);
         }
     }
     
     public static List<Assignment> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Assignment.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Assignment>) in.readObject();
+            extent.replaceAll((List<Assignment>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Assignment.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
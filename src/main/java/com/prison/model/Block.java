@@ -1,6 +1,9 @@
 package com.prison.model;
 
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,7 +16,11 @@ public class Block implements Serializable {
         MINIMUM_SECURITY, MEDIUM_SECURITY, MAXIMUM_SECURITY, MEDICAL, ADMINISTRATIVE
     }
 
-    private static List<Block> extent = new ArrayList<>();
+    private static final VersionedExtent<Block> extent = new VersionedExtent<>(Block.class);
+    static {   // Links per member, read when metrics are exported
+        ModelMetrics.fanOut("Block.cells", Block::getExtent, block -> block.getCells().size());
+        ModelMetrics.fanOut("Block.staff", Block::getExtent, block -> block.getStaffMembers().size());
+    }
 
     private String name;
     private int numOfCells;
@@ -23,6 +30,7 @@ public class Block implements Serializable {
     private List<Schedule> schedules;      // Block[1] to Schedule[1]
 
     public Block(String name, int numOfCells, BlockType type) {
+        long started = ModelMetrics.start();
         setName(name);
         setNumOfCells(numOfCells);
         setType(type);
@@ -30,6 +38,7 @@ public class Block implements Serializable {
         this.staff = new ArrayList<>();
         this.schedules = new ArrayList<>();
         extent.add(this);
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public String getName() { return name; }
@@ -37,7 +46,9 @@ public class Block implements Serializable {
         if (name == null || name.trim().isEmpty()) {
             throw new EmptyStringException("Name cannot be empty.");
         }
+        String oldName = this.name;
         this.name = name;
+        UnitOfWork.recordUndo(this, () -> this.name = oldName);
     }
 
     public int getNumOfCells() { return numOfCells; }
@@ -45,7 +56,9 @@ public class Block implements Serializable {
         if (numOfCells < 0) {
             throw new NegativeNumberException("Number of cells cannot be negative.");
         }
+        int oldNumOfCells = this.numOfCells;
         this.numOfCells = numOfCells;
+        UnitOfWork.recordUndo(this, () -> this.numOfCells = oldNumOfCells);
     }
 
     public BlockType getType() { return type; }
@@ -53,7 +66,9 @@ public class Block implements Serializable {
         if (type == null) {
             throw new InvalidReferenceException("Block type cannot be null.");
         }
+        BlockType oldType = this.type;
         this.type = type;
+        UnitOfWork.recordUndo(this, () -> this.type = oldType);
     }
     public String getSecurityLevel() {
         return cells.stream()
@@ -73,52 +88,82 @@ public class Block implements Serializable {
         System.out.println("Managing block: " + name + " with " + cells.size() + " cells");
     }
     public void addCell(Cell cell) {
+        long started = ModelMetrics.start();
         if (cell == null) {
             throw new InvalidReferenceException("Cell cannot be null.");
         }
+        if (LinkBatch.current() != null) {
+            cell.setBlock(this);
+            return;
+        }
         if (!cells.contains(cell)) {
             cells.add(cell);
+            UnitOfWork.recordUndo(this, () -> cells.remove(cell));
             
             if (cell.getBlock() != this) {
                 cell.setBlock(this);
             }
         }
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.LINK, started);
     }
     
     public void removeCell(Cell cell) {
+        long started = ModelMetrics.start();
+        if (LinkBatch.current() != null) {
+            if (cell != null && cell.getBlock() == this) {
+                cell.setBlock(null);
+            }
+            return;
+        }
         if (cell != null && cells.contains(cell)) {
             // Aggregation: cell can exist without block
-            cells.remove(cell);
+            int position = cells.indexOf(cell);
+            cells.remove(position);
+            UnitOfWork.recordUndo(this, () -> cells.add(position, cell));
             if (cell.getBlock() == this) {
                 cell.setBlock(null);
             }
         }
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.UNLINK, started);
     }
     
     public List<Cell> getCells() {
         return Collections.unmodifiableList(cells);
     }
+
+    List<Cell> cellLinks() {
+        return cells;
+    }
     
 
     public void addStaff(Staff staffMember) {
+        long started = ModelMetrics.start();
         if (staffMember == null) {
             throw new InvalidReferenceException("Staff member cannot be null.");
         }
-        if (!staff.contains(staffMember)) {
-            staff.add(staffMember);
-            if (!staffMember.getBlocks().contains(this)) {
-                staffMember.addBlock(this);
+        Staff member = staffMember.getIdentity();   // A CombinedStaff role is linked as its owner
+        if (!staff.contains(member)) {
+            staff.add(member);
+            UnitOfWork.recordUndo(this, () -> staff.remove(member));
+            if (!member.getBlocks().contains(this)) {
+                member.addBlock(this);
             }
         }
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.LINK, started);
     }
     
     public void removeStaff(Staff staffMember) {
-        if (staffMember != null && staff.contains(staffMember)) {
-            staff.remove(staffMember);
-            if (staffMember.getBlocks().contains(this)) {
-                staffMember.removeBlock(this);
+        long started = ModelMetrics.start();
+        Staff member = staffMember != null ? staffMember.getIdentity() : null;
+        if (member != null && staff.contains(member)) {
+            int position = staff.indexOf(member);
+            staff.remove(position);
+            UnitOfWork.recordUndo(this, () -> staff.add(position, member));
+            if (member.getBlocks().contains(this)) {
+                member.removeBlock(this);
             }
         }
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.UNLINK, started);
     }
     
     public List<Staff> getStaff() {
@@ -134,6 +179,7 @@ public class Block implements Serializable {
         }
         if (!schedules.contains(schedule)) {
             schedules.add(schedule);
+            UnitOfWork.recordUndo(this, () -> schedules.remove(schedule));
             if (schedule.getBlock() != this) {
                 schedule.setBlock(this);
             }
@@ -142,7 +188,9 @@ public class Block implements Serializable {
     
     public void removeSchedule(Schedule schedule) {
         if (schedule != null && schedules.contains(schedule)) {
-            schedules.remove(schedule);
+            int position = schedules.indexOf(schedule);
+            schedules.remove(position);
+            UnitOfWork.recordUndo(this, () -> schedules.add(position, schedule));
             // Note: Schedule requires a Block, so this should transfer to another block
         }
     }
@@ -152,22 +200,26 @@ public class Block implements Serializable {
     }
     
     public static List<Block> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Block>) in.readObject();
+            extent.replaceAll((List<Block>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Block.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
@@ -1,6 +1,11 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.IntObjectMap;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,7 +18,11 @@ public class Cell implements Serializable {
         LOW, MEDIUM, HIGH
     }
 
-    private static List<Cell> extent = new ArrayList<>();
+    private static final VersionedExtent<Cell> extent = new VersionedExtent<>(Cell.class);
+    static {   // Links per member, read when metrics are exported
+        ModelMetrics.fanOut("Cell.prisoners", Cell::getExtent, cell -> cell.getPrisoners().size());
+    }
+    private static IntObjectMap<Cell> cellNumberIndex = new IntObjectMap<>();  // Natural key: cellNumber -> Cell (unique)
     private int cellNumber;
     private String type;           // Type of cell
     private int capasity;          // Capacity (diagram spelling)
@@ -22,25 +31,63 @@ public class Cell implements Serializable {
     private List<Prisoner> prisoners;       // Cell[1..*] to Prisoner[1] - basic association
     
     public Cell(int cellNumber, String type, int capasity, SecurityLevel securityLevel) {
+        long started = ModelMetrics.start();
         setCellNumber(cellNumber);
         setType(type);
         setCapasity(capasity);
         setSecurityLevel(securityLevel);
         this.prisoners = new ArrayList<>();
         
+        registerCellNumber();
         extent.add(this);
+        EventBus.created(this);
+        ModelMetrics.time(Cell.class, ModelMetrics.Operation.CREATE, started);
     }
     public int getCellNumber() { return cellNumber; }
     public void setCellNumber(int cellNumber) {
         if (cellNumber <= 0) {
             throw new NegativeNumberException("Cell number must be positive.");
         }
+        int oldCellNumber = this.cellNumber;
+        // Re-key the index once this cell is registered (constructor registers at the end)
+        if (this.cellNumber != cellNumber && cellNumberIndex.get(this.cellNumber) == this) {
+            Cell existing = cellNumberIndex.get(cellNumber);
+            if (existing != null) {
+                throw new ValidationException("Cell number " + cellNumber + " is already in use.");
+            }
+            cellNumberIndex.remove(oldCellNumber);
+            cellNumberIndex.put(cellNumber, this);
+            UnitOfWork.recordUndo(this, () -> {
+                cellNumberIndex.remove(cellNumber);
+                cellNumberIndex.put(oldCellNumber, this);
+            });
+        }
         this.cellNumber = cellNumber;
+        UnitOfWork.recordUndo(this, () -> this.cellNumber = oldCellNumber);
+    }
+
+    private void registerCellNumber() {
+        Cell existing = cellNumberIndex.get(cellNumber);
+        if (existing != null && existing != this) {
+            throw new ValidationException("Cell number " + cellNumber + " is already in use.");
+        }
+        int registered = cellNumber;
+        cellNumberIndex.put(registered, this);
+        UnitOfWork.recordUndo(this, () -> cellNumberIndex.remove(registered));
+    }
+
+    /**
+     * Finds a cell by its unique cell number (O(1) index lookup)
+     */
+    public static Cell findByCellNumber(int cellNumber) {
+        return cellNumberIndex.get(cellNumber);
     }
 
     public String getType() { return type; }
     public void setType(String type) {
-        this.type = type;  
+        String oldType = this.type;
+        this.type = type;
+        UnitOfWork.recordUndo(this, () -> this.type = oldType);
     }
 
     public int getCapasity() { return capasity; }
@@ -48,7 +95,9 @@ public class Cell implements Serializable {
         if (capasity <= 0) {
             throw new NegativeNumberException("Capasity must be greater than zero.");
         }
+        int oldCapasity = this.capasity;
         this.capasity = capasity;
+        UnitOfWork.recordUndo(this, () -> this.capasity = oldCapasity);
     }
 
     public SecurityLevel getSecurityLevel() { return securityLevel; }
@@ -56,7 +105,9 @@ public class Cell implements Serializable {
         if (securityLevel == null) {
             throw new InvalidReferenceException("Security level cannot be null.");
         }
+        SecurityLevel oldSecurityLevel = this.securityLevel;
         this.securityLevel = securityLevel;
+        UnitOfWork.recordUndo(this, () -> this.securityLevel = oldSecurityLevel);
     }
 
     public void setBlock(Block block) {
@@ -64,6 +115,18 @@ public class Cell implements Serializable {
         if (this.block != block) {
             Block oldBlock = this.block;
             this.block = block;
+            UnitOfWork.recordUndo(this, () -> this.block = oldBlock);
+            EventBus.changed(this, "block", oldBlock, block);
+            LinkBatch batch = LinkBatch.current();
+            if (batch != null) {  // Block.cells is rebuilt when the batch ends
+                if (oldBlock != null) {
+                    batch.record(oldBlock, oldBlock.cellLinks(), this, Cell::getBlock);
+                }
+                if (block != null) {
+                    batch.record(block, block.cellLinks(), this, Cell::getBlock);
+                }
+                return;
+            }
             
             
             if (oldBlock != null && oldBlock.getCells().contains(this)) {
@@ -81,50 +144,84 @@ public class Cell implements Serializable {
 
     // Cell[1..*] to Prisoner[1] - basic association
     public void addPrisoner(Prisoner prisoner) {
+        long started = ModelMetrics.start();
         if (prisoner == null) {
             throw new InvalidReferenceException("Prisoner cannot be null.");
         }
+        if (LinkBatch.current() != null) {
+            prisoner.setCurrentCell(this);
+            return;
+        }
         if (!prisoners.contains(prisoner)) {
             prisoners.add(prisoner);
+            UnitOfWork.recordUndo(this, () -> prisoners.remove(prisoner));
             if (prisoner.getCurrentCell() != this) {
                 prisoner.setCurrentCell(this);
             }
         }
+        ModelMetrics.time(Cell.class, ModelMetrics.Operation.LINK, started);
     }
 
     public void removePrisoner(Prisoner prisoner) {
+        long started = ModelMetrics.start();
+        if (LinkBatch.current() != null) {
+            if (prisoner != null && prisoner.getCurrentCell() == this) {
+                prisoner.setCurrentCell(null);
+            }
+            return;
+        }
         if (prisoners.contains(prisoner)) {
-            prisoners.remove(prisoner);
+            int position = prisoners.indexOf(prisoner);
+            prisoners.remove(position);
+            UnitOfWork.recordUndo(this, () -> prisoners.add(position, prisoner));
             if (prisoner.getCurrentCell() == this) {
                 prisoner.setCurrentCell(null);
             }
         }
+        ModelMetrics.time(Cell.class, ModelMetrics.Operation.UNLINK, started);
     }
 
     public List<Prisoner> getPrisoners() {
         return Collections.unmodifiableList(prisoners);
     }
 
+    List<Prisoner> prisonerLinks() {
+        return prisoners;
+    }
+
     public static List<Cell> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Cell.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Cell>) in.readObject();
+            extent.replaceAll((List<Cell>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
+        }
+        rebuildIndex();
+        ModelMetrics.time(Cell.class, ModelMetrics.Operation.LOAD, started);
+    }
+
+    private static void rebuildIndex() {
+        cellNumberIndex.clear();
+        for (Cell cell : extent) {
+            cellNumberIndex.put(cell.cellNumber, cell);
         }
     }
     
     public static void clearExtent() {
         extent.clear();
+        cellNumberIndex.clear();
     }
 }
@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -14,7 +18,7 @@ public class Charges implements Serializable {
         Minor, Moderate, Severe
     }
 
-    private static List<Charges> extent = new ArrayList<>();
+    private static final VersionedExtent<Charges> extent = new VersionedExtent<>(Charges.class);
 
     private String description;
     private String lawSection;
@@ -22,29 +26,44 @@ public class Charges implements Serializable {
     private LocalDate dateFiled;       // Date filed
     private Prisoner prisoner;     // Defendant
     private CourtCase courtCase;   // Court case
+    private transient boolean constructing = true;
 
     public Charges(String description, String lawSection, SeverityLevel severityLevel, LocalDate dateFiled,
                    Prisoner prisoner, CourtCase courtCase) {
-        setDescription(description);
-        setLawSection(lawSection);
-        setSeverityLevel(severityLevel);
-        setDateFiled(dateFiled);
-        setCourtCase(courtCase);  // Set court case first
-        setPrisoner(prisoner);     // Then set prisoner (which needs courtCase)
-        extent.add(this);
+        long started = ModelMetrics.start();
+        // Atomic: a failing setPrisoner must not leave the charge linked into the court case
+        UnitOfWork.run(() -> {
+            setDescription(description);
+            setLawSection(lawSection);
+            setSeverityLevel(severityLevel);
+            setDateFiled(dateFiled);
+            setCourtCase(courtCase);  // Set court case first
+            setPrisoner(prisoner);     // Then set prisoner (which needs courtCase)
+            constructing = false;
+            extent.add(this);
+            EventBus.created(this);
+        });
+        ModelMetrics.time(Charges.class, ModelMetrics.Operation.CREATE, started);
     }
     public String getDescription() { return description; }
     public void setDescription(String description) {
         if (description == null || description.trim().isEmpty()) {
             throw new EmptyStringException("Description cannot be empty.");
         }
+        String oldDescription = this.description;
         this.description = description;
+        UnitOfWork.recordUndo(this, () -> this.description = oldDescription);
+        if (!constructing && !oldDescription.equals(description)) {
+            EventBus.changed(this, "description", oldDescription, description);
+        }
     }
 
     public String getLawSection() { return lawSection; }
     public void setLawSection(String lawSection) {
         // lawSection is optional [0..1], so null or empty is allowed
+        String oldLawSection = this.lawSection;
         this.lawSection = lawSection;
+        UnitOfWork.recordUndo(this, () -> this.lawSection = oldLawSection);
     }
 
     public SeverityLevel getSeverityLevel() { return severityLevel; }
@@ -52,7 +71,9 @@ public class Charges implements Serializable {
         if (severityLevel == null) {
             throw new InvalidReferenceException("Severity level cannot be null.");
         }
+        SeverityLevel oldSeverityLevel = this.severityLevel;
         this.severityLevel = severityLevel;
+        UnitOfWork.recordUndo(this, () -> this.severityLevel = oldSeverityLevel);
     }
 
     public LocalDate getDateFiled() { return dateFiled; }
@@ -60,7 +81,9 @@ public class Charges implements Serializable {
         if (dateFiled == null) {
             throw new InvalidReferenceException("Date filed cannot be null.");
         }
+        LocalDate oldDateFiled = this.dateFiled;
         this.dateFiled = dateFiled;
+        UnitOfWork.recordUndo(this, () -> this.dateFiled = oldDateFiled);
     }
     /**
      * Determines if charge is a felony based on severity level
@@ -74,7 +97,12 @@ public class Charges implements Serializable {
         if (prisoner == null) {
             throw new InvalidReferenceException("Prisoner cannot be null.");
         }
+        Prisoner oldPrisoner = this.prisoner;
         this.prisoner = prisoner;
+        UnitOfWork.recordUndo(this, () -> this.prisoner = oldPrisoner);
+        if (!constructing && oldPrisoner != prisoner) {
+            EventBus.changed(this, "prisoner", oldPrisoner, prisoner);
+        }
         
         if (!prisoner.getCourtCases().contains(courtCase)) {
             prisoner.addCourtCase(courtCase);
@@ -93,7 +121,14 @@ public class Charges implements Serializable {
         if (this.courtCase != null && this.courtCase != courtCase) {
             throw new ValidationException("Charge already belongs to another court case - composition violation.");
         }
+        CourtCase oldCourtCase = this.courtCase;
         this.courtCase = courtCase;
+        UnitOfWork.recordUndo(this, () -> this.courtCase = oldCourtCase);
+        LinkBatch batch = LinkBatch.current();
+        if (batch != null) {  // CourtCase.charges is rebuilt when the batch ends
+            batch.record(courtCase, courtCase.chargeLinks(), this, Charges::getCourtCase);
+            return;
+        }
         
         if (!courtCase.getCharges().contains(this)) {
             courtCase.addCharge(this);
@@ -108,30 +143,37 @@ public class Charges implements Serializable {
      * Deletes this charge (COMPOSITION)
      */
     public void delete() {
+        long started = ModelMetrics.start();
         extent.remove(this);
+        EventBus.deleted(this);
         // Clean up prisoner association
         if (prisoner != null && prisoner.getCourtCases().contains(courtCase)) {
             prisoner.removeCourtCase(courtCase);
         }
+        ModelMetrics.time(Charges.class, ModelMetrics.Operation.DELETE, started);
     }
 
     public static List<Charges> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Charges.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Charges>) in.readObject();
+            extent.replaceAll((List<Charges>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Charges.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
@@ -1,10 +1,15 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.PartitionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * CombinedStaff represents staff members who can handle multiple roles
@@ -12,11 +17,14 @@ import java.util.List;
  * 
  * Since Java doesn't support multiple inheritance, this class extends Staff
  * and delegates to Guard and Doctor objects for role-specific behavior.
+ * The role objects hold only their role's state (rank, licence, ...); name,
+ * contact details, shift and block/schedule links are this member's, and only
+ * this member is in the Staff extent.
  */
 public class CombinedStaff extends Staff {
     private static final long serialVersionUID = 1L;
 
-    private static List<CombinedStaff> extent = new ArrayList<>();
+    private static final PartitionedExtent.View<CombinedStaff> extent = Staff.extentView(CombinedStaff.class);   // Members in the Staff extent
     private Boolean availableForEmergency;  // [0..1] - nullable
     private Guard guardRole;    // Guard capabilities
     private Doctor doctorRole;  // Doctor capabilities
@@ -26,10 +34,12 @@ public class CombinedStaff extends Staff {
         super(name, surname, experienceYears, shiftHour, phone, email);
         this.availableForEmergency = null;  // Initially null
         
-        // Create role delegates (both Guard and Doctor)
-        this.guardRole = new Guard(name, surname, experienceYears, shiftHour, phone, email, guardRank, weapon);
-        this.doctorRole = new Doctor(name, surname, experienceYears, shiftHour, phone, email, licenseNumber, contactInfo);
+        // Role objects share this member's attributes and links; only role-specific state is their own
+        this.guardRole = new Guard(this, guardRank, weapon);
+        this.doctorRole = new Doctor(this, licenseNumber, contactInfo);
         
+        registerEmail();
+        constructing = false;
         extent.add(this);
     }
     public Boolean getAvailableForEmergency() {
@@ -37,7 +47,12 @@ public class CombinedStaff extends Staff {
     }
 
     public void setAvailableForEmergency(Boolean availableForEmergency) {
+        Boolean old = this.availableForEmergency;
         this.availableForEmergency = availableForEmergency;
+        UnitOfWork.recordUndo(this, () -> this.availableForEmergency = old);
+        if (!Objects.equals(old, availableForEmergency)) {
+            EventBus.changed(this, "availableForEmergency", old, availableForEmergency);
+        }
     }
     public void resolveToEmergency() {
         if (availableForEmergency == null || !availableForEmergency) {
@@ -47,10 +62,16 @@ public class CombinedStaff extends Staff {
         System.out.println(getName() + " " + getSurname() + " is resolving emergency.");
     }
     public Guard getGuardRole() {
+        if (guardRole != null && guardRole.getIdentity() != this) {
+            guardRole.becomeRoleOf(this);  // Loaded from a file written when roles copied this member
+        }
         return guardRole;
     }
     
     public Doctor getDoctorRole() {
+        if (doctorRole != null && doctorRole.getIdentity() != this) {
+            doctorRole.becomeRoleOf(this);
+        }
         return doctorRole;
     }
     
@@ -62,25 +83,32 @@ public class CombinedStaff extends Staff {
         return doctorRole != null;
     }
     public static List<CombinedStaff> getCombinedStaffExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveCombinedStaffExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(CombinedStaff.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadCombinedStaffExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<CombinedStaff>) in.readObject();
+            extent.replaceAll((List<CombinedStaff>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        Staff.unindexPartition(CombinedStaff.class);
+        Staff.indexPartition(CombinedStaff.class);
+        ModelMetrics.time(CombinedStaff.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearCombinedStaffExtent() {
+        Staff.unindexPartition(CombinedStaff.class);
         extent.clear();
     }
 }
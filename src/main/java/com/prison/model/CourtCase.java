@@ -1,11 +1,17 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 public class CourtCase implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -14,19 +20,24 @@ public class CourtCase implements Serializable {
         PENDING, IN_PROGRESS, CLOSED, APPEAL
     }
 
-    private static List<CourtCase> extent = new ArrayList<>();
+    private static final VersionedExtent<CourtCase> extent = new VersionedExtent<>(CourtCase.class);
 
     private LocalDate courtDate;
     private CaseStatus status;
     private String judgeName;
     private List<Charges> charges;   // COMPOSITION: Charges[0..*] to CourtCase[1]
+    private transient boolean constructing = true;
 
     public CourtCase(LocalDate courtDate, CaseStatus status, String judgeName) {
+        long started = ModelMetrics.start();
         setCourtDate(courtDate);
         setStatus(status);
         setJudgeName(judgeName);
         this.charges = new ArrayList<>();
+        constructing = false;
         extent.add(this);
+        EventBus.created(this);
+        ModelMetrics.time(CourtCase.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public LocalDate getCourtDate() { return courtDate; }
@@ -34,7 +45,13 @@ public class CourtCase implements Serializable {
         if (courtDate == null) {
             throw new InvalidReferenceException("Court date cannot be null.");
         }
+        LocalDate oldDate = this.courtDate;
+        LocalDate oldCourtDate = this.courtDate;
         this.courtDate = courtDate;
+        UnitOfWork.recordUndo(this, () -> this.courtDate = oldCourtDate);
+        if (!constructing && !oldDate.equals(courtDate)) {
+            EventBus.changed(this, "courtDate", oldDate, courtDate);
+        }
     }
 
     public CaseStatus getStatus() { return status; }
@@ -42,7 +59,12 @@ public class CourtCase implements Serializable {
         if (status == null) {
             throw new InvalidReferenceException("Case status cannot be null.");
         }
+        CaseStatus oldStatus = this.status;
         this.status = status;
+        UnitOfWork.recordUndo(this, () -> this.status = oldStatus);
+        if (!constructing && oldStatus != status) {
+            EventBus.changed(this, "status", oldStatus, status);
+        }
     }
 
     public String getJudgeName() { return judgeName; }
@@ -50,7 +72,13 @@ public class CourtCase implements Serializable {
         if (judgeName == null || judgeName.trim().isEmpty()) {
             throw new EmptyStringException("Judge name cannot be empty.");
         }
+        String oldJudge = this.judgeName;
+        String oldJudgeName = this.judgeName;
         this.judgeName = judgeName;
+        UnitOfWork.recordUndo(this, () -> this.judgeName = oldJudgeName);
+        if (!constructing && !oldJudge.equals(judgeName)) {
+            EventBus.changed(this, "judgeName", oldJudge, judgeName);
+        }
     }
     /**
      * Adds a charge to this court case (COMPOSITION)
@@ -63,8 +91,13 @@ public class CourtCase implements Serializable {
         if (charge.getCourtCase() != null && charge.getCourtCase() != this) {
             throw new ValidationException("Charge already belongs to another court case - composition violation.");
         }
+        if (LinkBatch.current() != null) {
+            charge.setCourtCase(this);
+            return;
+        }
         if (!charges.contains(charge)) {
             charges.add(charge);
+            UnitOfWork.recordUndo(this, () -> charges.remove(charge));
             if (charge.getCourtCase() != this) {
                 charge.setCourtCase(this);
             }
@@ -76,7 +109,9 @@ public class CourtCase implements Serializable {
      */
     public void removeCharge(Charges charge) {
         if (charges.contains(charge)) {
-            charges.remove(charge);
+            int position = charges.indexOf(charge);
+            charges.remove(position);
+            UnitOfWork.recordUndo(this, () -> charges.add(position, charge));
             charge.delete();
         }
     }
@@ -85,22 +120,34 @@ public class CourtCase implements Serializable {
      * Deletes this court case (COMPOSITION - cascades to all charges)
      */
     public void delete() {
+        long started = ModelMetrics.start();
         List<Charges> chargesCopy = new ArrayList<>(charges);
         for (Charges charge : chargesCopy) {
             charge.delete();
         }
         charges.clear();
+        UnitOfWork.recordUndo(this, () -> charges.addAll(chargesCopy));
         extent.remove(this);
+        EventBus.deleted(this);
+        ModelMetrics.time(CourtCase.class, ModelMetrics.Operation.DELETE, started);
     }
     
     public List<Charges> getCharges() {
         return Collections.unmodifiableList(charges);
     }
+
+    List<Charges> chargeLinks() {
+        return charges;
+    }
     
+    /**
+     * Distinct defendants in charge order; one pass over the charges
+     */
     public List<Prisoner> getPrisoners() {
+        Set<Prisoner> seen = Collections.newSetFromMap(new IdentityHashMap<>());
         List<Prisoner> prisoners = new ArrayList<>();
         for (Charges charge : charges) {
-            if (charge.getPrisoner() != null && !prisoners.contains(charge.getPrisoner())) {
+            if (charge.getPrisoner() != null && seen.add(charge.getPrisoner())) {
                 prisoners.add(charge.getPrisoner());
             }
         }
@@ -108,22 +155,26 @@ public class CourtCase implements Serializable {
     }
 
     public static List<CourtCase> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(CourtCase.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<CourtCase>) in.readObject();
+            extent.replaceAll((List<CourtCase>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(CourtCase.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
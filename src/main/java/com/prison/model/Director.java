@@ -1,6 +1,9 @@
 package com.prison.model;
 
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.PartitionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,7 +16,7 @@ public class Director extends Staff {
         ASSISTANT, REGIONAL, GENERAL
     }
 
-    private static List<Director> extent = new ArrayList<>();
+    private static final PartitionedExtent.View<Director> extent = Staff.extentView(Director.class);   // Directors in the Staff extent
 
     private DirectorRank rank;
     private Block assignedBlock;  // Single block assigned to director (from diagram)
@@ -32,6 +35,8 @@ public class Director extends Staff {
         this.approvedVisits = new ArrayList<>();
         this.assignments = new ArrayList<>();
         this.supervisedReports = new ArrayList<>();
+        registerEmail();
+        constructing = false;
         extent.add(this);
     }
 
@@ -40,12 +45,16 @@ public class Director extends Staff {
         if (rank == null) {
             throw new InvalidReferenceException("Rank cannot be null.");
         }
+        DirectorRank oldRank = this.rank;
         this.rank = rank;
+        UnitOfWork.recordUndo(this, () -> this.rank = oldRank);
     }
     
     public Block getAssignedBlock() { return assignedBlock; }
     public void setAssignedBlock(Block block) {
-        this.assignedBlock = block;  
+        Block oldBlock = this.assignedBlock;
+        this.assignedBlock = block;
+        UnitOfWork.recordUndo(this, () -> this.assignedBlock = oldBlock);
     }
     // Many-to-many: Director[0..*] to Punishment[0..*]
     public void addPunishment(Punishment punishment) {
@@ -54,6 +63,7 @@ public class Director extends Staff {
         }
         if (!approvedPunishments.contains(punishment)) {
             approvedPunishments.add(punishment);
+            UnitOfWork.recordUndo(this, () -> approvedPunishments.remove(punishment));
             if (!punishment.getDirectors().contains(this)) {
                 punishment.addDirector(this);
             }
@@ -62,7 +72,9 @@ public class Director extends Staff {
     
     public void removePunishment(Punishment punishment) {
         if (punishment != null && approvedPunishments.contains(punishment)) {
-            approvedPunishments.remove(punishment);
+            int position = approvedPunishments.indexOf(punishment);
+            approvedPunishments.remove(position);
+            UnitOfWork.recordUndo(this, () -> approvedPunishments.add(position, punishment));
             if (punishment.getDirectors().contains(this)) {
                 punishment.removeDirector(this);
             }
@@ -91,6 +103,7 @@ public class Director extends Staff {
         }
         if (!reviewedIncidentReports.contains(report)) {
             reviewedIncidentReports.add(report);
+            UnitOfWork.recordUndo(this, () -> reviewedIncidentReports.remove(report));
             if (report.getReviewingDirector() != this) {
                 report.setReviewingDirector(this);
             }
@@ -99,7 +112,9 @@ public class Director extends Staff {
     
     public void removeReviewedIncidentReport(IncidentReport report) {
         if (report != null && reviewedIncidentReports.contains(report)) {
-            reviewedIncidentReports.remove(report);
+            int position = reviewedIncidentReports.indexOf(report);
+            reviewedIncidentReports.remove(position);
+            UnitOfWork.recordUndo(this, () -> reviewedIncidentReports.add(position, report));
             if (report.getReviewingDirector() == this) {
                 report.setReviewingDirector(null);
             }
@@ -115,17 +130,20 @@ public class Director extends Staff {
         }
         if (!approvedVisits.contains(visit)) {
             approvedVisits.add(visit);
-            if (visit.getDirector() != this) {
-                visit.setDirector(this);
+            UnitOfWork.recordUndo(this, () -> approvedVisits.remove(visit));
+            if (!visit.getDirectors().contains(this)) {
+                visit.addDirector(this);   // Keeps the visit's other directors
             }
         }
     }
     
     public void removeApprovedVisit(Visit visit) {
         if (visit != null && approvedVisits.contains(visit)) {
-            approvedVisits.remove(visit);
-            if (visit.getDirector() == this) {
-                visit.setDirector(null);
+            int position = approvedVisits.indexOf(visit);
+            approvedVisits.remove(position);
+            UnitOfWork.recordUndo(this, () -> approvedVisits.add(position, visit));
+            if (visit.getDirectors().contains(this)) {
+                visit.removeDirector(this);
             }
         }
     }
@@ -139,6 +157,7 @@ public class Director extends Staff {
         }
         if (!assignments.contains(assignment)) {
             assignments.add(assignment);
+            UnitOfWork.recordUndo(this, () -> assignments.remove(assignment));
             if (assignment.getDirector() != this) {
                 assignment.setDirector(this);
             }
@@ -147,7 +166,9 @@ public class Director extends Staff {
     
     public void removeAssignment(Assignment assignment) {
         if (assignment != null && assignments.contains(assignment)) {
-            assignments.remove(assignment);
+            int position = assignments.indexOf(assignment);
+            assignments.remove(position);
+            UnitOfWork.recordUndo(this, () -> assignments.add(position, assignment));
             if (assignment.getDirector() == this) {
                 assignment.setDirector(null);
             }
@@ -163,6 +184,7 @@ public class Director extends Staff {
         }
         if (!supervisedReports.contains(report)) {
             supervisedReports.add(report);
+            UnitOfWork.recordUndo(this, () -> supervisedReports.remove(report));
             if (report.getSupervisingDirector() != this) {
                 report.setSupervisingDirector(this);
             }
@@ -171,7 +193,9 @@ public class Director extends Staff {
     
     public void removeSupervisedReport(Report report) {
         if (report != null && supervisedReports.contains(report)) {
-            supervisedReports.remove(report);
+            int position = supervisedReports.indexOf(report);
+            supervisedReports.remove(position);
+            UnitOfWork.recordUndo(this, () -> supervisedReports.add(position, report));
             if (report.getSupervisingDirector() == this) {
                 report.setSupervisingDirector(null);
             }
@@ -183,25 +207,32 @@ public class Director extends Staff {
     }
 
     public static List<Director> getDirectorExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveDirectorExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Director.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadDirectorExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Director>) in.readObject();
+            extent.replaceAll((List<Director>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        Staff.unindexPartition(Director.class);
+        Staff.indexPartition(Director.class);
+        ModelMetrics.time(Director.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearDirectorExtent() {
+        Staff.unindexPartition(Director.class);
         extent.clear();
     }
 }
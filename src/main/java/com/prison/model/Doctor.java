@@ -1,40 +1,99 @@
 package com.prison.model;
 
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.PartitionedExtent;
 import java.io.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Doctor extends Staff {
     private static final long serialVersionUID = 1L;
-    // Subclasses often have their own extent if we want to query just Doctors.
-    private static List<Doctor> extent = new ArrayList<>();
+    private static final PartitionedExtent.View<Doctor> extent = Staff.extentView(Doctor.class);   // Doctors in the Staff extent
+    private static Map<String, Doctor> licenseNumberIndex = new HashMap<>();  // Natural key: licenseNumber -> Doctor (unique)
     private List<String> specialisation;
     private String licenseNumber;
     private String contactInfo;  // Contact information for the doctor
     private List<MedicalExamination> examinations;   // Examinations performed
     private List<MedicalRecord> medicalRecords;      // Medical records managed by this doctor
     private List<MedicalReport> medicalReports;      // Medical reports created by this doctor
+    private DoctorWorkload workload;                 // Running aggregates over the three lists above
     public Doctor(String name, String surname, int experienceYears, 
                   String shiftHour, String phone, String email, 
                   String licenseNumber, String contactInfo) {
         super(name, surname, experienceYears, shiftHour, phone, email);
+        initialise(licenseNumber, contactInfo, true);
+        constructing = false;
+        extent.add(this);
+    }
+
+    /**
+     * The doctor role of a CombinedStaff member, sharing its identity; the
+     * email stays registered to the member itself. Roles are not in the
+     * extent; the member is.
+     */
+    Doctor(CombinedStaff owner, String licenseNumber, String contactInfo) {
+        super(owner);
+        initialise(licenseNumber, contactInfo, false);
+        constructing = false;
+    }
+
+    private void initialise(String licenseNumber, String contactInfo, boolean registerEmail) {
         setLicenseNumber(licenseNumber);
         setContactInfo(contactInfo);
         this.specialisation = new ArrayList<>();
         this.examinations = new ArrayList<>();
         this.medicalRecords = new ArrayList<>();
         this.medicalReports = new ArrayList<>();
+        this.workload = new DoctorWorkload();
         
-        extent.add(this);
+        checkLicenseNumberAvailable();
+        if (registerEmail) {
+            registerEmail();
+        }
+        String registered = this.licenseNumber;
+        licenseNumberIndex.put(registered, this);
+        UnitOfWork.recordUndo(this, () -> licenseNumberIndex.remove(registered));
     }
     public String getLicenseNumber() { return licenseNumber; }
     public void setLicenseNumber(String licenseNumber) {
         if (licenseNumber == null || licenseNumber.trim().isEmpty()) {
             throw new EmptyStringException("License number cannot be empty.");
         }
+        String oldLicenseNumber = this.licenseNumber;
+        if (!licenseNumber.equals(oldLicenseNumber) && oldLicenseNumber != null
+                && licenseNumberIndex.get(oldLicenseNumber) == this) {
+            if (licenseNumberIndex.containsKey(licenseNumber)) {
+                throw new ValidationException("License number " + licenseNumber + " is already in use.");
+            }
+            licenseNumberIndex.remove(oldLicenseNumber);
+            licenseNumberIndex.put(licenseNumber, this);
+            UnitOfWork.recordUndo(this, () -> {
+                licenseNumberIndex.remove(licenseNumber);
+                licenseNumberIndex.put(oldLicenseNumber, this);
+            });
+        }
         this.licenseNumber = licenseNumber;
+        UnitOfWork.recordUndo(this, () -> this.licenseNumber = oldLicenseNumber);
+    }
+
+    private void checkLicenseNumberAvailable() {
+        Doctor existing = licenseNumberIndex.get(licenseNumber);
+        if (existing != null && existing != this) {
+            throw new ValidationException("License number " + licenseNumber + " is already in use.");
+        }
+    }
+
+    /**
+     * Finds a doctor by unique license number (O(1) index lookup)
+     */
+    public static Doctor findByLicenseNumber(String licenseNumber) {
+        return licenseNumberIndex.get(licenseNumber);
     }
 
     public List<String> getSpecialisation() {
@@ -45,6 +104,7 @@ public class Doctor extends Staff {
             throw new EmptyStringException("Specialisation cannot be empty.");
         }
         specialisation.add(specialization);
+        UnitOfWork.recordUndo(this, () -> specialisation.remove(specialisation.size() - 1));
     }
 
     public String getContactInfo() { return contactInfo; }
@@ -52,7 +112,9 @@ public class Doctor extends Staff {
         if (contactInfo == null || contactInfo.trim().isEmpty()) {
             throw new EmptyStringException("Contact info cannot be empty.");
         }
+        String oldContactInfo = this.contactInfo;
         this.contactInfo = contactInfo;
+        UnitOfWork.recordUndo(this, () -> this.contactInfo = oldContactInfo);
     }
 
     public void addExamination(MedicalExamination exam) {
@@ -60,7 +122,13 @@ public class Doctor extends Staff {
             throw new InvalidReferenceException("Medical examination cannot be null.");
         }
         if (!examinations.contains(exam)) {
+            LocalDate day = exam.getDateOfExamination();
             examinations.add(exam);
+            getWorkload().examinationAdded(day);
+            UnitOfWork.recordUndo(this, () -> {
+                examinations.remove(exam);
+                getWorkload().examinationRemoved(day);
+            });
             if (exam.getDoctor() != this) {
                 exam.setDoctor(this);
             }
@@ -69,7 +137,14 @@ public class Doctor extends Staff {
     
     public void removeExamination(MedicalExamination exam) {
         if (exam != null && examinations.contains(exam)) {
-            examinations.remove(exam);
+            int position = examinations.indexOf(exam);
+            LocalDate day = exam.getDateOfExamination();
+            examinations.remove(position);
+            getWorkload().examinationRemoved(day);
+            UnitOfWork.recordUndo(this, () -> {
+                examinations.add(position, exam);
+                getWorkload().examinationAdded(day);
+            });
         }
     }
     
@@ -82,6 +157,11 @@ public class Doctor extends Staff {
         }
         if (!medicalRecords.contains(record)) {
             medicalRecords.add(record);
+            getWorkload().recordAdded();
+            UnitOfWork.recordUndo(this, () -> {
+                medicalRecords.remove(record);
+                getWorkload().recordRemoved();
+            });
             if (record.getAssignedDoctor() != this) {
                 record.setAssignedDoctor(this);
             }
@@ -90,7 +170,13 @@ public class Doctor extends Staff {
     
     public void removeMedicalRecord(MedicalRecord record) {
         if (record != null && medicalRecords.contains(record)) {
-            medicalRecords.remove(record);
+            int position = medicalRecords.indexOf(record);
+            medicalRecords.remove(position);
+            getWorkload().recordRemoved();
+            UnitOfWork.recordUndo(this, () -> {
+                medicalRecords.add(position, record);
+                getWorkload().recordAdded();
+            });
             if (record.getAssignedDoctor() == this) {
                 record.setAssignedDoctor(null);
             }
@@ -105,7 +191,14 @@ public class Doctor extends Staff {
             throw new InvalidReferenceException("Medical report cannot be null.");
         }
         if (!medicalReports.contains(report)) {
+            LocalDate date = report.getDate();
+            double minutes = report.getDuration();
             medicalReports.add(report);
+            getWorkload().reportAdded(date, minutes);
+            UnitOfWork.recordUndo(this, () -> {
+                medicalReports.remove(report);
+                getWorkload().reportRemoved(date, minutes);
+            });
             if (report.getDoctor() != this) {
                 report.setDoctor(this);
             }
@@ -114,39 +207,82 @@ public class Doctor extends Staff {
     
     public void removeMedicalReport(MedicalReport report) {
         if (report != null && medicalReports.contains(report)) {
-            medicalReports.remove(report);
+            int position = medicalReports.indexOf(report);
+            LocalDate date = report.getDate();
+            double minutes = report.getDuration();
+            medicalReports.remove(position);
+            getWorkload().reportRemoved(date, minutes);
+            UnitOfWork.recordUndo(this, () -> {
+                medicalReports.add(position, report);
+                getWorkload().reportAdded(date, minutes);
+            });
         }
     }
     
     public List<MedicalReport> getMedicalReports() {
         return Collections.unmodifiableList(medicalReports);
     }
+
+    /**
+     * Exams per day, report minutes per week and open records, kept incrementally
+     */
+    public DoctorWorkload getWorkload() {
+        if (workload == null) {
+            workload = DoctorWorkload.of(this);  // Loaded from a file written without workloads
+        }
+        return workload;
+    }
     public static List<Doctor> getDoctorExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
     
-    // Note: Saving/Loading specific Doctor extent might be redundant if we save Staff extent, 
-    // but for the assignment, we might want to demonstrate it or just rely on Staff persistence if we want polymorphic retrieval.
-    // However, usually extent persistence is per class. 
-    // If we save Staff extent, it will contain Doctors. 
-    // If we save Doctor extent separately, we duplicate data if we are not careful.
-    
+    // Staff.saveExtent/loadExtent already cover Doctors; this file holds the Doctor partition alone.
+
     public static void saveDoctorExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Doctor.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadDoctorExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Doctor>) in.readObject();
+            extent.replaceAll((List<Doctor>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
+        }
+        Staff.unindexPartition(Doctor.class);
+        Staff.indexPartition(Doctor.class);
+        ModelMetrics.time(Doctor.class, ModelMetrics.Operation.LOAD, started);
+    }
+
+    /**
+     * Drops the licences held by type's members: Doctors, or the doctor
+     * roles of CombinedStaff members.
+     */
+    static void unindexLicenses(Class<? extends Staff> type) {
+        licenseNumberIndex.values().removeIf(doctor -> type.isInstance(doctor.getIdentity()));
+    }
+
+    /**
+     * Indexes the licences of the Doctors and CombinedStaff doctor roles
+     * among type's members, e.g. after a load.
+     */
+    static void indexLicenses(Class<? extends Staff> type) {
+        for (Staff staff : Staff.extentView(type)) {
+            Doctor doctor = staff instanceof Doctor ? (Doctor) staff
+                : staff instanceof CombinedStaff ? ((CombinedStaff) staff).getDoctorRole() : null;
+            if (doctor != null) {
+                licenseNumberIndex.put(doctor.licenseNumber, doctor);
+            }
         }
     }
     
     public static void clearDoctorExtent() {
+        Staff.unindexPartition(Doctor.class);
         extent.clear();
     }
 }
@@ -0,0 +1,269 @@
+package com.prison.model;
+
+import com.prison.tx.UnitOfWork;
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Running workload figures of one Doctor.
+ *
+ * Kept up to date by the Doctor add/remove mutators and by the date and
+ * duration setters of MedicalExamination and MedicalReport, so dashboards
+ * read counters instead of walking the doctor's lists. Day and week buckets
+ * are sorted, so a window of k buckets costs O(log n + k).
+ */
+public final class DoctorWorkload implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final class WeekTotal implements Serializable {
+        private static final long serialVersionUID = 1L;
+        int reports;
+        double minutes;
+    }
+
+    private final TreeMap<LocalDate, Integer> examinationsPerDay = new TreeMap<>();
+    private final TreeMap<LocalDate, WeekTotal> reportsPerWeek = new TreeMap<>();   // Keyed by the Monday of the week
+    private int examinationCount;
+    private double reportMinutes;
+    private int openRecords;              // Records currently assigned to the doctor
+
+    DoctorWorkload() {
+    }
+
+    /**
+     * Recomputes the figures from the doctor's lists (objects loaded from
+     * files written before workloads were kept).
+     */
+    static DoctorWorkload of(Doctor doctor) {
+        DoctorWorkload workload = new DoctorWorkload();
+        for (MedicalExamination exam : doctor.getExaminations()) {
+            workload.examinationAdded(exam.getDateOfExamination());
+        }
+        for (MedicalReport report : doctor.getMedicalReports()) {
+            workload.reportAdded(report.getDate(), report.getDuration());
+        }
+        workload.openRecords = doctor.getMedicalRecords().size();
+        return workload;
+    }
+
+    // --- Maintenance (called by the model mutators) ---
+
+    void examinationAdded(LocalDate day) {
+        examinationsPerDay.merge(day, 1, Integer::sum);
+        examinationCount++;
+    }
+
+    void examinationRemoved(LocalDate day) {
+        examinationsPerDay.computeIfPresent(day, (d, count) -> count == 1 ? null : count - 1);
+        examinationCount--;
+    }
+
+    void examinationMoved(LocalDate from, LocalDate to) {
+        examinationRemoved(from);
+        examinationAdded(to);
+    }
+
+    void reportAdded(LocalDate date, double minutes) {
+        WeekTotal week = reportsPerWeek.computeIfAbsent(weekOf(date), d -> new WeekTotal());
+        week.reports++;
+        week.minutes += minutes;
+        reportMinutes += minutes;
+    }
+
+    void reportRemoved(LocalDate date, double minutes) {
+        LocalDate monday = weekOf(date);
+        WeekTotal week = reportsPerWeek.get(monday);
+        if (week != null && --week.reports == 0) {
+            reportsPerWeek.remove(monday);   // Drops rounding residue with the last report
+        } else if (week != null) {
+            week.minutes -= minutes;
+        }
+        reportMinutes = reportsPerWeek.isEmpty() ? 0 : reportMinutes - minutes;
+    }
+
+    void recordAdded() {
+        openRecords++;
+    }
+
+    void recordRemoved() {
+        openRecords--;
+    }
+
+    // --- Queries ---
+
+    public int getExaminationCount() {
+        return examinationCount;
+    }
+
+    public int getExaminationsOn(LocalDate day) {
+        return examinationsPerDay.getOrDefault(day, 0);
+    }
+
+    /**
+     * Examinations between the two dates, both inclusive.
+     */
+    public int getExaminationsBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        int total = 0;
+        for (int count : examinationsPerDay.subMap(from, true, to, true).values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Examinations per day over the given number of days ending with day.
+     */
+    public double getAverageExaminationsPerDay(LocalDate day, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Window must cover at least one day.");
+        }
+        return getExaminationsBetween(day.minusDays(days - 1L), day) / (double) days;
+    }
+
+    /**
+     * Non-empty days and their examination counts, oldest first.
+     */
+    public SortedMap<LocalDate, Integer> getExaminationsPerDay() {
+        return Collections.unmodifiableSortedMap(examinationsPerDay);
+    }
+
+    public double getTotalReportMinutes() {
+        return reportMinutes;
+    }
+
+    /**
+     * Report minutes of the Monday-to-Sunday week containing day.
+     */
+    public double getReportMinutesInWeek(LocalDate day) {
+        WeekTotal week = reportsPerWeek.get(weekOf(day));
+        return week == null ? 0 : week.minutes;
+    }
+
+    /**
+     * Report minutes of the given number of weeks ending with the week of day.
+     */
+    public double getReportMinutesOverWeeks(LocalDate day, int weeks) {
+        if (weeks <= 0) {
+            throw new IllegalArgumentException("Window must cover at least one week.");
+        }
+        LocalDate last = weekOf(day);
+        double total = 0;
+        for (WeekTotal week : reportsPerWeek.subMap(last.minusWeeks(weeks - 1L), true, last, true).values()) {
+            total += week.minutes;
+        }
+        return total;
+    }
+
+    /**
+     * Report minutes per week (keyed by the Monday), oldest first.
+     */
+    public NavigableMap<LocalDate, Double> getReportMinutesPerWeek() {
+        TreeMap<LocalDate, Double> result = new TreeMap<>();
+        reportsPerWeek.forEach((monday, week) -> result.put(monday, week.minutes));
+        return Collections.unmodifiableNavigableMap(result);
+    }
+
+    public int getOpenRecords() {
+        return openRecords;
+    }
+
+    private static LocalDate weekOf(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // --- Rebalancing ---
+
+    /**
+     * A suggested move of one medical record to a less loaded doctor.
+     */
+    public static final class Reassignment {
+        private final MedicalRecord record;
+        private final Doctor from;
+        private final Doctor to;
+
+        Reassignment(MedicalRecord record, Doctor from, Doctor to) {
+            this.record = record;
+            this.from = from;
+            this.to = to;
+        }
+
+        public MedicalRecord getRecord() { return record; }
+        public Doctor getFrom() { return from; }
+        public Doctor getTo() { return to; }
+
+        @Override
+        public String toString() {
+            return "Reassignment{" + from.getSurname() + " -> " + to.getSurname() + "}";
+        }
+    }
+
+    /**
+     * Suggests the fewest record moves that leave every doctor within one
+     * open record of the others. Records assigned most recently move first,
+     * so long-standing doctor-patient pairs are kept. O(R + D log D) for R
+     * records and D doctors; nothing is changed until applied.
+     */
+    public static List<Reassignment> suggestRebalancing(Collection<Doctor> doctors) {
+        List<Doctor> byLoad = new ArrayList<>(doctors);
+        if (byLoad.size() < 2) {
+            return new ArrayList<>();
+        }
+        byLoad.sort(Comparator.comparingInt((Doctor d) -> d.getWorkload().getOpenRecords()).reversed());
+        int total = 0;
+        for (Doctor doctor : byLoad) {
+            total += doctor.getWorkload().getOpenRecords();
+        }
+        int base = total / byLoad.size();
+        int extra = total % byLoad.size();
+
+        // The most loaded doctors keep the extra records, which minimises moves
+        int[] surplus = new int[byLoad.size()];
+        for (int i = 0; i < byLoad.size(); i++) {
+            int target = base + (i < extra ? 1 : 0);
+            surplus[i] = byLoad.get(i).getWorkload().getOpenRecords() - target;
+        }
+        List<Reassignment> moves = new ArrayList<>();
+        int receiver = byLoad.size() - 1;
+        for (int donor = 0; donor < byLoad.size() && surplus[donor] > 0; donor++) {
+            List<MedicalRecord> records = byLoad.get(donor).getMedicalRecords();
+            int next = records.size() - 1;
+            while (surplus[donor] > 0) {
+                while (surplus[receiver] >= 0) {
+                    receiver--;
+                }
+                moves.add(new Reassignment(records.get(next--), byLoad.get(donor), byLoad.get(receiver)));
+                surplus[donor]--;
+                surplus[receiver]++;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Applies the suggestions as one unit of work; moves whose record was
+     * reassigned in the meantime are skipped. If the unit (or an outer one it
+     * joins) rolls back, every record, list and counter is restored.
+     */
+    public static void applyRebalancing(List<Reassignment> moves) {
+        UnitOfWork.run(() -> {
+            for (Reassignment move : moves) {
+                if (move.record.getAssignedDoctor() == move.from) {
+                    move.record.setAssignedDoctor(move.to);
+                }
+            }
+        });
+    }
+}
@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.PartitionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -13,7 +17,7 @@ public class Guard extends Staff {
         JUNIOR, SENIOR, CHIEF, LIEUTENANT
     }
 
-    private static List<Guard> extent = new ArrayList<>();
+    private static final PartitionedExtent.View<Guard> extent = Staff.extentView(Guard.class);   // Guards in the Staff extent
     private Rank rank;
     private String weapon;  // Weapon assigned to guard
     private List<IncidentReport> reportedIncidents;  // Guard[0..*] to IncidentReport[0..*] - many-to-many
@@ -25,6 +29,24 @@ public class Guard extends Staff {
     public Guard(String name, String surname, int experienceYears, 
                  String shiftHour, String phone, String email, Rank rank, String weapon) {
         super(name, surname, experienceYears, shiftHour, phone, email);
+        initialise(rank, weapon);
+        registerEmail();
+        constructing = false;
+        extent.add(this);
+    }
+
+    /**
+     * The guard role of a CombinedStaff member, sharing its identity; the
+     * email stays registered to the member itself. Roles are not in the
+     * extent; the member is.
+     */
+    Guard(CombinedStaff owner, Rank rank, String weapon) {
+        super(owner);
+        initialise(rank, weapon);
+        constructing = false;
+    }
+
+    private void initialise(Rank rank, String weapon) {
         setRank(rank);
         setWeapon(weapon);
         this.reportedIncidents = new ArrayList<>();
@@ -32,7 +54,6 @@ public class Guard extends Staff {
         this.supervisors = new ArrayList<>();
         this.supervisedMeals = new ArrayList<>();
         this.medicalReports = new ArrayList<>();
-        extent.add(this);
     }
 
     public Rank getRank() { return rank; }
@@ -40,12 +61,19 @@ public class Guard extends Staff {
         if (rank == null) {
             throw new InvalidReferenceException("Rank cannot be null.");
         }
+        Rank oldRank = this.rank;
         this.rank = rank;
+        UnitOfWork.recordUndo(this, () -> this.rank = oldRank);
+        if (!constructing && oldRank != rank) {
+            EventBus.changed(this, "rank", oldRank, rank);
+        }
     }
 
     public String getWeapon() { return weapon; }
     public void setWeapon(String weapon) {
+        String oldWeapon = this.weapon;
         this.weapon = weapon;  // Weapon can be null (unarmed guard)
+        UnitOfWork.recordUndo(this, () -> this.weapon = oldWeapon);
     }
     
     public void addReportedIncident(IncidentReport incident) {
@@ -54,6 +82,7 @@ public class Guard extends Staff {
         }
         if (!reportedIncidents.contains(incident)) {
             reportedIncidents.add(incident);
+            UnitOfWork.recordUndo(this, () -> reportedIncidents.remove(incident));
             if (incident.getReportingGuard() != this) {
                 incident.setReportingGuard(this);
             }
@@ -62,7 +91,9 @@ public class Guard extends Staff {
     
     public void removeReportedIncident(IncidentReport incident) {
         if (incident != null && reportedIncidents.contains(incident)) {
-            reportedIncidents.remove(incident);
+            int position = reportedIncidents.indexOf(incident);
+            reportedIncidents.remove(position);
+            UnitOfWork.recordUndo(this, () -> reportedIncidents.add(position, incident));
             if (incident.getReportingGuard() == this) {
                 incident.setReportingGuard(null);
             }
@@ -91,6 +122,7 @@ public class Guard extends Staff {
         }
         if (!supervisors.contains(supervisor)) {
             supervisors.add(supervisor);
+            UnitOfWork.recordUndo(this, () -> supervisors.remove(supervisor));
             if (!supervisor.getSubordinates().contains(this)) {
                 supervisor.addSubordinate(this);
             }
@@ -99,7 +131,9 @@ public class Guard extends Staff {
     
     public void removeSupervisor(Guard supervisor) {
         if (supervisors.contains(supervisor)) {
-            supervisors.remove(supervisor);
+            int position = supervisors.indexOf(supervisor);
+            supervisors.remove(position);
+            UnitOfWork.recordUndo(this, () -> supervisors.add(position, supervisor));
             if (supervisor.getSubordinates().contains(this)) {
                 supervisor.removeSubordinate(this);
             }
@@ -112,7 +146,9 @@ public class Guard extends Staff {
     
     // Backward compatibility
     public void setSupervisor(Guard supervisor) {
+        List<Guard> oldSupervisors = new ArrayList<>(supervisors);
         supervisors.clear();
+        UnitOfWork.recordUndo(this, () -> supervisors.addAll(oldSupervisors));
         if (supervisor != null) {
             addSupervisor(supervisor);
         }
@@ -132,6 +168,7 @@ public class Guard extends Staff {
         }
         if (!subordinates.contains(subordinate)) {
             subordinates.add(subordinate);
+            UnitOfWork.recordUndo(this, () -> subordinates.remove(subordinate));
             if (!subordinate.getSupervisors().contains(this)) {
                 subordinate.addSupervisor(this);
             }
@@ -140,7 +177,9 @@ public class Guard extends Staff {
     
     public void removeSubordinate(Guard subordinate) {
         if (subordinates.contains(subordinate)) {
-            subordinates.remove(subordinate);
+            int position = subordinates.indexOf(subordinate);
+            subordinates.remove(position);
+            UnitOfWork.recordUndo(this, () -> subordinates.add(position, subordinate));
             if (subordinate.getSupervisors().contains(this)) {
                 subordinate.removeSupervisor(this);
             }
@@ -157,6 +196,7 @@ public class Guard extends Staff {
         }
         if (!supervisedMeals.contains(meal)) {
             supervisedMeals.add(meal);
+            UnitOfWork.recordUndo(this, () -> supervisedMeals.remove(meal));
             if (!meal.getSupervisingGuards().contains(this)) {
                 meal.addSupervisingGuard(this);
             }
@@ -165,7 +205,9 @@ public class Guard extends Staff {
     
     public void removeMeal(Meal meal) {
         if (supervisedMeals.contains(meal)) {
-            supervisedMeals.remove(meal);
+            int position = supervisedMeals.indexOf(meal);
+            supervisedMeals.remove(position);
+            UnitOfWork.recordUndo(this, () -> supervisedMeals.add(position, meal));
             if (meal.getSupervisingGuards().contains(this)) {
                 meal.removeSupervisingGuard(this);
             }
@@ -194,6 +236,7 @@ public class Guard extends Staff {
         }
         if (!medicalReports.contains(report)) {
             medicalReports.add(report);
+            UnitOfWork.recordUndo(this, () -> medicalReports.remove(report));
             if (report.getGuard() != this) {
                 report.setGuard(this);
             }
@@ -202,7 +245,9 @@ public class Guard extends Staff {
     
     public void removeMedicalReport(MedicalReport report) {
         if (report != null && medicalReports.contains(report)) {
-            medicalReports.remove(report);
+            int position = medicalReports.indexOf(report);
+            medicalReports.remove(position);
+            UnitOfWork.recordUndo(this, () -> medicalReports.add(position, report));
             if (report.getGuard() == this) {
                 report.setGuard(null);
             }
@@ -214,25 +259,32 @@ public class Guard extends Staff {
     }
 
     public static List<Guard> getGuardExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveGuardExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Guard.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadGuardExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Guard>) in.readObject();
+            extent.replaceAll((List<Guard>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        Staff.unindexPartition(Guard.class);
+        Staff.indexPartition(Guard.class);
+        ModelMetrics.time(Guard.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearGuardExtent() {
+        Staff.unindexPartition(Guard.class);
         extent.clear();
     }
 }
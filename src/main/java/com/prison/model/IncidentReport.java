@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -18,7 +22,7 @@ public class IncidentReport extends Report {
         OPEN, INREVIEW, RESOLVED
     }
 
-    private static List<IncidentReport> extent = new ArrayList<>();
+    private static final VersionedExtent<IncidentReport> extent = new VersionedExtent<>(IncidentReport.class);
     private String severity;                  // Severity description
     private Status status;                    // Status of the incident
     private List<String> peopleInvolved;      // [1..*] People involved in incident
@@ -34,21 +38,27 @@ public class IncidentReport extends Report {
         this.peopleInvolved = new ArrayList<>();  // Initialize required list
         this.relatedIncident = null;  // Initialize reflex association
         this.reportingGuards = new ArrayList<>();
+        constructing = false;
         extent.add(this);
+        EventBus.created(this);
     }
     public Status getStatus() { return status; }
     public void setStatus(Status status) {
         if (status == null) {
             throw new InvalidReferenceException("Status cannot be null.");
         }
+        Status oldStatus = this.status;
         this.status = status;
+        UnitOfWork.recordUndo(this, () -> this.status = oldStatus);
     }
     public String getSeverity() { return severity; }
     public void setSeverity(String severity) {
         if (severity == null) {
             throw new InvalidReferenceException("Severity cannot be null.");
         }
+        String oldSeverity = this.severity;
         this.severity = severity;
+        UnitOfWork.recordUndo(this, () -> this.severity = oldSeverity);
     }
     public List<String> getPeopleInvolved() {
         return Collections.unmodifiableList(peopleInvolved);
@@ -58,9 +68,14 @@ public class IncidentReport extends Report {
             throw new EmptyStringException("Person cannot be empty.");
         }
         peopleInvolved.add(person);
+        UnitOfWork.recordUndo(this, () -> peopleInvolved.remove(peopleInvolved.size() - 1));
     }
     public void removePersonInvolved(String person) {
-        peopleInvolved.remove(person);
+        int position = peopleInvolved.indexOf(person);
+        if (position >= 0) {
+            peopleInvolved.remove(position);
+            UnitOfWork.recordUndo(this, () -> peopleInvolved.add(position, person));
+        }
     }
     @Override
     public void manageReport() {
@@ -72,7 +87,12 @@ public class IncidentReport extends Report {
         if (description == null || description.trim().isEmpty()) {
             throw new EmptyStringException("Description cannot be empty.");
         }
+        String oldDescription = this.description;
         this.description = description;
+        UnitOfWork.recordUndo(this, () -> this.description = oldDescription);
+        if (!constructing && !oldDescription.equals(description)) {
+            EventBus.changed(this, "description", oldDescription, description);
+        }
     }
     // Many-to-many: Guard[0..*] to IncidentReport[0..*]
     public void addReportingGuard(Guard guard) {
@@ -81,6 +101,7 @@ public class IncidentReport extends Report {
         }
         if (!reportingGuards.contains(guard)) {
             reportingGuards.add(guard);
+            UnitOfWork.recordUndo(this, () -> reportingGuards.remove(guard));
             if (!guard.getReportedIncidents().contains(this)) {
                 guard.addReportedIncident(this);
             }
@@ -89,7 +110,9 @@ public class IncidentReport extends Report {
     
     public void removeReportingGuard(Guard guard) {
         if (reportingGuards.contains(guard)) {
-            reportingGuards.remove(guard);
+            int position = reportingGuards.indexOf(guard);
+            reportingGuards.remove(position);
+            UnitOfWork.recordUndo(this, () -> reportingGuards.add(position, guard));
             if (guard.getReportedIncidents().contains(this)) {
                 guard.removeReportedIncident(this);
             }
@@ -106,7 +129,9 @@ public class IncidentReport extends Report {
     }
     
     public void setReportingGuard(Guard guard) {
+        List<Guard> oldGuards = new ArrayList<>(reportingGuards);
         reportingGuards.clear();
+        UnitOfWork.recordUndo(this, () -> reportingGuards.addAll(oldGuards));
         if (guard != null) {
             addReportingGuard(guard);
         }
@@ -118,7 +143,9 @@ public class IncidentReport extends Report {
                 this.reviewingDirector.removeReviewedIncidentReport(this);
             }
             
+            Director oldDirector = this.reviewingDirector;
             this.reviewingDirector = director;
+            UnitOfWork.recordUndo(this, () -> this.reviewingDirector = oldDirector);
             
             if (director != null && !director.getReviewedIncidentReports().contains(this)) {
                 director.addReviewedIncidentReport(this);
@@ -131,7 +158,9 @@ public class IncidentReport extends Report {
     }
     
     public void setPunishment(Punishment punishment) {
+        Punishment oldPunishment = this.punishment;
         this.punishment = punishment;
+        UnitOfWork.recordUndo(this, () -> this.punishment = oldPunishment);
         if (punishment != null && punishment.getIncident() != this) {
             punishment.setIncident(this);
         }
@@ -152,6 +181,8 @@ public class IncidentReport extends Report {
         }
         
         if (this.relatedIncident != incident) {
+            IncidentReport previous = this.relatedIncident;
+            UnitOfWork.recordUndo(this, () -> this.relatedIncident = previous);
             // Remove old relationship
             if (this.relatedIncident != null && this.relatedIncident.getRelatedIncident() == this) {
                 IncidentReport oldRelated = this.relatedIncident;
@@ -182,29 +213,35 @@ public class IncidentReport extends Report {
         if (this.relatedIncident != null) {
             IncidentReport related = this.relatedIncident;
             this.relatedIncident = null;
+            UnitOfWork.recordUndo(this, () -> this.relatedIncident = related);
             if (related.getRelatedIncident() == this) {
                 related.relatedIncident = null;  // Direct access to avoid recursion
+                UnitOfWork.recordUndo(related, () -> related.relatedIncident = this);
             }
         }
     }
 
     public static List<IncidentReport> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(IncidentReport.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<IncidentReport>) in.readObject();
+            extent.replaceAll((List<IncidentReport>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(IncidentReport.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
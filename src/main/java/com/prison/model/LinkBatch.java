@@ -0,0 +1,129 @@
+package com.prison.model;
+
+import com.prison.tx.UnitOfWork;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Batch mode for bulk loaders: inside LinkBatch.run(...) association setters
+ * only write their own side and record the link. The reverse-side lists are
+ * rebuilt in one linear pass when the batch ends, instead of the per-link
+ * handshake (reverse call + contains scan on both sides).
+ *
+ * Covered associations: Prisoner.currentCell / Cell.prisoners, Cell.block /
+ * Block.cells, Visit.prisoner / Prisoner.visits, MealDelivery.prisoner /
+ * Prisoner.mealDeliveries, MealDelivery.meal / Meal.deliveries and
+ * Charges.courtCase / CourtCase.charges. Until the batch ends, getters on the
+ * reverse side (e.g. Cell.getPrisoners()) do not show the recorded links.
+ * The setters publish their own events as outside batch mode; rebuilding the
+ * reverse side publishes none, so each change is seen once.
+ */
+public final class LinkBatch {
+    private static final ThreadLocal<LinkBatch> current = new ThreadLocal<>();
+    private static volatile int openBatches;   // Fast path: no ThreadLocal lookup while no batch is open
+
+    private static final class ReverseSide {
+        final Object owner;
+        final List<Object> links;
+        final Function<Object, Object> forward;   // Element's own reference to the owner side
+        final Set<Object> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<Object> order = new ArrayList<>();
+
+        ReverseSide(Object owner, List<Object> links, Function<Object, Object> forward) {
+            this.owner = owner;
+            this.links = links;
+            this.forward = forward;
+        }
+
+        boolean linked(Object element) {
+            return forward.apply(element) == owner;
+        }
+    }
+
+    private final Map<List<?>, ReverseSide> pending = new IdentityHashMap<>();
+
+    private LinkBatch() {
+    }
+
+    /**
+     * Runs work in batch mode; nested calls join the outer batch.
+     */
+    public static void run(Runnable work) {
+        if (current.get() != null) {
+            work.run();
+            return;
+        }
+        LinkBatch batch = new LinkBatch();
+        current.set(batch);
+        synchronized (LinkBatch.class) {
+            openBatches++;
+        }
+        try {
+            work.run();
+        } finally {
+            current.remove();
+            synchronized (LinkBatch.class) {
+                openBatches--;
+            }
+            batch.rebuild();   // Also on failure, so the graph stays bidirectionally consistent
+        }
+    }
+
+    /**
+     * Batch of the current thread, or null outside batch mode.
+     */
+    static LinkBatch current() {
+        return openBatches == 0 ? null : current.get();
+    }
+
+    /**
+     * Records that element's forward reference may have moved to or away from
+     * owner. Whether it ends up in links is decided from the forward side when
+     * the batch ends, so rolled-back or overwritten writes need no bookkeeping.
+     */
+    @SuppressWarnings("unchecked")
+    <T> void record(Object owner, List<T> links, T element, Function<? super T, ?> forward) {
+        ReverseSide side = pending.get(links);
+        if (side == null) {
+            side = new ReverseSide(owner, (List<Object>) links, (Function<Object, Object>) forward);
+            pending.put(links, side);
+        }
+        if (side.touched.add(element)) {
+            side.order.add(element);
+        }
+    }
+
+    /**
+     * One pass per touched list: drop elements that no longer point at the
+     * owner, append new ones in recorded order, skipping ones already present.
+     */
+    private void rebuild() {
+        for (ReverseSide side : pending.values()) {
+            List<Object> links = side.links;
+            List<Object> before = new ArrayList<>(links);
+            UnitOfWork.recordUndo(side.owner, () -> {
+                links.clear();
+                links.addAll(before);
+            });
+            links.removeIf(element -> side.touched.contains(element) && !side.linked(element));
+            Set<Object> present = identitySet(links);
+            for (Object element : side.order) {
+                if (side.linked(element) && present.add(element)) {
+                    links.add(element);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private static Set<Object> identitySet(List<Object> elements) {
+        Set<Object> set = Collections.newSetFromMap(new IdentityHashMap<>(elements.size() * 2));
+        set.addAll(elements);
+        return set;
+    }
+}
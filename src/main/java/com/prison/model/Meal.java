@@ -1,6 +1,9 @@
 package com.prison.model;
 
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -17,7 +20,7 @@ public class Meal implements Serializable {
         Breakfast, Lunch, Dinner
     }
 
-    private static List<Meal> extent = new ArrayList<>();
+    private static final VersionedExtent<Meal> extent = new VersionedExtent<>(Meal.class);
 
     private String description;
     private DietPlan dietPlan;
@@ -28,6 +31,7 @@ public class Meal implements Serializable {
     private List<Guard> supervisingGuards;   // Guard[0..*] to Meal[0..*] - many-to-many
 
     public Meal(String description, DietPlan dietPlan, Double calories, MealType mealType) {
+        long started = ModelMetrics.start();
         setDescription(description);
         setDietPlan(dietPlan);
         setCalories(calories);
@@ -36,6 +40,7 @@ public class Meal implements Serializable {
         this.deliveries = new ArrayList<>();
         this.supervisingGuards = new ArrayList<>();
         extent.add(this);
+        ModelMetrics.time(Meal.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public String getDescription() { return description; }
@@ -43,7 +48,9 @@ public class Meal implements Serializable {
         if (description == null || description.trim().isEmpty()) {
             throw new EmptyStringException("Description cannot be empty.");
         }
+        String oldDescription = this.description;
         this.description = description;
+        UnitOfWork.recordUndo(this, () -> this.description = oldDescription);
     }
 
     public DietPlan getDietPlan() { return dietPlan; }
@@ -51,7 +58,9 @@ public class Meal implements Serializable {
         if (dietPlan == null) {
             throw new InvalidReferenceException("Diet plan cannot be null.");
         }
+        DietPlan oldDietPlan = this.dietPlan;
         this.dietPlan = dietPlan;
+        UnitOfWork.recordUndo(this, () -> this.dietPlan = oldDietPlan);
     }
 
     public Double getCalories() { return calories; }
@@ -62,7 +71,9 @@ public class Meal implements Serializable {
         if (calories < 0) {
             throw new NegativeNumberException("Calories cannot be negative.");
         }
+        Double oldCalories = this.calories;
         this.calories = calories;
+        UnitOfWork.recordUndo(this, () -> this.calories = oldCalories);
     }
 
     public MealType getMealType() { return mealType; }
@@ -70,7 +81,9 @@ public class Meal implements Serializable {
         if (mealType == null) {
             throw new InvalidReferenceException("Meal type cannot be null.");
         }
+        MealType oldMealType = this.mealType;
         this.mealType = mealType;
+        UnitOfWork.recordUndo(this, () -> this.mealType = oldMealType);
     }
 
     public List<String> getAllergens() {
@@ -83,6 +96,7 @@ public class Meal implements Serializable {
         }
         if (!allergens.contains(allergen)) {
             allergens.add(allergen);
+            UnitOfWork.recordUndo(this, () -> allergens.remove(allergen));
         }
     }
 
@@ -90,7 +104,11 @@ public class Meal implements Serializable {
         if (allergens.size() <= 1) {
             throw new ValidationException("Cannot remove allergen - at least one allergen is required [1..*].");
         }
-        allergens.remove(allergen);
+        int position = allergens.indexOf(allergen);
+        if (position >= 0) {
+            allergens.remove(position);
+            UnitOfWork.recordUndo(this, () -> allergens.add(position, allergen));
+        }
     }
     /**
      * Adds a delivery instance
@@ -99,8 +117,13 @@ public class Meal implements Serializable {
         if (delivery == null) {
             throw new InvalidReferenceException("Meal delivery cannot be null.");
         }
+        if (LinkBatch.current() != null) {
+            delivery.setMeal(this);
+            return;
+        }
         if (!deliveries.contains(delivery)) {
             deliveries.add(delivery);
+            UnitOfWork.recordUndo(this, () -> deliveries.remove(delivery));
             if (delivery.getMeal() != this) {
                 delivery.setMeal(this);
             }
@@ -114,6 +137,7 @@ public class Meal implements Serializable {
         }
         if (!supervisingGuards.contains(guard)) {
             supervisingGuards.add(guard);
+            UnitOfWork.recordUndo(this, () -> supervisingGuards.remove(guard));
             if (!guard.getMeals().contains(this)) {
                 guard.addMeal(this);
             }
@@ -122,7 +146,9 @@ public class Meal implements Serializable {
     
     public void removeSupervisingGuard(Guard guard) {
         if (supervisingGuards.contains(guard)) {
-            supervisingGuards.remove(guard);
+            int position = supervisingGuards.indexOf(guard);
+            supervisingGuards.remove(position);
+            UnitOfWork.recordUndo(this, () -> supervisingGuards.add(position, guard));
             if (guard.getMeals().contains(this)) {
                 guard.removeMeal(this);
             }
@@ -135,7 +161,9 @@ public class Meal implements Serializable {
     
     // Backward compatibility
     public void setSupervisingGuard(Guard guard) {
+        List<Guard> oldGuards = new ArrayList<>(supervisingGuards);
         supervisingGuards.clear();
+        UnitOfWork.recordUndo(this, () -> supervisingGuards.addAll(oldGuards));
         if (guard != null) {
             addSupervisingGuard(guard);
         }
@@ -149,23 +177,31 @@ public class Meal implements Serializable {
         return Collections.unmodifiableList(deliveries);
     }
 
+    List<MealDelivery> deliveryLinks() {
+        return deliveries;
+    }
+
     public static List<Meal> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Meal.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Meal>) in.readObject();
+            extent.replaceAll((List<Meal>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Meal.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -14,19 +18,27 @@ public class MealDelivery implements Serializable {
         SCHEDULED, DELIVERED, CANCELLED
     }
 
-    private static List<MealDelivery> extent = new ArrayList<>();
+    private static final VersionedExtent<MealDelivery> extent = new VersionedExtent<>(MealDelivery.class);
 
     private LocalDateTime deliveryTime;
     private DeliveryStatus status;
     private Prisoner prisoner;   // Recipient
     private Meal meal;           // Meal being delivered
+    private transient boolean constructing = true;
 
     public MealDelivery(LocalDateTime deliveryTime, Prisoner prisoner, Meal meal) {
-        setDeliveryTime(deliveryTime);
-        this.status = DeliveryStatus.SCHEDULED;
-        setPrisoner(prisoner);
-        setMeal(meal);
-        extent.add(this);
+        long started = ModelMetrics.start();
+        // Atomic: a failing setMeal must not leave the delivery linked to the prisoner
+        UnitOfWork.run(() -> {
+            setDeliveryTime(deliveryTime);
+            this.status = DeliveryStatus.SCHEDULED;
+            setPrisoner(prisoner);
+            setMeal(meal);
+            constructing = false;
+            extent.add(this);
+            EventBus.created(this);
+        });
+        ModelMetrics.time(MealDelivery.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public LocalDateTime getDeliveryTime() { return deliveryTime; }
@@ -34,7 +46,9 @@ public class MealDelivery implements Serializable {
         if (deliveryTime == null) {
             throw new InvalidReferenceException("Delivery time cannot be null.");
         }
+        LocalDateTime oldDeliveryTime = this.deliveryTime;
         this.deliveryTime = deliveryTime;
+        UnitOfWork.recordUndo(this, () -> this.deliveryTime = oldDeliveryTime);
     }
 
     public DeliveryStatus getStatus() { return status; }
@@ -42,13 +56,20 @@ public class MealDelivery implements Serializable {
         if (status == null) {
             throw new InvalidReferenceException("Status cannot be null.");
         }
+        DeliveryStatus oldStatus = this.status;
         this.status = status;
+        UnitOfWork.recordUndo(this, () -> this.status = oldStatus);
+        if (oldStatus != status) {
+            EventBus.changed(this, "status", oldStatus, status);
+        }
     }
     public void set(Prisoner prisoner) {
         if (prisoner == null) {
             throw new InvalidReferenceException("Prisoner cannot be null.");
         }
+        Prisoner oldPrisoner = this.prisoner;
         this.prisoner = prisoner;
+        UnitOfWork.recordUndo(this, () -> this.prisoner = oldPrisoner);
         
         if (!prisoner.getMealDeliveries().contains(this)) {
             prisoner.addMealDelivery(this);
@@ -63,7 +84,17 @@ public class MealDelivery implements Serializable {
         if (prisoner == null) {
             throw new InvalidReferenceException("Prisoner cannot be null.");
         }
+        Prisoner oldPrisoner = this.prisoner;
         this.prisoner = prisoner;
+        UnitOfWork.recordUndo(this, () -> this.prisoner = oldPrisoner);
+        if (!constructing && oldPrisoner != prisoner) {
+            EventBus.changed(this, "prisoner", oldPrisoner, prisoner);
+        }
+        LinkBatch batch = LinkBatch.current();
+        if (batch != null) {  // Prisoner.mealDeliveries is rebuilt when the batch ends
+            batch.record(prisoner, prisoner.mealDeliveryLinks(), this, MealDelivery::getPrisoner);
+            return;
+        }
         
         if (!prisoner.getMealDeliveries().contains(this)) {
             prisoner.addMealDelivery(this);
@@ -74,7 +105,17 @@ public class MealDelivery implements Serializable {
         if (meal == null) {
             throw new InvalidReferenceException("Meal cannot be null.");
         }
+        Meal oldMeal = this.meal;
         this.meal = meal;
+        UnitOfWork.recordUndo(this, () -> this.meal = oldMeal);
+        if (!constructing && oldMeal != meal) {
+            EventBus.changed(this, "meal", oldMeal, meal);
+        }
+        LinkBatch batch = LinkBatch.current();
+        if (batch != null) {  // Meal.deliveries is rebuilt when the batch ends
+            batch.record(meal, meal.deliveryLinks(), this, MealDelivery::getMeal);
+            return;
+        }
         
         if (!meal.getDeliveries().contains(this)) {
             meal.addDelivery(this);
@@ -86,22 +127,26 @@ public class MealDelivery implements Serializable {
     }
 
     public static List<MealDelivery> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(MealDelivery.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<MealDelivery>) in.readObject();
+            extent.replaceAll((List<MealDelivery>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(MealDelivery.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
@@ -1,6 +1,11 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.TextLog;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -14,20 +19,22 @@ public class MedicalExamination implements Serializable {
         Routine, Injury, Complaint
     }
 
-    private static List<MedicalExamination> extent = new ArrayList<>();
+    private static final VersionedExtent<MedicalExamination> extent = new VersionedExtent<>(MedicalExamination.class);
     private LocalDate dateOfExamination;
     private ReasonForVisit reasonForVisit;           // Reason for visit
-    private List<String> prescription;       // [1..*] Prescription list
+    private List<String> prescription;       // [1..*] Prescription list (text kept off-heap in a TextLog)
     private Doctor doctor;        // Examining doctor (Doctor ↔ MedicalExamination)
     private MedicalRecord medicalRecord;  // MedicalRecord[1] to MedicalExamination[0..*]
 
     public MedicalExamination(LocalDate dateOfExamination, ReasonForVisit reasonForVisit, 
                               Doctor doctor) {
+        long started = ModelMetrics.start();
         setDateOfExamination(dateOfExamination);
         setReasonForVisit(reasonForVisit);
-        this.prescription = new ArrayList<>(); // Initialize the prescription list
+        this.prescription = new TextLog(); // Initialize the prescription list
         setDoctor(doctor);
         extent.add(this);
+        ModelMetrics.time(MedicalExamination.class, ModelMetrics.Operation.CREATE, started);
     }
     public LocalDate getDateOfExamination() { return dateOfExamination; }
     public void setDateOfExamination(LocalDate dateOfExamination) {
@@ -37,7 +44,14 @@ public class MedicalExamination implements Serializable {
         if (dateOfExamination.isAfter(LocalDate.now())) {
             throw new InvalidDateException("Examination date cannot be in the future.");
         }
+        LocalDate oldDate = this.dateOfExamination;
         this.dateOfExamination = dateOfExamination;
+        UnitOfWork.recordUndo(this, () -> this.dateOfExamination = oldDate);
+        if (doctor != null && !dateOfExamination.equals(oldDate) && doctor.getExaminations().contains(this)) {
+            Doctor examiner = doctor;
+            examiner.getWorkload().examinationMoved(oldDate, dateOfExamination);
+            UnitOfWork.recordUndo(examiner, () -> examiner.getWorkload().examinationMoved(dateOfExamination, oldDate));
+        }
     }
 
     public ReasonForVisit getReasonForVisit() { return reasonForVisit; }
@@ -45,8 +59,13 @@ public class MedicalExamination implements Serializable {
         if (reasonForVisit == null) {
             throw new InvalidReferenceException("Reason for visit cannot be null.");
         }
+        ReasonForVisit oldReasonForVisit = this.reasonForVisit;
         this.reasonForVisit = reasonForVisit;
+        UnitOfWork.recordUndo(this, () -> this.reasonForVisit = oldReasonForVisit);
     }
+    /**
+     * Lazy read-only view: entries are decoded from the text log when accessed
+     */
     public List<String> getPrescription() {
         return Collections.unmodifiableList(prescription);
     }
@@ -55,9 +74,14 @@ public class MedicalExamination implements Serializable {
             throw new EmptyStringException("Prescription item cannot be empty.");
         }
         prescription.add(item);
+        UnitOfWork.recordUndo(this, () -> prescription.remove(prescription.size() - 1));
     }
     public void removePrescription(String item) {
-        prescription.remove(item);
+        int position = prescription.indexOf(item);
+        if (position >= 0) {
+            prescription.remove(position);
+            UnitOfWork.recordUndo(this, () -> prescription.add(position, item));
+        }
     }
     public void conductExamination() {
         System.out.println("Conducting examination for: " + reasonForVisit);
@@ -66,7 +90,9 @@ public class MedicalExamination implements Serializable {
         if (doctor == null) {
             throw new InvalidReferenceException("Doctor cannot be null.");
         }
+        Doctor oldDoctor = this.doctor;
         this.doctor = doctor;
+        UnitOfWork.recordUndo(this, () -> this.doctor = oldDoctor);
         
         if (!doctor.getExaminations().contains(this)) {
             doctor.addExamination(this);
@@ -86,7 +112,9 @@ public class MedicalExamination implements Serializable {
                 this.doctor.removeExamination(this);
             }
             
+            Doctor oldDoctor = this.doctor;
             this.doctor = doctor;
+            UnitOfWork.recordUndo(this, () -> this.doctor = oldDoctor);
             
             if (!doctor.getExaminations().contains(this)) {
                 doctor.addExamination(this);
@@ -99,12 +127,13 @@ public class MedicalExamination implements Serializable {
             throw new InvalidReferenceException("Medical record cannot be null.");
         }
         if (this.medicalRecord != record) {
-            if (this.medicalRecord != null && this.medicalRecord.getExaminations().contains(this)) {
-                this.medicalRecord.removeExamination(this);
+            MedicalRecord oldRecord = this.medicalRecord;
+            this.medicalRecord = record;   // Before the removal, so the old record does not call back with null
+            UnitOfWork.recordUndo(this, () -> this.medicalRecord = oldRecord);
+            if (oldRecord != null && oldRecord.getExaminations().contains(this)) {
+                oldRecord.removeExamination(this);
             }
             
-            this.medicalRecord = record;
-            
             if (!record.getExaminations().contains(this)) {
                 record.addExamination(this);
             }
@@ -115,23 +144,46 @@ public class MedicalExamination implements Serializable {
         return medicalRecord;
     }
 
+    /**
+     * Deletes this examination and removes it from its doctor and record
+     */
+    public void delete() {
+        long started = ModelMetrics.start();
+        extent.remove(this);
+        EventBus.deleted(this);
+        if (doctor != null) {
+            doctor.removeExamination(this);
+        }
+        if (medicalRecord != null) {
+            MedicalRecord record = medicalRecord;
+            medicalRecord = null;   // setMedicalRecord does not take null, so the record must not call back
+            UnitOfWork.recordUndo(this, () -> medicalRecord = record);
+            record.removeExamination(this);
+        }
+        ModelMetrics.time(MedicalExamination.class, ModelMetrics.Operation.DELETE, started);
+    }
+
     public static List<MedicalExamination> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(MedicalExamination.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<MedicalExamination>) in.readObject();
+            extent.replaceAll((List<MedicalExamination>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(MedicalExamination.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
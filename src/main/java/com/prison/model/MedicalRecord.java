@@ -1,6 +1,11 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.TextLog;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -10,30 +15,37 @@ import java.util.List;
 public class MedicalRecord implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private static List<MedicalRecord> extent = new ArrayList<>();
+    private static final VersionedExtent<MedicalRecord> extent = new VersionedExtent<>(MedicalRecord.class);
 
     private LocalDate dateOfCreation;
-    private List<String> history;              // [1..*] Medical history
+    private List<String> history;              // [1..*] Medical history (text kept off-heap in a TextLog)
     private String descriptionOfDiagnosis;
     private Prisoner prisoner;                       // Owner of this record
     private List<MedicalExamination> examinations;   // MedicalRecord[1] to MedicalExamination[0..*]
     private Doctor assignedDoctor;                   // Doctor[0..*] to MedicalRecord[1]
     private List<MedicalReport> medicalReports;      // COMPOSITION: MedicalReport[0..*] to MedicalRecord[1..1]
+    private transient boolean constructing = true;
 
     public MedicalRecord(LocalDate dateOfCreation, String descriptionOfDiagnosis) {
+        long started = ModelMetrics.start();
         setDateOfCreation(dateOfCreation);
         setDescriptionOfDiagnosis(descriptionOfDiagnosis);
-        this.history = new ArrayList<>();  // Initialize required list
+        this.history = new TextLog();  // Initialize required list
         this.examinations = new ArrayList<>();
         this.medicalReports = new ArrayList<>();  // Composition - reports owned by this record
+        constructing = false;
         extent.add(this);
+        EventBus.created(this);
+        ModelMetrics.time(MedicalRecord.class, ModelMetrics.Operation.CREATE, started);
     }
     public LocalDate getDateOfCreation() { return dateOfCreation; }
     public void setDateOfCreation(LocalDate dateOfCreation) {
         if (dateOfCreation == null) {
             throw new InvalidReferenceException("Date of creation cannot be null.");
         }
+        LocalDate oldDateOfCreation = this.dateOfCreation;
         this.dateOfCreation = dateOfCreation;
+        UnitOfWork.recordUndo(this, () -> this.dateOfCreation = oldDateOfCreation);
     }
 
     public String getDescriptionOfDiagnosis() { return descriptionOfDiagnosis; }
@@ -41,19 +53,38 @@ public class MedicalRecord implements Serializable {
         if (descriptionOfDiagnosis == null || descriptionOfDiagnosis.trim().isEmpty()) {
             throw new EmptyStringException("Description of diagnosis cannot be empty.");
         }
+        String oldDiagnosis = this.descriptionOfDiagnosis;
         this.descriptionOfDiagnosis = descriptionOfDiagnosis;
+        UnitOfWork.recordUndo(this, () -> this.descriptionOfDiagnosis = oldDiagnosis);
+        if (!constructing && !oldDiagnosis.equals(descriptionOfDiagnosis)) {
+            EventBus.changed(this, "descriptionOfDiagnosis", oldDiagnosis, descriptionOfDiagnosis);
+        }
     }
+    /**
+     * Lazy read-only view: entries are decoded from the text log when accessed
+     */
     public List<String> getHistory() {
         return Collections.unmodifiableList(history);
     }
+    /**
+     * History entries are values, not links: adding and removing one publish
+     * a "history" property change from null to the entry and back
+     */
     public void addHistory(String item) {
         if (item == null || item.trim().isEmpty()) {
             throw new EmptyStringException("History item cannot be empty.");
         }
         history.add(item);
+        UnitOfWork.recordUndo(this, () -> history.remove(history.size() - 1));
+        EventBus.changed(this, "history", null, item);
     }
     public void removeHistory(String item) {
-        history.remove(item);
+        int position = history.indexOf(item);
+        if (position >= 0) {
+            history.remove(position);
+            UnitOfWork.recordUndo(this, () -> history.add(position, item));
+            EventBus.changed(this, "history", item, null);
+        }
     }
     public void updateMedicalRecord(String newDiagnosis) {
         setDescriptionOfDiagnosis(newDiagnosis);
@@ -72,7 +103,9 @@ public class MedicalRecord implements Serializable {
         if (this.prisoner != null && this.prisoner != prisoner) {
             throw new ValidationException("Medical record already assigned to another prisoner.");
         }
+        Prisoner oldPrisoner = this.prisoner;
         this.prisoner = prisoner;
+        UnitOfWork.recordUndo(this, () -> this.prisoner = oldPrisoner);
     }
     
     public Prisoner getPrisoner() {
@@ -88,6 +121,7 @@ public class MedicalRecord implements Serializable {
         }
         if (!examinations.contains(exam)) {
             examinations.add(exam);
+            UnitOfWork.recordUndo(this, () -> examinations.remove(exam));
             if (exam.getMedicalRecord() != this) {
                 exam.setMedicalRecord(this);
             }
@@ -96,7 +130,9 @@ public class MedicalRecord implements Serializable {
     
     public void removeExamination(MedicalExamination exam) {
         if (exam != null && examinations.contains(exam)) {
-            examinations.remove(exam);
+            int position = examinations.indexOf(exam);
+            examinations.remove(position);
+            UnitOfWork.recordUndo(this, () -> examinations.add(position, exam));
             if (exam.getMedicalRecord() == this) {
                 exam.setMedicalRecord(null);
             }
@@ -113,7 +149,9 @@ public class MedicalRecord implements Serializable {
                 this.assignedDoctor.removeMedicalRecord(this);
             }
             
+            Doctor oldDoctor = this.assignedDoctor;
             this.assignedDoctor = doctor;
+            UnitOfWork.recordUndo(this, () -> this.assignedDoctor = oldDoctor);
             
             if (doctor != null && !doctor.getMedicalRecords().contains(this)) {
                 doctor.addMedicalRecord(this);
@@ -142,6 +180,7 @@ public class MedicalRecord implements Serializable {
         
         if (!medicalReports.contains(report)) {
             medicalReports.add(report);
+            UnitOfWork.recordUndo(this, () -> medicalReports.remove(report));
             if (report.getMedicalRecord() != this) {
                 report.setMedicalRecord(this);
             }
@@ -153,7 +192,9 @@ public class MedicalRecord implements Serializable {
      */
     public void removeMedicalReport(MedicalReport report) {
         if (report != null && medicalReports.contains(report)) {
-            medicalReports.remove(report);
+            int position = medicalReports.indexOf(report);
+            medicalReports.remove(position);
+            UnitOfWork.recordUndo(this, () -> medicalReports.add(position, report));
             // Composition: delete the part when removed from whole
             report.delete();
         }
@@ -170,6 +211,7 @@ public class MedicalRecord implements Serializable {
      * Deletes this medical record (COMPOSITION - cascades to all reports)
      */
     public void delete() {
+        long started = ModelMetrics.start();
         // Composition: when whole is deleted, all parts must be deleted
         List<MedicalReport> reportsCopy = new ArrayList<>(medicalReports);
         for (MedicalReport report : reportsCopy) {
@@ -179,30 +221,36 @@ public class MedicalRecord implements Serializable {
         
         // Remove from extent
         extent.remove(this);
+        EventBus.deleted(this);
         
         // Remove other associations
         if (assignedDoctor != null) {
             assignedDoctor.removeMedicalRecord(this);
         }
+        ModelMetrics.time(MedicalRecord.class, ModelMetrics.Operation.DELETE, started);
     }
 
     public static List<MedicalRecord> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(MedicalRecord.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<MedicalRecord>) in.readObject();
+            extent.replaceAll((List<MedicalRecord>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(MedicalRecord.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
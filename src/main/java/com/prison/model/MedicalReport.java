@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -10,7 +14,7 @@ import java.util.List;
 public class MedicalReport extends Report {
     private static final long serialVersionUID = 1L;
 
-    private static List<MedicalReport> extent = new ArrayList<>();
+    private static final VersionedExtent<MedicalReport> extent = new VersionedExtent<>(MedicalReport.class);
     private String roomNumber;
     private double duration;           // Duration in minutes
     private String severityLevel;
@@ -27,6 +31,7 @@ public class MedicalReport extends Report {
         setDoctor(doctor);
         setMedicalRecord(medicalRecord);  // Required for composition
         this.guards = new ArrayList<>();
+        constructing = false;
         extent.add(this);
     }
     public String getRoomNumber() { return roomNumber; }
@@ -34,7 +39,9 @@ public class MedicalReport extends Report {
         if (roomNumber == null || roomNumber.trim().isEmpty()) {
             throw new EmptyStringException("Room number cannot be empty.");
         }
+        String oldRoomNumber = this.roomNumber;
         this.roomNumber = roomNumber;
+        UnitOfWork.recordUndo(this, () -> this.roomNumber = oldRoomNumber);
     }
 
     public double getDuration() { return duration; }
@@ -42,7 +49,19 @@ public class MedicalReport extends Report {
         if (duration < 0) {
             throw new NegativeNumberException("Duration cannot be negative.");
         }
+        double oldDuration = this.duration;
         this.duration = duration;
+        UnitOfWork.recordUndo(this, () -> this.duration = oldDuration);
+        if (doctor != null && oldDuration != duration && doctor.getMedicalReports().contains(this)) {
+            Doctor author = doctor;
+            LocalDate week = date;
+            author.getWorkload().reportRemoved(week, oldDuration);
+            author.getWorkload().reportAdded(week, duration);
+            UnitOfWork.recordUndo(author, () -> {
+                author.getWorkload().reportRemoved(week, duration);
+                author.getWorkload().reportAdded(week, oldDuration);
+            });
+        }
     }
 
     public String getSeverityLevel() { return severityLevel; }
@@ -50,8 +69,29 @@ public class MedicalReport extends Report {
         if (severityLevel == null || severityLevel.trim().isEmpty()) {
             throw new EmptyStringException("Severity level cannot be empty.");
         }
+        String oldSeverityLevel = this.severityLevel;
         this.severityLevel = severityLevel;
+        UnitOfWork.recordUndo(this, () -> this.severityLevel = oldSeverityLevel);
+    }
+    /**
+     * Also moves the report minutes to the new week in the doctor's workload
+     */
+    @Override
+    public void setDate(LocalDate date) {
+        LocalDate oldDate = this.date;
+        super.setDate(date);
+        if (doctor != null && !date.equals(oldDate) && doctor.getMedicalReports().contains(this)) {
+            Doctor author = doctor;
+            double minutes = duration;
+            author.getWorkload().reportRemoved(oldDate, minutes);
+            author.getWorkload().reportAdded(date, minutes);
+            UnitOfWork.recordUndo(author, () -> {
+                author.getWorkload().reportRemoved(date, minutes);
+                author.getWorkload().reportAdded(oldDate, minutes);
+            });
+        }
     }
+
     @Override
     public void manageReport() {
         System.out.println("Managing medical report");
@@ -60,7 +100,12 @@ public class MedicalReport extends Report {
         if (doctor == null) {
             throw new InvalidReferenceException("Doctor cannot be null.");
         }
+        if (this.doctor != null && this.doctor != doctor) {
+            this.doctor.removeMedicalReport(this);   // Keeps the previous doctor's list and workload in step
+        }
+        Doctor oldDoctor = this.doctor;
         this.doctor = doctor;
+        UnitOfWork.recordUndo(this, () -> this.doctor = oldDoctor);
         if (!doctor.getMedicalReports().contains(this)) {
             doctor.addMedicalReport(this);
         }
@@ -77,6 +122,7 @@ public class MedicalReport extends Report {
         }
         if (!guards.contains(guard)) {
             guards.add(guard);
+            UnitOfWork.recordUndo(this, () -> guards.remove(guard));
             if (!guard.getMedicalReports().contains(this)) {
                 guard.addMedicalReport(this);
             }
@@ -85,7 +131,9 @@ public class MedicalReport extends Report {
     
     public void removeGuard(Guard guard) {
         if (guards.contains(guard)) {
-            guards.remove(guard);
+            int position = guards.indexOf(guard);
+            guards.remove(position);
+            UnitOfWork.recordUndo(this, () -> guards.add(position, guard));
             if (guard.getMedicalReports().contains(this)) {
                 guard.removeMedicalReport(this);
             }
@@ -122,7 +170,9 @@ public class MedicalReport extends Report {
             throw new ValidationException("Medical report already belongs to another record - composition violation.");
         }
         
+        MedicalRecord oldRecord = this.medicalRecord;
         this.medicalRecord = record;
+        UnitOfWork.recordUndo(this, () -> this.medicalRecord = oldRecord);
         
         if (!record.getMedicalReports().contains(this)) {
             record.addMedicalReport(this);
@@ -141,11 +191,13 @@ public class MedicalReport extends Report {
      * Called when removing from record or when record is deleted
      */
     public void delete() {
+        long started = ModelMetrics.start();
         // Note: Do not remove from medicalRecord here - the parent MedicalRecord
         // handles clearing its list in its own delete() method
         
         // Remove from extent
         extent.remove(this);
+        EventBus.deleted(this);
         
         // Clean up other associations
         for (Guard guard : new ArrayList<>(guards)) {
@@ -154,25 +206,30 @@ public class MedicalReport extends Report {
         if (doctor != null) {
             doctor.removeMedicalReport(this);
         }
+        ModelMetrics.time(MedicalReport.class, ModelMetrics.Operation.DELETE, started);
     }
 
     public static List<MedicalReport> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(MedicalReport.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<MedicalReport>) in.readObject();
+            extent.replaceAll((List<MedicalReport>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(MedicalReport.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
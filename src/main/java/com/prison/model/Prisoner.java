@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.time.Period;
@@ -12,7 +16,10 @@ public class Prisoner implements Serializable {
     private static final long serialVersionUID = 1L;
 
     // --- Class Extent (Static Collection) ---
-    private static List<Prisoner> extent = new ArrayList<>();
+    private static final VersionedExtent<Prisoner> extent = new VersionedExtent<>(Prisoner.class);
+    static {   // Links per member, read when metrics are exported
+        ModelMetrics.fanOut("Prisoner.visits", Prisoner::getExtent, prisoner -> prisoner.getVisits().size());
+    }
 
     // --- Attributes ---
     private String name;
@@ -36,10 +43,13 @@ public class Prisoner implements Serializable {
     private List<MealDelivery> mealDeliveries;           // Association Class: MealDelivery[0..*] to Prisoner[1]
     private List<Schedule> schedules;                    // Prisoner[0..*] to Schedule[0..*]
     private List<Visit> visits;                          // Prisoner[1] to Visit[0..*] {ordered}
+    private VisitQuota visitQuota;                       // Visits per month, kept by Visit
+    private transient boolean constructing = true;       // No CHANGED events until the constructor is done; false once loaded
 
     // --- Constructor ---
     public Prisoner(String name, String surname, int age, String crime,
                     LocalDate dateOfStart, int sentenceYears, String restriction, String status) {
+        long started = ModelMetrics.start();
         setName(name);
         setSurname(surname);
         setAge(age);
@@ -59,9 +69,13 @@ public class Prisoner implements Serializable {
         this.mealDeliveries = new ArrayList<>();
         this.schedules = new ArrayList<>();
         this.visits = new ArrayList<>();  // {ordered} - maintains insertion order
+        this.visitQuota = new VisitQuota(maxAmountOfVisitPerMonth);
         
+        constructing = false;
         // Add to extent automatically
         extent.add(this);
+        EventBus.created(this);
+        ModelMetrics.time(Prisoner.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public static int getMaxAmountOfVisitPerMonth() {
@@ -75,7 +89,9 @@ public class Prisoner implements Serializable {
         if (name == null || name.trim().isEmpty()) {
             throw new EmptyStringException("Name cannot be empty.");
         }
+        String oldName = this.name;
         this.name = name;
+        UnitOfWork.recordUndo(this, () -> this.name = oldName);
     }
 
     public String getSurname() { return surname; }
@@ -83,7 +99,9 @@ public class Prisoner implements Serializable {
         if (surname == null || surname.trim().isEmpty()) {
             throw new EmptyStringException("Surname cannot be empty.");
         }
+        String oldSurname = this.surname;
         this.surname = surname;
+        UnitOfWork.recordUndo(this, () -> this.surname = oldSurname);
     }
 
     public int getAge() { return age; }
@@ -91,7 +109,9 @@ public class Prisoner implements Serializable {
         if (age < 0) {
             throw new NegativeNumberException("Age cannot be negative.");
         }
+        int oldAge = this.age;
         this.age = age;
+        UnitOfWork.recordUndo(this, () -> this.age = oldAge);
     }
 
     public String getCrime() { return crime; }
@@ -99,7 +119,9 @@ public class Prisoner implements Serializable {
         if (crime == null || crime.trim().isEmpty()) {
             throw new EmptyStringException("Crime cannot be empty.");
         }
+        String oldCrime = this.crime;
         this.crime = crime;
+        UnitOfWork.recordUndo(this, () -> this.crime = oldCrime);
     }
 
     public LocalDate getDateOfStart() { return dateOfStart; }
@@ -107,7 +129,12 @@ public class Prisoner implements Serializable {
         if (dateOfStart == null) {
             throw new InvalidReferenceException("Date of start cannot be null.");
         }
+        LocalDate oldDateOfStart = this.dateOfStart;
         this.dateOfStart = dateOfStart;
+        UnitOfWork.recordUndo(this, () -> this.dateOfStart = oldDateOfStart);
+        if (!constructing && !oldDateOfStart.equals(dateOfStart)) {
+            EventBus.changed(this, "dateOfStart", oldDateOfStart, dateOfStart);
+        }
     }
 
     public int getSentenceYears() { return sentenceYears; }
@@ -115,12 +142,26 @@ public class Prisoner implements Serializable {
         if (sentenceYears < 0) {
             throw new NegativeNumberException("Sentence years cannot be negative.");
         }
+        int oldSentenceYears = this.sentenceYears;
         this.sentenceYears = sentenceYears;
+        UnitOfWork.recordUndo(this, () -> this.sentenceYears = oldSentenceYears);
+        if (!constructing && oldSentenceYears != sentenceYears) {
+            EventBus.changed(this, "sentenceYears", oldSentenceYears, sentenceYears);
+        }
+    }
+
+    /**
+     * Exact release date: date of start plus the sentence
+     */
+    public LocalDate getReleaseDate() {
+        return dateOfStart.plusYears(sentenceYears);
     }
 
     public String getRestriction() { return restriction; }
     public void setRestriction(String restriction) {
+        String oldRestriction = this.restriction;
         this.restriction = restriction;  // Can be null
+        UnitOfWork.recordUndo(this, () -> this.restriction = oldRestriction);
     }
 
     public String getStatus() { return status; }
@@ -128,7 +169,12 @@ public class Prisoner implements Serializable {
         if (status == null || status.trim().isEmpty()) {
             throw new EmptyStringException("Status cannot be empty.");
         }
+        String oldStatus = this.status;
         this.status = status;
+        UnitOfWork.recordUndo(this, () -> this.status = oldStatus);
+        if (!constructing && !oldStatus.equals(status)) {
+            EventBus.changed(this, "status", oldStatus, status);
+        }
     }
 
     // --- Multi-value Attribute Methods (Required Lists [1..*]) ---
@@ -141,9 +187,14 @@ public class Prisoner implements Serializable {
             throw new EmptyStringException("Possession item cannot be empty.");
         }
         possession.add(item);
+        UnitOfWork.recordUndo(this, () -> possession.remove(possession.size() - 1));
     }
     public void removePossession(String item) {
-        possession.remove(item);
+        int position = possession.indexOf(item);
+        if (position >= 0) {
+            possession.remove(position);
+            UnitOfWork.recordUndo(this, () -> possession.add(position, item));
+        }
     }
 
     public List<String> getAllergyInfo() {
@@ -154,9 +205,14 @@ public class Prisoner implements Serializable {
             throw new EmptyStringException("Allergy info cannot be empty.");
         }
         allergyInfo.add(allergy);
+        UnitOfWork.recordUndo(this, () -> allergyInfo.remove(allergyInfo.size() - 1));
     }
     public void removeAllergyInfo(String allergy) {
-        allergyInfo.remove(allergy);
+        int position = allergyInfo.indexOf(allergy);
+        if (position >= 0) {
+            allergyInfo.remove(position);
+            UnitOfWork.recordUndo(this, () -> allergyInfo.add(position, allergy));
+        }
     }
 
     // --- Derived Attribute: /remainingSentenceTime ---
@@ -222,10 +278,20 @@ public class Prisoner implements Serializable {
         if (cell == null) {
             throw new InvalidReferenceException("Cell cannot be null - prisoner must be assigned to a cell.");
         }
-        if (this.currentCell != null && this.currentCell.getPrisoners().contains(this)) {
-            this.currentCell.removePrisoner(this);
+        LinkBatch batch = LinkBatch.current();
+        if (batch != null) {
+            linkCell(batch, cell);
+            return;
+        }
+        Cell oldCell = this.currentCell;
+        this.currentCell = cell;   // Before the removal, so its reverse call does not publish an intermediate null
+        UnitOfWork.recordUndo(this, () -> this.currentCell = oldCell);
+        if (oldCell != null && oldCell != cell && oldCell.getPrisoners().contains(this)) {
+            oldCell.removePrisoner(this);
+        }
+        if (oldCell != cell) {
+            EventBus.changed(this, "currentCell", oldCell, cell);
         }
-        this.currentCell = cell;
         if (!cell.getPrisoners().contains(this)) {
             cell.addPrisoner(this);
         }
@@ -235,17 +301,44 @@ public class Prisoner implements Serializable {
      * Sets current cell (maintains bidirectional connection)
      */
     public void setCurrentCell(Cell cell) {
+        LinkBatch batch = LinkBatch.current();
+        if (batch != null) {
+            linkCell(batch, cell);
+            return;
+        }
         if (this.currentCell != cell) {
-            if (this.currentCell != null && this.currentCell.getPrisoners().contains(this)) {
-                this.currentCell.removePrisoner(this);
+            Cell oldCell = this.currentCell;
+            this.currentCell = cell;   // Before the removal, so its reverse call leaves the field alone
+            UnitOfWork.recordUndo(this, () -> this.currentCell = oldCell);
+            if (oldCell != null && oldCell.getPrisoners().contains(this)) {
+                oldCell.removePrisoner(this);
             }
-            this.currentCell = cell;
+            EventBus.changed(this, "currentCell", oldCell, cell);   // One old -> new event per move
             if (cell != null && !cell.getPrisoners().contains(this)) {
                 cell.addPrisoner(this);
             }
         }
     }
     
+    /**
+     * Batch mode: writes this side only, Cell.prisoners is rebuilt when the batch ends
+     */
+    private void linkCell(LinkBatch batch, Cell cell) {
+        Cell oldCell = this.currentCell;
+        if (oldCell == cell) {
+            return;
+        }
+        this.currentCell = cell;
+        UnitOfWork.recordUndo(this, () -> this.currentCell = oldCell);
+        EventBus.changed(this, "currentCell", oldCell, cell);
+        if (oldCell != null) {
+            batch.record(oldCell, oldCell.prisonerLinks(), this, Prisoner::getCurrentCell);
+        }
+        if (cell != null) {
+            batch.record(cell, cell.prisonerLinks(), this, Prisoner::getCurrentCell);
+        }
+    }
+
     /**
      * Gets current cell assignment
      */
@@ -275,6 +368,8 @@ public class Prisoner implements Serializable {
         }
         if (!punishments.contains(punishment)) {
             punishments.add(punishment);
+            UnitOfWork.recordUndo(this, () -> punishments.remove(punishment));
+            // Punishment.addPrisoner publishes the LINKED event for the pair
             if (!punishment.getPrisoners().contains(this)) {
                 punishment.addPrisoner(this);
             }
@@ -286,7 +381,9 @@ public class Prisoner implements Serializable {
      */
     public void removePunishment(Punishment punishment) {
         if (punishments.contains(punishment)) {
-            punishments.remove(punishment);
+            int position = punishments.indexOf(punishment);
+            punishments.remove(position);
+            UnitOfWork.recordUndo(this, () -> punishments.add(position, punishment));
             if (punishment.getPrisoners().contains(this)) {
                 punishment.removePrisoner(this);
             }
@@ -306,12 +403,15 @@ public class Prisoner implements Serializable {
         }
         if (!courtCases.contains(courtCase)) {
             courtCases.add(courtCase);
+            UnitOfWork.recordUndo(this, () -> courtCases.remove(courtCase));
         }
     }
     
     public void removeCourtCase(CourtCase courtCase) {
-        if (courtCase != null) {
-            courtCases.remove(courtCase);
+        int position = courtCases.indexOf(courtCase);
+        if (position >= 0) {
+            courtCases.remove(position);
+            UnitOfWork.recordUndo(this, () -> courtCases.add(position, courtCase));
         }
     }
     
@@ -323,8 +423,13 @@ public class Prisoner implements Serializable {
         if (delivery == null) {
             throw new InvalidReferenceException("Meal delivery cannot be null.");
         }
+        if (LinkBatch.current() != null) {
+            delivery.setPrisoner(this);
+            return;
+        }
         if (!mealDeliveries.contains(delivery)) {
             mealDeliveries.add(delivery);
+            UnitOfWork.recordUndo(this, () -> mealDeliveries.remove(delivery));
             if (delivery.getPrisoner() != this) {
                 delivery.setPrisoner(this);
             }
@@ -334,6 +439,10 @@ public class Prisoner implements Serializable {
     public List<MealDelivery> getMealDeliveries() {
         return Collections.unmodifiableList(mealDeliveries);
     }
+
+    List<MealDelivery> mealDeliveryLinks() {
+        return mealDeliveries;
+    }
     
     /**
      * Adds a schedule (many-to-many association)
@@ -344,6 +453,8 @@ public class Prisoner implements Serializable {
         }
         if (!schedules.contains(schedule)) {
             schedules.add(schedule);
+            UnitOfWork.recordUndo(this, () -> schedules.remove(schedule));
+            EventBus.linked(this, "schedules", schedule);
             if (!schedule.getPrisoners().contains(this)) {
                 schedule.addPrisoner(this);
             }
@@ -355,7 +466,10 @@ public class Prisoner implements Serializable {
      */
     public void removeSchedule(Schedule schedule) {
         if (schedule != null && schedules.contains(schedule)) {
-            schedules.remove(schedule);
+            int position = schedules.indexOf(schedule);
+            schedules.remove(position);
+            UnitOfWork.recordUndo(this, () -> schedules.add(position, schedule));
+            EventBus.unlinked(this, "schedules", schedule);
             if (schedule.getPrisoners().contains(this)) {
                 schedule.removePrisoner(this);
             }
@@ -374,27 +488,39 @@ public class Prisoner implements Serializable {
      * Multiplicity: Prisoner[1] to Visit[0..*] {ordered}
      */
     public void addVisit(Visit visit) {
+        long started = ModelMetrics.start();
         if (visit == null) {
             throw new InvalidReferenceException("Visit cannot be null.");
         }
+        if (LinkBatch.current() != null) {
+            visit.setPrisoner(this);
+            return;
+        }
         if (!visits.contains(visit)) {
             visits.add(visit);  // Maintains insertion order
+            UnitOfWork.recordUndo(this, () -> visits.remove(visit));
+            // Visit.setPrisoner publishes the prisoner change for the pair
             if (visit.getPrisoner() != this) {
                 visit.setPrisoner(this);
             }
         }
+        ModelMetrics.time(Prisoner.class, ModelMetrics.Operation.LINK, started);
     }
     
     /**
      * Removes a visit
      */
     public void removeVisit(Visit visit) {
+        long started = ModelMetrics.start();
         if (visit != null && visits.contains(visit)) {
-            visits.remove(visit);
+            int position = visits.indexOf(visit);
+            visits.remove(position);
+            UnitOfWork.recordUndo(this, () -> visits.add(position, visit));
             if (visit.getPrisoner() == this) {
                 visit.setPrisoner(null);
             }
         }
+        ModelMetrics.time(Prisoner.class, ModelMetrics.Operation.UNLINK, started);
     }
     
     /**
@@ -403,6 +529,20 @@ public class Prisoner implements Serializable {
     public List<Visit> getVisits() {
         return Collections.unmodifiableList(visits);
     }
+
+    /**
+     * Requested and approved visits per month; O(1) quota checks
+     */
+    public VisitQuota getVisitQuota() {
+        if (visitQuota == null) {
+            visitQuota = VisitQuota.of(visits, maxAmountOfVisitPerMonth);  // Loaded from a file written without quotas
+        }
+        return visitQuota;
+    }
+
+    List<Visit> visitLinks() {
+        return visits;
+    }
     
     // Note: Visit association is between Visitor and Visit, NOT Prisoner and Visit
     // Visits can be queried through Visit.getExtent() filtered by prisoner
@@ -415,25 +555,29 @@ public class Prisoner implements Serializable {
     // --- Extent Management Methods ---
     
     public static List<Prisoner> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     // --- Persistence Methods (Save/Load) ---
     
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Prisoner.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Prisoner>) in.readObject();
+            extent.replaceAll((List<Prisoner>) in.readObject());
         } catch (FileNotFoundException e) {
             // File doesn't exist yet, start with empty list
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Prisoner.class, ModelMetrics.Operation.LOAD, started);
     }
     
     public static void clearExtent() {
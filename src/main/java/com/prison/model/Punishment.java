@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -15,7 +19,10 @@ public class Punishment implements Serializable {
         SOLITARY_CONFINEMENT, LOSS_OF_PRIVILEGES, EXTRA_DUTY, WARNING
     }
 
-    private static List<Punishment> extent = new ArrayList<>();
+    public static final String STATUS_ACTIVE = "Active";
+    public static final String STATUS_COMPLETED = "Completed";
+
+    private static final VersionedExtent<Punishment> extent = new VersionedExtent<>(Punishment.class);
     private String type;
     private String description;           // Description of punishment
     private LocalDate startDate;          // Start date
@@ -24,8 +31,10 @@ public class Punishment implements Serializable {
     private IncidentReport incident;   // Incident that caused this punishment
     private List<Prisoner> prisoners;     // Punishment[0..*] to Prisoner[0..*] - many-to-many
     private List<Director> directors;     // Director[0..*] to Punishment[0..*] - many-to-many
+    private transient boolean constructing = true;
 
     public Punishment(String type, String description, LocalDate startDate, int duration, String status) {
+        long started = ModelMetrics.start();
         setType(type);
         setDescription(description);
         setStartDate(startDate);
@@ -33,14 +42,19 @@ public class Punishment implements Serializable {
         setStatus(status);
         this.prisoners = new ArrayList<>();
         this.directors = new ArrayList<>();
+        constructing = false;
         extent.add(this);
+        EventBus.created(this);
+        ModelMetrics.time(Punishment.class, ModelMetrics.Operation.CREATE, started);
     }
     public String getType() { return type; }
     public void setType(String type) {
         if (type == null || type.trim().isEmpty()) {
             throw new EmptyStringException("Punishment type cannot be empty.");
         }
+        String oldType = this.type;
         this.type = type;
+        UnitOfWork.recordUndo(this, () -> this.type = oldType);
     }
 
     public String getDescription() { return description; }
@@ -48,7 +62,9 @@ public class Punishment implements Serializable {
         if (description == null || description.trim().isEmpty()) {
             throw new EmptyStringException("Description cannot be empty.");
         }
+        String oldDescription = this.description;
         this.description = description;
+        UnitOfWork.recordUndo(this, () -> this.description = oldDescription);
     }
 
     public LocalDate getStartDate() { return startDate; }
@@ -56,7 +72,12 @@ public class Punishment implements Serializable {
         if (startDate == null) {
             throw new InvalidReferenceException("Start date cannot be null.");
         }
+        LocalDate oldStartDate = this.startDate;
         this.startDate = startDate;
+        UnitOfWork.recordUndo(this, () -> this.startDate = oldStartDate);
+        if (!constructing && !oldStartDate.equals(startDate)) {
+            EventBus.changed(this, "startDate", oldStartDate, startDate);
+        }
     }
 
     public int getDuration() { return duration; }
@@ -64,7 +85,23 @@ public class Punishment implements Serializable {
         if (duration < 0) {
             throw new NegativeNumberException("Duration cannot be negative.");
         }
+        int oldDuration = this.duration;
         this.duration = duration;
+        UnitOfWork.recordUndo(this, () -> this.duration = oldDuration);
+        if (!constructing && oldDuration != duration) {
+            EventBus.changed(this, "duration", oldDuration, duration);
+        }
+    }
+
+    /**
+     * First day the punishment no longer applies (remaining time is zero)
+     */
+    public LocalDate getEndDate() {
+        return startDate.plusDays(duration);
+    }
+
+    public boolean isActive() {
+        return STATUS_ACTIVE.equalsIgnoreCase(status);
     }
 
     public String getStatus() { return status; }
@@ -72,7 +109,12 @@ public class Punishment implements Serializable {
         if (status == null || status.trim().isEmpty()) {
             throw new EmptyStringException("Status cannot be empty.");
         }
+        String oldStatus = this.status;
         this.status = status;
+        UnitOfWork.recordUndo(this, () -> this.status = oldStatus);
+        if (!constructing && !oldStatus.equals(status)) {
+            EventBus.changed(this, "status", oldStatus, status);
+        }
     }
     /**
      * Calculates remaining days of punishment
@@ -92,7 +134,9 @@ public class Punishment implements Serializable {
         if (incident == null) {
             throw new InvalidReferenceException("Incident cannot be null - every punishment has a cause.");
         }
+        IncidentReport oldIncident = this.incident;
         this.incident = incident;
+        UnitOfWork.recordUndo(this, () -> this.incident = oldIncident);
         
         if (incident.getPunishment() != this) {
             incident.setPunishment(this);
@@ -110,6 +154,8 @@ public class Punishment implements Serializable {
         }
         if (!prisoners.contains(prisoner)) {
             prisoners.add(prisoner);
+            UnitOfWork.recordUndo(this, () -> prisoners.remove(prisoner));
+            EventBus.linked(this, "prisoners", prisoner);
             if (!prisoner.getPunishments().contains(this)) {
                 prisoner.addPunishment(this);
             }
@@ -118,7 +164,10 @@ public class Punishment implements Serializable {
     
     public void removePrisoner(Prisoner prisoner) {
         if (prisoners.contains(prisoner)) {
-            prisoners.remove(prisoner);
+            int position = prisoners.indexOf(prisoner);
+            prisoners.remove(position);
+            UnitOfWork.recordUndo(this, () -> prisoners.add(position, prisoner));
+            EventBus.unlinked(this, "prisoners", prisoner);
             if (prisoner.getPunishments().contains(this)) {
                 prisoner.removePunishment(this);
             }
@@ -136,6 +185,7 @@ public class Punishment implements Serializable {
         }
         if (!directors.contains(director)) {
             directors.add(director);
+            UnitOfWork.recordUndo(this, () -> directors.remove(director));
             if (!director.getPunishments().contains(this)) {
                 director.addPunishment(this);
             }
@@ -144,7 +194,9 @@ public class Punishment implements Serializable {
     
     public void removeDirector(Director director) {
         if (directors.contains(director)) {
-            directors.remove(director);
+            int position = directors.indexOf(director);
+            directors.remove(position);
+            UnitOfWork.recordUndo(this, () -> directors.add(position, director));
             if (director.getPunishments().contains(this)) {
                 director.removePunishment(this);
             }
@@ -156,22 +208,26 @@ public class Punishment implements Serializable {
     }
 
     public static List<Punishment> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Punishment.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Punishment>) in.readObject();
+            extent.replaceAll((List<Punishment>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Punishment.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
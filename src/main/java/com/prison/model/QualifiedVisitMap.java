@@ -0,0 +1,365 @@
+package com.prison.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Storage for the Visitor - Visit qualified association (visitorID -> Visit).
+ *
+ * Keys and visits sit side by side in one flat open-addressing table
+ * (linear probing, backward-shift deletion), so there is no entry object
+ * per visit as in HashMap. A second pair of arrays keeps the entries sorted
+ * by visit date (ties in insertion order): iteration is chronological, a
+ * date range is two binary searches, and containsValue looks only at the
+ * visit's own date. Visit.setDate reports date changes through move(...).
+ * Entries are found by the visit's current date, so a visit is stored under
+ * one visitorID only, and sits in one visitor's map: the one setDate tells.
+ *
+ * Small maps start with room for two visits, which covers most visitors.
+ */
+public final class QualifiedVisitMap extends AbstractMap<String, Visit> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_SLOTS = 4;
+    private static final int INT_PHI = 0x9E3779B9;
+
+    private Object[] table = new Object[INITIAL_SLOTS * 2];   // Key at 2i, visit at 2i + 1; null key = free
+    private String[] orderKeys = new String[2];              // Entries by visit date
+    private Visit[] order = new Visit[2];
+    private int size;
+    private transient int modCount;
+
+    public QualifiedVisitMap() {
+    }
+
+    public QualifiedVisitMap(Map<String, Visit> visits) {
+        for (Map.Entry<String, Visit> entry : visits.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Visit get(Object key) {
+        int slot = indexOf(key);
+        return slot < 0 ? null : (Visit) table[slot + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * O(log n): only entries on the visit's date are compared.
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        if (!(value instanceof Visit)) {
+            return false;
+        }
+        Visit visit = (Visit) value;
+        return positionOf(visit, visit.getDate()) >= 0;
+    }
+
+    @Override
+    public Visit put(String key, Visit visit) {
+        if (key == null || visit == null) {
+            throw new NullPointerException("Visitor ID and visit cannot be null.");
+        }
+        int slot = slotFor(key);
+        Visit old = (Visit) table[slot + 1];
+        if (old != visit && containsValue(visit)) {
+            throw new IllegalArgumentException("Visit is already stored under another visitor ID.");
+        }
+        if (old != null) {
+            removeFromOrder(key, old, old.getDate());
+        } else {
+            table[slot] = key;
+            size++;
+        }
+        table[slot + 1] = visit;
+        insertIntoOrder(key, visit);
+        modCount++;
+        if (size * 4 > capacity() * 3) {
+            rehash(capacity() * 2);
+        }
+        return old;
+    }
+
+    @Override
+    public Visit remove(Object key) {
+        int slot = indexOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        Visit old = (Visit) table[slot + 1];
+        removeFromOrder((String) table[slot], old, old.getDate());
+        shiftEntries(slot);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        table = new Object[INITIAL_SLOTS * 2];
+        orderKeys = new String[2];
+        order = new Visit[2];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Re-sorts a visit whose date changed from oldDate. No-op if the visit
+     * is not in this map.
+     */
+    void move(Visit visit, LocalDate oldDate) {
+        int position = positionOf(visit, oldDate);
+        if (position < 0) {
+            return;
+        }
+        String key = orderKeys[position];
+        removeAt(position);
+        insertIntoOrder(key, visit);
+        modCount++;
+    }
+
+    /**
+     * Visits between the two dates (both inclusive), in date order.
+     */
+    public List<Visit> between(LocalDate from, LocalDate to) {
+        List<Visit> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        for (int i = lowerBound(from); i < size && !order[i].getDate().isAfter(to); i++) {
+            result.add(order[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Entries in visit date order. Iterators fail fast on modification.
+     */
+    @Override
+    public Set<Map.Entry<String, Visit>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Visit>>() {
+            @Override
+            public Iterator<Map.Entry<String, Visit>> iterator() {
+                return new Iterator<Map.Entry<String, Visit>>() {
+                    private final int expectedModCount = modCount;
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Visit> next() {
+                        if (modCount != expectedModCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        return new AbstractMap.SimpleImmutableEntry<>(orderKeys[i], order[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // --- Hash table ---
+
+    private int capacity() {
+        return table.length >> 1;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Array index (of the key) holding key, or -1.
+     */
+    private int indexOf(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int mask = capacity() - 1;
+        int slot = hash(key) & mask;
+        while (table[slot << 1] != null) {
+            if (table[slot << 1].equals(key)) {
+                return slot << 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Array index holding key, or the free one where it belongs.
+     */
+    private int slotFor(String key) {
+        int mask = capacity() - 1;
+        int slot = hash(key) & mask;
+        while (table[slot << 1] != null && !table[slot << 1].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot << 1;
+    }
+
+    /**
+     * Backward-shift deletion, as in IntObjectMap: no tombstones.
+     */
+    private void shiftEntries(int index) {
+        int mask = capacity() - 1;
+        int slot = index >> 1;
+        while (true) {
+            int last = slot;
+            slot = (slot + 1) & mask;
+            while (true) {
+                if (table[slot << 1] == null) {
+                    table[last << 1] = null;
+                    table[(last << 1) + 1] = null;
+                    return;
+                }
+                int home = hash(table[slot << 1]) & mask;
+                if (last <= slot ? (last >= home || home > slot) : (last >= home && home > slot)) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[last << 1] = table[slot << 1];
+            table[(last << 1) + 1] = table[(slot << 1) + 1];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        Object[] old = table;
+        table = new Object[newCapacity * 2];
+        int mask = newCapacity - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != null) {
+                int slot = hash(old[i]) & mask;
+                while (table[slot << 1] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot << 1] = old[i];
+                table[(slot << 1) + 1] = old[i + 1];
+            }
+        }
+    }
+
+    // --- Date order ---
+
+    private void insertIntoOrder(String key, Visit visit) {
+        int position = upperBound(visit.getDate());
+        int used = size - 1;   // The entry being inserted is already counted
+        if (used == order.length) {
+            order = Arrays.copyOf(order, used * 2);
+            orderKeys = Arrays.copyOf(orderKeys, used * 2);
+        }
+        System.arraycopy(order, position, order, position + 1, used - position);
+        System.arraycopy(orderKeys, position, orderKeys, position + 1, used - position);
+        order[position] = visit;
+        orderKeys[position] = key;
+    }
+
+    private void removeFromOrder(String key, Visit visit, LocalDate date) {
+        for (int i = lowerBound(date); i < size && order[i].getDate().equals(date); i++) {
+            if (order[i] == visit && orderKeys[i].equals(key)) {
+                removeAt(i);
+                return;
+            }
+        }
+    }
+
+    private void removeAt(int position) {
+        System.arraycopy(order, position + 1, order, position, size - position - 1);
+        System.arraycopy(orderKeys, position + 1, orderKeys, position, size - position - 1);
+        order[size - 1] = null;
+        orderKeys[size - 1] = null;
+    }
+
+    /**
+     * Position of the visit, which is sorted under date (during move(...)
+     * its own getDate() already returns the new date).
+     */
+    private int positionOf(Visit visit, LocalDate date) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            LocalDate midDate = order[mid] == visit ? date : order[mid].getDate();
+            if (midDate.isBefore(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size && (order[i] == visit || order[i].getDate().equals(date)); i++) {
+            if (order[i] == visit) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * First position whose date is not before the given date.
+     */
+    private int lowerBound(LocalDate date) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order[mid].getDate().isBefore(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position whose date is after the given date.
+     */
+    private int upperBound(LocalDate date) {
+        int low = 0;
+        int high = size - 1;   // Skips the slot reserved for the entry being inserted
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order[mid].getDate().isAfter(date)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
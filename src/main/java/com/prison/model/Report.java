@@ -1,6 +1,7 @@
 package com.prison.model;
 
 import com.prison.exception.*;
+import com.prison.tx.UnitOfWork;
 import java.io.*;
 import java.time.LocalDate;
 
@@ -12,6 +13,7 @@ public abstract class Report implements Serializable {
     protected LocalDate date;
     protected String description;
     protected java.util.List<Director> directors;  // Director[0..*] to Report[0..*] - many-to-many
+    transient boolean constructing = true;         // Cleared by the subclass constructors; false once loaded
     public Report(LocalDate date, String description) {
         setDate(date);
         setDescription(description);
@@ -28,7 +30,9 @@ public abstract class Report implements Serializable {
         if (date.isAfter(LocalDate.now())) {
             throw new InvalidDateException("Report date cannot be in the future.");
         }
+        LocalDate oldDate = this.date;
         this.date = date;
+        UnitOfWork.recordUndo(this, () -> this.date = oldDate);
     }
 
     public String getDescription() {
@@ -39,7 +43,9 @@ public abstract class Report implements Serializable {
         if (description == null || description.trim().isEmpty()) {
             throw new EmptyStringException("Description cannot be empty.");
         }
+        String oldDescription = this.description;
         this.description = description;
+        UnitOfWork.recordUndo(this, () -> this.description = oldDescription);
     }
     public abstract void manageReport();
     
@@ -50,6 +56,7 @@ public abstract class Report implements Serializable {
         }
         if (!directors.contains(director)) {
             directors.add(director);
+            UnitOfWork.recordUndo(this, () -> directors.remove(director));
             if (!director.getSupervisedReports().contains(this)) {
                 director.addSupervisedReport(this);
             }
@@ -58,7 +65,9 @@ public abstract class Report implements Serializable {
     
     public void removeDirector(Director director) {
         if (directors.contains(director)) {
-            directors.remove(director);
+            int position = directors.indexOf(director);
+            directors.remove(position);
+            UnitOfWork.recordUndo(this, () -> directors.add(position, director));
             if (director.getSupervisedReports().contains(this)) {
                 director.removeSupervisedReport(this);
             }
@@ -1,6 +1,10 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -14,7 +18,11 @@ public class Schedule implements Serializable {
         Work, Exercise, Meal, Medical, Court, Cell, Visit
     }
 
-    private static List<Schedule> extent = new ArrayList<>();
+    private static final VersionedExtent<Schedule> extent = new VersionedExtent<>(Schedule.class);
+    static {   // Links per member, read when metrics are exported
+        ModelMetrics.fanOut("Schedule.prisoners", Schedule::getExtent, schedule -> schedule.getPrisoners().size());
+        ModelMetrics.fanOut("Schedule.staffMembers", Schedule::getExtent, schedule -> schedule.getStaffMembers().size());
+    }
 
     private LocalTime startTime;
     private LocalTime endTime;
@@ -22,15 +30,19 @@ public class Schedule implements Serializable {
     private List<Prisoner> prisoners;   // Prisoner[0..*] to Schedule[0..*]
     private Block block;                // Block[1] to Schedule[1] - mandatory
     private List<Staff> staffMembers;   // Staff[0..*] to Schedule[0..*]
+    private transient boolean constructing = true;
 
     public Schedule(LocalTime startTime, LocalTime endTime, ActivityType type, Block block) {
+        long started = ModelMetrics.start();
         setStartTime(startTime);
         setEndTime(endTime);
         setType(type);
         setBlock(block);  // Required - Schedule must have a Block
         this.prisoners = new ArrayList<>();
         this.staffMembers = new ArrayList<>();
+        constructing = false;
         extent.add(this);
+        ModelMetrics.time(Schedule.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public LocalTime getStartTime() { return startTime; }
@@ -38,7 +50,9 @@ public class Schedule implements Serializable {
         if (startTime == null) {
             throw new InvalidReferenceException("Start time cannot be null.");
         }
+        LocalTime oldStartTime = this.startTime;
         this.startTime = startTime;
+        UnitOfWork.recordUndo(this, () -> this.startTime = oldStartTime);
     }
 
     public LocalTime getEndTime() { return endTime; }
@@ -49,7 +63,9 @@ public class Schedule implements Serializable {
         if (startTime != null && endTime.isBefore(startTime)) {
             throw new InvalidDateException("End time cannot be before start time.");
         }
+        LocalTime oldEndTime = this.endTime;
         this.endTime = endTime;
+        UnitOfWork.recordUndo(this, () -> this.endTime = oldEndTime);
     }
 
     public ActivityType getType() { return type; }
@@ -57,7 +73,9 @@ public class Schedule implements Serializable {
         if (type == null) {
             throw new InvalidReferenceException("Activity type cannot be null.");
         }
+        ActivityType oldType = this.type;
         this.type = type;
+        UnitOfWork.recordUndo(this, () -> this.type = oldType);
     }
     /**
      * Calculates duration in minutes
@@ -76,27 +94,34 @@ public class Schedule implements Serializable {
      * Prisoner[0..*] to Schedule[0..*]
      */
     public void addPrisoner(Prisoner prisoner) {
+        long started = ModelMetrics.start();
         if (prisoner == null) {
             throw new InvalidReferenceException("Prisoner cannot be null.");
         }
         if (!prisoners.contains(prisoner)) {
             prisoners.add(prisoner);
+            UnitOfWork.recordUndo(this, () -> prisoners.remove(prisoner));
             if (!prisoner.getSchedules().contains(this)) {
                 prisoner.addSchedule(this);
             }
         }
+        ModelMetrics.time(Schedule.class, ModelMetrics.Operation.LINK, started);
     }
     
     /**
      * Removes a prisoner
      */
     public void removePrisoner(Prisoner prisoner) {
+        long started = ModelMetrics.start();
         if (prisoner != null && prisoners.contains(prisoner)) {
-            prisoners.remove(prisoner);
+            int position = prisoners.indexOf(prisoner);
+            prisoners.remove(position);
+            UnitOfWork.recordUndo(this, () -> prisoners.add(position, prisoner));
             if (prisoner.getSchedules().contains(this)) {
                 prisoner.removeSchedule(this);
             }
         }
+        ModelMetrics.time(Schedule.class, ModelMetrics.Operation.UNLINK, started);
     }
     
     /**
@@ -116,12 +141,17 @@ public class Schedule implements Serializable {
         }
         
         if (this.block != block) {
+            Block oldBlock = this.block;
             // Remove from old block
             if (this.block != null && this.block.getSchedules().contains(this)) {
                 this.block.removeSchedule(this);
             }
             
             this.block = block;
+            UnitOfWork.recordUndo(this, () -> this.block = oldBlock);
+            if (!constructing) {
+                EventBus.changed(this, "block", oldBlock, block);
+            }
             
             // Add to new block
             if (!block.getSchedules().contains(this)) {
@@ -142,10 +172,12 @@ public class Schedule implements Serializable {
         if (staff == null) {
             throw new InvalidReferenceException("Staff cannot be null.");
         }
-        if (!staffMembers.contains(staff)) {
-            staffMembers.add(staff);
-            if (!staff.getSchedules().contains(this)) {
-                staff.addSchedule(this);
+        Staff member = staff.getIdentity();   // A CombinedStaff role is linked as its owner
+        if (!staffMembers.contains(member)) {
+            staffMembers.add(member);
+            UnitOfWork.recordUndo(this, () -> staffMembers.remove(member));
+            if (!member.getSchedules().contains(this)) {
+                member.addSchedule(this);
             }
         }
     }
@@ -154,10 +186,13 @@ public class Schedule implements Serializable {
      * Removes a staff member
      */
     public void removeStaff(Staff staff) {
-        if (staff != null && staffMembers.contains(staff)) {
-            staffMembers.remove(staff);
-            if (staff.getSchedules().contains(this)) {
-                staff.removeSchedule(this);
+        Staff member = staff != null ? staff.getIdentity() : null;
+        if (member != null && staffMembers.contains(member)) {
+            int position = staffMembers.indexOf(member);
+            staffMembers.remove(position);
+            UnitOfWork.recordUndo(this, () -> staffMembers.add(position, member));
+            if (member.getSchedules().contains(this)) {
+                member.removeSchedule(this);
             }
         }
     }
@@ -170,22 +205,26 @@ public class Schedule implements Serializable {
     }
 
     public static List<Schedule> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Schedule.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Schedule>) in.readObject();
+            extent.replaceAll((List<Schedule>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Schedule.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
@@ -0,0 +1,170 @@
+package com.prison.model;
+
+import com.prison.exception.ValidationException;
+import java.io.Serializable;
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A daily working time parsed from Staff.shiftHour.
+ *
+ * Accepted forms are 12-hour ranges ("9am-5pm", "9:30 AM - 5 PM",
+ * "4PM-12AM"), 24-hour ranges ("06:00-14:00", "22-6") and the named shifts
+ * "Day Shift" (06:00-14:00), "Evening Shift" (14:00-22:00) and
+ * "Night Shift" (22:00-06:00), and "24/7" for round the clock. A shift whose end is not after its start runs
+ * past midnight; equal start and end means round the clock. Times are kept
+ * as minutes of the day, so overlap tests are integer comparisons.
+ */
+public final class ShiftInterval implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    public static final ShiftInterval DAY = new ShiftInterval(6 * 60, 14 * 60);
+    public static final ShiftInterval EVENING = new ShiftInterval(14 * 60, 22 * 60);
+    public static final ShiftInterval NIGHT = new ShiftInterval(22 * 60, 6 * 60);
+    public static final ShiftInterval ALL_DAY = new ShiftInterval(0, 0);
+
+    private static final Map<String, ShiftInterval> NAMED = Map.of(
+        "day", DAY, "morning", DAY,
+        "evening", EVENING, "afternoon", EVENING, "swing", EVENING,
+        "night", NIGHT,
+        "24/7", ALL_DAY, "24h", ALL_DAY, "all day", ALL_DAY, "round the clock", ALL_DAY);
+
+    // hour[:minutes][am|pm] - hour[:minutes][am|pm]
+    private static final Pattern RANGE = Pattern.compile(
+        "(\\d{1,2})(?::(\\d{2}))?\\s*([ap]\\.?m\\.?)?\\s*(?:-|–|to)\\s*(\\d{1,2})(?::(\\d{2}))?\\s*([ap]\\.?m\\.?)?");
+
+    private final int startMinute;   // 0..1439
+    private final int endMinute;     // 0..1439; not after start means the shift ends the next day
+
+    private ShiftInterval(int startMinute, int endMinute) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    public static ShiftInterval of(LocalTime start, LocalTime end) {
+        if (start == null || end == null) {
+            throw new ValidationException("Shift start and end cannot be null.");
+        }
+        return new ShiftInterval(start.getHour() * 60 + start.getMinute(), end.getHour() * 60 + end.getMinute());
+    }
+
+    /**
+     * Parses a shiftHour value; throws ValidationException for text that is
+     * not one of the accepted forms (including "9-5pm", where the am/pm of
+     * the start is ambiguous).
+     */
+    public static ShiftInterval parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new ValidationException("Shift hour cannot be empty.");
+        }
+        String normalized = text.trim().toLowerCase(Locale.ROOT);
+        String name = normalized.endsWith(" shift") ? normalized.substring(0, normalized.length() - 6).trim() : normalized;
+        ShiftInterval named = NAMED.get(name);
+        if (named != null) {
+            return named;
+        }
+        Matcher matcher = RANGE.matcher(normalized);
+        if (!matcher.matches()) {
+            throw new ValidationException("Unrecognised shift hour: " + text + ".");
+        }
+        String startMeridiem = matcher.group(3);
+        String endMeridiem = matcher.group(6);
+        if ((startMeridiem == null) != (endMeridiem == null)) {
+            throw new ValidationException("Ambiguous shift hour (use am/pm on both ends or 24-hour times): " + text + ".");
+        }
+        int start = minuteOfDay(matcher.group(1), matcher.group(2), startMeridiem, text);
+        int end = minuteOfDay(matcher.group(4), matcher.group(5), endMeridiem, text);
+        return new ShiftInterval(start, end);
+    }
+
+    /**
+     * Like parse, but returns null for free text such as "On-Call" or
+     * "Flexible", which Staff accepts without a fixed working time.
+     */
+    public static ShiftInterval tryParse(String text) {
+        try {
+            return parse(text);
+        } catch (ValidationException e) {
+            return null;
+        }
+    }
+
+    private static int minuteOfDay(String hourText, String minuteText, String meridiem, String text) {
+        int hour = Integer.parseInt(hourText);
+        int minute = minuteText == null ? 0 : Integer.parseInt(minuteText);
+        if (minute > 59) {
+            throw new ValidationException("Invalid minutes in shift hour: " + text + ".");
+        }
+        if (meridiem != null) {
+            if (hour < 1 || hour > 12) {
+                throw new ValidationException("Invalid 12-hour time in shift hour: " + text + ".");
+            }
+            hour = hour % 12 + (meridiem.startsWith("p") ? 12 : 0);
+        } else if (hour > 24 || (hour == 24 && minute > 0)) {
+            throw new ValidationException("Invalid 24-hour time in shift hour: " + text + ".");
+        }
+        return (hour * 60 + minute) % MINUTES_PER_DAY;
+    }
+
+    public LocalTime getStart() {
+        return LocalTime.of(startMinute / 60, startMinute % 60);
+    }
+
+    public LocalTime getEnd() {
+        return LocalTime.of(endMinute / 60, endMinute % 60);
+    }
+
+    public int getStartMinute() { return startMinute; }
+    public int getEndMinute() { return endMinute; }
+
+    public boolean isOvernight() {
+        return endMinute <= startMinute;
+    }
+
+    public int getDurationMinutes() {
+        return isOvernight() ? MINUTES_PER_DAY - startMinute + endMinute : endMinute - startMinute;
+    }
+
+    /**
+     * Whether the shift is on duty at some moment of [fromMinute, toMinute),
+     * both minutes of the day with fromMinute < toMinute.
+     */
+    public boolean overlaps(int fromMinute, int toMinute) {
+        if (!isOvernight()) {
+            return startMinute < toMinute && fromMinute < endMinute;
+        }
+        return fromMinute < endMinute || toMinute > startMinute;
+    }
+
+    public boolean covers(LocalTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        return overlaps(minute, minute + 1);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ShiftInterval)) {
+            return false;
+        }
+        ShiftInterval that = (ShiftInterval) other;
+        return startMinute == that.startMinute && endMinute == that.endMinute;
+    }
+
+    @Override
+    public int hashCode() {
+        return startMinute * MINUTES_PER_DAY + endMinute;
+    }
+
+    @Override
+    public String toString() {
+        return getStart() + "-" + getEnd();
+    }
+}
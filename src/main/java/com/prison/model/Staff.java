@@ -1,25 +1,36 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.PartitionedExtent;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class Staff implements Serializable {
     private static final long serialVersionUID = 1L;
-    // Note: Since Staff is abstract, we might want to store all staff here, or just let subclasses handle their own extents.
-    // However, the requirement usually implies a per-class extent.
-    // For polymorphism, a common extent for the base class is useful.
-    private static List<Staff> extent = new ArrayList<>();
+    // One store for all staff, partitioned by concrete class; Guard, Doctor, ... read views of it
+    private static final PartitionedExtent<Staff> extent = new PartitionedExtent<>(Staff.class);
+    private static Map<String, Staff> emailIndex = new HashMap<>();  // Natural key: email -> Staff (unique)
     private String name;
     private String surname;
     private int experienceYears;
     private String shiftHour;
+    private ShiftInterval shift;       // shiftHour parsed
     private String phone;
     private String email;
     private List<Block> assignedBlocks;    // Block[0..*] to Staff[0..*] - many-to-many
     private List<Schedule> schedules;  // Staff[0..*] to Schedule[0..*]
+    private boolean emailRegistered;   // false for CombinedStaff role objects, which share the owner's email
+    private Staff owner;               // Set for the roles of a CombinedStaff; their attributes and links are the owner's
+    transient boolean constructing = true;   // Cleared by the concrete constructors; false once loaded
     
     public Staff(String name, String surname, int experienceYears, 
                  String shiftHour, String phone, String email) {
@@ -31,108 +42,310 @@ public abstract class Staff implements Serializable {
         setEmail(email);
         this.assignedBlocks = new ArrayList<>();
         this.schedules = new ArrayList<>();
-        
-        // Add to extent
-        extent.add(this);
+        // Each concrete class adds itself to the extent once fully constructed
     }
-    public String getName() { return name; }
+
+    /**
+     * A role (Guard or Doctor) of a CombinedStaff member. It keeps none of
+     * the Staff attributes or links - they are read from and written to the
+     * owner - and is not a separate entry of the Staff extent.
+     */
+    Staff(Staff owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * The person this object stands for: itself, or the CombinedStaff
+     * member whose role it is.
+     */
+    public Staff getIdentity() {
+        return owner != null ? owner : this;
+    }
+
+    /**
+     * Turns a role loaded from a file written when roles copied the owner's
+     * attributes into a plain role of owner.
+     */
+    void becomeRoleOf(Staff owner) {
+        this.owner = owner;
+        this.name = null;
+        this.surname = null;
+        this.shiftHour = null;
+        this.shift = null;
+        this.phone = null;
+        this.email = null;
+        this.assignedBlocks = null;
+        this.schedules = null;
+    }
+    public String getName() { return owner != null ? owner.getName() : name; }
     public void setName(String name) {
+        if (owner != null) {
+            owner.setName(name);
+            return;
+        }
         if (name == null || name.trim().isEmpty()) {
             throw new EmptyStringException("Name cannot be empty.");
         }
+        String oldName = this.name;
         this.name = name;
+        UnitOfWork.recordUndo(this, () -> this.name = oldName);
     }
 
-    public String getSurname() { return surname; }
+    public String getSurname() { return owner != null ? owner.getSurname() : surname; }
     public void setSurname(String surname) {
+        if (owner != null) {
+            owner.setSurname(surname);
+            return;
+        }
         if (surname == null || surname.trim().isEmpty()) {
             throw new EmptyStringException("Surname cannot be empty.");
         }
+        String oldSurname = this.surname;
         this.surname = surname;
+        UnitOfWork.recordUndo(this, () -> this.surname = oldSurname);
     }
 
-    public int getExperienceYears() { return experienceYears; }
+    public int getExperienceYears() { return owner != null ? owner.getExperienceYears() : experienceYears; }
     public void setExperienceYears(int experienceYears) {
+        if (owner != null) {
+            owner.setExperienceYears(experienceYears);
+            return;
+        }
         if (experienceYears < 0) {
             throw new NegativeNumberException("Experience years cannot be negative.");
         }
+        int oldExperienceYears = this.experienceYears;
         this.experienceYears = experienceYears;
+        UnitOfWork.recordUndo(this, () -> this.experienceYears = oldExperienceYears);
     }
 
-    public String getShiftHour() { return shiftHour; }
+    public String getShiftHour() { return owner != null ? owner.getShiftHour() : shiftHour; }
     public void setShiftHour(String shiftHour) {
+        if (owner != null) {
+            owner.setShiftHour(shiftHour);
+            return;
+        }
         if (shiftHour == null || shiftHour.trim().isEmpty()) {
             throw new EmptyStringException("Shift hour cannot be empty.");
         }
+        String oldShiftHour = this.shiftHour;
+        ShiftInterval oldShift = this.shift;
         this.shiftHour = shiftHour;
+        this.shift = ShiftInterval.tryParse(shiftHour);
+        UnitOfWork.recordUndo(this, () -> {
+            this.shiftHour = oldShiftHour;
+            this.shift = oldShift;
+        });
+        if (!constructing && !oldShiftHour.equals(shiftHour)) {
+            EventBus.changed(this, "shiftHour", oldShiftHour, shiftHour);
+        }
+    }
+
+    /**
+     * The working time of shiftHour, or null when it is free text without
+     * fixed hours (e.g. "On-Call")
+     */
+    public ShiftInterval getShift() {
+        if (owner != null) {
+            return owner.getShift();
+        }
+        if (shift == null) {
+            shift = ShiftInterval.tryParse(shiftHour);  // Loaded from a file written before shifts were parsed
+        }
+        return shift;
     }
 
-    public String getPhone() { return phone; }
+    public String getPhone() { return owner != null ? owner.getPhone() : phone; }
     public void setPhone(String phone) {
+        if (owner != null) {
+            owner.setPhone(phone);
+            return;
+        }
         if (phone == null || phone.trim().isEmpty()) {
             throw new EmptyStringException("Phone cannot be empty.");
         }
+        String oldPhone = this.phone;
         this.phone = phone;
+        UnitOfWork.recordUndo(this, () -> this.phone = oldPhone);
     }
 
-    public String getEmail() { return email; }
+    public String getEmail() { return owner != null ? owner.getEmail() : email; }
     public void setEmail(String email) {
+        if (owner != null) {
+            owner.setEmail(email);
+            return;
+        }
         if (email == null || email.trim().isEmpty()) {
             throw new EmptyStringException("Email cannot be empty.");
         }
+        String oldEmail = this.email;
+        if (!email.equals(oldEmail) && oldEmail != null && emailIndex.get(oldEmail) == this) {
+            if (emailIndex.containsKey(email)) {
+                throw new ValidationException("Email " + email + " is already in use.");
+            }
+            emailIndex.remove(oldEmail);
+            emailIndex.put(email, this);
+            UnitOfWork.recordUndo(this, () -> {
+                emailIndex.remove(email);
+                emailIndex.put(oldEmail, this);
+            });
+        }
         this.email = email;
+        UnitOfWork.recordUndo(this, () -> this.email = oldEmail);
+    }
+
+    /**
+     * Registers this staff member under its email. Called at the end of the
+     * concrete subclass constructors, once all attributes are validated.
+     */
+    void registerEmail() {
+        Staff existing = emailIndex.get(email);
+        if (existing != null && existing != this) {
+            throw new ValidationException("Email " + email + " is already in use.");
+        }
+        String registered = email;
+        emailIndex.put(registered, this);
+        emailRegistered = true;
+        UnitOfWork.recordUndo(this, () -> {
+            emailIndex.remove(registered);
+            emailRegistered = false;
+        });
+    }
+
+    /**
+     * Finds a staff member by unique email (O(1) index lookup)
+     */
+    public static Staff findByEmail(String email) {
+        return emailIndex.get(email);
     }
     public static List<Staff> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
+    }
+
+    /**
+     * The part of the staff extent holding type and its subclasses.
+     */
+    static <S extends Staff> PartitionedExtent.View<S> extentView(Class<S> type) {
+        return extent.view(type);
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Staff.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Staff>) in.readObject();
+            List<Staff> loaded = (List<Staff>) in.readObject();
+            Set<Staff> roles = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Staff staff : loaded) {
+                if (staff instanceof CombinedStaff) {  // Older files list the roles as staff of their own
+                    roles.add(((CombinedStaff) staff).getGuardRole());
+                    roles.add(((CombinedStaff) staff).getDoctorRole());
+                }
+            }
+            loaded.removeIf(roles::contains);
+            extent.replaceAll(loaded);
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        unindexPartition(Staff.class);
+        indexPartition(Staff.class);
+        ModelMetrics.time(Staff.class, ModelMetrics.Operation.LOAD, started);
+    }
+
+    /**
+     * Drops the email and licence index entries of type's members when their
+     * partition is cleared or replaced; other staff stay indexed. Goes by the
+     * index entries, not the extent, so members a load just replaced go too.
+     */
+    static void unindexPartition(Class<? extends Staff> type) {
+        emailIndex.values().removeIf(type::isInstance);
+        Doctor.unindexLicenses(type);
+    }
+
+    /**
+     * Indexes the emails and licences of type's members, e.g. after their
+     * partition was loaded. Every member owns its email; files written
+     * before emailRegistered was recorded load with it unset.
+     */
+    static void indexPartition(Class<? extends Staff> type) {
+        for (Staff staff : extent.view(type)) {
+            staff.emailRegistered = true;
+            emailIndex.put(staff.email, staff);
+        }
+        Doctor.indexLicenses(type);
     }
     // Many-to-many: Block[0..*] to Staff[0..*]
     public void addBlock(Block block) {
+        if (owner != null) {
+            owner.addBlock(block);
+            return;
+        }
+        long started = ModelMetrics.start();
         if (block == null) {
             throw new InvalidReferenceException("Block cannot be null.");
         }
         if (!assignedBlocks.contains(block)) {
             assignedBlocks.add(block);
+            UnitOfWork.recordUndo(this, () -> assignedBlocks.remove(block));
+            EventBus.linked(this, "blocks", block);
             if (!block.getStaffMembers().contains(this)) {
                 block.addStaff(this);
             }
         }
+        ModelMetrics.time(Staff.class, ModelMetrics.Operation.LINK, started);
     }
     
     public void removeBlock(Block block) {
+        if (owner != null) {
+            owner.removeBlock(block);
+            return;
+        }
+        long started = ModelMetrics.start();
         if (assignedBlocks.contains(block)) {
-            assignedBlocks.remove(block);
+            int position = assignedBlocks.indexOf(block);
+            assignedBlocks.remove(position);
+            UnitOfWork.recordUndo(this, () -> assignedBlocks.add(position, block));
+            EventBus.unlinked(this, "blocks", block);
             if (block.getStaffMembers().contains(this)) {
                 block.removeStaff(this);
             }
         }
+        ModelMetrics.time(Staff.class, ModelMetrics.Operation.UNLINK, started);
     }
     
     public List<Block> getBlocks() {
+        if (owner != null) {
+            return owner.getBlocks();
+        }
         return Collections.unmodifiableList(assignedBlocks);
     }
     
     // Backward compatibility
     public Block getAssignedBlock() {
+        if (owner != null) {
+            return owner.getAssignedBlock();
+        }
         return assignedBlocks.isEmpty() ? null : assignedBlocks.get(0);
     }
     
     public void setAssignedBlock(Block block) {
+        if (owner != null) {
+            owner.setAssignedBlock(block);
+            return;
+        }
+        List<Block> oldBlocks = new ArrayList<>(assignedBlocks);
         assignedBlocks.clear();
+        UnitOfWork.recordUndo(this, () -> assignedBlocks.addAll(oldBlocks));
+        for (Block old : oldBlocks) {
+            EventBus.unlinked(this, "blocks", old);
+        }
         if (block != null) {
             addBlock(block);
         }
@@ -143,11 +356,17 @@ public abstract class Staff implements Serializable {
      * Staff[0..*] to Schedule[0..*]
      */
     public void addSchedule(Schedule schedule) {
+        if (owner != null) {
+            owner.addSchedule(schedule);
+            return;
+        }
         if (schedule == null) {
             throw new InvalidReferenceException("Schedule cannot be null.");
         }
         if (!schedules.contains(schedule)) {
             schedules.add(schedule);
+            UnitOfWork.recordUndo(this, () -> schedules.remove(schedule));
+            EventBus.linked(this, "schedules", schedule);
             if (!schedule.getStaffMembers().contains(this)) {
                 schedule.addStaff(this);
             }
@@ -158,8 +377,15 @@ public abstract class Staff implements Serializable {
      * Removes a schedule
      */
     public void removeSchedule(Schedule schedule) {
+        if (owner != null) {
+            owner.removeSchedule(schedule);
+            return;
+        }
         if (schedule != null && schedules.contains(schedule)) {
-            schedules.remove(schedule);
+            int position = schedules.indexOf(schedule);
+            schedules.remove(position);
+            UnitOfWork.recordUndo(this, () -> schedules.add(position, schedule));
+            EventBus.unlinked(this, "schedules", schedule);
             if (schedule.getStaffMembers().contains(this)) {
                 schedule.removeStaff(this);
             }
@@ -170,10 +396,14 @@ public abstract class Staff implements Serializable {
      * Gets all schedules
      */
     public List<Schedule> getSchedules() {
+        if (owner != null) {
+            return owner.getSchedules();
+        }
         return Collections.unmodifiableList(schedules);
     }
     
     public static void clearExtent() {
         extent.clear();
+        unindexPartition(Staff.class);
     }
 }
@@ -1,8 +1,13 @@
 package com.prison.model;
 
+import com.prison.event.EventBus;
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -18,7 +23,7 @@ public class Visit implements Serializable {
         LAWYER, FAMILY, GENERAL
     }
 
-    private static List<Visit> extent = new ArrayList<>();
+    private static final VersionedExtent<Visit> extent = new VersionedExtent<>(Visit.class);
 
     private String visitorID;      // Qualifier for qualified association
     private LocalDate date;
@@ -28,17 +33,25 @@ public class Visit implements Serializable {
     private Visitor visitor;       // Visit[0..*] to Visitor (Qualified Association by visitorID)
     private List<Director> directors;     // Director[0..*] to Visit[0..*] - many-to-many
     private Prisoner prisoner;     // Prisoner[1] to Visit[0..*] {ordered}
+    private transient boolean constructing = true;
 
     public Visit(LocalDate date, int duration, VisitType type, String visitorID, Visitor visitor, Prisoner prisoner) {
-        setDate(date);
-        setDuration(duration);
-        setType(type);
-        setVisitorID(visitorID);
-        this.approvalStatus = ApprovalStatus.PENDING;
-        this.directors = new ArrayList<>();
-        setVisitor(visitor);
-        setPrisoner(prisoner);
-        extent.add(this);
+        long started = ModelMetrics.start();
+        // Atomic: a failing setPrisoner must not leave the visit registered with the visitor
+        UnitOfWork.run(() -> {
+            setDate(date);
+            setDuration(duration);
+            setType(type);
+            setVisitorID(visitorID);
+            this.approvalStatus = ApprovalStatus.PENDING;
+            this.directors = new ArrayList<>();
+            setVisitor(visitor);
+            setPrisoner(prisoner);
+            constructing = false;
+            extent.add(this);
+            EventBus.created(this);
+        });
+        ModelMetrics.time(Visit.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public LocalDate getDate() { return date; }
@@ -49,7 +62,26 @@ public class Visit implements Serializable {
         if (date.isBefore(LocalDate.now())) {
             throw new InvalidDateException("Visit date cannot be in the past.");
         }
+        LocalDate oldDate = this.date;
+        if (oldDate != null && !YearMonth.from(oldDate).equals(YearMonth.from(date))) {
+            checkQuota(prisoner, visitor, date, approvalStatus);
+            count(prisoner, visitor, oldDate, approvalStatus, -1);
+            count(prisoner, visitor, date, approvalStatus, 1);
+        }
         this.date = date;
+        Visitor resorted = oldDate != null && !oldDate.equals(date) ? visitor : null;
+        UnitOfWork.recordUndo(this, () -> {
+            this.date = oldDate;
+            if (resorted != null) {
+                resorted.visitDateChanged(this, date);   // Back to its old place in the visitor's date order
+            }
+        });
+        if (!constructing && !oldDate.equals(date)) {
+            if (visitor != null) {
+                visitor.visitDateChanged(this, oldDate);
+            }
+            EventBus.changed(this, "date", oldDate, date);
+        }
     }
 
     public int getDuration() { return duration; }
@@ -57,7 +89,12 @@ public class Visit implements Serializable {
         if (duration <= 0) {
             throw new NegativeNumberException("Duration must be positive.");
         }
+        int oldDuration = this.duration;
         this.duration = duration;
+        UnitOfWork.recordUndo(this, () -> this.duration = oldDuration);
+        if (!constructing && oldDuration != duration) {
+            EventBus.changed(this, "duration", oldDuration, duration);
+        }
     }
 
     public VisitType getType() { return type; }
@@ -65,7 +102,12 @@ public class Visit implements Serializable {
         if (type == null) {
             throw new InvalidReferenceException("Visit type cannot be null.");
         }
+        VisitType oldType = this.type;
         this.type = type;
+        UnitOfWork.recordUndo(this, () -> this.type = oldType);
+        if (!constructing && oldType != type) {
+            EventBus.changed(this, "type", oldType, type);
+        }
     }
 
     public ApprovalStatus getApprovalStatus() { return approvalStatus; }
@@ -73,7 +115,17 @@ public class Visit implements Serializable {
         if (approvalStatus == null) {
             throw new InvalidReferenceException("Approval status cannot be null.");
         }
+        ApprovalStatus oldStatus = this.approvalStatus;
+        if (!VisitQuota.isApproved(oldStatus)) {
+            checkQuota(prisoner, visitor, date, approvalStatus);
+        }
+        count(prisoner, visitor, date, oldStatus, -1);
+        count(prisoner, visitor, date, approvalStatus, 1);
         this.approvalStatus = approvalStatus;
+        UnitOfWork.recordUndo(this, () -> this.approvalStatus = oldStatus);
+        if (oldStatus != approvalStatus) {
+            EventBus.changed(this, "approvalStatus", oldStatus, approvalStatus);
+        }
     }
     
     public String getVisitorID() { return visitorID; }
@@ -81,19 +133,36 @@ public class Visit implements Serializable {
         if (visitorID == null || visitorID.trim().isEmpty()) {
             throw new EmptyStringException("Visitor ID cannot be empty.");
         }
+        if (this.visitorID != null && visitor != null && !this.visitorID.equals(visitorID)) {
+            visitor.updateVisitVisitorID(this.visitorID, visitorID, this);  // Checks uniqueness, moves the qualifier and the global index
+        }
+        String oldVisitorID = this.visitorID;
         this.visitorID = visitorID;
+        UnitOfWork.recordUndo(this, () -> this.visitorID = oldVisitorID);
     }
     
     public void setVisitor(Visitor visitor) {
         if (visitor == null) {
             throw new InvalidReferenceException("Visitor cannot be null.");
         }
+        Visitor oldVisitor = this.visitor;
+        if (oldVisitor != visitor) {
+            checkQuota(null, visitor, date, approvalStatus);
+        }
         this.visitor = visitor;
+        UnitOfWork.recordUndo(this, () -> this.visitor = oldVisitor);
         
         // Qualified association - visitor manages visits by visitorID in a dictionary
         if (!visitor.getVisitsByVisitorID().containsValue(this)) {
             visitor.addVisitByVisitorID(this.visitorID, this);
         }
+        if (oldVisitor != null && oldVisitor != visitor) {
+            oldVisitor.visitMovedAway(visitorID, this);   // setDate keeps only the current visitor's map in order
+        }
+        if (oldVisitor != visitor) {
+            count(null, oldVisitor, date, approvalStatus, -1);
+            count(null, visitor, date, approvalStatus, 1);
+        }
     }
     
     public Visitor getVisitor() {
@@ -110,11 +179,36 @@ public class Visit implements Serializable {
         }
         
         if (this.prisoner != prisoner) {
-            if (this.prisoner != null && this.prisoner.getVisits().contains(this)) {
-                this.prisoner.removeVisit(this);
+            checkQuota(prisoner, null, date, approvalStatus);
+            count(this.prisoner, null, date, approvalStatus, -1);
+            count(prisoner, null, date, approvalStatus, 1);
+        }
+        LinkBatch batch = LinkBatch.current();
+        if (batch != null) {  // Prisoner.visits is rebuilt when the batch ends
+            if (this.prisoner != prisoner) {
+                Prisoner oldPrisoner = this.prisoner;
+                if (oldPrisoner != null) {
+                    batch.record(oldPrisoner, oldPrisoner.visitLinks(), this, Visit::getPrisoner);
+                }
+                this.prisoner = prisoner;
+                UnitOfWork.recordUndo(this, () -> this.prisoner = oldPrisoner);
+                if (!constructing) {
+                    EventBus.changed(this, "prisoner", oldPrisoner, prisoner);
+                }
+                batch.record(prisoner, prisoner.visitLinks(), this, Visit::getPrisoner);
+            }
+            return;
+        }
+        if (this.prisoner != prisoner) {
+            Prisoner oldPrisoner = this.prisoner;
+            this.prisoner = prisoner;   // Before the removal, so the old prisoner does not call back with null
+            UnitOfWork.recordUndo(this, () -> this.prisoner = oldPrisoner);
+            if (oldPrisoner != null && oldPrisoner.getVisits().contains(this)) {
+                oldPrisoner.removeVisit(this);
+            }
+            if (!constructing) {
+                EventBus.changed(this, "prisoner", oldPrisoner, prisoner);
             }
-            
-            this.prisoner = prisoner;
             
             if (!prisoner.getVisits().contains(this)) {
                 prisoner.addVisit(this);
@@ -125,6 +219,45 @@ public class Visit implements Serializable {
     public Prisoner getPrisoner() {
         return prisoner;
     }
+
+    /**
+     * Throws if the visit in the given state would take the prisoner or
+     * visitor past its monthly limit; only approved visits count.
+     */
+    private static void checkQuota(Prisoner prisoner, Visitor visitor, LocalDate date, ApprovalStatus status) {
+        if (date == null || !VisitQuota.isApproved(status)) {
+            return;
+        }
+        YearMonth month = YearMonth.from(date);
+        if (prisoner != null && !prisoner.getVisitQuota().hasRoom(month)) {
+            throw new ValidationException("Prisoner already has " + Prisoner.getMaxAmountOfVisitPerMonth()
+                + " approved visits in " + month + ".");
+        }
+        if (visitor != null && !visitor.getVisitQuota().hasRoom(month)) {
+            throw new ValidationException("Visitor already has " + Visitor.getMaxAmountOfVisitPerMonth()
+                + " approved visits in " + month + ".");
+        }
+    }
+
+    /**
+     * Adds (delta 1) or retracts (delta -1) the visit in the given state from
+     * the monthly counters of the prisoner and visitor.
+     */
+    private void count(Prisoner prisoner, Visitor visitor, LocalDate date, ApprovalStatus status, int delta) {
+        if (date == null || status == null || status == ApprovalStatus.REJECTED) {
+            return;
+        }
+        YearMonth month = YearMonth.from(date);
+        boolean approved = VisitQuota.isApproved(status);
+        if (prisoner != null) {
+            prisoner.getVisitQuota().adjust(month, approved, delta);
+            UnitOfWork.recordUndo(this, () -> prisoner.getVisitQuota().adjust(month, approved, -delta));
+        }
+        if (visitor != null) {
+            visitor.getVisitQuota().adjust(month, approved, delta);
+            UnitOfWork.recordUndo(this, () -> visitor.getVisitQuota().adjust(month, approved, -delta));
+        }
+    }
     
     public void addDirector(Director director) {
         if (director == null) {
@@ -132,6 +265,8 @@ public class Visit implements Serializable {
         }
         if (!directors.contains(director)) {
             directors.add(director);
+            UnitOfWork.recordUndo(this, () -> directors.remove(director));
+            EventBus.linked(this, "directors", director);
             if (!director.getApprovedVisits().contains(this)) {
                 director.addApprovedVisit(this);
             }
@@ -140,7 +275,10 @@ public class Visit implements Serializable {
     
     public void removeDirector(Director director) {
         if (director != null && directors.contains(director)) {
-            directors.remove(director);
+            int position = directors.indexOf(director);
+            directors.remove(position);
+            UnitOfWork.recordUndo(this, () -> directors.add(position, director));
+            EventBus.unlinked(this, "directors", director);
             if (director.getApprovedVisits().contains(this)) {
                 director.removeApprovedVisit(this);
             }
@@ -153,7 +291,11 @@ public class Visit implements Serializable {
     
     // Backward compatibility methods
     public void setDirector(Director director) {
-        directors.clear();
+        for (Director old : new ArrayList<>(directors)) {
+            if (old != director) {
+                removeDirector(old);   // Unlinks both sides before the event goes out
+            }
+        }
         if (director != null) {
             addDirector(director);
         }
@@ -164,22 +306,26 @@ public class Visit implements Serializable {
     }
 
     public static List<Visit> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Visit.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Visit>) in.readObject();
+            extent.replaceAll((List<Visit>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
         }
+        ModelMetrics.time(Visit.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
@@ -0,0 +1,155 @@
+package com.prison.model;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Visits per calendar month of one Prisoner or Visitor.
+ *
+ * Two counters per month: requested (every visit not rejected) and approved
+ * (approved or completed). Only approved visits count against the monthly
+ * limit, so requests can queue up and the director decides which ones use
+ * the quota. The Visit constructor, setDate, setApprovalStatus, setPrisoner
+ * and setVisitor keep the counters current, which makes a quota check O(1).
+ */
+public final class VisitQuota implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int REQUESTED = 0;
+    private static final int APPROVED = 1;
+
+    private final Map<YearMonth, int[]> months = new HashMap<>();   // Month -> {requested, approved}
+    private final int limit;
+
+    VisitQuota(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Recounts from a visit list (owners loaded from files written before
+     * quotas were kept).
+     */
+    static VisitQuota of(Collection<Visit> visits, int limit) {
+        VisitQuota quota = new VisitQuota(limit);
+        for (Visit visit : visits) {
+            if (visit.getApprovalStatus() != Visit.ApprovalStatus.REJECTED) {
+                quota.adjust(YearMonth.from(visit.getDate()), isApproved(visit.getApprovalStatus()), 1);
+            }
+        }
+        return quota;
+    }
+
+    void adjust(YearMonth month, boolean approved, int delta) {
+        int[] counts = months.computeIfAbsent(month, m -> new int[2]);
+        counts[REQUESTED] += delta;
+        if (approved) {
+            counts[APPROVED] += delta;
+        }
+        if (counts[REQUESTED] == 0) {
+            months.remove(month);
+        }
+    }
+
+    static boolean isApproved(Visit.ApprovalStatus status) {
+        return status == Visit.ApprovalStatus.APPROVED || status == Visit.ApprovalStatus.COMPLETED;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getRequested(YearMonth month) {
+        int[] counts = months.get(month);
+        return counts == null ? 0 : counts[REQUESTED];
+    }
+
+    public int getApproved(YearMonth month) {
+        int[] counts = months.get(month);
+        return counts == null ? 0 : counts[APPROVED];
+    }
+
+    /**
+     * Approvals still possible in the month.
+     */
+    public int getRemaining(YearMonth month) {
+        return Math.max(0, limit - getApproved(month));
+    }
+
+    public boolean hasRoom(YearMonth month) {
+        return getApproved(month) < limit;
+    }
+
+    // --- Audit ---
+
+    /**
+     * A prisoner or visitor with more approved visits in a month than allowed.
+     */
+    public static final class Violation {
+        private final Object owner;
+        private final YearMonth month;
+        private final int approved;
+        private final int limit;
+
+        Violation(Object owner, YearMonth month, int approved, int limit) {
+            this.owner = owner;
+            this.month = month;
+            this.approved = approved;
+            this.limit = limit;
+        }
+
+        /**
+         * The Prisoner or Visitor over its limit.
+         */
+        public Object getOwner() { return owner; }
+        public YearMonth getMonth() { return month; }
+        public int getApproved() { return approved; }
+        public int getLimit() { return limit; }
+
+        @Override
+        public String toString() {
+            return owner.getClass().getSimpleName() + " " + month + ": " + approved + " approved visits (limit " + limit + ")";
+        }
+    }
+
+    /**
+     * One pass over the Visit extent, recounting approved visits per
+     * prisoner and per visitor and month. Finds violations in data that
+     * predates enforcement or was loaded from files, independently of the
+     * maintained counters.
+     */
+    public static List<Violation> audit() {
+        Map<Object, Map<YearMonth, Integer>> prisonerCounts = new IdentityHashMap<>();
+        Map<Object, Map<YearMonth, Integer>> visitorCounts = new IdentityHashMap<>();
+        for (Visit visit : Visit.getExtent()) {
+            if (!isApproved(visit.getApprovalStatus())) {
+                continue;
+            }
+            YearMonth month = YearMonth.from(visit.getDate());
+            if (visit.getPrisoner() != null) {
+                prisonerCounts.computeIfAbsent(visit.getPrisoner(), p -> new HashMap<>()).merge(month, 1, Integer::sum);
+            }
+            if (visit.getVisitor() != null) {
+                visitorCounts.computeIfAbsent(visit.getVisitor(), v -> new HashMap<>()).merge(month, 1, Integer::sum);
+            }
+        }
+        List<Violation> violations = new ArrayList<>();
+        collect(prisonerCounts, Prisoner.getMaxAmountOfVisitPerMonth(), violations);
+        collect(visitorCounts, Visitor.getMaxAmountOfVisitPerMonth(), violations);
+        violations.sort((a, b) -> a.month.compareTo(b.month));
+        return violations;
+    }
+
+    private static void collect(Map<Object, Map<YearMonth, Integer>> counts, int limit, List<Violation> violations) {
+        counts.forEach((owner, perMonth) -> perMonth.forEach((month, approved) -> {
+            if (approved > limit) {
+                violations.add(new Violation(owner, month, approved, limit));
+            }
+        }));
+    }
+}
@@ -1,30 +1,41 @@
 package com.prison.model;
 
 import com.prison.exception.*;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import com.prison.util.VersionedExtent;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Visitor implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private static final int MaxAmountOfVisitPerMonth = 2;
 
-    private static List<Visitor> extent = new ArrayList<>();
+    private static final VersionedExtent<Visitor> extent = new VersionedExtent<>(Visitor.class);
+    private static Map<String, Visitor> contactInfoIndex = new HashMap<>();  // Natural key: contactInfo -> Visitor (unique)
+    private static final Map<String, Visit> visitorIDIndex = new ConcurrentHashMap<>();  // visitorID -> Visit over all visitors (unique)
 
     private String name;
     private String surname;
     private String contactInfo;
     private String relationshipToPrisoner;
-    private Map<String, Visit> visitsByVisitorID;    // Qualified Association: Visit[0..*] to Visitor (qualified by visitorID)
+    private Map<String, Visit> visitsByVisitorID;    // Qualified Association: Visit[0..*] to Visitor (qualified by visitorID), a QualifiedVisitMap
+    private VisitQuota visitQuota;                   // Visits per month, kept by Visit
 
     public Visitor(String name, String surname, String contactInfo, String relationshipToPrisoner) {
+        long started = ModelMetrics.start();
         setName(name);
         setSurname(surname);
         setContactInfo(contactInfo);
         setRelationshipToPrisoner(relationshipToPrisoner);
-        this.visitsByVisitorID = new HashMap<>();
+        this.visitsByVisitorID = new QualifiedVisitMap();
+        this.visitQuota = new VisitQuota(MaxAmountOfVisitPerMonth);
+        registerContactInfo();
         extent.add(this);
+        ModelMetrics.time(Visitor.class, ModelMetrics.Operation.CREATE, started);
     }
 
     public String getName() { return name; }
@@ -32,7 +43,9 @@ public class Visitor implements Serializable {
         if (name == null || name.trim().isEmpty()) {
             throw new EmptyStringException("Name cannot be empty.");
         }
+        String oldName = this.name;
         this.name = name;
+        UnitOfWork.recordUndo(this, () -> this.name = oldName);
     }
 
     public String getSurname() { return surname; }
@@ -40,7 +53,9 @@ public class Visitor implements Serializable {
         if (surname == null || surname.trim().isEmpty()) {
             throw new EmptyStringException("Surname cannot be empty.");
         }
+        String oldSurname = this.surname;
         this.surname = surname;
+        UnitOfWork.recordUndo(this, () -> this.surname = oldSurname);
     }
 
     public String getContactInfo() { return contactInfo; }
@@ -48,7 +63,60 @@ public class Visitor implements Serializable {
         if (contactInfo == null || contactInfo.trim().isEmpty()) {
             throw new EmptyStringException("Contact info cannot be empty.");
         }
+        String oldContactInfo = this.contactInfo;
+        if (!contactInfo.equals(oldContactInfo) && oldContactInfo != null
+                && contactInfoIndex.get(oldContactInfo) == this) {
+            if (contactInfoIndex.containsKey(contactInfo)) {
+                throw new ValidationException("Contact info " + contactInfo + " is already in use.");
+            }
+            contactInfoIndex.remove(oldContactInfo);
+            contactInfoIndex.put(contactInfo, this);
+            UnitOfWork.recordUndo(this, () -> {
+                contactInfoIndex.remove(contactInfo);
+                contactInfoIndex.put(oldContactInfo, this);
+            });
+        }
         this.contactInfo = contactInfo;
+        UnitOfWork.recordUndo(this, () -> this.contactInfo = oldContactInfo);
+    }
+
+    private void registerContactInfo() {
+        Visitor existing = contactInfoIndex.get(contactInfo);
+        if (existing != null && existing != this) {
+            throw new ValidationException("Contact info " + contactInfo + " is already in use.");
+        }
+        String registered = contactInfo;
+        contactInfoIndex.put(registered, this);
+        UnitOfWork.recordUndo(this, () -> contactInfoIndex.remove(registered));
+    }
+
+    /**
+     * Finds a visitor by unique contact info (O(1) index lookup)
+     */
+    public static Visitor findByContactInfo(String contactInfo) {
+        return contactInfoIndex.get(contactInfo);
+    }
+
+    /**
+     * Finds a visit by visitorID across all visitors (O(1), safe for
+     * concurrent gate lookups)
+     */
+    public static Visit findVisitByVisitorID(String visitorID) {
+        return visitorID == null ? null : visitorIDIndex.get(visitorID);
+    }
+
+    /**
+     * Claims visitorID for the visit facility-wide; the claim is atomic, so
+     * two visitors cannot take the same ID concurrently
+     */
+    private static void claimVisitorID(String visitorID, Visit visit) {
+        Visit holder = visitorIDIndex.putIfAbsent(visitorID, visit);
+        if (holder != null && holder != visit) {
+            throw new ValidationException("Visitor ID " + visitorID + " is already used by another visit.");
+        }
+        if (holder == null) {
+            UnitOfWork.recordUndo(visit, () -> visitorIDIndex.remove(visitorID, visit));
+        }
     }
 
     public String getRelationshipToPrisoner() { return relationshipToPrisoner; }
@@ -56,13 +124,39 @@ public class Visitor implements Serializable {
         if (relationshipToPrisoner == null || relationshipToPrisoner.trim().isEmpty()) {
             throw new EmptyStringException("Relationship to prisoner cannot be empty.");
         }
+        String oldRelationshipToPrisoner = this.relationshipToPrisoner;
         this.relationshipToPrisoner = relationshipToPrisoner;
+        UnitOfWork.recordUndo(this, () -> this.relationshipToPrisoner = oldRelationshipToPrisoner);
     }
 
     public static int getMaxAmountOfVisitPerMonth() {
         return MaxAmountOfVisitPerMonth;
     }
+
+    /**
+     * Requested and approved visits per month; O(1) quota checks
+     */
+    public VisitQuota getVisitQuota() {
+        if (visitQuota == null) {
+            visitQuota = VisitQuota.of(visits().values(), MaxAmountOfVisitPerMonth);  // Loaded from a file written without quotas
+        }
+        return visitQuota;
+    }
     
+    private QualifiedVisitMap visits() {
+        if (!(visitsByVisitorID instanceof QualifiedVisitMap)) {
+            visitsByVisitorID = new QualifiedVisitMap(visitsByVisitorID);  // Loaded from a file written with a HashMap
+        }
+        return (QualifiedVisitMap) visitsByVisitorID;
+    }
+
+    /**
+     * Called by Visit.setDate to keep the visits in date order
+     */
+    void visitDateChanged(Visit visit, LocalDate oldDate) {
+        visits().move(visit, oldDate);
+    }
+
     /**
      * Adds a visit by visitorID (Qualified Association)
      * The qualifier is the visitorID
@@ -76,11 +170,16 @@ public class Visitor implements Serializable {
         }
         
         // Check if a visit already exists for this visitorID
-        if (visitsByVisitorID.containsKey(visitorID)) {
+        if (visits().containsKey(visitorID)) {
             throw new ValidationException("A visit already exists for visitorID: " + visitorID);
         }
+        if (visits().containsValue(visit)) {
+            throw new ValidationException("Visit is already recorded under another visitorID.");
+        }
+        claimVisitorID(visitorID, visit);
         
-        visitsByVisitorID.put(visitorID, visit);
+        visits().put(visitorID, visit);
+        UnitOfWork.recordUndo(this, () -> visits().remove(visitorID));
         if (visit.getVisitor() != this) {
             visit.setVisitor(this);
         }
@@ -94,71 +193,119 @@ public class Visitor implements Serializable {
             throw new EmptyStringException("Visitor ID cannot be empty.");
         }
         
-        Visit visit = visitsByVisitorID.remove(visitorID);
-        if (visit != null && visit.getVisitor() == this) {
-            // Note: Visit still references this visitor
+        Visit visit = visits().remove(visitorID);
+        if (visit != null) {
+            boolean indexed = visitorIDIndex.remove(visitorID, visit);
+            UnitOfWork.recordUndo(this, () -> {
+                visits().put(visitorID, visit);
+                if (indexed) {
+                    visitorIDIndex.putIfAbsent(visitorID, visit);
+                }
+            });
         }
     }
     
+    /**
+     * Called by Visit.setVisitor once the visit belongs to another visitor;
+     * its visitorID stays claimed in the facility-wide index
+     */
+    void visitMovedAway(String visitorID, Visit visit) {
+        if (visits().get(visitorID) == visit) {
+            visits().remove(visitorID);
+            UnitOfWork.recordUndo(this, () -> visits().put(visitorID, visit));
+        }
+    }
+
     /**
      * Gets a visit by visitorID (Qualified Association)
      */
     public Visit getVisitByVisitorID(String visitorID) {
-        return visitsByVisitorID.get(visitorID);
+        return visits().get(visitorID);
     }
     
     /**
-     * Gets all visits (as a map qualified by visitorID)
+     * Gets all visits (as a map qualified by visitorID), in date order
      */
     public Map<String, Visit> getVisitsByVisitorID() {
-        return Collections.unmodifiableMap(visitsByVisitorID);
+        return Collections.unmodifiableMap(visits());
     }
     
     /**
-     * Gets all visits as a collection
+     * Gets all visits as a collection, earliest first
      */
     public Collection<Visit> getVisits() {
-        return Collections.unmodifiableCollection(visitsByVisitorID.values());
+        return Collections.unmodifiableCollection(visits().values());
+    }
+
+    /**
+     * Visits between the two dates (both inclusive), earliest first (binary search)
+     */
+    public List<Visit> getVisitsBetween(LocalDate from, LocalDate to) {
+        return visits().between(from, to);
     }
     
     /**
      * Updates a visit's visitorID in the qualified association
-     * This should be called when a visit's visitorID changes
+     * This should be called when a visit's visitorID changes; Visit.setVisitorID
+     * does so, and this method in turn renames the visit. The new ID must be
+     * free facility-wide
      */
     public void updateVisitVisitorID(String oldVisitorID, String newVisitorID, Visit visit) {
         if (oldVisitorID == null || newVisitorID == null || visit == null) {
             throw new InvalidReferenceException("Parameters cannot be null.");
         }
         
-        if (visitsByVisitorID.get(oldVisitorID) == visit) {
-            visitsByVisitorID.remove(oldVisitorID);
-            if (visitsByVisitorID.containsKey(newVisitorID)) {
+        if (visits().get(oldVisitorID) == visit && !oldVisitorID.equals(newVisitorID)) {
+            if (visits().containsKey(newVisitorID)) {
                 throw new ValidationException("A visit already exists for visitorID: " + newVisitorID);
             }
-            visitsByVisitorID.put(newVisitorID, visit);
+            claimVisitorID(newVisitorID, visit);
+            visits().remove(oldVisitorID);
+            visits().put(newVisitorID, visit);
+            visitorIDIndex.remove(oldVisitorID, visit);
+            UnitOfWork.recordUndo(this, () -> {
+                visits().remove(newVisitorID);
+                visits().put(oldVisitorID, visit);
+                visitorIDIndex.putIfAbsent(oldVisitorID, visit);
+            });
+            if (oldVisitorID.equals(visit.getVisitorID())) {
+                visit.setVisitorID(newVisitorID);
+            }
         }
     }
 
     public static List<Visitor> getExtent() {
-        return Collections.unmodifiableList(extent);
+        return extent.snapshot();
     }
 
     public static void saveExtent(String filename) throws IOException {
+        long started = ModelMetrics.start();
         try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
-            out.writeObject(extent);
+            out.writeObject(new ArrayList<>(extent.snapshot()));
         }
+        ModelMetrics.time(Visitor.class, ModelMetrics.Operation.SAVE, started);
     }
 
     @SuppressWarnings("unchecked")
     public static void loadExtent(String filename) throws IOException, ClassNotFoundException {
+        long started = ModelMetrics.start();
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
-            extent = (List<Visitor>) in.readObject();
+            extent.replaceAll((List<Visitor>) in.readObject());
         } catch (FileNotFoundException e) {
-            extent = new ArrayList<>();
+            extent.clear();
+        }
+        contactInfoIndex.clear();
+        visitorIDIndex.clear();
+        for (Visitor visitor : extent) {
+            contactInfoIndex.put(visitor.contactInfo, visitor);
+            visitorIDIndex.putAll(visitor.visits());
         }
+        ModelMetrics.time(Visitor.class, ModelMetrics.Operation.LOAD, started);
     }
 
     public static void clearExtent() {
         extent.clear();
+        contactInfoIndex.clear();
+        visitorIDIndex.clear();
     }
 }
@@ -0,0 +1,307 @@
+package com.prison.scheduling;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Block;
+import com.prison.model.CombinedStaff;
+import com.prison.model.Schedule;
+import com.prison.model.Staff;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Live index of the CombinedStaff who can answer an alarm.
+ *
+ * A member is available while availableForEmergency is TRUE and no alarm has
+ * claimed them. Available members sit in concurrent sets keyed by capability
+ * (guard or doctor role) and by each block they work in - their assigned
+ * blocks and the blocks of their schedules - or in an "unplaced" set. The
+ * sets follow CombinedStaff events (availableForEmergency, blocks,
+ * schedules) and Schedule block changes.
+ *
+ * claimNearest(...) hands out each member at most once even when alarms
+ * race: the claim is the atomic removal of the member's entry, and whoever
+ * loses the race moves on to the next candidate. Queries and claims take no
+ * lock; index updates for one member are serialised on that member's entry.
+ */
+public class EmergencyDispatch implements ModelEventListener {
+
+    public enum Capability {
+        GUARD, DOCTOR
+    }
+
+    /**
+     * A responder claimed for an alarm.
+     */
+    public static class Claim {
+        private final CombinedStaff responder;
+        private final Block alarmBlock;
+        private final Capability capability;
+        private final int distance;
+
+        Claim(CombinedStaff responder, Block alarmBlock, Capability capability, int distance) {
+            this.responder = responder;
+            this.alarmBlock = alarmBlock;
+            this.capability = capability;
+            this.distance = distance;
+        }
+
+        public CombinedStaff getResponder() { return responder; }
+        public Block getAlarmBlock() { return alarmBlock; }
+        public Capability getCapability() { return capability; }
+        /** Distance from the responder's nearest block to the alarm. */
+        public int getDistance() { return distance; }
+
+        @Override
+        public String toString() {
+            return capability + " " + responder.getName() + " " + responder.getSurname()
+                + " -> " + alarmBlock.getName() + " (distance " + distance + ")";
+        }
+    }
+
+    /**
+     * 0 for the same block, 1 for a block of the same type, 2 otherwise.
+     */
+    public static final ToIntBiFunction<Block, Block> BY_BLOCK_TYPE =
+        (from, to) -> from == to ? 0 : from.getType() == to.getType() ? 1 : 2;
+
+    /** Distance of a member without any block. */
+    public static final int UNPLACED_DISTANCE = Integer.MAX_VALUE;
+
+    private final ToIntBiFunction<Block, Block> distance;
+    private final Map<Capability, ConcurrentHashMap<Block, Set<CombinedStaff>>> byBlock = new EnumMap<>(Capability.class);
+    private final Map<Capability, Set<CombinedStaff>> unplaced = new EnumMap<>(Capability.class);
+    private final ConcurrentHashMap<CombinedStaff, Entry> available = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<CombinedStaff, Claim> claimed = new ConcurrentHashMap<>();
+
+    /**
+     * Where an available member is indexed, so it can be taken out again.
+     */
+    private static final class Entry {
+        final Set<Block> blocks;
+        final Set<Capability> capabilities;
+
+        Entry(Set<Block> blocks, Set<Capability> capabilities) {
+            this.blocks = blocks;
+            this.capabilities = capabilities;
+        }
+    }
+
+    public EmergencyDispatch() {
+        this(BY_BLOCK_TYPE);
+    }
+
+    /**
+     * @param distance how far a responder in the first block is from an alarm in the second
+     */
+    public EmergencyDispatch(ToIntBiFunction<Block, Block> distance) {
+        this.distance = distance;
+        for (Capability capability : Capability.values()) {
+            byBlock.put(capability, new ConcurrentHashMap<>());
+            unplaced.put(capability, ConcurrentHashMap.newKeySet());
+        }
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-reads the CombinedStaff extent, e.g. after loadExtent (which emits
+     * no events). Claims stay in force.
+     */
+    public void rebuild() {
+        for (CombinedStaff member : new ArrayList<>(available.keySet())) {
+            available.computeIfPresent(member, (m, entry) -> {
+                unindex(m, entry);
+                return null;
+            });
+        }
+        for (CombinedStaff member : CombinedStaff.getCombinedStaffExtent()) {
+            reindex(member);
+        }
+    }
+
+    @Override
+    public void onEvent(ModelEvent event) {
+        Object source = event.getSource();
+        String property = event.getProperty();
+        if (source instanceof CombinedStaff) {
+            if ("availableForEmergency".equals(property) || "blocks".equals(property) || "schedules".equals(property)) {
+                reindex((CombinedStaff) source);
+            }
+        } else if (source instanceof Schedule && "block".equals(property)) {
+            for (Staff member : ((Schedule) source).getStaffMembers()) {
+                if (member instanceof CombinedStaff) {
+                    reindex((CombinedStaff) member);
+                }
+            }
+        }
+    }
+
+    // --- Dispatch ---
+
+    /**
+     * Claims the available responder with the given capability closest to
+     * the alarm block; empty when nobody is available. Safe to call from
+     * many threads at once.
+     */
+    public Optional<Claim> claimNearest(Block alarmBlock, Capability capability) {
+        if (alarmBlock == null || capability == null) {
+            throw new IllegalArgumentException("Alarm block and capability cannot be null.");
+        }
+        ConcurrentHashMap<Block, Set<CombinedStaff>> blocks = byBlock.get(capability);
+        Optional<Claim> claim = claimFrom(blocks.get(alarmBlock), alarmBlock, capability, 0);
+        if (claim.isPresent()) {
+            return claim;
+        }
+        List<Map.Entry<Block, Integer>> nearby = new ArrayList<>();
+        blocks.forEach((block, members) -> {
+            if (block != alarmBlock && !members.isEmpty()) {
+                nearby.add(Map.entry(block, distance.applyAsInt(block, alarmBlock)));
+            }
+        });
+        nearby.sort(Map.Entry.comparingByValue());
+        for (Map.Entry<Block, Integer> candidate : nearby) {
+            claim = claimFrom(blocks.get(candidate.getKey()), alarmBlock, capability, candidate.getValue());
+            if (claim.isPresent()) {
+                return claim;
+            }
+        }
+        return claimFrom(unplaced.get(capability), alarmBlock, capability, UNPLACED_DISTANCE);
+    }
+
+    /**
+     * Makes a claimed responder available again (if still available for
+     * emergencies); false when the member was not claimed.
+     */
+    public boolean release(CombinedStaff responder) {
+        if (claimed.remove(responder) == null) {
+            return false;
+        }
+        reindex(responder);
+        return true;
+    }
+
+    private Optional<Claim> claimFrom(Set<CombinedStaff> members, Block alarmBlock, Capability capability, int distance) {
+        if (members == null) {
+            return Optional.empty();
+        }
+        for (CombinedStaff member : members) {
+            Claim[] won = new Claim[1];
+            available.computeIfPresent(member, (m, entry) -> {
+                won[0] = new Claim(m, alarmBlock, capability, distance);
+                claimed.put(m, won[0]);
+                unindex(m, entry);
+                return null;
+            });
+            if (won[0] != null) {
+                return Optional.of(won[0]);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // --- Queries ---
+
+    public boolean isAvailable(CombinedStaff member) {
+        return available.containsKey(member);
+    }
+
+    public Claim getClaim(CombinedStaff member) {
+        return claimed.get(member);
+    }
+
+    public List<CombinedStaff> getAvailable(Block block, Capability capability) {
+        Set<CombinedStaff> members = byBlock.get(capability).get(block);
+        return members == null ? Collections.emptyList() : sorted(members);
+    }
+
+    public List<CombinedStaff> getUnplaced(Capability capability) {
+        return sorted(unplaced.get(capability));
+    }
+
+    public int getAvailableCount() {
+        return available.size();
+    }
+
+    public List<Claim> getClaims() {
+        return new ArrayList<>(claimed.values());
+    }
+
+    private static List<CombinedStaff> sorted(Set<CombinedStaff> members) {
+        List<CombinedStaff> result = new ArrayList<>(members);
+        result.sort(Comparator.comparing(CombinedStaff::getEmail));
+        return result;
+    }
+
+    // --- Maintenance (serialised per member by the available map) ---
+
+    private void reindex(CombinedStaff member) {
+        available.compute(member, (m, old) -> {
+            if (old != null) {
+                unindex(m, old);
+            }
+            if (!Boolean.TRUE.equals(m.getAvailableForEmergency()) || claimed.containsKey(m)) {
+                return null;
+            }
+            Entry entry = new Entry(blocksOf(m), capabilitiesOf(m));
+            index(m, entry);
+            return entry;
+        });
+    }
+
+    private void index(CombinedStaff member, Entry entry) {
+        for (Capability capability : entry.capabilities) {
+            if (entry.blocks.isEmpty()) {
+                unplaced.get(capability).add(member);
+            }
+            for (Block block : entry.blocks) {
+                byBlock.get(capability).computeIfAbsent(block, b -> ConcurrentHashMap.newKeySet()).add(member);
+            }
+        }
+    }
+
+    private void unindex(CombinedStaff member, Entry entry) {
+        for (Capability capability : entry.capabilities) {
+            unplaced.get(capability).remove(member);
+            for (Block block : entry.blocks) {
+                Set<CombinedStaff> members = byBlock.get(capability).get(block);
+                if (members != null) {
+                    members.remove(member);
+                }
+            }
+        }
+    }
+
+    private static Set<Block> blocksOf(CombinedStaff member) {
+        Set<Block> blocks = new LinkedHashSet<>(member.getBlocks());
+        for (Schedule schedule : member.getSchedules()) {
+            blocks.add(schedule.getBlock());
+        }
+        return blocks;
+    }
+
+    private static Set<Capability> capabilitiesOf(CombinedStaff member) {
+        Set<Capability> capabilities = new LinkedHashSet<>();
+        if (member.canPerformGuardDuties()) {
+            capabilities.add(Capability.GUARD);
+        }
+        if (member.canPerformDoctorDuties()) {
+            capabilities.add(Capability.DOCTOR);
+        }
+        return capabilities;
+    }
+}
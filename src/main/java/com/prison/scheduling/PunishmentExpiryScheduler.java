@@ -0,0 +1,308 @@
+package com.prison.scheduling;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Prisoner;
+import com.prison.model.Punishment;
+import com.prison.tx.UnitOfWork;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Completes active punishments when they run out.
+ *
+ * Every active Punishment sits in a queue ordered by end date (start date
+ * plus duration). Advancing the clock pops only the punishments that are due,
+ * sets them to "Completed" in one unit of work and hands the batch, with the
+ * distinct prisoners affected, to the caller - no scan over the extent. If
+ * that unit rolls back, the statuses are restored and the punishments are
+ * queued again. The
+ * queue follows Punishment events: created, status changes (leaving or
+ * re-entering "Active") and start date or duration changes.
+ *
+ * After start(...), a daemon timer sleeps until the earliest end date and
+ * wakes again whenever an earlier one is scheduled; advanceTo(...) does the
+ * same on demand.
+ */
+public class PunishmentExpiryScheduler implements ModelEventListener {
+
+    /**
+     * Punishments completed in one step, and the prisoners they applied to.
+     */
+    public static class ExpiryBatch {
+        private final LocalDate date;
+        private final List<Punishment> punishments;
+        private final List<Prisoner> prisoners;
+
+        ExpiryBatch(LocalDate date, List<Punishment> punishments, List<Prisoner> prisoners) {
+            this.date = date;
+            this.punishments = Collections.unmodifiableList(punishments);
+            this.prisoners = Collections.unmodifiableList(prisoners);
+        }
+
+        public LocalDate getDate() { return date; }
+        public List<Punishment> getPunishments() { return punishments; }
+        public List<Prisoner> getPrisoners() { return prisoners; }
+
+        public boolean isEmpty() {
+            return punishments.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return date + ": " + punishments.size() + " punishment(s) completed, "
+                + prisoners.size() + " prisoner(s) affected";
+        }
+    }
+
+    private final Clock clock;
+    private final NavigableMap<LocalDate, List<Punishment>> queue = new TreeMap<>();
+    private final Map<Punishment, LocalDate> endDates = new IdentityHashMap<>();
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> wakeUp;
+    private LocalDate wakeUpDate;
+    private Consumer<ExpiryBatch> onExpiry;
+
+    public PunishmentExpiryScheduler() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Builds the queue from the Punishment extent and keeps it up to date.
+     */
+    public PunishmentExpiryScheduler(Clock clock) {
+        this.clock = clock;
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    /**
+     * Stops the timer and the event subscription.
+     */
+    public void close() {
+        stop();
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-reads the extent, e.g. after loadExtent (which emits no events).
+     */
+    public synchronized void rebuild() {
+        queue.clear();
+        endDates.clear();
+        for (Punishment punishment : Punishment.getExtent()) {
+            track(punishment);
+        }
+        rescheduleTimer();
+    }
+
+    @Override
+    public synchronized void onEvent(ModelEvent event) {
+        if (!(event.getSource() instanceof Punishment)) {
+            return;
+        }
+        Punishment punishment = (Punishment) event.getSource();
+        switch (event.getType()) {
+            case CREATED:
+                untrack(punishment);
+                track(punishment);
+                break;
+            case DELETED:
+                untrack(punishment);
+                break;
+            case CHANGED:
+                String property = event.getProperty();
+                if ("status".equals(property) || "startDate".equals(property) || "duration".equals(property)) {
+                    untrack(punishment);
+                    track(punishment);
+                }
+                break;
+            default:
+                break;
+        }
+        rescheduleTimer();
+    }
+
+    // --- Expiry ---
+
+    /**
+     * Completes every tracked punishment whose end date is on or before the
+     * day and returns them with their prisoners. Costs O(log n) per
+     * punishment completed, nothing for the ones still running.
+     */
+    public ExpiryBatch advanceTo(LocalDate day) {
+        List<Punishment> due = new ArrayList<>();
+        synchronized (this) {
+            NavigableMap<LocalDate, List<Punishment>> expired = queue.headMap(day, true);
+            for (List<Punishment> punishments : expired.values()) {
+                due.addAll(punishments);
+            }
+            for (Punishment punishment : due) {
+                endDates.remove(punishment);
+            }
+            expired.clear();
+        }
+        // The status events come back through onEvent; the punishments are already dequeued
+        Set<Prisoner> prisoners = new LinkedHashSet<>();
+        UnitOfWork.run(() -> {
+            UnitOfWork.recordUndo(this, () -> requeue(due));   // Runs after the statuses are restored
+            for (Punishment punishment : due) {
+                punishment.setStatus(Punishment.STATUS_COMPLETED);
+                prisoners.addAll(punishment.getPrisoners());
+            }
+        });
+        synchronized (this) {
+            rescheduleTimer();
+        }
+        return new ExpiryBatch(day, due, new ArrayList<>(prisoners));
+    }
+
+    /**
+     * Same as advanceTo(today) by the scheduler's clock.
+     */
+    public ExpiryBatch advance() {
+        return advanceTo(LocalDate.now(clock));
+    }
+
+    /**
+     * Starts the timer; every non-empty batch is passed to onExpiry on the
+     * timer thread. Punishments already overdue are completed right away.
+     */
+    public synchronized void start(Consumer<ExpiryBatch> onExpiry) {
+        if (onExpiry == null) {
+            throw new IllegalArgumentException("Expiry consumer cannot be null.");
+        }
+        if (timer != null) {
+            throw new IllegalStateException("Scheduler is already running.");
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "punishment-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.timer = executor;
+        this.onExpiry = onExpiry;
+        rescheduleTimer();
+    }
+
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+            wakeUp = null;
+            wakeUpDate = null;
+            onExpiry = null;
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * Earliest end date among the tracked punishments, or null if none.
+     */
+    public synchronized LocalDate getNextExpiry() {
+        return queue.isEmpty() ? null : queue.firstKey();
+    }
+
+    public synchronized List<Punishment> getExpiringBetween(LocalDate from, LocalDate to) {
+        List<Punishment> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        for (List<Punishment> punishments : queue.subMap(from, true, to, true).values()) {
+            result.addAll(punishments);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return endDates.size();
+    }
+
+    // --- Maintenance (caller holds the monitor) ---
+
+    /**
+     * Puts punishments back in the queue after the unit that completed them
+     * rolled back (possibly an outer unit the caller ran advanceTo in).
+     */
+    private synchronized void requeue(List<Punishment> punishments) {
+        for (Punishment punishment : punishments) {
+            untrack(punishment);
+            track(punishment);
+        }
+        rescheduleTimer();
+    }
+
+    private void track(Punishment punishment) {
+        if (!punishment.isActive()) {
+            return;
+        }
+        LocalDate end = punishment.getEndDate();
+        endDates.put(punishment, end);
+        queue.computeIfAbsent(end, d -> new ArrayList<>(1)).add(punishment);
+    }
+
+    private void untrack(Punishment punishment) {
+        LocalDate end = endDates.remove(punishment);
+        if (end == null) {
+            return;
+        }
+        List<Punishment> sameDay = queue.get(end);
+        sameDay.remove(punishment);
+        if (sameDay.isEmpty()) {
+            queue.remove(end);
+        }
+    }
+
+    /**
+     * Keeps one pending wake-up at the start of the earliest end date.
+     */
+    private void rescheduleTimer() {
+        if (timer == null) {
+            return;
+        }
+        LocalDate next = queue.isEmpty() ? null : queue.firstKey();
+        if (next == null ? wakeUpDate == null : next.equals(wakeUpDate)) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpDate = next;
+        wakeUp = null;
+        if (next != null) {
+            long delay = Duration.between(clock.instant(), next.atStartOfDay(clock.getZone()).toInstant()).toMillis();
+            wakeUp = timer.schedule(this::wake, Math.max(0, delay), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void wake() {
+        Consumer<ExpiryBatch> consumer;
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpDate = null;
+            consumer = onExpiry;
+        }
+        ExpiryBatch batch = advance();
+        if (consumer != null && !batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package com.prison.scheduling;
+
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.CombinedStaff;
+import com.prison.model.Guard;
+import com.prison.model.ShiftInterval;
+import com.prison.model.Staff;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds a weekly roster of Guards and CombinedStaff over the blocks.
+ *
+ * Every block needs, on each of the three shifts of each day, the number of
+ * guards set for its highest Cell.SecurityLevel. A member works at most one
+ * shift a day and maxShiftsPerWeek shifts a week, and never a day shift
+ * straight after a night shift. Within those rules the roster minimises, in
+ * this order: unfilled places, guards rostered without any of their
+ * supervisors (Guard.getSupervisors()) on the same block and shift,
+ * CombinedStaff available for emergencies pinned to a block, and shifts other
+ * than the one in the member's shiftHour.
+ *
+ * A greedy fill is improved by simulated annealing (replace one member, or
+ * swap two members across days, with the cost change computed from the two
+ * block shifts involved). Several searches with different seeds run on their
+ * own threads from the same start and the cheapest roster wins; results only
+ * depend on the seed while the iteration budget, not the time limit, ends
+ * the searches. Emergency-available CombinedStaff left with free shifts are
+ * then spread over the week as floating capacity.
+ *
+ * The roster is a plan; it does not change Staff.getBlocks().
+ */
+public class ShiftRosterOptimizer {
+
+    /**
+     * The three shifts of a day.
+     */
+    public enum Shift {
+        DAY(ShiftInterval.DAY), EVENING(ShiftInterval.EVENING), NIGHT(ShiftInterval.NIGHT);
+
+        private final ShiftInterval interval;
+
+        Shift(ShiftInterval interval) {
+            this.interval = interval;
+        }
+
+        public ShiftInterval getInterval() { return interval; }
+    }
+
+    /**
+     * One member on one block for one shift.
+     */
+    public static class Assignment {
+        private final DayOfWeek day;
+        private final Shift shift;
+        private final Block block;
+        private final Staff staff;
+
+        Assignment(DayOfWeek day, Shift shift, Block block, Staff staff) {
+            this.day = day;
+            this.shift = shift;
+            this.block = block;
+            this.staff = staff;
+        }
+
+        public DayOfWeek getDay() { return day; }
+        public Shift getShift() { return shift; }
+        public Block getBlock() { return block; }
+        public Staff getStaff() { return staff; }
+
+        @Override
+        public String toString() {
+            return day + " " + shift + " " + block.getName() + ": " + staff.getName() + " " + staff.getSurname();
+        }
+    }
+
+    /**
+     * The chosen roster.
+     */
+    public static class Roster {
+        private final List<Assignment> assignments;
+        private final Map<Block, List<List<Staff>>> byBlock;    // block -> day * 3 + shift -> staff
+        private final List<List<CombinedStaff>> floating;     // day * 3 + shift -> floating members
+        private final Map<Staff, Integer> shiftCounts;
+        private final int shortfall;
+        private final int supervisorViolations;
+        private final int cost;
+
+        Roster(List<Assignment> assignments, Map<Block, List<List<Staff>>> byBlock, List<List<CombinedStaff>> floating,
+               Map<Staff, Integer> shiftCounts, int shortfall, int supervisorViolations, int cost) {
+            this.assignments = Collections.unmodifiableList(assignments);
+            this.byBlock = byBlock;
+            this.floating = floating;
+            this.shiftCounts = shiftCounts;
+            this.shortfall = shortfall;
+            this.supervisorViolations = supervisorViolations;
+            this.cost = cost;
+        }
+
+        public List<Assignment> getAssignments() { return assignments; }
+
+        public List<Staff> getStaff(Block block, DayOfWeek day, Shift shift) {
+            List<List<Staff>> shifts = byBlock.get(block);
+            return shifts == null ? Collections.emptyList()
+                : Collections.unmodifiableList(shifts.get(slot(day, shift)));
+        }
+
+        /**
+         * Emergency-available CombinedStaff on duty without a block.
+         */
+        public List<CombinedStaff> getFloating(DayOfWeek day, Shift shift) {
+            return Collections.unmodifiableList(floating.get(slot(day, shift)));
+        }
+
+        /**
+         * Shifts worked in the week, on a block or floating.
+         */
+        public int getShiftCount(Staff staff) {
+            return shiftCounts.getOrDefault(staff, 0);
+        }
+
+        /** Places left empty over the week. */
+        public int getShortfall() { return shortfall; }
+        /** Assignments of guards without one of their supervisors on the same block and shift. */
+        public int getSupervisorViolations() { return supervisorViolations; }
+        public int getCost() { return cost; }
+
+        @Override
+        public String toString() {
+            return "Roster: " + assignments.size() + " assignment(s), shortfall " + shortfall
+                + ", supervisor violations " + supervisorViolations + ", cost " + cost;
+        }
+    }
+
+    public static final int DEFAULT_MAX_SHIFTS_PER_WEEK = 5;
+    public static final int DEFAULT_ITERATIONS = 2_000_000;
+    public static final Duration DEFAULT_TIME_LIMIT = Duration.ofSeconds(5);
+
+    private static final int DAYS = 7;
+    private static final int SHIFTS = 3;
+    private static final int DAY = Shift.DAY.ordinal();
+    private static final int NIGHT = Shift.NIGHT.ordinal();
+
+    // Penalties, each outweighing all realistic totals of the ones below
+    private static final int SHORTFALL_COST = 10_000;
+    private static final int SUPERVISOR_COST = 100;
+    private static final int EMERGENCY_COST = 20;
+    private static final int PREFERENCE_COST = 5;
+
+    private static final double START_TEMPERATURE = 2;
+    private static final double END_TEMPERATURE = 0.05;
+
+    private final Map<Cell.SecurityLevel, Integer> minimumGuards;
+    private final int maxShiftsPerWeek;
+    private final int searches;
+    private final int iterations;
+    private final Duration timeLimit;
+    private final long seed;
+
+    public ShiftRosterOptimizer() {
+        this(defaultMinimumGuards(), DEFAULT_MAX_SHIFTS_PER_WEEK,
+            Runtime.getRuntime().availableProcessors(), DEFAULT_ITERATIONS, DEFAULT_TIME_LIMIT, 1);
+    }
+
+    /**
+     * @param minimumGuards guards per block and shift, by the block's highest security level
+     * @param searches      annealing runs, each on its own thread
+     * @param iterations    moves tried per search
+     * @param timeLimit     wall-clock bound for each search
+     */
+    public ShiftRosterOptimizer(Map<Cell.SecurityLevel, Integer> minimumGuards, int maxShiftsPerWeek,
+                                int searches, int iterations, Duration timeLimit, long seed) {
+        if (maxShiftsPerWeek < 1 || maxShiftsPerWeek > DAYS) {
+            throw new IllegalArgumentException("Shifts per week must be between 1 and 7.");
+        }
+        if (searches < 1 || iterations < 0) {
+            throw new IllegalArgumentException("Searches must be positive and iterations not negative.");
+        }
+        this.minimumGuards = new EnumMap<>(Cell.SecurityLevel.class);
+        this.minimumGuards.putAll(minimumGuards);
+        this.maxShiftsPerWeek = maxShiftsPerWeek;
+        this.searches = searches;
+        this.iterations = iterations;
+        this.timeLimit = timeLimit;
+        this.seed = seed;
+    }
+
+    /**
+     * LOW 1, MEDIUM 2, HIGH 3 guards per shift.
+     */
+    public static Map<Cell.SecurityLevel, Integer> defaultMinimumGuards() {
+        Map<Cell.SecurityLevel, Integer> minimum = new EnumMap<>(Cell.SecurityLevel.class);
+        minimum.put(Cell.SecurityLevel.LOW, 1);
+        minimum.put(Cell.SecurityLevel.MEDIUM, 2);
+        minimum.put(Cell.SecurityLevel.HIGH, 3);
+        return minimum;
+    }
+
+    /**
+     * Rosters every Guard and CombinedStaff member over every block.
+     */
+    public Roster optimize() {
+        return optimize(Staff.getExtent(), Block.getExtent());
+    }
+
+    /**
+     * Rosters the given members over the given blocks. Members other than
+     * Guards and CombinedStaff, and the guard roles of CombinedStaff, are
+     * skipped; blocks without cells need no guards.
+     */
+    public Roster optimize(Collection<? extends Staff> staff, Collection<Block> blocks) {
+        Problem problem = new Problem(staff, blocks);
+        State start = new State(problem);
+        start.fillGreedily();
+
+        State[] results = new State[searches];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < searches; i++) {
+            int index = i;
+            Thread thread = new Thread(() -> results[index] = start.copy().anneal(seed + index),
+                "roster-search-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the roster.", e);
+            }
+        }
+        State best = start;
+        for (State result : results) {
+            if (result != null && result.cost < best.cost) {
+                best = result;
+            }
+        }
+        return best.toRoster();
+    }
+
+    private static int slot(DayOfWeek day, Shift shift) {
+        return (day.getValue() - 1) * SHIFTS + shift.ordinal();
+    }
+
+    /**
+     * The members and places to fill, indexed for the search.
+     */
+    private final class Problem {
+        final Staff[] members;
+        final boolean[] floating;       // CombinedStaff available for emergencies
+        final int[] preferred;          // Shift ordinal of shiftHour, or -1
+        final int[][] supervisors;      // Indexes of rostered supervisors
+        final Block[] groupBlock;       // Group = block * 21 + day * 3 + shift
+        final int[] groupStart;         // First seat of each group; groupStart[groups] = seats
+        final int[] seatGroup;
+
+        Problem(Collection<? extends Staff> staff, Collection<Block> blocks) {
+            Map<Guard, Integer> index = new IdentityHashMap<>();
+            List<Staff> rostered = new ArrayList<>();
+            List<Guard> guards = new ArrayList<>();
+            for (Staff member : staff) {
+                Guard guard = member instanceof CombinedStaff ? ((CombinedStaff) member).getGuardRole()
+                    : member instanceof Guard && member.getIdentity() == member ? (Guard) member : null;
+                if (guard != null) {
+                    index.put(guard, rostered.size());
+                    rostered.add(member);
+                    guards.add(guard);
+                }
+            }
+            int count = rostered.size();
+            members = rostered.toArray(new Staff[0]);
+            floating = new boolean[count];
+            preferred = new int[count];
+            supervisors = new int[count][];
+            for (int s = 0; s < count; s++) {
+                floating[s] = members[s] instanceof CombinedStaff
+                    && Boolean.TRUE.equals(((CombinedStaff) members[s]).getAvailableForEmergency());
+                preferred[s] = preferredShift(members[s].getShift());
+                supervisors[s] = guards.get(s).getSupervisors().stream()
+                    .map(index::get).filter(i -> i != null).mapToInt(Integer::intValue).toArray();
+            }
+
+            List<Block> demanded = new ArrayList<>();
+            List<Integer> needs = new ArrayList<>();
+            for (Block block : blocks) {
+                String level = block.getSecurityLevel();
+                Integer need = "UNKNOWN".equals(level) ? null : minimumGuards.get(Cell.SecurityLevel.valueOf(level));
+                if (need != null && need > 0) {
+                    demanded.add(block);
+                    needs.add(need);
+                }
+            }
+            int groups = demanded.size() * DAYS * SHIFTS;
+            groupBlock = new Block[groups];
+            groupStart = new int[groups + 1];
+            int seats = 0;
+            for (int g = 0; g < groups; g++) {
+                groupBlock[g] = demanded.get(g / (DAYS * SHIFTS));
+                groupStart[g] = seats;
+                seats += needs.get(g / (DAYS * SHIFTS));
+            }
+            groupStart[groups] = seats;
+            seatGroup = new int[seats];
+            for (int g = 0; g < groups; g++) {
+                for (int x = groupStart[g]; x < groupStart[g + 1]; x++) {
+                    seatGroup[x] = g;
+                }
+            }
+        }
+
+        int groups() { return groupBlock.length; }
+        int seats() { return seatGroup.length; }
+        int dayOf(int seat) { return seatGroup[seat] / SHIFTS % DAYS; }
+        int shiftOf(int seat) { return seatGroup[seat] % SHIFTS; }
+
+        private int preferredShift(ShiftInterval shift) {
+            if (shift == null || shift.getDurationMinutes() >= ShiftInterval.MINUTES_PER_DAY) {
+                return -1;
+            }
+            for (Shift candidate : Shift.values()) {
+                if (candidate.getInterval().covers(shift.getStart())) {
+                    return candidate.ordinal();
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A roster under construction: who fills each seat, and each member's week.
+     */
+    private final class State {
+        final Problem problem;
+        final int[] seatStaff;     // -1 when empty
+        final int[] workSeat;      // member * 7 + day -> seat, or -1
+        final int[] shifts;        // Shifts rostered per member
+        int cost;
+
+        State(Problem problem) {
+            this.problem = problem;
+            this.seatStaff = new int[problem.seats()];
+            this.workSeat = new int[problem.members.length * DAYS];
+            this.shifts = new int[problem.members.length];
+            Arrays.fill(seatStaff, -1);
+            Arrays.fill(workSeat, -1);
+            this.cost = problem.seats() * SHORTFALL_COST;
+        }
+
+        private State(State other) {
+            this.problem = other.problem;
+            this.seatStaff = other.seatStaff.clone();
+            this.workSeat = other.workSeat.clone();
+            this.shifts = other.shifts.clone();
+            this.cost = other.cost;
+        }
+
+        State copy() {
+            return new State(this);
+        }
+
+        /**
+         * Fills places block shift by block shift, highest security first,
+         * with the cheapest member free that day.
+         */
+        void fillGreedily() {
+            Integer[] order = new Integer[problem.groups()];
+            for (int g = 0; g < order.length; g++) {
+                order[g] = g;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(
+                problem.groupStart[b + 1] - problem.groupStart[b], problem.groupStart[a + 1] - problem.groupStart[a]));
+            for (int g : order) {
+                for (int x = problem.groupStart[g]; x < problem.groupStart[g + 1]; x++) {
+                    int best = -1;
+                    int bestScore = Integer.MAX_VALUE;
+                    for (int s = 0; s < problem.members.length; s++) {
+                        if (!canTake(s, x, -1)) {
+                            continue;
+                        }
+                        int score = memberCost(s, g) * 1000 + shifts[s];
+                        if (score < bestScore) {
+                            best = s;
+                            bestScore = score;
+                        }
+                    }
+                    if (best >= 0) {
+                        assign(x, best);
+                    }
+                }
+            }
+            cost = 0;
+            for (int g = 0; g < problem.groups(); g++) {
+                cost += groupCost(g);
+            }
+        }
+
+        State anneal(long seed) {
+            int seats = problem.seats();
+            int members = problem.members.length;
+            if (seats == 0 || members == 0 || iterations == 0) {
+                return this;
+            }
+            Random random = new Random(seed);
+            long deadline = System.nanoTime() + timeLimit.toNanos();
+            State best = copy();
+            double cooling = Math.pow(END_TEMPERATURE / START_TEMPERATURE, 1.0 / iterations);
+            double temperature = START_TEMPERATURE;
+            for (int i = 0; i < iterations; i++, temperature *= cooling) {
+                if ((i & 1023) == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                int x = random.nextInt(seats);
+                int delta = random.nextBoolean()
+                    ? tryReplace(x, random.nextInt(members), temperature, random)
+                    : trySwap(x, random.nextInt(seats), temperature, random);
+                cost += delta;
+                if (cost < best.cost) {
+                    best = copy();
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Puts member s into seat x in place of whoever is there; returns the
+         * accepted cost change (0 when rejected).
+         */
+        private int tryReplace(int x, int s, double temperature, Random random) {
+            int previous = seatStaff[x];
+            if (previous == s || !canTake(s, x, -1)) {
+                return 0;
+            }
+            int g = problem.seatGroup[x];
+            int before = groupCost(g);
+            assign(x, s);
+            int delta = groupCost(g) - before;
+            if (accept(delta, temperature, random)) {
+                return delta;
+            }
+            assign(x, previous);
+            return 0;
+        }
+
+        /**
+         * Exchanges the members of seats x and y on different days.
+         */
+        private int trySwap(int x, int y, double temperature, Random random) {
+            int a = seatStaff[x];
+            int b = seatStaff[y];
+            if (a < 0 || b < 0 || a == b || problem.dayOf(x) == problem.dayOf(y)
+                || !canTake(a, y, x) || !canTake(b, x, y)) {
+                return 0;
+            }
+            int gx = problem.seatGroup[x];
+            int gy = problem.seatGroup[y];
+            int before = groupCost(gx) + groupCost(gy);
+            exchange(x, y, a, b);
+            int delta = groupCost(gx) + groupCost(gy) - before;
+            if (accept(delta, temperature, random)) {
+                return delta;
+            }
+            exchange(x, y, b, a);
+            return 0;
+        }
+
+        private boolean accept(int delta, double temperature, Random random) {
+            return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+        }
+
+        private void exchange(int x, int y, int nowInX, int nowInY) {
+            assign(x, -1);
+            assign(y, -1);
+            assign(x, nowInY);
+            assign(y, nowInX);
+        }
+
+        private void assign(int x, int s) {
+            int day = problem.dayOf(x);
+            int previous = seatStaff[x];
+            if (previous >= 0) {
+                workSeat[previous * DAYS + day] = -1;
+                shifts[previous]--;
+            }
+            seatStaff[x] = s;
+            if (s >= 0) {
+                workSeat[s * DAYS + day] = x;
+                shifts[s]++;
+            }
+        }
+
+        /**
+         * Whether member s may take seat x, if it gave up seat released (-1 for none).
+         */
+        boolean canTake(int s, int x, int released) {
+            int day = problem.dayOf(x);
+            int shift = problem.shiftOf(x);
+            if (shiftOn(s, day, released) >= 0) {
+                return false;
+            }
+            if (released < 0 && shifts[s] >= maxShiftsPerWeek) {
+                return false;
+            }
+            if (shift == DAY && day > 0 && shiftOn(s, day - 1, released) == NIGHT) {
+                return false;
+            }
+            return !(shift == NIGHT && day < DAYS - 1 && shiftOn(s, day + 1, released) == DAY);
+        }
+
+        private int shiftOn(int s, int day, int released) {
+            int seat = workSeat[s * DAYS + day];
+            return seat < 0 || seat == released ? -1 : problem.shiftOf(seat);
+        }
+
+        int groupCost(int g) {
+            int total = 0;
+            for (int x = problem.groupStart[g]; x < problem.groupStart[g + 1]; x++) {
+                int s = seatStaff[x];
+                total += s < 0 ? SHORTFALL_COST : memberCost(s, g);
+            }
+            return total;
+        }
+
+        private int memberCost(int s, int g) {
+            int total = 0;
+            if (problem.floating[s]) {
+                total += EMERGENCY_COST;
+            }
+            if (problem.preferred[s] >= 0 && problem.preferred[s] != g % SHIFTS) {
+                total += PREFERENCE_COST;
+            }
+            if (!supervised(s, g)) {
+                total += SUPERVISOR_COST;
+            }
+            return total;
+        }
+
+        private boolean supervised(int s, int g) {
+            int[] supervisors = problem.supervisors[s];
+            if (supervisors.length == 0) {
+                return true;
+            }
+            int day = g / SHIFTS % DAYS;
+            for (int supervisor : supervisors) {
+                int seat = workSeat[supervisor * DAYS + day];
+                if (seat >= 0 && problem.seatGroup[seat] == g) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Roster toRoster() {
+            List<Assignment> assignments = new ArrayList<>();
+            Map<Block, List<List<Staff>>> byBlock = new IdentityHashMap<>();
+            Map<Staff, Integer> shiftCounts = new IdentityHashMap<>();
+            int shortfall = 0;
+            int violations = 0;
+            for (int x = 0; x < problem.seats(); x++) {
+                int g = problem.seatGroup[x];
+                int s = seatStaff[x];
+                if (s < 0) {
+                    shortfall++;
+                    continue;
+                }
+                Block block = problem.groupBlock[g];
+                Staff member = problem.members[s];
+                DayOfWeek day = DayOfWeek.of(problem.dayOf(x) + 1);
+                Shift shift = Shift.values()[problem.shiftOf(x)];
+                assignments.add(new Assignment(day, shift, block, member));
+                byBlock.computeIfAbsent(block, b -> emptyWeek()).get(slot(day, shift)).add(member);
+                shiftCounts.merge(member, 1, Integer::sum);
+                if (!supervised(s, g)) {
+                    violations++;
+                }
+            }
+            List<List<CombinedStaff>> floating = emptyWeek();
+            placeFloating(floating, shiftCounts);
+            return new Roster(assignments, byBlock, floating, shiftCounts, shortfall, violations, cost);
+        }
+
+        /**
+         * Spreads the free shifts of emergency-available members over the
+         * week, always onto the shift with the fewest floating members.
+         */
+        private void placeFloating(List<List<CombinedStaff>> floating, Map<Staff, Integer> shiftCounts) {
+            for (int s = 0; s < problem.members.length; s++) {
+                if (!problem.floating[s]) {
+                    continue;
+                }
+                int[] week = new int[DAYS];
+                for (int day = 0; day < DAYS; day++) {
+                    week[day] = shiftOn(s, day, -1);
+                }
+                CombinedStaff member = (CombinedStaff) problem.members[s];
+                for (int worked = shifts[s]; worked < maxShiftsPerWeek; worked++) {
+                    int chosen = -1;
+                    for (int slot = 0; slot < DAYS * SHIFTS; slot++) {
+                        int day = slot / SHIFTS;
+                        int shift = slot % SHIFTS;
+                        boolean free = week[day] < 0
+                            && !(shift == DAY && day > 0 && week[day - 1] == NIGHT)
+                            && !(shift == NIGHT && day < DAYS - 1 && week[day + 1] == DAY);
+                        if (free && (chosen < 0 || floating.get(slot).size() < floating.get(chosen).size())) {
+                            chosen = slot;
+                        }
+                    }
+                    if (chosen < 0) {
+                        break;
+                    }
+                    week[chosen / SHIFTS] = chosen % SHIFTS;
+                    floating.get(chosen).add(member);
+                    shiftCounts.merge(member, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    private static <T> List<List<T>> emptyWeek() {
+        List<List<T>> week = new ArrayList<>(DAYS * SHIFTS);
+        for (int slot = 0; slot < DAYS * SHIFTS; slot++) {
+            week.add(new ArrayList<>());
+        }
+        return week;
+    }
+}
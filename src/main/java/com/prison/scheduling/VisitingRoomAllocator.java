@@ -0,0 +1,413 @@
+package com.prison.scheduling;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Visit;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Packs each day's approved visits into visiting rooms and time slots.
+ *
+ * The opening hours are cut into fixed slots; every room is a bit set of
+ * taken slots, so finding the earliest free run for a visit is a few word
+ * operations per room. A whole day is packed first-fit decreasing: by
+ * VisitType priority (LAWYER, then FAMILY, then GENERAL), longest first.
+ * After that the plan is maintained incrementally from EventBus events:
+ *
+ * - an approved visit takes the earliest free slot in any room; if none is
+ *   left it may displace a lower-priority visit, which is placed elsewhere
+ *   or moved to the waiting list,
+ * - a rejected visit, or one moved to another day, frees its slots, and the
+ *   waiting list is retried in priority order,
+ * - a change of duration or type places the visit again.
+ *
+ * Incremental placement can fragment a day; repack(day) re-runs the full
+ * packing. Completed visits keep their place.
+ */
+public class VisitingRoomAllocator implements ModelEventListener {
+
+    /**
+     * Where and when a visit takes place.
+     */
+    public static class Placement {
+        private final Visit visit;
+        private final int room;
+        private final LocalTime start;
+        private final LocalTime end;
+
+        Placement(Visit visit, int room, LocalTime start, LocalTime end) {
+            this.visit = visit;
+            this.room = room;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Visit getVisit() { return visit; }
+        /** Room number, counted from 1. */
+        public int getRoom() { return room; }
+        public LocalTime getStart() { return start; }
+        public LocalTime getEnd() { return end; }
+
+        @Override
+        public String toString() {
+            return "room " + room + " " + start + "-" + end + " " + visit.getType();
+        }
+    }
+
+    private static class Slot {
+        final Visit visit;
+        final long sequence;   // Arrival order, breaks priority ties
+        int priority;          // Sort key, taken from the visit when (re)packed - never read live,
+        int duration;          // so a type or duration change cannot strand the slot in the waiting set
+        int room = -1;         // -1 while on the waiting list
+        int firstSlot;
+        int slotCount;
+
+        Slot(Visit visit, long sequence) {
+            this.visit = visit;
+            this.sequence = sequence;
+            refreshKey();
+        }
+
+        void refreshKey() {
+            priority = priority(visit);
+            duration = visit.getDuration();
+        }
+    }
+
+    private class DayPlan {
+        final BitSet[] rooms = new BitSet[roomCount];
+        final Map<Visit, Slot> slots = new IdentityHashMap<>();
+        final TreeSet<Slot> waiting = new TreeSet<>(PACKING_ORDER);
+
+        DayPlan() {
+            for (int i = 0; i < roomCount; i++) {
+                rooms[i] = new BitSet(slotsPerDay);
+            }
+        }
+    }
+
+    /**
+     * Higher priority first, then longer visits, then arrival order.
+     */
+    private static final Comparator<Slot> PACKING_ORDER = Comparator
+        .comparingInt((Slot s) -> s.priority)
+        .thenComparing(Comparator.comparingInt((Slot s) -> s.duration).reversed())
+        .thenComparingLong(s -> s.sequence);
+
+    private final int roomCount;
+    private final LocalTime opening;
+    private final int slotMinutes;
+    private final int slotsPerDay;
+    private final Map<LocalDate, DayPlan> days = new HashMap<>();
+    private final Map<Visit, LocalDate> dayOfVisit = new IdentityHashMap<>();
+    private long sequence;
+
+    /**
+     * Plans the approved visits in the extent and follows later changes.
+     */
+    public VisitingRoomAllocator(int roomCount, LocalTime opening, LocalTime closing, int slotMinutes) {
+        if (roomCount <= 0 || slotMinutes <= 0) {
+            throw new IllegalArgumentException("Rooms and slot length must be positive.");
+        }
+        if (opening == null || closing == null || !opening.isBefore(closing)) {
+            throw new IllegalArgumentException("Opening time must be before closing time.");
+        }
+        this.roomCount = roomCount;
+        this.opening = opening;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = (int) (Duration.between(opening, closing).toMinutes() / slotMinutes);
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-reads the Visit extent and packs every day from scratch.
+     */
+    public synchronized void rebuild() {
+        days.clear();
+        dayOfVisit.clear();
+        Map<LocalDate, List<Slot>> byDay = new HashMap<>();
+        for (Visit visit : Visit.getExtent()) {
+            if (isPlanned(visit)) {
+                byDay.computeIfAbsent(visit.getDate(), d -> new ArrayList<>()).add(new Slot(visit, sequence++));
+            }
+        }
+        byDay.forEach(this::pack);
+    }
+
+    /**
+     * Packs the day again from scratch (first-fit decreasing), undoing the
+     * fragmentation left by incremental changes.
+     */
+    public synchronized void repack(LocalDate day) {
+        DayPlan plan = days.remove(day);
+        if (plan == null) {
+            return;
+        }
+        List<Slot> all = new ArrayList<>(plan.slots.values());
+        for (Slot slot : all) {
+            dayOfVisit.remove(slot.visit);
+        }
+        pack(day, all);
+    }
+
+    @Override
+    public synchronized void onEvent(ModelEvent event) {
+        if (!(event.getSource() instanceof Visit)) {
+            return;
+        }
+        Visit visit = (Visit) event.getSource();
+        String property = event.getProperty();
+        switch (event.getType()) {
+            case CREATED:
+            case CHANGED:
+                if (event.getType() == ModelEvent.Type.CHANGED && !"approvalStatus".equals(property)
+                        && !"date".equals(property) && !"duration".equals(property) && !"type".equals(property)) {
+                    break;
+                }
+                LocalDate plannedDay = dayOfVisit.get(visit);
+                boolean planned = isPlanned(visit);
+                boolean resized = "duration".equals(property) || "type".equals(property);
+                if (plannedDay != null && (!planned || !plannedDay.equals(visit.getDate()) || resized)) {
+                    remove(visit);
+                }
+                if (planned && !dayOfVisit.containsKey(visit)) {
+                    add(visit);
+                }
+                break;
+            case DELETED:
+                remove(visit);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Queries ---
+
+    public synchronized Placement getPlacement(Visit visit) {
+        LocalDate day = dayOfVisit.get(visit);
+        Slot slot = day == null ? null : days.get(day).slots.get(visit);
+        return slot == null || slot.room < 0 ? null : placement(slot);
+    }
+
+    /**
+     * Placements of the day, by room and then start time.
+     */
+    public synchronized List<Placement> getSchedule(LocalDate day) {
+        List<Placement> result = new ArrayList<>();
+        DayPlan plan = days.get(day);
+        if (plan != null) {
+            for (Slot slot : plan.slots.values()) {
+                if (slot.room >= 0) {
+                    result.add(placement(slot));
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Placement::getRoom).thenComparing(Placement::getStart));
+        return result;
+    }
+
+    /**
+     * Approved visits of the day that found no room, highest priority first.
+     */
+    public synchronized List<Visit> getWaitingList(LocalDate day) {
+        List<Visit> result = new ArrayList<>();
+        DayPlan plan = days.get(day);
+        if (plan != null) {
+            for (Slot slot : plan.waiting) {
+                result.add(slot.visit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Share of the day's room slots that are taken, between 0 and 1.
+     */
+    public synchronized double getUtilization(LocalDate day) {
+        DayPlan plan = days.get(day);
+        if (plan == null) {
+            return 0;
+        }
+        long taken = 0;
+        for (BitSet room : plan.rooms) {
+            taken += room.cardinality();
+        }
+        return taken / (double) (roomCount * slotsPerDay);
+    }
+
+    // --- Packing (caller holds the monitor) ---
+
+    private static boolean isPlanned(Visit visit) {
+        return visit.getApprovalStatus() == Visit.ApprovalStatus.APPROVED
+            || visit.getApprovalStatus() == Visit.ApprovalStatus.COMPLETED;
+    }
+
+    private static int priority(Visit visit) {
+        return visit.getType().ordinal();   // LAWYER, FAMILY, GENERAL in declaration order
+    }
+
+    private void pack(LocalDate day, List<Slot> visits) {
+        DayPlan plan = new DayPlan();
+        days.put(day, plan);
+        for (Slot slot : visits) {
+            slot.refreshKey();
+        }
+        visits.sort(PACKING_ORDER);
+        for (Slot slot : visits) {
+            slot.room = -1;
+            slot.slotCount = slotsFor(slot.visit);
+            plan.slots.put(slot.visit, slot);
+            dayOfVisit.put(slot.visit, day);
+            if (!placeFirstFit(plan, slot)) {
+                plan.waiting.add(slot);
+            }
+        }
+    }
+
+    private void add(Visit visit) {
+        LocalDate day = visit.getDate();
+        DayPlan plan = days.computeIfAbsent(day, d -> new DayPlan());
+        Slot slot = new Slot(visit, sequence++);
+        slot.slotCount = slotsFor(visit);
+        plan.slots.put(visit, slot);
+        dayOfVisit.put(visit, day);
+        if (!placeFirstFit(plan, slot) && !placeByDisplacing(plan, slot)) {
+            plan.waiting.add(slot);
+        }
+    }
+
+    private void remove(Visit visit) {
+        LocalDate day = dayOfVisit.remove(visit);
+        if (day == null) {
+            return;
+        }
+        DayPlan plan = days.get(day);
+        Slot slot = plan.slots.remove(visit);
+        if (slot.room < 0) {
+            plan.waiting.remove(slot);
+        } else {
+            free(plan, slot);
+            retryWaiting(plan);
+        }
+        if (plan.slots.isEmpty()) {
+            days.remove(day);
+        }
+    }
+
+    /**
+     * Earliest start over all rooms; ties go to the lower room number.
+     */
+    private boolean placeFirstFit(DayPlan plan, Slot slot) {
+        int bestRoom = -1;
+        int bestStart = Integer.MAX_VALUE;
+        for (int room = 0; room < roomCount; room++) {
+            int start = firstFree(plan.rooms[room], slot.slotCount);
+            if (start >= 0 && start < bestStart) {
+                bestRoom = room;
+                bestStart = start;
+            }
+        }
+        if (bestRoom < 0) {
+            return false;
+        }
+        take(plan, slot, bestRoom, bestStart);
+        return true;
+    }
+
+    /**
+     * Frees a placed visit of lower priority whose room then has space for
+     * slot (lowest priority and shortest visit tried first); the displaced
+     * visit is placed elsewhere or goes on the waiting list.
+     */
+    private boolean placeByDisplacing(DayPlan plan, Slot slot) {
+        List<Slot> candidates = new ArrayList<>();
+        for (Slot placed : plan.slots.values()) {
+            if (placed.room >= 0 && priority(placed.visit) > priority(slot.visit)) {
+                candidates.add(placed);
+            }
+        }
+        candidates.sort(Comparator.comparingInt((Slot s) -> -priority(s.visit)).thenComparingInt(s -> s.slotCount));
+        for (Slot victim : candidates) {
+            BitSet room = plan.rooms[victim.room];
+            room.clear(victim.firstSlot, victim.firstSlot + victim.slotCount);
+            int start = firstFree(room, slot.slotCount);
+            if (start >= 0) {
+                int freedRoom = victim.room;
+                victim.room = -1;
+                take(plan, slot, freedRoom, start);
+                if (!placeFirstFit(plan, victim)) {
+                    plan.waiting.add(victim);
+                }
+                return true;
+            }
+            room.set(victim.firstSlot, victim.firstSlot + victim.slotCount);
+        }
+        return false;
+    }
+
+    private void retryWaiting(DayPlan plan) {
+        List<Slot> placed = new ArrayList<>();
+        for (Slot waiting : plan.waiting) {
+            if (placeFirstFit(plan, waiting)) {
+                placed.add(waiting);
+            }
+        }
+        plan.waiting.removeAll(placed);
+    }
+
+    /**
+     * Start of the first run of count free slots, or -1.
+     */
+    private int firstFree(BitSet room, int count) {
+        if (count > slotsPerDay) {
+            return -1;
+        }
+        int start = room.nextClearBit(0);
+        while (start + count <= slotsPerDay) {
+            int taken = room.nextSetBit(start);
+            if (taken < 0 || taken - start >= count) {
+                return start;
+            }
+            start = room.nextClearBit(taken);
+        }
+        return -1;
+    }
+
+    private void take(DayPlan plan, Slot slot, int room, int start) {
+        slot.room = room;
+        slot.firstSlot = start;
+        plan.rooms[room].set(start, start + slot.slotCount);
+    }
+
+    private void free(DayPlan plan, Slot slot) {
+        plan.rooms[slot.room].clear(slot.firstSlot, slot.firstSlot + slot.slotCount);
+        slot.room = -1;
+    }
+
+    private int slotsFor(Visit visit) {
+        return (visit.getDuration() + slotMinutes - 1) / slotMinutes;
+    }
+
+    private Placement placement(Slot slot) {
+        LocalTime start = opening.plusMinutes((long) slot.firstSlot * slotMinutes);
+        return new Placement(slot.visit, slot.room + 1, start, start.plusMinutes((long) slot.slotCount * slotMinutes));
+    }
+}
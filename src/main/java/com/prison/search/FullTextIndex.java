@@ -0,0 +1,490 @@
+package com.prison.search;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Assignment;
+import com.prison.model.Charges;
+import com.prison.model.IncidentReport;
+import com.prison.model.MedicalRecord;
+import com.prison.util.IntObjectMap;
+import com.prison.util.IntSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over the free-text fields investigators search:
+ * IncidentReport.description, MedicalRecord.descriptionOfDiagnosis and
+ * history, Charges.description and Assignment.description.
+ *
+ * Every indexed text (one field value or one history entry) gets an int slot.
+ * Terms map to posting lists (slot -> token positions) kept in a sorted map,
+ * so prefix queries are a range scan and phrase queries intersect postings and
+ * check adjacent positions. The index follows the model through EventBus
+ * events (created, description and history changes, deletes), so
+ * updates cost only the tokens of the changed text.
+ *
+ * Query syntax for search(String): words are ANDed, "quoted words" must be
+ * adjacent, a trailing * matches a prefix. Matching is case-insensitive.
+ */
+public class FullTextIndex implements ModelEventListener {
+    public static final String HISTORY = "history";
+
+    private static final class Slot {
+        final int id;
+        final Object owner;
+        final String field;
+        final String[] terms;     // Canonical term instances shared with the postings keys
+
+        Slot(int id, Object owner, String field, String[] terms) {
+            this.id = id;
+            this.owner = owner;
+            this.field = field;
+            this.terms = terms;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, IntObjectMap<int[]>> postings = new TreeMap<>();
+    private final List<Slot> slots = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Object, List<Slot>> slotsByOwner = new IdentityHashMap<>();
+
+    /**
+     * Builds the index from the current extents and keeps it up to date.
+     */
+    public FullTextIndex() {
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-indexes the extents, e.g. after loadExtent (which emits no events).
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slots.clear();
+            freeSlots.clear();
+            slotsByOwner.clear();
+            for (IncidentReport report : IncidentReport.getExtent()) {
+                indexOwner(report);
+            }
+            for (MedicalRecord record : MedicalRecord.getExtent()) {
+                indexOwner(record);
+            }
+            for (Charges charge : Charges.getExtent()) {
+                indexOwner(charge);
+            }
+            for (Assignment assignment : Assignment.getExtent()) {
+                indexOwner(assignment);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onEvent(ModelEvent event) {
+        Object source = event.getSource();
+        if (!isIndexed(source)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            switch (event.getType()) {
+                case CREATED:
+                    removeOwner(source);
+                    indexOwner(source);
+                    break;
+                case DELETED:
+                    removeOwner(source);
+                    break;
+                case CHANGED:
+                    if (HISTORY.equals(event.getProperty())) {
+                        if (event.getOldValue() != null) {
+                            removeEntry(source, HISTORY, (String) event.getOldValue());
+                        }
+                        if (event.getNewValue() != null) {
+                            addSlot(source, HISTORY, (String) event.getNewValue());
+                        }
+                    } else if (isTextField(source, event.getProperty())) {
+                        removeField(source, event.getProperty());
+                        addSlot(source, event.getProperty(), (String) event.getNewValue());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * Owners matching the query (see class comment), each once, ordered by
+     * the lowest slot of their matching texts. Slots freed by deletes are
+     * reused, so this is indexing order only while nothing was removed.
+     */
+    public List<Object> search(String query) {
+        lock.readLock().lock();
+        try {
+            int[] matches = null;
+            for (String clause : parse(query)) {
+                int[] clauseMatches;
+                if (clause.startsWith("\"")) {
+                    clauseMatches = phraseSlots(tokenize(clause));
+                } else if (clause.endsWith("*")) {
+                    clauseMatches = prefixSlots(normalize(clause.substring(0, clause.length() - 1)));
+                } else {
+                    clauseMatches = phraseSlots(tokenize(clause));
+                }
+                matches = matches == null ? clauseMatches : intersectOwners(matches, clauseMatches);
+                if (matches.length == 0) {
+                    break;
+                }
+            }
+            return owners(matches == null ? new int[0] : matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matches of the query restricted to one model class.
+     */
+    public <T> List<T> search(Class<T> type, String query) {
+        List<T> result = new ArrayList<>();
+        for (Object owner : search(query)) {
+            if (type.isInstance(owner)) {
+                result.add(type.cast(owner));
+            }
+        }
+        return result;
+    }
+
+    public List<Object> searchPhrase(String phrase) {
+        lock.readLock().lock();
+        try {
+            return owners(phraseSlots(tokenize(phrase)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Object> searchPrefix(String prefix) {
+        lock.readLock().lock();
+        try {
+            return owners(prefixSlots(normalize(prefix)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of distinct terms in the index.
+     */
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Tokenization ---
+
+    static String[] tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalize(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static String normalize(String token) {
+        return token.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> parse(String query) {
+        List<String> clauses = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                end = end < 0 ? query.length() : end;
+                clauses.add(query.substring(i, end));   // Keeps the opening quote as a marker
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end))) {
+                    end++;
+                }
+                clauses.add(query.substring(i, end));
+                i = end;
+            }
+        }
+        return clauses;
+    }
+
+    // --- Index maintenance (caller holds the write lock) ---
+
+    private static boolean isIndexed(Object source) {
+        return source instanceof IncidentReport || source instanceof MedicalRecord
+                || source instanceof Charges || source instanceof Assignment;
+    }
+
+    private static boolean isTextField(Object source, String property) {
+        if (source instanceof MedicalRecord) {
+            return "descriptionOfDiagnosis".equals(property);
+        }
+        return "description".equals(property);
+    }
+
+    private void indexOwner(Object owner) {
+        if (owner instanceof MedicalRecord) {
+            MedicalRecord record = (MedicalRecord) owner;
+            addSlot(record, "descriptionOfDiagnosis", record.getDescriptionOfDiagnosis());
+            for (String entry : record.getHistory()) {
+                addSlot(record, HISTORY, entry);
+            }
+        } else if (owner instanceof IncidentReport) {
+            addSlot(owner, "description", ((IncidentReport) owner).getDescription());
+        } else if (owner instanceof Charges) {
+            addSlot(owner, "description", ((Charges) owner).getDescription());
+        } else if (owner instanceof Assignment) {
+            addSlot(owner, "description", ((Assignment) owner).getDescription());
+        }
+    }
+
+    private void addSlot(Object owner, String field, String text) {
+        if (text == null) {
+            return;
+        }
+        String[] terms = tokenize(text);
+        int id = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+        Slot slot = new Slot(id, owner, field, terms);
+        if (id == slots.size()) {
+            slots.add(slot);
+        } else {
+            slots.set(id, slot);
+        }
+        slotsByOwner.computeIfAbsent(owner, k -> new ArrayList<>(2)).add(slot);
+        for (int position = 0; position < terms.length; position++) {
+            IntObjectMap<int[]> list = postings.get(terms[position]);
+            if (list == null) {
+                list = new IntObjectMap<>(4);
+                postings.put(terms[position], list);
+            } else {
+                terms[position] = postings.ceilingKey(terms[position]);
+            }
+            int[] positions = list.get(id);
+            if (positions == null) {
+                list.put(id, new int[] {position});
+            } else {
+                int[] grown = Arrays.copyOf(positions, positions.length + 1);
+                grown[positions.length] = position;
+                list.put(id, grown);
+            }
+        }
+    }
+
+    private void removeOwner(Object owner) {
+        List<Slot> owned = slotsByOwner.remove(owner);
+        if (owned != null) {
+            for (Slot slot : owned) {
+                releaseSlot(slot);
+            }
+        }
+    }
+
+    private void removeField(Object owner, String field) {
+        List<Slot> owned = slotsByOwner.get(owner);
+        if (owned == null) {
+            return;
+        }
+        owned.removeIf(slot -> {
+            if (slot.field.equals(field)) {
+                releaseSlot(slot);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Removes one entry of a multi-valued field; entries are told apart by their terms.
+     */
+    private void removeEntry(Object owner, String field, String text) {
+        List<Slot> owned = slotsByOwner.get(owner);
+        if (owned == null) {
+            return;
+        }
+        String[] terms = tokenize(text);
+        for (int i = 0; i < owned.size(); i++) {
+            Slot slot = owned.get(i);
+            if (slot.field.equals(field) && Arrays.equals(slot.terms, terms)) {
+                owned.remove(i);
+                releaseSlot(slot);
+                return;
+            }
+        }
+    }
+
+    private void releaseSlot(Slot slot) {
+        for (String term : slot.terms) {
+            IntObjectMap<int[]> list = postings.get(term);
+            if (list != null) {
+                list.remove(slot.id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        slots.set(slot.id, null);
+        freeSlots.push(slot.id);
+    }
+
+    // --- Query evaluation (caller holds the read lock) ---
+
+    private int[] phraseSlots(String[] terms) {
+        if (terms.length == 0) {
+            return new int[0];
+        }
+        // Drive the intersection from the rarest term
+        IntObjectMap<int[]>[] lists = postingLists(terms);
+        if (lists == null) {
+            return new int[0];
+        }
+        int rarest = 0;
+        for (int i = 1; i < lists.length; i++) {
+            if (lists[i].size() < lists[rarest].size()) {
+                rarest = i;
+            }
+        }
+        int[] candidates = lists[rarest].keys();
+        int count = 0;
+        for (int slot : candidates) {
+            if (containsPhrase(lists, slot)) {
+                candidates[count++] = slot;
+            }
+        }
+        int[] result = Arrays.copyOf(candidates, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private IntObjectMap<int[]>[] postingLists(String[] terms) {
+        IntObjectMap<int[]>[] lists = (IntObjectMap<int[]>[]) new IntObjectMap<?>[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            lists[i] = postings.get(terms[i]);
+            if (lists[i] == null) {
+                return null;
+            }
+        }
+        return lists;
+    }
+
+    private static boolean containsPhrase(IntObjectMap<int[]>[] lists, int slot) {
+        int[][] positions = new int[lists.length][];
+        for (int i = 0; i < lists.length; i++) {
+            positions[i] = lists[i].get(slot);
+            if (positions[i] == null) {
+                return false;
+            }
+        }
+        for (int start : positions[0]) {
+            boolean adjacent = true;
+            for (int i = 1; i < positions.length && adjacent; i++) {
+                adjacent = Arrays.binarySearch(positions[i], start + i) >= 0;
+            }
+            if (adjacent) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] prefixSlots(String prefix) {
+        if (prefix.isEmpty()) {
+            return new int[0];
+        }
+        IntSet seen = new IntSet();
+        int[] result = new int[16];
+        int count = 0;
+        for (IntObjectMap<int[]> list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (int slot : list.keys()) {
+                if (seen.add(slot)) {
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, count << 1);
+                    }
+                    result[count++] = slot;
+                }
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Keeps the slots of a whose owner also has a slot in b (clauses may
+     * match different fields of the same record).
+     */
+    private int[] intersectOwners(int[] a, int[] b) {
+        Set<Object> ownersOfB = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int slot : b) {
+            ownersOfB.add(slots.get(slot).owner);
+        }
+        int count = 0;
+        int[] result = new int[a.length];
+        for (int slot : a) {
+            if (ownersOfB.contains(slots.get(slot).owner)) {
+                result[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private List<Object> owners(int[] slotIds) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> result = new ArrayList<>();
+        for (int slot : slotIds) {
+            Object owner = slots.get(slot).owner;
+            if (seen.add(owner)) {
+                result.add(owner);
+            }
+        }
+        return result;
+    }
+}
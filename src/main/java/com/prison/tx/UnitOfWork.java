@@ -0,0 +1,189 @@
+package com.prison.tx;
+
+import com.prison.exception.ConcurrentUpdateException;
+import com.prison.util.VersionedExtent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory unit of work for multi-object mutations.
+ *
+ * While a unit of work is active on the current thread:
+ * - extent registrations (VersionedExtent add/remove) are buffered and
+ *   published together at commit, as one version of the extents;
+ * - model events are buffered and published after commit, or dropped on rollback;
+ * - every model setter and association mutator (on both ends of a link, and
+ *   for the natural-key indexes it re-keys) records an undo action, replayed
+ *   in reverse on rollback; the objects it records for form the write set.
+ *
+ * Units of work run in parallel without locks. Commit is optimistic: if an
+ * existing object this unit wrote to was committed by another unit after this
+ * one started, it rolls back with ConcurrentUpdateException and run()
+ * retries. Nested run() calls join the outer unit with a savepoint, so a
+ * failing constructor inside a larger unit only undoes its own part.
+ */
+public final class UnitOfWork {
+    private static final int MAX_ATTEMPTS = 10;
+
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+    private static final ReentrantLock commitLock = new ReentrantLock();
+    private static final Map<Object, Long> lastCommitted = new WeakHashMap<>();  // Guarded by commitLock
+    private static volatile long commitClock;
+
+    private final long startVersion;
+    private final List<Runnable> undoLog = new ArrayList<>();
+    private final List<Runnable> registrations = new ArrayList<>();
+    private final List<Runnable> events = new ArrayList<>();
+    private final Set<Object> created = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Object> writeSet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private UnitOfWork() {
+        this.startVersion = commitClock;
+    }
+
+    /**
+     * Runs work atomically: joins the current unit of work if there is one,
+     * otherwise starts a new unit and commits it, retrying on conflicts.
+     */
+    public static void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T execute(Supplier<T> work) {
+        UnitOfWork outer = current.get();
+        if (outer != null) {
+            return outer.runNested(work);
+        }
+        for (int attempt = 1; ; attempt++) {
+            UnitOfWork unit = new UnitOfWork();
+            current.set(unit);
+            T result;
+            try {
+                result = work.get();
+            } catch (RuntimeException | Error e) {
+                current.remove();
+                unit.rollback();
+                throw e;
+            }
+            current.remove();
+            try {
+                unit.commit();
+                return result;
+            } catch (ConcurrentUpdateException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Records how to revert a write to target. Does nothing outside a unit of work.
+     */
+    public static void recordUndo(Object target, Runnable undo) {
+        UnitOfWork unit = current.get();
+        if (unit != null) {
+            unit.undoLog.add(undo);
+            if (!unit.created.contains(target)) {
+                unit.writeSet.add(target);
+            }
+        }
+    }
+
+    /**
+     * Buffers an extent registration of element until commit.
+     * Returns false (and does nothing) outside a unit of work.
+     */
+    public static boolean deferRegistration(Object element, boolean adding, Runnable registration) {
+        UnitOfWork unit = current.get();
+        if (unit == null) {
+            return false;
+        }
+        if (adding) {
+            unit.created.add(element);
+            unit.writeSet.remove(element);
+        } else {
+            unit.writeSet.add(element);
+        }
+        unit.registrations.add(registration);
+        return true;
+    }
+
+    /**
+     * Buffers an event publication until commit.
+     * Returns false (and does nothing) outside a unit of work.
+     */
+    public static boolean deferEvent(Runnable publication) {
+        UnitOfWork unit = current.get();
+        if (unit == null) {
+            return false;
+        }
+        unit.events.add(publication);
+        return true;
+    }
+
+    private <T> T runNested(Supplier<T> work) {
+        int undoMark = undoLog.size();
+        int registrationMark = registrations.size();
+        int eventMark = events.size();
+        try {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            undoTo(undoMark);
+            registrations.subList(registrationMark, registrations.size()).clear();
+            events.subList(eventMark, events.size()).clear();
+            throw e;
+        }
+    }
+
+    private void commit() {
+        commitLock.lock();
+        try {
+            for (Object target : writeSet) {
+                Long committed = lastCommitted.get(target);
+                if (committed != null && committed > startVersion) {
+                    rollback();
+                    throw new ConcurrentUpdateException(
+                            target.getClass().getSimpleName() + " was modified by a concurrent unit of work.");
+                }
+            }
+            long version = commitClock + 1;
+            for (Object target : writeSet) {
+                lastCommitted.put(target, version);
+            }
+            if (!registrations.isEmpty()) {
+                VersionedExtent.atomically(() -> registrations.forEach(Runnable::run));
+            }
+            commitClock = version;
+        } finally {
+            commitLock.unlock();
+        }
+        events.forEach(Runnable::run);
+    }
+
+    private void rollback() {
+        undoTo(0);
+        registrations.clear();
+        events.clear();
+    }
+
+    private void undoTo(int mark) {
+        for (int i = undoLog.size() - 1; i >= mark; i--) {
+            undoLog.remove(i).run();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.prison.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time view of all class extents, taken by VersionedExtent.captureAll().
+ * Reports can iterate it while intake keeps mutating the live extents.
+ */
+public class ExtentSnapshot {
+    private final long version;
+    private final Map<Class<?>, List<?>> extents;
+
+    ExtentSnapshot(long version, Map<Class<?>, List<?>> extents) {
+        this.version = version;
+        this.extents = extents;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Members of type's own extent at this version; for a type without one
+     * (e.g. an abstract class of a PartitionedExtent), the extents of its
+     * subclasses chained together (empty if there are none).
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Class<T> type) {
+        List<?> extent = extents.get(type);
+        if (extent != null) {
+            return (List<T>) extent;
+        }
+        List<List<?>> parts = new ArrayList<>();
+        extents.forEach((extentType, members) -> {
+            if (type.isAssignableFrom(extentType)) {
+                parts.add(members);
+            }
+        });
+        return parts.isEmpty() ? Collections.emptyList() : PartitionedExtent.chain(parts.toArray(new List<?>[0]));
+    }
+}
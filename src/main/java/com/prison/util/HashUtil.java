@@ -0,0 +1,44 @@
+package com.prison.util;
+
+/**
+ * Hashing helpers shared by the primitive collections.
+ */
+final class HashUtil {
+    private static final int INT_PHI = 0x9E3779B9;
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private HashUtil() {
+    }
+
+    /**
+     * Spreads the bits of an int key (Fibonacci hashing) so that sequential
+     * keys such as cell numbers do not cluster in the table.
+     */
+    static int mix(int key) {
+        int h = key * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * LONG_PHI;
+        h ^= (h >>> 32);
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Smallest power of two table able to hold expectedSize entries
+     * under the given load factor.
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / loadFactor) + 1;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+        }
+        int capacity = Integer.highestOneBit((int) needed);
+        if (capacity < needed) {
+            capacity <<= 1;
+        }
+        return Math.max(capacity, 4);
+    }
+}
@@ -0,0 +1,158 @@
+package com.prison.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of primitive long values (linear probing).
+ * Used for id sets where a HashSet<Long> would box every member.
+ * Value 0 is tracked by a flag because it marks a free slot.
+ */
+public class LongSet implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int size;          // Values stored in the table (excluding 0)
+    private int mask;
+    private boolean hasZero;
+
+    public LongSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        int capacity = HashUtil.tableSizeFor(expectedSize, LOAD_FACTOR);
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return hasZero;
+        }
+        int slot = HashUtil.mix(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Adds value, returning false if it was already present.
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int slot = HashUtil.mix(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        size++;
+        if (size > table.length * LOAD_FACTOR) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes value, returning false if it was not present.
+     */
+    public boolean remove(long value) {
+        if (value == 0) {
+            boolean removed = hasZero;
+            hasZero = false;
+            return removed;
+        }
+        int slot = HashUtil.mix(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                shiftKeys(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+        hasZero = false;
+    }
+
+    /**
+     * Returns a copy of all values (unordered).
+     */
+    public long[] toArray() {
+        long[] result = new long[size()];
+        int i = 0;
+        if (hasZero) {
+            result[i++] = 0;
+        }
+        for (long value : table) {
+            if (value != 0) {
+                result[i++] = value;
+            }
+        }
+        return result;
+    }
+
+    private void shiftKeys(int slot) {
+        while (true) {
+            int last = slot;
+            slot = (slot + 1) & mask;
+            while (true) {
+                if (table[slot] == 0) {
+                    table[last] = 0;
+                    return;
+                }
+                int home = HashUtil.mix(table[slot]) & mask;
+                if (last <= slot ? (last >= home || home > slot) : (last >= home && home > slot)) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[last] = table[slot];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity];
+        mask = newCapacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int slot = HashUtil.mix(value) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.prison.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only string store in memory-mapped segment files (off-heap).
+ * An entry is a 4-byte length followed by UTF-8 bytes and is addressed by a
+ * long offset (segment index * segment size + position). Entries are never
+ * rewritten, so readers need no locking once they hold an offset.
+ *
+ * Owners release entries they no longer reference. A full segment whose
+ * entries are all released is dropped and its file deleted; once the last
+ * segment is empty, writing starts over at its beginning. The store thus
+ * maps about as many segments as its live entries need, plus the one being
+ * written. Java has no explicit unmap, so a dropped segment's memory is
+ * returned when its buffer is garbage collected. close() drops them all.
+ *
+ * Segments live in the directory given by the system property
+ * "prison.textlog.dir" (default: the temp directory) and are deleted when
+ * dropped, or on exit at the latest; persistence of the texts goes through
+ * the normal serialisation of TextLog.
+ */
+public final class MappedSegmentStore {
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static volatile MappedSegmentStore shared;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();   // null once dropped
+    private final List<Path> files = new ArrayList<>();
+    private int[] liveEntries = new int[4];   // Per segment
+    private volatile MappedByteBuffer[] readable = new MappedByteBuffer[0];
+    private int position;          // Next free byte in the last segment
+    private long usedBytes;
+    private long liveBytes;
+    private boolean closed;
+
+    public MappedSegmentStore(Path directory, int segmentSize) {
+        if (segmentSize < 64) {
+            throw new IllegalArgumentException("Segment size is too small.");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Process-wide store used by the model classes.
+     */
+    public static MappedSegmentStore shared() {
+        MappedSegmentStore store = shared;
+        if (store == null) {
+            synchronized (MappedSegmentStore.class) {
+                store = shared;
+                if (store == null) {
+                    String dir = System.getProperty("prison.textlog.dir", System.getProperty("java.io.tmpdir"));
+                    store = new MappedSegmentStore(Paths.get(dir), DEFAULT_SEGMENT_SIZE);
+                    shared = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Appends text and returns its offset.
+     */
+    public synchronized long append(String text) {
+        if (closed) {
+            throw new IllegalStateException("Text log store is closed.");
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int required = Integer.BYTES + bytes.length;
+        if (required > segmentSize) {
+            throw new IllegalArgumentException("Text of " + bytes.length + " bytes does not fit in a segment.");
+        }
+        if (segments.isEmpty() || position + required > segmentSize) {
+            addSegment();
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        long offset = (long) (segments.size() - 1) * segmentSize + position;
+        segment.putInt(position, bytes.length);
+        segment.put(position + Integer.BYTES, bytes);
+        position += required;
+        usedBytes += required;
+        liveBytes += required;
+        liveEntries[segments.size() - 1]++;
+        return offset;
+    }
+
+    public String read(long offset) {
+        MappedByteBuffer[] current = readable;
+        int segmentIndex = (int) (offset / segmentSize);
+        if (offset < 0 || segmentIndex >= current.length || current[segmentIndex] == null) {
+            throw new IndexOutOfBoundsException("No entry at offset " + offset + ".");
+        }
+        MappedByteBuffer segment = current[segmentIndex];
+        int index = (int) (offset % segmentSize);
+        byte[] bytes = new byte[segment.getInt(index)];
+        segment.get(index + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marks the entry at offset as no longer referenced. Its owner must not
+     * read it afterwards.
+     */
+    public synchronized void release(long offset) {
+        int segmentIndex = (int) (offset / segmentSize);
+        if (closed || offset < 0 || segmentIndex >= segments.size() || segments.get(segmentIndex) == null) {
+            return;
+        }
+        liveBytes -= Integer.BYTES + segments.get(segmentIndex).getInt((int) (offset % segmentSize));
+        if (--liveEntries[segmentIndex] > 0) {
+            return;
+        }
+        if (segmentIndex == segments.size() - 1) {
+            position = 0;   // Reuse the segment being written
+        } else {
+            drop(segmentIndex);
+        }
+    }
+
+    /**
+     * Drops every segment and deletes the files; the store takes no more
+     * entries. Used for stores that are not shared(), e.g. in tools and tests.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i) != null) {
+                drop(i);
+            }
+        }
+        liveBytes = 0;
+    }
+
+    /**
+     * Bytes written so far (including entries no longer referenced).
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Bytes of the entries not yet released.
+     */
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public synchronized long getMappedBytes() {
+        long mapped = 0;
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                mapped += segmentSize;
+            }
+        }
+        return mapped;
+    }
+
+    private void addSegment() {
+        Path file;
+        MappedByteBuffer segment;
+        try {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "textlog-", ".seg");
+            file.toFile().deleteOnExit();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create text log segment in " + directory + ".", e);
+        }
+        segments.add(segment);
+        files.add(file);
+        if (segments.size() > liveEntries.length) {
+            liveEntries = Arrays.copyOf(liveEntries, liveEntries.length << 1);
+        }
+        position = 0;
+        readable = segments.toArray(new MappedByteBuffer[0]);
+    }
+
+    private void drop(int segmentIndex) {
+        segments.set(segmentIndex, null);
+        readable = segments.toArray(new MappedByteBuffer[0]);
+        try {
+            Files.deleteIfExists(files.get(segmentIndex));
+        } catch (IOException e) {
+            // Still deleted on exit
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.prison.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One extent for a class hierarchy, partitioned by concrete class.
+ *
+ * Every object is stored once, in the VersionedExtent of its own class.
+ * A {@link View} of a class or supertype lists the partitions of the concrete
+ * classes assignable to it; obtaining a view is a map lookup, and its
+ * snapshot chains the partitions' snapshots without copying any elements.
+ * Each partition snapshot is point-in-time; VersionedExtent.captureAll()
+ * gives one version across partitions.
+ */
+public class PartitionedExtent<T> {
+    private final Class<T> root;
+    private final Map<Class<?>, VersionedExtent<T>> partitions = new LinkedHashMap<>();   // Guarded by this
+    private final ConcurrentHashMap<Class<?>, View<?>> views = new ConcurrentHashMap<>();
+
+    public PartitionedExtent(Class<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * The objects of type and its subclasses. O(1) after the first call for a type.
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends T> View<S> view(Class<S> type) {
+        View<?> view = views.get(type);
+        if (view == null) {
+            synchronized (this) {
+                view = views.computeIfAbsent(type, t -> new View<>(this, type, matching(type)));
+            }
+        }
+        return (View<S>) view;
+    }
+
+    public void add(T element) {
+        partition(element.getClass()).add(element);
+    }
+
+    public boolean remove(Object element) {
+        VersionedExtent<T> partition = element == null ? null : existing(element.getClass());
+        return partition != null && partition.remove(element);
+    }
+
+    public List<T> snapshot() {
+        return view(root).snapshot();
+    }
+
+    public int size() {
+        return view(root).size();
+    }
+
+    public void clear() {
+        view(root).clear();
+    }
+
+    /**
+     * Replaces all partitions, e.g. after deserialisation.
+     */
+    public void replaceAll(Collection<? extends T> elements) {
+        view(root).replaceAll(elements);
+    }
+
+    private synchronized VersionedExtent<T> existing(Class<?> type) {
+        return partitions.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized VersionedExtent<T> partition(Class<?> type) {
+        VersionedExtent<T> partition = partitions.get(type);
+        if (partition == null) {
+            if (!root.isAssignableFrom(type)) {
+                throw new IllegalArgumentException(type.getName() + " is not a " + root.getName() + ".");
+            }
+            partition = new VersionedExtent<>((Class<T>) type);
+            partitions.put(type, partition);
+            for (View<?> view : views.values()) {
+                if (view.type.isAssignableFrom(type)) {
+                    view.partitions = matching(view.type);
+                }
+            }
+        }
+        return partition;
+    }
+
+    @SuppressWarnings("unchecked")
+    private VersionedExtent<T>[] matching(Class<?> type) {
+        List<VersionedExtent<T>> matching = new ArrayList<>();
+        partitions.forEach((partitionType, partition) -> {
+            if (type.isAssignableFrom(partitionType)) {
+                matching.add(partition);
+            }
+        });
+        return (VersionedExtent<T>[]) matching.toArray(new VersionedExtent<?>[0]);
+    }
+
+    /**
+     * The members of one class or supertype, read from the partitions in place.
+     */
+    public static final class View<S> implements Iterable<S> {
+        private final PartitionedExtent<? super S> store;
+        private final Class<S> type;
+        private volatile VersionedExtent<?>[] partitions;
+
+        View(PartitionedExtent<? super S> store, Class<S> type, VersionedExtent<?>[] partitions) {
+            this.store = store;
+            this.type = type;
+            this.partitions = partitions;
+        }
+
+        public Class<S> getType() {
+            return type;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void add(S element) {
+            ((PartitionedExtent<Object>) store).add(element);
+        }
+
+        public boolean remove(Object element) {
+            return type.isInstance(element) && store.remove(element);
+        }
+
+        public boolean contains(Object element) {
+            for (VersionedExtent<?> partition : partitions) {
+                if (partition.contains(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public int size() {
+            int size = 0;
+            for (VersionedExtent<?> partition : partitions) {
+                size += partition.size();
+            }
+            return size;
+        }
+
+        /**
+         * Immutable point-in-time view of each partition, chained; no copy.
+         */
+        @SuppressWarnings("unchecked")
+        public List<S> snapshot() {
+            VersionedExtent<?>[] current = partitions;
+            if (current.length == 1) {
+                return (List<S>) current[0].snapshot();
+            }
+            List<?>[] parts = new List<?>[current.length];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = current[i].snapshot();
+            }
+            return chain(parts);
+        }
+
+        @Override
+        public Iterator<S> iterator() {
+            return snapshot().iterator();
+        }
+
+        /**
+         * Empties the partitions of this type and its subclasses only.
+         */
+        public void clear() {
+            VersionedExtent.atomically(() -> {
+                for (VersionedExtent<?> partition : partitions) {
+                    partition.replaceAllWithinWrite(Collections.emptyList());
+                }
+            });
+        }
+
+        /**
+         * Replaces the members of this type and its subclasses, e.g. after
+         * deserialisation; other partitions are left alone.
+         */
+        @SuppressWarnings("unchecked")
+        public void replaceAll(Collection<? extends S> elements) {
+            Map<Class<?>, List<Object>> byClass = new LinkedHashMap<>();
+            for (S element : elements) {
+                byClass.computeIfAbsent(element.getClass(), c -> new ArrayList<>()).add(element);
+            }
+            PartitionedExtent<Object> objects = (PartitionedExtent<Object>) store;
+            for (Class<?> elementType : byClass.keySet()) {
+                objects.partition(elementType);
+            }
+            VersionedExtent.atomically(() -> {
+                for (VersionedExtent<?> partition : partitions) {
+                    List<Object> replacement = byClass.getOrDefault(partition.getType(), Collections.emptyList());
+                    ((VersionedExtent<Object>) partition).replaceAllWithinWrite(replacement);
+                }
+            });
+        }
+    }
+
+    /**
+     * The lists one after another, as an immutable list; no copy.
+     */
+    static <S> List<S> chain(List<?>[] parts) {
+        return new Chain<>(parts);
+    }
+
+    private static final class Chain<S> extends AbstractList<S> implements RandomAccess {
+        private final List<?>[] parts;
+        private final int size;
+
+        Chain(List<?>[] parts) {
+            this.parts = parts;
+            int total = 0;
+            for (List<?> part : parts) {
+                total += part.size();
+            }
+            this.size = total;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public S get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            for (List<?> part : parts) {
+                if (index < part.size()) {
+                    return (S) part.get(index);
+                }
+                index -= part.size();
+            }
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
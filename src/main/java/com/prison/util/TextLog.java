@@ -0,0 +1,134 @@
+package com.prison.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.ref.Cleaner;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Append-only list of strings whose text lives off-heap in a MappedSegmentStore.
+ * The heap only holds one long offset per entry; get() decodes the entry on
+ * demand, so a view over a long history costs nothing until it is read.
+ * Removing an entry releases it in the store, and so does dropping the whole
+ * log (once it is garbage collected), which lets the store free segments.
+ * Serialises as plain strings, which are re-appended to the store on load.
+ */
+public class TextLog extends AbstractList<String> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final Cleaner cleaner = Cleaner.create();
+
+    /**
+     * The offsets, kept apart from the log so the cleaner can release them
+     * without holding on to it.
+     */
+    private static final class Entries implements Runnable {
+        final MappedSegmentStore store;
+        long[] offsets = new long[4];
+        int size;
+
+        Entries(MappedSegmentStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < size; i++) {
+                store.release(offsets[i]);
+            }
+            size = 0;
+        }
+    }
+
+    private transient Entries entries;
+
+    public TextLog() {
+        this(MappedSegmentStore.shared());
+    }
+
+    public TextLog(MappedSegmentStore store) {
+        this.entries = new Entries(store);
+        cleaner.register(this, entries);
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index);
+        return entries.store.read(entries.offsets[index]);
+    }
+
+    @Override
+    public int size() {
+        return entries.size;
+    }
+
+    @Override
+    public boolean add(String text) {
+        if (text == null) {
+            throw new NullPointerException("Text cannot be null.");
+        }
+        long offset = entries.store.append(text);
+        if (entries.size == entries.offsets.length) {
+            entries.offsets = Arrays.copyOf(entries.offsets, entries.size << 1);
+        }
+        entries.offsets[entries.size++] = offset;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, String text) {
+        if (index < 0 || index > entries.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + entries.size);
+        }
+        add(text);
+        long offset = entries.offsets[entries.size - 1];
+        System.arraycopy(entries.offsets, index, entries.offsets, index + 1, entries.size - index - 1);
+        entries.offsets[index] = offset;
+    }
+
+    @Override
+    public String remove(int index) {
+        String removed = get(index);
+        entries.store.release(entries.offsets[index]);
+        System.arraycopy(entries.offsets, index + 1, entries.offsets, index, entries.size - index - 1);
+        entries.size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        entries.run();
+        modCount++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= entries.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + entries.size);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(entries.size);
+        for (int i = 0; i < entries.size; i++) {
+            out.writeObject(get(i));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        entries = new Entries(MappedSegmentStore.shared());
+        cleaner.register(this, entries);
+        int count = in.readInt();
+        entries.offsets = new long[Math.max(4, count)];
+        for (int i = 0; i < count; i++) {
+            entries.offsets[entries.size++] = entries.store.append((String) in.readObject());
+        }
+    }
+}
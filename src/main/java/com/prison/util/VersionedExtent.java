@@ -0,0 +1,297 @@
+package com.prison.util;
+
+import com.prison.metrics.Metrics;
+import com.prison.metrics.ModelMetrics;
+import com.prison.tx.UnitOfWork;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copy-on-write class extent with lock-free point-in-time snapshots.
+ *
+ * The published state is an immutable (array, size) pair behind a volatile
+ * reference. Appends write past the published size and then publish a new
+ * pair, so existing snapshots never see them and the common case costs no
+ * copy (amortised O(1)). Removals and reloads publish a fresh array, leaving
+ * older snapshots untouched. Readers never lock; writers of one extent are
+ * serialised on that extent only.
+ *
+ * All extents share a version clock, which lets {@link #captureAll()} read
+ * every registered extent at one consistent version (seqlock style).
+ * Snapshots fix extent membership; field values of the objects themselves are
+ * still live.
+ */
+public class VersionedExtent<T> implements Iterable<T> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int OPTIMISTIC_ATTEMPTS = 64;
+
+    private static final Map<Class<?>, VersionedExtent<?>> registry = new ConcurrentHashMap<>();
+    private static final AtomicLong version = new AtomicLong();
+    private static final AtomicInteger activeWriters = new AtomicInteger();
+    private static final Object drainLock = new Object();
+    private static volatile boolean draining;
+
+    private static final class State {
+        final Object[] elements;
+        final int size;
+
+        State(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+    }
+
+    private final Class<T> type;
+    private volatile State state = new State(new Object[INITIAL_CAPACITY], 0);
+
+    public VersionedExtent(Class<T> type) {
+        this.type = type;
+        registry.put(type, this);
+        Metrics.gauge("extent." + type.getSimpleName() + ".size", this::size);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Appends element. Inside a unit of work the append takes effect at
+     * commit; the creation is counted when it does.
+     */
+    public void add(T element) {
+        if (UnitOfWork.deferRegistration(element, true, () -> register(element))) {
+            return;
+        }
+        beginWrite();
+        try {
+            register(element);
+        } finally {
+            endWrite();
+        }
+    }
+
+    private void register(T element) {
+        append(element);
+        ModelMetrics.created(type);   // Every constructor adds its object once
+    }
+
+    private synchronized void append(T element) {
+        State current = state;
+        Object[] elements = current.elements;
+        if (current.size == elements.length) {
+            Object[] grown = new Object[elements.length << 1];
+            System.arraycopy(elements, 0, grown, 0, current.size);
+            elements = grown;
+        }
+        elements[current.size] = element;   // Beyond every published size
+        state = new State(elements, current.size + 1);
+    }
+
+    /**
+     * Removes the first occurrence of element, returning false if absent.
+     * Inside a unit of work the removal takes effect at commit.
+     */
+    public boolean remove(Object element) {
+        if (UnitOfWork.deferRegistration(element, false, () -> delete(element))) {
+            return contains(element);
+        }
+        beginWrite();
+        try {
+            return delete(element);
+        } finally {
+            endWrite();
+        }
+    }
+
+    private synchronized boolean delete(Object element) {
+        State current = state;
+        int index = indexOf(current, element);
+        if (index < 0) {
+            return false;
+        }
+        Object[] elements = new Object[Math.max(INITIAL_CAPACITY, current.elements.length)];
+        System.arraycopy(current.elements, 0, elements, 0, index);
+        System.arraycopy(current.elements, index + 1, elements, index, current.size - index - 1);
+        state = new State(elements, current.size - 1);
+        return true;
+    }
+
+    /**
+     * Replaces the whole extent, e.g. after deserialisation.
+     */
+    public void replaceAll(Collection<? extends T> elements) {
+        publish(stateOf(elements));
+    }
+
+    /**
+     * replaceAll for a caller already inside atomically(...), e.g. a
+     * PartitionedExtent replacing several partitions as one version.
+     */
+    synchronized void replaceAllWithinWrite(Collection<? extends T> elements) {
+        state = stateOf(elements);
+    }
+
+    private static State stateOf(Collection<?> elements) {
+        Object[] copy = elements.toArray();
+        Object[] table = new Object[Math.max(INITIAL_CAPACITY, copy.length)];
+        System.arraycopy(copy, 0, table, 0, copy.length);
+        return new State(table, copy.length);
+    }
+
+    public void clear() {
+        publish(new State(new Object[INITIAL_CAPACITY], 0));
+    }
+
+    private void publish(State replacement) {
+        beginWrite();
+        try {
+            synchronized (this) {
+                state = replacement;
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    public boolean contains(Object element) {
+        return indexOf(state, element) >= 0;
+    }
+
+    public int size() {
+        return state.size;
+    }
+
+    /**
+     * Immutable point-in-time view of the extent; O(1), no copy.
+     */
+    public List<T> snapshot() {
+        return new Snapshot<>(state);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * Applies several extent writes as one version: captureAll() sees either
+     * none or all of them. Used by UnitOfWork commit.
+     */
+    public static void atomically(Runnable writes) {
+        beginWrite();
+        try {
+            writes.run();
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Current value of the shared version clock (advanced by every write).
+     */
+    public static long currentVersion() {
+        return version.get();
+    }
+
+    /**
+     * Snapshot of every registered extent taken at a single version.
+     * Retries optimistically while writers are active; if writers keep
+     * interfering, new writes are held back briefly until the copy is taken.
+     */
+    public static ExtentSnapshot captureAll() {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            ExtentSnapshot snapshot = tryCapture();
+            if (snapshot != null) {
+                return snapshot;
+            }
+            Thread.onSpinWait();
+        }
+        synchronized (drainLock) {
+            draining = true;
+            try {
+                while (true) {
+                    ExtentSnapshot snapshot = tryCapture();
+                    if (snapshot != null) {
+                        return snapshot;
+                    }
+                    Thread.onSpinWait();
+                }
+            } finally {
+                draining = false;
+            }
+        }
+    }
+
+    private static ExtentSnapshot tryCapture() {
+        long before = version.get();
+        if (activeWriters.get() != 0) {
+            return null;
+        }
+        Map<Class<?>, List<?>> extents = new HashMap<>();
+        for (VersionedExtent<?> extent : registry.values()) {
+            extents.put(extent.type, extent.snapshot());
+        }
+        if (activeWriters.get() != 0 || version.get() != before) {
+            return null;
+        }
+        return new ExtentSnapshot(before, extents);
+    }
+
+    /**
+     * Called before taking an extent's monitor: a writer held back by a
+     * draining captureAll() must not hold a lock a counted writer needs.
+     */
+    private static void beginWrite() {
+        while (draining) {
+            Thread.onSpinWait();
+        }
+        activeWriters.incrementAndGet();
+    }
+
+    private static void endWrite() {
+        version.incrementAndGet();
+        activeWriters.decrementAndGet();
+    }
+
+    private static int indexOf(State state, Object element) {
+        Object[] elements = state.elements;
+        for (int i = 0; i < state.size; i++) {
+            if (element == null ? elements[i] == null : element.equals(elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        Snapshot(State state) {
+            this.elements = state.elements;
+            this.size = state.size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Charges;
+import com.prison.model.CourtCase;
+import com.prison.model.Prisoner;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Court cases indexed by court date and judge, with the distinct defendants
+ * of every case cached, so transport rosters and dockets need no scan of
+ * CourtCase, Charges and Prisoner extents.
+ *
+ * Kept up to date from EventBus events: cases created, deleted or moved to
+ * another date or judge, and charges created, deleted or moved to another
+ * prisoner. Each event costs O(log days) plus the size of one case's charges.
+ */
+public class CourtCalendar implements ModelEventListener {
+
+    private static class CaseEntry {
+        LocalDate date;
+        String judge;
+        final Map<Prisoner, Integer> defendants = new LinkedHashMap<>();   // Defendant -> number of charges in the case
+
+        CaseEntry(LocalDate date, String judge) {
+            this.date = date;
+            this.judge = judge;
+        }
+    }
+
+    /**
+     * The cases one judge hears on one day, with their defendants.
+     */
+    public static class Docket {
+        private final LocalDate date;
+        private final String judgeName;
+        private final List<CourtCase> cases;
+        private final List<Prisoner> defendants;
+
+        Docket(LocalDate date, String judgeName, List<CourtCase> cases, List<Prisoner> defendants) {
+            this.date = date;
+            this.judgeName = judgeName;
+            this.cases = Collections.unmodifiableList(cases);
+            this.defendants = Collections.unmodifiableList(defendants);
+        }
+
+        public LocalDate getDate() { return date; }
+        public String getJudgeName() { return judgeName; }
+        public List<CourtCase> getCases() { return cases; }
+        public List<Prisoner> getDefendants() { return defendants; }
+
+        @Override
+        public String toString() {
+            return date + " " + judgeName + ": " + cases.size() + " case(s), " + defendants.size() + " defendant(s)";
+        }
+    }
+
+    private final NavigableMap<LocalDate, NavigableMap<String, List<CourtCase>>> byDate = new TreeMap<>();
+    private final Map<CourtCase, CaseEntry> entries = new IdentityHashMap<>();
+    private final Map<Charges, Prisoner> defendantOfCharge = new IdentityHashMap<>();
+
+    /**
+     * Builds the calendar from the current extents and keeps it up to date.
+     */
+    public CourtCalendar() {
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-reads the extents, e.g. after loadExtent (which emits no events).
+     */
+    public synchronized void rebuild() {
+        byDate.clear();
+        entries.clear();
+        defendantOfCharge.clear();
+        for (CourtCase courtCase : CourtCase.getExtent()) {
+            addCase(courtCase);
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(ModelEvent event) {
+        Object source = event.getSource();
+        if (source instanceof CourtCase) {
+            onCaseEvent((CourtCase) source, event);
+        } else if (source instanceof Charges) {
+            onChargeEvent((Charges) source, event);
+        }
+    }
+
+    private void onCaseEvent(CourtCase courtCase, ModelEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                if (!entries.containsKey(courtCase)) {
+                    addCase(courtCase);
+                }
+                break;
+            case DELETED:
+                removeCase(courtCase);
+                break;
+            case CHANGED:
+                if ("courtDate".equals(event.getProperty()) || "judgeName".equals(event.getProperty())) {
+                    CaseEntry entry = entries.get(courtCase);
+                    if (entry != null) {
+                        unslot(courtCase, entry);
+                        entry.date = courtCase.getCourtDate();
+                        entry.judge = courtCase.getJudgeName();
+                        slot(courtCase, entry);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onChargeEvent(Charges charge, ModelEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                CaseEntry entry = entries.get(charge.getCourtCase());
+                if (entry == null) {
+                    addCase(charge.getCourtCase());   // Also picks up this charge
+                } else if (!defendantOfCharge.containsKey(charge)) {
+                    addCharge(entry, charge);
+                }
+                break;
+            case DELETED:
+                removeCharge(charge);
+                break;
+            case CHANGED:
+                if ("prisoner".equals(event.getProperty())) {
+                    CaseEntry owner = entries.get(charge.getCourtCase());
+                    removeCharge(charge);
+                    if (owner != null) {
+                        addCharge(owner, charge);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * Cases heard on the day, grouped by judge (alphabetical).
+     */
+    public synchronized List<CourtCase> getCases(LocalDate date) {
+        List<CourtCase> result = new ArrayList<>();
+        NavigableMap<String, List<CourtCase>> judges = byDate.get(date);
+        if (judges != null) {
+            for (List<CourtCase> cases : judges.values()) {
+                result.addAll(cases);
+            }
+        }
+        return result;
+    }
+
+    public synchronized List<CourtCase> getCases(LocalDate date, String judgeName) {
+        NavigableMap<String, List<CourtCase>> judges = byDate.get(date);
+        List<CourtCase> cases = judges == null ? null : judges.get(judgeName);
+        return cases == null ? new ArrayList<>() : new ArrayList<>(cases);
+    }
+
+    /**
+     * Cases between the two dates (both inclusive), by date and then judge.
+     */
+    public synchronized List<CourtCase> getCasesBetween(LocalDate from, LocalDate to) {
+        List<CourtCase> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        for (NavigableMap<String, List<CourtCase>> judges : byDate.subMap(from, true, to, true).values()) {
+            for (List<CourtCase> cases : judges.values()) {
+                result.addAll(cases);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Distinct defendants of the case, in the order they were charged.
+     */
+    public synchronized List<Prisoner> getDefendants(CourtCase courtCase) {
+        CaseEntry entry = entries.get(courtCase);
+        return entry == null ? new ArrayList<>() : new ArrayList<>(entry.defendants.keySet());
+    }
+
+    /**
+     * Everyone who has to be brought to court on the day, each listed once.
+     */
+    public synchronized List<Prisoner> getTransportRoster(LocalDate date) {
+        Set<Prisoner> roster = new LinkedHashSet<>();
+        NavigableMap<String, List<CourtCase>> judges = byDate.get(date);
+        if (judges != null) {
+            for (List<CourtCase> cases : judges.values()) {
+                for (CourtCase courtCase : cases) {
+                    roster.addAll(entries.get(courtCase).defendants.keySet());
+                }
+            }
+        }
+        return new ArrayList<>(roster);
+    }
+
+    /**
+     * One docket per (day, judge) of the month, by date and then judge,
+     * built in a single pass over that month of the calendar.
+     */
+    public synchronized List<Docket> getMonthlyDockets(YearMonth month) {
+        List<Docket> dockets = new ArrayList<>();
+        for (Map.Entry<LocalDate, NavigableMap<String, List<CourtCase>>> day
+                : byDate.subMap(month.atDay(1), true, month.atEndOfMonth(), true).entrySet()) {
+            for (Map.Entry<String, List<CourtCase>> judge : day.getValue().entrySet()) {
+                Set<Prisoner> defendants = new LinkedHashSet<>();
+                for (CourtCase courtCase : judge.getValue()) {
+                    defendants.addAll(entries.get(courtCase).defendants.keySet());
+                }
+                dockets.add(new Docket(day.getKey(), judge.getKey(), new ArrayList<>(judge.getValue()),
+                    new ArrayList<>(defendants)));
+            }
+        }
+        return dockets;
+    }
+
+    /**
+     * Days with at least one hearing in the month.
+     */
+    public synchronized List<LocalDate> getCourtDays(YearMonth month) {
+        return new ArrayList<>(byDate.subMap(month.atDay(1), true, month.atEndOfMonth(), true).keySet());
+    }
+
+    // --- Maintenance (caller holds the monitor) ---
+
+    private void addCase(CourtCase courtCase) {
+        CaseEntry entry = new CaseEntry(courtCase.getCourtDate(), courtCase.getJudgeName());
+        entries.put(courtCase, entry);
+        slot(courtCase, entry);
+        for (Charges charge : courtCase.getCharges()) {
+            addCharge(entry, charge);
+        }
+    }
+
+    private void removeCase(CourtCase courtCase) {
+        CaseEntry entry = entries.remove(courtCase);
+        if (entry != null) {
+            unslot(courtCase, entry);
+        }
+        for (Charges charge : courtCase.getCharges()) {
+            defendantOfCharge.remove(charge);
+        }
+    }
+
+    private void slot(CourtCase courtCase, CaseEntry entry) {
+        byDate.computeIfAbsent(entry.date, d -> new TreeMap<>())
+            .computeIfAbsent(entry.judge, j -> new ArrayList<>())
+            .add(courtCase);
+    }
+
+    private void unslot(CourtCase courtCase, CaseEntry entry) {
+        NavigableMap<String, List<CourtCase>> judges = byDate.get(entry.date);
+        if (judges == null) {
+            return;
+        }
+        List<CourtCase> cases = judges.get(entry.judge);
+        if (cases != null) {
+            cases.remove(courtCase);
+            if (cases.isEmpty()) {
+                judges.remove(entry.judge);
+            }
+        }
+        if (judges.isEmpty()) {
+            byDate.remove(entry.date);
+        }
+    }
+
+    private void addCharge(CaseEntry entry, Charges charge) {
+        Prisoner prisoner = charge.getPrisoner();
+        if (prisoner != null) {
+            defendantOfCharge.put(charge, prisoner);
+            entry.defendants.merge(prisoner, 1, Integer::sum);
+        }
+    }
+
+    private void removeCharge(Charges charge) {
+        Prisoner prisoner = defendantOfCharge.remove(charge);
+        CaseEntry entry = prisoner == null ? null : entries.get(charge.getCourtCase());
+        if (entry != null) {
+            entry.defendants.computeIfPresent(prisoner, (p, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
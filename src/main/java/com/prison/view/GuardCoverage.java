@@ -0,0 +1,359 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.CombinedStaff;
+import com.prison.model.Guard;
+import com.prison.model.Prisoner;
+import com.prison.model.ShiftInterval;
+import com.prison.model.Staff;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guard-to-prisoner ratios per Block and time of day.
+ *
+ * The day is cut into fixed slots. Every guard assigned to a block adds one
+ * head and a rank weight to each slot its parsed shift (Staff.getShift())
+ * overlaps; CombinedStaff members count with the rank of their guard role.
+ * Staff whose shiftHour has no fixed hours ("On-Call") are not counted.
+ * Prisoners are counted per block through their current cell.
+ *
+ * Counts are maintained from EventBus events - block assignments
+ * (Staff.addBlock/removeBlock), shift and rank changes, prisoners moving
+ * cell and cells moving block - each costing O(blocks of one staff member x
+ * slots). Reading the facility-wide coverage copies the counters and never
+ * walks the staff.
+ */
+public class GuardCoverage implements ModelEventListener {
+    public static final int DEFAULT_SLOT_MINUTES = 60;
+
+    /**
+     * Coverage of one block over the day.
+     */
+    public static class BlockCoverage {
+        private final Block block;
+        private final int prisoners;
+        private final int slotMinutes;
+        private final int[] guards;
+        private final double[] weightedGuards;
+
+        BlockCoverage(Block block, int prisoners, int slotMinutes, int[] guards, double[] weightedGuards) {
+            this.block = block;
+            this.prisoners = prisoners;
+            this.slotMinutes = slotMinutes;
+            this.guards = guards;
+            this.weightedGuards = weightedGuards;
+        }
+
+        public Block getBlock() { return block; }
+        public int getPrisoners() { return prisoners; }
+        public int getSlotMinutes() { return slotMinutes; }
+        public int getSlotCount() { return guards.length; }
+
+        public LocalTime getSlotStart(int slot) {
+            return LocalTime.of(slot * slotMinutes / 60, slot * slotMinutes % 60);
+        }
+
+        public int getGuards(int slot) { return guards[slot]; }
+        public double getWeightedGuards(int slot) { return weightedGuards[slot]; }
+
+        public int getGuardsAt(LocalTime time) {
+            return guards[slotOf(time)];
+        }
+
+        /**
+         * Guards per prisoner in the slot; infinite for an empty block with guards.
+         */
+        public double getRatio(int slot) {
+            return ratio(guards[slot], prisoners);
+        }
+
+        /**
+         * Rank-weighted guards per prisoner in the slot.
+         */
+        public double getWeightedRatio(int slot) {
+            return ratio(weightedGuards[slot], prisoners);
+        }
+
+        /**
+         * The weakest slot of the day, by weighted ratio.
+         */
+        public double getMinimumWeightedRatio() {
+            double minimum = Double.POSITIVE_INFINITY;
+            for (int slot = 0; slot < guards.length; slot++) {
+                minimum = Math.min(minimum, getWeightedRatio(slot));
+            }
+            return minimum;
+        }
+
+        private int slotOf(LocalTime time) {
+            return (time.getHour() * 60 + time.getMinute()) / slotMinutes;
+        }
+
+        private static double ratio(double guards, int prisoners) {
+            if (prisoners == 0) {
+                return guards == 0 ? 0 : Double.POSITIVE_INFINITY;
+            }
+            return guards / prisoners;
+        }
+
+        @Override
+        public String toString() {
+            return block.getName() + ": " + prisoners + " prisoner(s), weakest weighted ratio "
+                + String.format("%.3f", getMinimumWeightedRatio());
+        }
+    }
+
+    /**
+     * A stretch of consecutive slots where a block is below the required ratio.
+     */
+    public static class Gap {
+        private final Block block;
+        private final LocalTime from;
+        private final LocalTime to;
+        private final double weightedRatio;
+
+        Gap(Block block, LocalTime from, LocalTime to, double weightedRatio) {
+            this.block = block;
+            this.from = from;
+            this.to = to;
+            this.weightedRatio = weightedRatio;
+        }
+
+        public Block getBlock() { return block; }
+        public LocalTime getFrom() { return from; }
+        /** End of the gap; LocalTime.MIDNIGHT when it runs to the end of the day. */
+        public LocalTime getTo() { return to; }
+        /** Lowest weighted ratio within the gap. */
+        public double getWeightedRatio() { return weightedRatio; }
+
+        @Override
+        public String toString() {
+            return block.getName() + " " + from + "-" + to + String.format(" (%.3f)", weightedRatio);
+        }
+    }
+
+    private static class BlockState {
+        int prisoners;
+        final int[] guards;
+        final double[] weightedGuards;
+
+        BlockState(int slots) {
+            guards = new int[slots];
+            weightedGuards = new double[slots];
+        }
+    }
+
+    /**
+     * What one staff member currently adds, so it can be taken back exactly.
+     */
+    private static class Contribution {
+        final boolean[] onDuty;
+        final double weight;
+        final List<Block> blocks;
+
+        Contribution(boolean[] onDuty, double weight, List<Block> blocks) {
+            this.onDuty = onDuty;
+            this.weight = weight;
+            this.blocks = blocks;
+        }
+    }
+
+    private final int slotMinutes;
+    private final int slots;
+    private final Map<Guard.Rank, Double> rankWeights;
+    private final Map<Block, BlockState> blocks = new LinkedHashMap<>();
+    private final Map<Staff, Contribution> contributions = new IdentityHashMap<>();
+    private final Map<Prisoner, Block> prisonerBlocks = new IdentityHashMap<>();
+
+    public GuardCoverage() {
+        this(DEFAULT_SLOT_MINUTES, defaultRankWeights());
+    }
+
+    /**
+     * Builds the counters from the extents and keeps them up to date.
+     */
+    public GuardCoverage(int slotMinutes, Map<Guard.Rank, Double> rankWeights) {
+        if (slotMinutes <= 0 || ShiftInterval.MINUTES_PER_DAY % slotMinutes != 0) {
+            throw new IllegalArgumentException("Slot length must divide the day into whole slots.");
+        }
+        this.slotMinutes = slotMinutes;
+        this.slots = ShiftInterval.MINUTES_PER_DAY / slotMinutes;
+        this.rankWeights = new EnumMap<>(defaultRankWeights());
+        this.rankWeights.putAll(rankWeights);
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    /**
+     * JUNIOR 1.0, SENIOR 1.25, CHIEF 1.5, LIEUTENANT 2.0.
+     */
+    public static Map<Guard.Rank, Double> defaultRankWeights() {
+        Map<Guard.Rank, Double> weights = new EnumMap<>(Guard.Rank.class);
+        weights.put(Guard.Rank.JUNIOR, 1.0);
+        weights.put(Guard.Rank.SENIOR, 1.25);
+        weights.put(Guard.Rank.CHIEF, 1.5);
+        weights.put(Guard.Rank.LIEUTENANT, 2.0);
+        return weights;
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-reads the extents, e.g. after loadExtent (which emits no events).
+     */
+    public synchronized void rebuild() {
+        blocks.clear();
+        contributions.clear();
+        prisonerBlocks.clear();
+        for (Block block : Block.getExtent()) {
+            blocks.put(block, new BlockState(slots));
+        }
+        for (Staff staff : Staff.getExtent()) {
+            update(staff);
+        }
+        for (Prisoner prisoner : Prisoner.getExtent()) {
+            locate(prisoner);
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(ModelEvent event) {
+        Object source = event.getSource();
+        String property = event.getProperty();
+        if (source instanceof Staff) {
+            if ("blocks".equals(property) || "shiftHour".equals(property) || "rank".equals(property)) {
+                update(((Staff) source).getIdentity());
+            }
+        } else if (source instanceof Prisoner) {
+            if (event.getType() == ModelEvent.Type.CREATED || "currentCell".equals(property)) {
+                locate((Prisoner) source);
+            } else if (event.getType() == ModelEvent.Type.DELETED) {
+                unlocate((Prisoner) source);
+            }
+        } else if (source instanceof Cell && "block".equals(property)) {
+            for (Prisoner prisoner : ((Cell) source).getPrisoners()) {
+                locate(prisoner);
+            }
+        }
+    }
+
+    // --- Queries ---
+
+    public synchronized BlockCoverage getCoverage(Block block) {
+        BlockState state = blocks.get(block);
+        return state == null ? new BlockCoverage(block, 0, slotMinutes, new int[slots], new double[slots]) : snapshot(block, state);
+    }
+
+    /**
+     * Coverage of every known block; copies the counters only.
+     */
+    public synchronized List<BlockCoverage> getFacilityCoverage() {
+        List<BlockCoverage> result = new ArrayList<>(blocks.size());
+        blocks.forEach((block, state) -> result.add(snapshot(block, state)));
+        return result;
+    }
+
+    /**
+     * Stretches of the day where an occupied block has fewer rank-weighted
+     * guards per prisoner than minimumWeightedRatio, by block and time.
+     */
+    public synchronized List<Gap> findGaps(double minimumWeightedRatio) {
+        List<Gap> gaps = new ArrayList<>();
+        blocks.forEach((block, state) -> {
+            if (state.prisoners == 0) {
+                return;
+            }
+            int start = -1;
+            double lowest = Double.POSITIVE_INFINITY;
+            for (int slot = 0; slot <= slots; slot++) {
+                double ratio = slot < slots ? state.weightedGuards[slot] / state.prisoners : Double.POSITIVE_INFINITY;
+                if (ratio < minimumWeightedRatio) {
+                    if (start < 0) {
+                        start = slot;
+                        lowest = ratio;
+                    }
+                    lowest = Math.min(lowest, ratio);
+                } else if (start >= 0) {
+                    gaps.add(new Gap(block, slotStart(start), slotStart(slot % slots), lowest));
+                    start = -1;
+                }
+            }
+        });
+        return gaps;
+    }
+
+    // --- Maintenance (caller holds the monitor) ---
+
+    /**
+     * Takes back what the staff member added and adds its current state.
+     */
+    private void update(Staff staff) {
+        Contribution old = contributions.remove(staff);
+        if (old != null) {
+            apply(old, -1);
+        }
+        Guard guard = staff instanceof Guard ? (Guard) staff
+            : staff instanceof CombinedStaff ? ((CombinedStaff) staff).getGuardRole() : null;
+        ShiftInterval shift = staff.getShift();
+        if (guard == null || shift == null || staff.getBlocks().isEmpty()) {
+            return;   // Not a guard, no fixed hours, or not assigned
+        }
+        boolean[] onDuty = new boolean[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            onDuty[slot] = shift.overlaps(slot * slotMinutes, (slot + 1) * slotMinutes);
+        }
+        Contribution contribution = new Contribution(onDuty, rankWeights.get(guard.getRank()),
+            new ArrayList<>(staff.getBlocks()));
+        contributions.put(staff, contribution);
+        apply(contribution, 1);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        for (Block block : contribution.blocks) {
+            BlockState state = blocks.computeIfAbsent(block, b -> new BlockState(slots));
+            for (int slot = 0; slot < slots; slot++) {
+                if (contribution.onDuty[slot]) {
+                    state.guards[slot] += sign;
+                    state.weightedGuards[slot] += sign * contribution.weight;
+                }
+            }
+        }
+    }
+
+    private void locate(Prisoner prisoner) {
+        unlocate(prisoner);
+        Cell cell = prisoner.getCurrentCell();
+        Block block = cell == null ? null : cell.getBlock();
+        if (block != null) {
+            prisonerBlocks.put(prisoner, block);
+            blocks.computeIfAbsent(block, b -> new BlockState(slots)).prisoners++;
+        }
+    }
+
+    private void unlocate(Prisoner prisoner) {
+        Block block = prisonerBlocks.remove(prisoner);
+        if (block != null) {
+            blocks.get(block).prisoners--;
+        }
+    }
+
+    private BlockCoverage snapshot(Block block, BlockState state) {
+        return new BlockCoverage(block, state.prisoners, slotMinutes, state.guards.clone(), state.weightedGuards.clone());
+    }
+
+    private LocalTime slotStart(int slot) {
+        return LocalTime.of(slot * slotMinutes / 60, slot * slotMinutes % 60);
+    }
+}
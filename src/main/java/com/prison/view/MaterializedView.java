@@ -0,0 +1,179 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Group-by + aggregate (count and sum) over a class extent, kept up to date
+ * incrementally from EventBus model events.
+ *
+ * Every row remembers the groups and value it last contributed. When an event
+ * touches a row, its old contribution is retracted and the new one applied,
+ * so maintenance costs O(groups of that row) and reads are O(1) whatever the
+ * extent size. Events on other classes can be mapped to the rows they affect
+ * with refreshOn (e.g. a Cell moving to another Block affects its prisoners).
+ */
+public class MaterializedView<T, K> implements ModelEventListener {
+
+    private static class Aggregate {
+        long count;
+        double sum;
+    }
+
+    private static class Contribution<K> {
+        final List<K> keys;
+        final double value;
+
+        Contribution(List<K> keys, double value) {
+            this.keys = keys;
+            this.value = value;
+        }
+    }
+
+    private final Class<T> rowType;
+    private final Supplier<? extends Collection<T>> extent;
+    private final Predicate<? super T> filter;
+    private final Function<? super T, ? extends Collection<K>> groupBy;
+    private final ToDoubleFunction<? super T> measure;     // null for count-only views
+    private final Map<Class<?>, Function<Object, ? extends Collection<? extends T>>> dependencies = new HashMap<>();
+    private final Map<K, Aggregate> groups = new HashMap<>();
+    private final Map<T, Contribution<K>> contributions = new IdentityHashMap<>();
+
+    /**
+     * @param rowType   class whose instances are aggregated
+     * @param extent    supplier of the current extent (used for the initial build and rebuild)
+     * @param filter    rows that fail the filter contribute nothing
+     * @param groupBy   groups a row belongs to (empty for none, several for many-to-many links)
+     * @param measure   value summed per group, or null to only count rows
+     */
+    public MaterializedView(Class<T> rowType, Supplier<? extends Collection<T>> extent,
+                            Predicate<? super T> filter,
+                            Function<? super T, ? extends Collection<K>> groupBy,
+                            ToDoubleFunction<? super T> measure) {
+        if (rowType == null || extent == null || filter == null || groupBy == null) {
+            throw new IllegalArgumentException("Row type, extent, filter and groupBy are required.");
+        }
+        this.rowType = rowType;
+        this.extent = extent;
+        this.filter = filter;
+        this.groupBy = groupBy;
+        this.measure = measure;
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    /**
+     * Re-evaluates the rows returned by affectedRows whenever an instance of
+     * sourceType emits an event.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <S> MaterializedView<T, K> refreshOn(Class<S> sourceType,
+                                                           Function<S, ? extends Collection<? extends T>> affectedRows) {
+        dependencies.put(sourceType, source -> affectedRows.apply((S) source));
+        return this;
+    }
+
+    public synchronized long getCount(K key) {
+        Aggregate aggregate = groups.get(key);
+        return aggregate == null ? 0 : aggregate.count;
+    }
+
+    public synchronized double getSum(K key) {
+        Aggregate aggregate = groups.get(key);
+        return aggregate == null ? 0 : aggregate.sum;
+    }
+
+    /**
+     * Copy of all non-empty group counts.
+     */
+    public synchronized Map<K, Long> getCounts() {
+        Map<K, Long> result = new HashMap<>();
+        for (Map.Entry<K, Aggregate> entry : groups.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().count);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Recomputes the view from the extent, e.g. after loadExtent or clearExtent
+     * (which replace extents without emitting events).
+     */
+    public synchronized void rebuild() {
+        groups.clear();
+        contributions.clear();
+        for (T row : extent.get()) {
+            refresh(row);
+        }
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    @Override
+    public synchronized void onEvent(ModelEvent event) {
+        Object source = event.getSource();
+        if (rowType.isInstance(source)) {
+            T row = rowType.cast(source);
+            if (event.getType() == ModelEvent.Type.DELETED) {
+                retract(row);
+            } else {
+                refresh(row);
+            }
+            return;
+        }
+        for (Map.Entry<Class<?>, Function<Object, ? extends Collection<? extends T>>> dependency : dependencies.entrySet()) {
+            if (dependency.getKey().isInstance(source)) {
+                for (T row : new ArrayList<>(dependency.getValue().apply(source))) {
+                    refresh(row);
+                }
+            }
+        }
+    }
+
+    private void refresh(T row) {
+        retract(row);
+        if (!filter.test(row)) {
+            return;
+        }
+        Collection<K> keys = groupBy.apply(row);
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        double value = measure == null ? 0 : measure.applyAsDouble(row);
+        Contribution<K> contribution = new Contribution<>(new ArrayList<>(keys), value);
+        for (K key : contribution.keys) {
+            Aggregate aggregate = groups.computeIfAbsent(key, k -> new Aggregate());
+            aggregate.count++;
+            aggregate.sum += value;
+        }
+        contributions.put(row, contribution);
+    }
+
+    private void retract(T row) {
+        Contribution<K> old = contributions.remove(row);
+        if (old == null) {
+            return;
+        }
+        for (K key : old.keys) {
+            Aggregate aggregate = groups.get(key);
+            aggregate.count--;
+            aggregate.sum -= old.value;
+            if (aggregate.count == 0) {
+                groups.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.prison.view;
+
+import com.prison.model.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Factory for the live counters used by the supervisor dashboards.
+ * Each call creates a view that stays subscribed to the EventBus until closed.
+ */
+public final class ModelViews {
+    public static final String ACTIVE_PUNISHMENT_STATUS = "Active";
+
+    private ModelViews() {
+    }
+
+    /**
+     * Prisoners per Block, through the prisoner's current cell.
+     * Moving a cell to another block re-groups all of its prisoners.
+     */
+    public static MaterializedView<Prisoner, Block> prisonersPerBlock() {
+        return new MaterializedView<Prisoner, Block>(Prisoner.class, Prisoner::getExtent,
+                prisoner -> true,
+                prisoner -> {
+                    Cell cell = prisoner.getCurrentCell();
+                    return cell == null || cell.getBlock() == null
+                            ? Collections.emptyList()
+                            : List.of(cell.getBlock());
+                },
+                null)
+                .refreshOn(Cell.class, Cell::getPrisoners);
+    }
+
+    /**
+     * PENDING visits per Director.
+     */
+    public static MaterializedView<Visit, Director> pendingVisitsPerDirector() {
+        return new MaterializedView<Visit, Director>(Visit.class, Visit::getExtent,
+                visit -> visit.getApprovalStatus() == Visit.ApprovalStatus.PENDING,
+                Visit::getDirectors,
+                null);
+    }
+
+    /**
+     * Punishments with status "Active" per Prisoner.
+     */
+    public static MaterializedView<Punishment, Prisoner> activePunishmentsPerPrisoner() {
+        return new MaterializedView<Punishment, Prisoner>(Punishment.class, Punishment::getExtent,
+                punishment -> ACTIVE_PUNISHMENT_STATUS.equalsIgnoreCase(punishment.getStatus()),
+                Punishment::getPrisoners,
+                null);
+    }
+
+    /**
+     * Meal deliveries per Meal.
+     */
+    public static MaterializedView<MealDelivery, Meal> deliveriesPerMeal() {
+        return new MaterializedView<MealDelivery, Meal>(MealDelivery.class, MealDelivery::getExtent,
+                delivery -> true,
+                delivery -> delivery.getMeal() == null
+                        ? Collections.emptyList()
+                        : List.of(delivery.getMeal()),
+                null);
+    }
+}
@@ -0,0 +1,194 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.event.ModelEventListener;
+import com.prison.model.Block;
+import com.prison.model.Prisoner;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Prisoners ordered by exact release date (date of start plus sentence).
+ *
+ * The dates live in a sorted map, so the next releases and any date window
+ * cost O(log n + k) instead of a pass over the extent computing
+ * getRemainingSentenceTime(). The index follows Prisoner CREATED events and
+ * changes of dateOfStart or sentenceYears. Blocks are looked up when a
+ * forecast is read, so cell transfers need no maintenance.
+ */
+public class ReleaseForecast implements ModelEventListener {
+
+    /**
+     * Releases of one month, grouped by the Block each prisoner is housed in
+     * (null for prisoners whose cell is not in a block).
+     */
+    public static class MonthlyForecast {
+        private final YearMonth month;
+        private final Map<Block, List<Prisoner>> releasesByBlock;
+        private final int total;
+
+        MonthlyForecast(YearMonth month, Map<Block, List<Prisoner>> releasesByBlock, int total) {
+            this.month = month;
+            this.releasesByBlock = Collections.unmodifiableMap(releasesByBlock);
+            this.total = total;
+        }
+
+        public YearMonth getMonth() { return month; }
+        public Map<Block, List<Prisoner>> getReleasesByBlock() { return releasesByBlock; }
+        public int getTotal() { return total; }
+
+        public int getReleases(Block block) {
+            List<Prisoner> releases = releasesByBlock.get(block);
+            return releases == null ? 0 : releases.size();
+        }
+
+        @Override
+        public String toString() {
+            return month + ": " + total + " release(s) in " + releasesByBlock.size() + " block(s)";
+        }
+    }
+
+    private final NavigableMap<LocalDate, List<Prisoner>> releases = new TreeMap<>();
+    private final Map<Prisoner, LocalDate> releaseDates = new IdentityHashMap<>();
+
+    /**
+     * Builds the index from the Prisoner extent and keeps it up to date.
+     */
+    public ReleaseForecast() {
+        rebuild();
+        EventBus.subscribe(this);
+    }
+
+    public void close() {
+        EventBus.unsubscribe(this);
+    }
+
+    /**
+     * Re-reads the extent, e.g. after loadExtent (which emits no events).
+     */
+    public synchronized void rebuild() {
+        releases.clear();
+        releaseDates.clear();
+        for (Prisoner prisoner : Prisoner.getExtent()) {
+            index(prisoner);
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(ModelEvent event) {
+        if (!(event.getSource() instanceof Prisoner)) {
+            return;
+        }
+        Prisoner prisoner = (Prisoner) event.getSource();
+        switch (event.getType()) {
+            case CREATED:
+                unindex(prisoner);
+                index(prisoner);
+                break;
+            case DELETED:
+                unindex(prisoner);
+                break;
+            case CHANGED:
+                if ("dateOfStart".equals(event.getProperty()) || "sentenceYears".equals(event.getProperty())) {
+                    unindex(prisoner);
+                    index(prisoner);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // --- Queries ---
+
+    public synchronized LocalDate getReleaseDate(Prisoner prisoner) {
+        return releaseDates.get(prisoner);
+    }
+
+    /**
+     * Prisoners released between the two dates (both inclusive), earliest first.
+     */
+    public synchronized List<Prisoner> getReleasesBetween(LocalDate from, LocalDate to) {
+        List<Prisoner> result = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return result;
+        }
+        for (List<Prisoner> prisoners : releases.subMap(from, true, to, true).values()) {
+            result.addAll(prisoners);
+        }
+        return result;
+    }
+
+    /**
+     * The next limit releases on or after the date, earliest first.
+     */
+    public synchronized List<Prisoner> getNextReleases(LocalDate from, int limit) {
+        List<Prisoner> result = new ArrayList<>();
+        for (List<Prisoner> prisoners : releases.tailMap(from, true).values()) {
+            for (Prisoner prisoner : prisoners) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(prisoner);
+            }
+        }
+        return result;
+    }
+
+    public synchronized MonthlyForecast getMonthlyForecast(YearMonth month) {
+        Map<Block, List<Prisoner>> byBlock = new LinkedHashMap<>();
+        int total = 0;
+        for (List<Prisoner> prisoners : releases.subMap(month.atDay(1), true, month.atEndOfMonth(), true).values()) {
+            for (Prisoner prisoner : prisoners) {
+                Block block = prisoner.getCurrentCell() == null ? null : prisoner.getCurrentCell().getBlock();
+                byBlock.computeIfAbsent(block, b -> new ArrayList<>()).add(prisoner);
+                total++;
+            }
+        }
+        return new MonthlyForecast(month, byBlock, total);
+    }
+
+    /**
+     * Month-by-month forecasts from first to last (both inclusive). Each month
+     * is computed when the stream reaches it, so long horizons cost nothing
+     * up front and can be cut short with limit or takeWhile.
+     */
+    public Stream<MonthlyForecast> forecast(YearMonth first, YearMonth last) {
+        return Stream.iterate(first, month -> !month.isAfter(last), month -> month.plusMonths(1))
+            .map(this::getMonthlyForecast);
+    }
+
+    public synchronized int size() {
+        return releaseDates.size();
+    }
+
+    // --- Maintenance (caller holds the monitor) ---
+
+    private void index(Prisoner prisoner) {
+        LocalDate date = prisoner.getReleaseDate();
+        releaseDates.put(prisoner, date);
+        releases.computeIfAbsent(date, d -> new ArrayList<>(1)).add(prisoner);
+    }
+
+    private void unindex(Prisoner prisoner) {
+        LocalDate date = releaseDates.remove(prisoner);
+        if (date == null) {
+            return;
+        }
+        List<Prisoner> sameDay = releases.get(date);
+        sameDay.remove(prisoner);
+        if (sameDay.isEmpty()) {
+            releases.remove(date);
+        }
+    }
+}
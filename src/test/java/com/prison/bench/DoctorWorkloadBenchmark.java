@@ -0,0 +1,44 @@
+package com.prison.bench;
+
+import com.prison.model.Doctor;
+import com.prison.model.DoctorWorkload;
+import com.prison.model.MedicalRecord;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebalancing 20000 open records held by 5 of 40 doctors: time to suggest
+ * the moves and to apply them. Run with e.g.
+ * java -Xms1g -Xmx1g -cp out com.prison.bench.DoctorWorkloadBenchmark
+ */
+public class DoctorWorkloadBenchmark {
+    private static final int DOCTORS = 40;
+    private static final int LOADED_DOCTORS = 5;
+    private static final int RECORDS = 20_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        LocalDate monday = LocalDate.of(2024, 3, 4);
+        System.out.println("Doctors: " + DOCTORS + ", records: " + RECORDS);
+        for (int round = 0; round < ROUNDS; round++) {   // First round warms up
+            List<Doctor> doctors = new ArrayList<>();
+            for (int i = 0; i < DOCTORS; i++) {
+                int id = round * DOCTORS + i;
+                doctors.add(new Doctor("Dr", "Bench" + id, 10, "8am-4pm", "555-2" + id,
+                    "bench.workload" + id + "@clinic.com", "WLB-" + id, "555-3" + id));
+            }
+            for (int i = 0; i < RECORDS; i++) {
+                doctors.get(i % LOADED_DOCTORS).addMedicalRecord(new MedicalRecord(monday, "Bulk " + i));
+            }
+            long start = System.nanoTime();
+            List<DoctorWorkload.Reassignment> moves = DoctorWorkload.suggestRebalancing(doctors);
+            long suggest = System.nanoTime() - start;
+            start = System.nanoTime();
+            DoctorWorkload.applyRebalancing(moves);
+            long apply = System.nanoTime() - start;
+            System.out.printf("  round %d: suggest (%d moves) %7.2f ms, apply %7.2f ms%n",
+                round, moves.size(), suggest / 1e6, apply / 1e6);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.prison.bench;
+
+import com.prison.intake.ExaminationIntake;
+import com.prison.model.Doctor;
+import com.prison.model.MedicalExamination;
+import com.prison.model.MedicalRecord;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Annual screening intake: one examination per prisoner streamed through the
+ * pipeline, compared with creating and linking the same examinations one at
+ * a time on the calling thread. Prints per-stage throughput.
+ * Run with e.g. java -Xmx2g -cp out com.prison.bench.ExaminationIntakeBenchmark
+ */
+public class ExaminationIntakeBenchmark {
+    private static final int PRISONERS = 200_000;
+    private static final int DOCTORS = 40;
+
+    public static void main(String[] args) {
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        List<MedicalRecord> records = new ArrayList<>(PRISONERS);
+        for (int i = 0; i < PRISONERS; i++) {
+            records.add(new MedicalRecord(LocalDate.of(2020, 1, 1), "Baseline " + i));
+        }
+        for (int i = 0; i < DOCTORS; i++) {
+            new Doctor("Dr", "Bench" + i, 5, "8am-4pm", "555-9" + i, "bench" + i + "@clinic.com",
+                "BENCH-" + i, "555-8" + i);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < PRISONERS; i++) {
+            MedicalExamination exam = new MedicalExamination(LocalDate.of(2024, 5, 1 + i % 28),
+                MedicalExamination.ReasonForVisit.Routine, Doctor.findByLicenseNumber("BENCH-" + i % DOCTORS));
+            exam.addPrescription("Vitamin D");
+            exam.setMedicalRecord(records.get(i));
+        }
+        System.out.printf("one at a time: %,.0f exams/s%n", PRISONERS * 1e9 / (System.nanoTime() - start));
+
+        ExaminationIntake intake = new ExaminationIntake(key -> records.get(Integer.parseInt(key)), batch -> { });
+        ExaminationIntake.Result result = intake.process(() -> new Iterator<String>() {
+            private int next;
+
+            public boolean hasNext() {
+                return next < PRISONERS;
+            }
+
+            public String next() {
+                int i = next++;
+                return i + ";BENCH-" + i % DOCTORS + ";2024-06-" + String.format("%02d", 1 + i % 28)
+                    + ";Routine;Vitamin D";
+            }
+        });
+        System.out.println(result);
+        System.out.printf("pipeline: %,.0f exams/s%n", result.getPersisted() * 1e9 / result.getElapsedNanos());
+    }
+}
@@ -0,0 +1,70 @@
+package com.prison.bench;
+
+import com.prison.model.Assignment;
+import com.prison.search.FullTextIndex;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Query latency of FullTextIndex vs the substring loop over the extent it
+ * replaces. Documents are synthetic Assignment descriptions drawn from a
+ * Zipf-like vocabulary so that term frequencies resemble real text.
+ * Run with e.g. java -Xms3g -Xmx3g -cp out com.prison.bench.FullTextSearchBenchmark [documents]
+ */
+public class FullTextSearchBenchmark {
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS_PER_DOCUMENT = 8;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = "w" + Integer.toString(i, 36) + (i % 7 == 0 ? "contraband" : "");
+        }
+        Random random = new Random(7);
+        FullTextIndex index = new FullTextIndex();
+        long start = System.nanoTime();
+        StringBuilder text = new StringBuilder();
+        for (int d = 0; d < documents; d++) {
+            text.setLength(0);
+            for (int w = 0; w < WORDS_PER_DOCUMENT; w++) {
+                // Skewed pick: low word numbers are far more frequent
+                double u = random.nextDouble();
+                text.append(words[(int) (VOCABULARY * u * u * u)]).append(' ');
+            }
+            new Assignment("Task " + d, text.toString());
+        }
+        System.out.printf("Indexed %,d documents in %d ms (%,d terms)%n",
+                documents, (System.nanoTime() - start) / 1_000_000, index.getTermCount());
+
+        String rare = words[VOCABULARY - 3];
+        String common = words[1];
+        String phrase = words[1] + " " + words[2];
+        String prefix = "w1a";
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            List<Object> rareHits = index.search(rare);
+            long t1 = System.nanoTime();
+            List<Object> commonHits = index.search(common + " " + words[3]);
+            long t2 = System.nanoTime();
+            List<Object> phraseHits = index.searchPhrase(phrase);
+            long t3 = System.nanoTime();
+            List<Object> prefixHits = index.searchPrefix(prefix);
+            long t4 = System.nanoTime();
+            int scanHits = 0;
+            for (Assignment assignment : Assignment.getExtent()) {
+                if (assignment.getDescription().contains(rare)) {
+                    scanHits++;
+                }
+            }
+            long t5 = System.nanoTime();
+            System.out.printf("round %d: rare %.3f ms (%d), two common terms %.3f ms (%d), phrase %.3f ms (%d), "
+                            + "prefix %.3f ms (%d), substring scan %.1f ms (%d)%n", round,
+                    (t1 - t0) / 1e6, rareHits.size(), (t2 - t1) / 1e6, commonHits.size(),
+                    (t3 - t2) / 1e6, phraseHits.size(), (t4 - t3) / 1e6, prefixHits.size(),
+                    (t5 - t4) / 1e6, scanHits);
+        }
+        index.close();
+    }
+}
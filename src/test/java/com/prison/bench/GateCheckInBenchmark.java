@@ -0,0 +1,88 @@
+package com.prison.bench;
+
+import com.prison.intake.GateCheckIn;
+import com.prison.model.Director;
+import com.prison.model.Prisoner;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for GateCheckIn: a burst of 10k badge scans on one
+ * visiting day (with 2% repeated scans and 1% unknown badges), for several
+ * worker counts and batch sizes. The scans arrive either all at once or
+ * paced at 20k per second (groups of 100 every 5 ms). Reports throughput
+ * and scan-to-result latency percentiles. Run with e.g.
+ * java -Xms1g -Xmx1g -cp out com.prison.bench.GateCheckInBenchmark
+ */
+public class GateCheckInBenchmark {
+    private static final int CHECK_INS = 10_000;
+    private static final Duration P99_TARGET = Duration.ofMillis(50);
+    private static final int PACED_GROUP = 100;
+    private static final long PACED_INTERVAL_NANOS = 5_000_000;
+
+    public static void main(String[] args) {
+        int[][] configurations = {{1, 1}, {1, 64}, {2, 64}, {4, 64}, {4, 256}};   // {workers, maxBatch}
+        System.out.println("Check-ins per burst: " + CHECK_INS + ", cores: " + Runtime.getRuntime().availableProcessors());
+        for (boolean paced : new boolean[] {false, true}) {
+            System.out.println(paced ? "Paced arrivals (20k/s):" : "All scans at once:");
+            for (int[] configuration : configurations) {
+                run(configuration[0], configuration[1], paced);
+            }
+        }
+    }
+
+    private static void run(int workers, int maxBatch, boolean paced) {
+        Visit.clearExtent();
+        Visitor.clearExtent();
+        Prisoner.clearExtent();
+        Director director = new Director("Bench", "Gate", 10, "8am-6pm", "555-0001",
+            "bench-gate-" + workers + "-" + maxBatch + "-" + paced + "@prison.com", Director.DirectorRank.GENERAL);
+        LocalDate today = LocalDate.now();
+        List<String> scans = new ArrayList<>(CHECK_INS + CHECK_INS / 20);
+        Prisoner prisoner = null;
+        for (int i = 0; i < CHECK_INS; i++) {
+            if (i % 2 == 0) {
+                prisoner = new Prisoner("Bench", "Prisoner" + i, 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+            }
+            Visitor visitor = new Visitor("Bench", "Visitor" + i, "555-" + i, "Friend");
+            Visit visit = new Visit(today, 60, Visit.VisitType.FAMILY, "BADGE-" + i, visitor, prisoner);
+            visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            scans.add("BADGE-" + i);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < CHECK_INS / 50; i++) {
+            scans.add("BADGE-" + random.nextInt(CHECK_INS));
+        }
+        for (int i = 0; i < CHECK_INS / 100; i++) {
+            scans.add("UNKNOWN-" + i);
+        }
+        Collections.shuffle(scans, random);
+
+        try (GateCheckIn gate = new GateCheckIn(director, Clock.systemDefaultZone(), workers,
+                GateCheckIn.DEFAULT_QUEUE_CAPACITY, maxBatch, P99_TARGET)) {
+            long start = System.nanoTime();
+            List<CompletableFuture<GateCheckIn.CheckIn>> results = new ArrayList<>(scans.size());
+            for (int i = 0; i < scans.size(); i++) {
+                if (paced && i % PACED_GROUP == 0) {
+                    long due = start + (i / PACED_GROUP) * PACED_INTERVAL_NANOS;
+                    LockSupport.parkNanos(due - System.nanoTime());
+                }
+                results.add(gate.scan(scans.get(i)));
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+            long elapsed = System.nanoTime() - start;
+            GateCheckIn.Stats stats = gate.getStats();
+            System.out.printf("  workers=%d batch=%-3d %7.0f scans/s  %s  %s%n", workers, maxBatch,
+                scans.size() * 1e9 / elapsed, stats, stats.isWithinTarget() ? "ok" : "MISSED");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.prison.bench;
+
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.Guard;
+import com.prison.model.Prisoner;
+import com.prison.view.GuardCoverage;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Guard coverage for 5000 guards over 50 blocks of 20 prisoners: time to
+ * read the facility coverage from the maintained view and to rebuild it
+ * from the extents. Run with e.g.
+ * java -Xms1g -Xmx1g -cp out com.prison.bench.GuardCoverageBenchmark
+ */
+public class GuardCoverageBenchmark {
+    private static final int BLOCKS = 50;
+    private static final int PRISONERS_PER_BLOCK = 20;
+    private static final int GUARDS = 5000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        String[] shifts = {"6AM-2PM", "2PM-10PM", "10PM-6AM", "8am-4pm", "9AM-5PM"};
+        Guard.Rank[] ranks = Guard.Rank.values();
+        Block[] blocks = new Block[BLOCKS];
+        for (int b = 0; b < BLOCKS; b++) {
+            blocks[b] = new Block("Bench " + b, PRISONERS_PER_BLOCK, Block.BlockType.MEDIUM_SECURITY);
+            Cell cell = new Cell(70_000 + b, "Standard", PRISONERS_PER_BLOCK, Cell.SecurityLevel.MEDIUM);
+            cell.setBlock(blocks[b]);
+            for (int i = 0; i < PRISONERS_PER_BLOCK; i++) {
+                new Prisoner("Bench", "Prisoner" + i, 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active")
+                    .setCurrentCell(cell);
+            }
+        }
+        GuardCoverage coverage = new GuardCoverage();
+        for (int i = 0; i < GUARDS; i++) {
+            new Guard("Bench", "Guard" + i, 5, shifts[i % shifts.length], "555-" + i,
+                "bench.coverage" + i + "@prison.com", ranks[i % ranks.length], "Baton").addBlock(blocks[i % BLOCKS]);
+        }
+        System.out.println("Guards: " + GUARDS + ", blocks: " + BLOCKS);
+        for (int round = 0; round < ROUNDS; round++) {   // First round warms up
+            long start = System.nanoTime();
+            List<GuardCoverage.BlockCoverage> facility = coverage.getFacilityCoverage();
+            long read = System.nanoTime() - start;
+            start = System.nanoTime();
+            coverage.rebuild();
+            long rebuild = System.nanoTime() - start;
+            System.out.printf("  round %d: facility coverage (%d blocks) %6.2f ms, rebuild %7.2f ms%n",
+                round, facility.size(), read / 1e6, rebuild / 1e6);
+        }
+        coverage.close();
+    }
+}
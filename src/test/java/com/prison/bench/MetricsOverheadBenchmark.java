@@ -0,0 +1,51 @@
+package com.prison.bench;
+
+import com.prison.metrics.Metrics;
+import com.prison.metrics.TextExporter;
+import com.prison.model.Cell;
+import com.prison.model.Prisoner;
+import java.time.LocalDate;
+
+/**
+ * Cost of the metrics hooks on a hot association path: moves 1000 prisoners
+ * between 100 cells (Cell.addPrisoner/removePrisoner, each timed and counted)
+ * with metrics off and on, and reports ns per move. Run with e.g.
+ * java -Xms1g -Xmx1g -cp out com.prison.bench.MetricsOverheadBenchmark
+ */
+public class MetricsOverheadBenchmark {
+    private static final int CELLS = 100;
+    private static final int PRISONERS = 1000;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) {
+        Cell[] cells = new Cell[CELLS];
+        for (int c = 0; c < CELLS; c++) {
+            cells[c] = new Cell(80_000 + c, "Standard", PRISONERS, Cell.SecurityLevel.MEDIUM);
+        }
+        Prisoner[] prisoners = new Prisoner[PRISONERS];
+        for (int p = 0; p < PRISONERS; p++) {
+            prisoners[p] = new Prisoner("Bench", "Prisoner" + p, 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+            cells[p % CELLS].addPrisoner(prisoners[p]);
+        }
+        for (int run = 0; run < 3; run++) {   // First run warms up
+            for (boolean enabled : new boolean[] {false, true}) {
+                Metrics.setEnabled(enabled);
+                long started = System.nanoTime();
+                for (int round = 1; round <= ROUNDS; round++) {
+                    for (int p = 0; p < PRISONERS; p++) {
+                        cells[(p + round - 1) % CELLS].removePrisoner(prisoners[p]);
+                        cells[(p + round) % CELLS].addPrisoner(prisoners[p]);
+                    }
+                }
+                double perMove = (double) (System.nanoTime() - started) / ((long) ROUNDS * PRISONERS);
+                System.out.printf("run %d, metrics %-3s: %8.1f ns per move%n", run, enabled ? "on" : "off", perMove);
+            }
+        }
+        Metrics.setEnabled(false);
+        for (String line : TextExporter.format().split("\n")) {
+            if (line.startsWith("histogram model.Cell")) {
+                System.out.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.prison.bench;
+
+import com.prison.util.IntObjectMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Micro-benchmark: IntObjectMap vs HashMap<Integer, V> for cell-number style keys.
+ * Plain main-method harness (no JMH on the classpath); run with a fixed heap,
+ * e.g. java -Xms1g -Xmx1g -cp out com.prison.bench.PrimitiveMapBenchmark
+ */
+public class PrimitiveMapBenchmark {
+    private static final int ENTRIES = 1_000_000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        Object value = new Object();
+        int[] keys = new int[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = 1000 + i * 7;
+        }
+        // Front-desk lookups arrive in no particular order
+        int[] lookups = keys.clone();
+        Random random = new Random(42);
+        for (int i = lookups.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = lookups[i];
+            lookups[i] = lookups[j];
+            lookups[j] = tmp;
+        }
+
+        long hashMapBytes = measureMemory(() -> {
+            Map<Integer, Object> map = new HashMap<>();
+            for (int key : keys) {
+                map.put(key, value);
+            }
+            return map;
+        });
+        long primitiveBytes = measureMemory(() -> {
+            IntObjectMap<Object> map = new IntObjectMap<>();
+            for (int key : keys) {
+                map.put(key, value);
+            }
+            return map;
+        });
+
+        Map<Integer, Object> hashMap = new HashMap<>();
+        IntObjectMap<Object> primitiveMap = new IntObjectMap<>();
+        for (int key : keys) {
+            hashMap.put(key, value);
+            primitiveMap.put(key, value);
+        }
+
+        long hashMapNanos = Long.MAX_VALUE;
+        long primitiveNanos = Long.MAX_VALUE;
+        int hits = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int key : lookups) {
+                if (hashMap.get(key) != null) hits++;
+            }
+            hashMapNanos = Math.min(hashMapNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int key : lookups) {
+                if (primitiveMap.get(key) != null) hits++;
+            }
+            primitiveNanos = Math.min(primitiveNanos, System.nanoTime() - start);
+        }
+
+        System.out.println("Entries: " + ENTRIES + " (hits " + hits + ")");
+        System.out.printf("HashMap<Integer,V>  get: %6.2f ns/op, %6.1f bytes/entry%n",
+            (double) hashMapNanos / ENTRIES, (double) hashMapBytes / ENTRIES);
+        System.out.printf("IntObjectMap<V>     get: %6.2f ns/op, %6.1f bytes/entry%n",
+            (double) primitiveNanos / ENTRIES, (double) primitiveBytes / ENTRIES);
+    }
+
+    private static long measureMemory(java.util.function.Supplier<Object> builder) {
+        long before = usedMemory();
+        Object retained = builder.get();
+        long after = usedMemory();
+        if (retained.hashCode() == 42) {
+            System.out.print("");  // Keep the structure reachable until measured
+        }
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,139 @@
+package com.prison.bench;
+
+import com.prison.model.Prisoner;
+import com.prison.model.QualifiedVisitMap;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Memory and speed of QualifiedVisitMap against the HashMap<String, Visit>
+ * Visitor used before, for two shapes: many visitors with a couple of visits
+ * each, and one lawyer with thousands. The visits and key strings are shared,
+ * so only the map structures are measured. Run with a fixed heap,
+ * e.g. java -Xms1g -Xmx1g -cp out com.prison.bench.QualifiedVisitMapBenchmark
+ */
+public class QualifiedVisitMapBenchmark {
+    private static final int VISITS = 50_000;
+    private static final int SMALL_MAPS = 25_000;   // Two visits each
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        Prisoner prisoner = new Prisoner("Bench", "Prisoner", 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+        Visitor owner = new Visitor("Bench", "Lawyer", "555-0000", "Lawyer");
+        Random random = new Random(42);
+        LocalDate first = LocalDate.now().plusDays(1);
+        String[] keys = new String[VISITS];
+        Visit[] visits = new Visit[VISITS];
+        for (int i = 0; i < VISITS; i++) {
+            keys[i] = "VID-" + i;
+            visits[i] = new Visit(first.plusDays(random.nextInt(365)), 60, Visit.VisitType.LAWYER, keys[i], owner, prisoner);
+        }
+
+        long smallHash = measureMemory(() -> {
+            List<Map<String, Visit>> maps = new ArrayList<>(SMALL_MAPS);
+            for (int i = 0; i < SMALL_MAPS; i++) {
+                Map<String, Visit> map = new HashMap<>();
+                map.put(keys[2 * i], visits[2 * i]);
+                map.put(keys[2 * i + 1], visits[2 * i + 1]);
+                maps.add(map);
+            }
+            return maps;
+        });
+        long smallCompact = measureMemory(() -> {
+            List<Map<String, Visit>> maps = new ArrayList<>(SMALL_MAPS);
+            for (int i = 0; i < SMALL_MAPS; i++) {
+                Map<String, Visit> map = new QualifiedVisitMap();
+                map.put(keys[2 * i], visits[2 * i]);
+                map.put(keys[2 * i + 1], visits[2 * i + 1]);
+                maps.add(map);
+            }
+            return maps;
+        });
+        long largeHash = measureMemory(() -> fill(new HashMap<>(), keys, visits));
+        long largeCompact = measureMemory(() -> fill(new QualifiedVisitMap(), keys, visits));
+
+        Map<String, Visit> hashMap = fill(new HashMap<>(), keys, visits);
+        Map<String, Visit> compact = fill(new QualifiedVisitMap(), keys, visits);
+        String[] lookups = keys.clone();
+        for (int i = lookups.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String tmp = lookups[i];
+            lookups[i] = lookups[j];
+            lookups[j] = tmp;
+        }
+
+        long hashGet = Long.MAX_VALUE;
+        long compactGet = Long.MAX_VALUE;
+        long hashChrono = Long.MAX_VALUE;
+        long compactChrono = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String key : lookups) {
+                checksum += hashMap.get(key).getDuration();
+            }
+            hashGet = Math.min(hashGet, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (String key : lookups) {
+                checksum += compact.get(key).getDuration();
+            }
+            compactGet = Math.min(compactGet, System.nanoTime() - start);
+
+            // Chronological listing: HashMap needs a sort, the compact map iterates
+            start = System.nanoTime();
+            List<Visit> sorted = new ArrayList<>(hashMap.values());
+            sorted.sort(Comparator.comparing(Visit::getDate));
+            checksum += sorted.get(0).getDuration();
+            hashChrono = Math.min(hashChrono, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<Visit> ordered = new ArrayList<>(compact.values());
+            checksum += ordered.get(0).getDuration();
+            compactChrono = Math.min(compactChrono, System.nanoTime() - start);
+        }
+
+        System.out.println("Visits: " + VISITS + " (checksum " + checksum + ")");
+        System.out.printf("Small maps (2 visits)  HashMap: %6.1f bytes/visit, QualifiedVisitMap: %6.1f bytes/visit%n",
+            (double) smallHash / VISITS, (double) smallCompact / VISITS);
+        System.out.printf("One large map          HashMap: %6.1f bytes/visit, QualifiedVisitMap: %6.1f bytes/visit%n",
+            (double) largeHash / VISITS, (double) largeCompact / VISITS);
+        System.out.printf("get                    HashMap: %6.2f ns/op,      QualifiedVisitMap: %6.2f ns/op%n",
+            (double) hashGet / VISITS, (double) compactGet / VISITS);
+        System.out.printf("By date (all visits)   HashMap: %6.2f ms (sort),  QualifiedVisitMap: %6.2f ms%n",
+            hashChrono / 1e6, compactChrono / 1e6);
+    }
+
+    private static Map<String, Visit> fill(Map<String, Visit> map, String[] keys, Visit[] visits) {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], visits[i]);
+        }
+        return map;
+    }
+
+    private static long measureMemory(Supplier<Object> builder) {
+        long before = usedMemory();
+        Object retained = builder.get();
+        long after = usedMemory();
+        if (retained.hashCode() == 42) {
+            System.out.print("");  // Keep the structure reachable until measured
+        }
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package com.prison.bench;
+
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.CombinedStaff;
+import com.prison.model.Guard;
+import com.prison.model.Staff;
+import com.prison.scheduling.ShiftRosterOptimizer;
+import java.time.Duration;
+
+/**
+ * Weekly roster for 2000 members (1900 guards, one in ten with a
+ * supervisor, and 100 emergency-available CombinedStaff) over 180 blocks of
+ * mixed security, for several search counts. Reports wall time, shortfall,
+ * supervisor violations and cost. Run with e.g.
+ * java -Xms1g -Xmx1g -cp out com.prison.bench.ShiftRosterBenchmark
+ */
+public class ShiftRosterBenchmark {
+    private static final int GUARDS = 1900;
+    private static final int COMBINED = 100;
+    private static final int BLOCKS = 180;
+
+    public static void main(String[] args) {
+        Cell.SecurityLevel[] levels = Cell.SecurityLevel.values();
+        for (int b = 0; b < BLOCKS; b++) {
+            Block block = new Block("Bench " + b, 10, Block.BlockType.MEDIUM_SECURITY);
+            new Cell(b + 1, "Standard", 2, levels[b % levels.length]).setBlock(block);
+        }
+        String[] shifts = {"Day Shift", "2PM-10PM", "Night Shift", "9AM-5PM", "On-Call"};
+        Guard supervisor = null;
+        for (int i = 0; i < GUARDS; i++) {
+            Guard guard = new Guard("Bench", "Guard" + i, 5, shifts[i % shifts.length], "555-" + i,
+                "bench.roster" + i + "@prison.com", i % 10 == 0 ? Guard.Rank.CHIEF : Guard.Rank.JUNIOR, "Baton");
+            if (i % 10 == 0) {
+                supervisor = guard;
+            } else if (i % 10 == 1) {
+                guard.addSupervisor(supervisor);
+            }
+        }
+        for (int i = 0; i < COMBINED; i++) {
+            CombinedStaff member = new CombinedStaff("Bench", "Medic" + i, 6, "Day Shift", "556-" + i,
+                "bench.medic" + i + "@prison.com", Guard.Rank.SENIOR, "Taser", "LIC-" + i, "ext " + i);
+            member.setAvailableForEmergency(true);
+        }
+        System.out.println("Members: " + (GUARDS + COMBINED) + ", blocks: " + BLOCKS
+            + ", cores: " + Runtime.getRuntime().availableProcessors());
+        for (int searches : new int[] {1, 2, 4}) {
+            ShiftRosterOptimizer optimizer = new ShiftRosterOptimizer(ShiftRosterOptimizer.defaultMinimumGuards(),
+                ShiftRosterOptimizer.DEFAULT_MAX_SHIFTS_PER_WEEK, searches, ShiftRosterOptimizer.DEFAULT_ITERATIONS,
+                Duration.ofSeconds(10), 1);
+            long start = System.nanoTime();
+            ShiftRosterOptimizer.Roster roster = optimizer.optimize(Staff.getExtent(), Block.getExtent());
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("  searches=%d %6d ms  %s%n", searches, elapsed, roster);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.prison.bench;
+
+import com.prison.util.VersionedExtent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mixed read/write throughput: VersionedExtent snapshots vs a synchronized
+ * ArrayList that readers must copy under the lock to get a stable view.
+ * Each operation is a write (append) with probability WRITE_PERCENT, otherwise
+ * a read that iterates a snapshot of the extent.
+ * Run with e.g. java -Xms1g -Xmx1g -cp out com.prison.bench.SnapshotReadBenchmark
+ */
+public class SnapshotReadBenchmark {
+    private static final int INITIAL_SIZE = 10_000;
+    private static final int WRITE_PERCENT = 10;
+    private static final long DURATION_MILLIS = 2_000;
+
+    interface Store {
+        void add(Integer value);
+
+        List<Integer> snapshot();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Available processors: " + cores);
+        for (int threads = 1; threads <= Math.max(4, cores * 2); threads <<= 1) {
+            double locked = run(threads, lockedStore());
+            double versioned = run(threads, versionedStore());
+            System.out.printf("threads=%2d  synchronized copy: %,12.0f ops/s  versioned: %,12.0f ops/s%n",
+                    threads, locked, versioned);
+        }
+    }
+
+    private static Store lockedStore() {
+        List<Integer> list = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < INITIAL_SIZE; i++) {
+            list.add(i);
+        }
+        return new Store() {
+            public void add(Integer value) {
+                list.add(value);
+            }
+
+            public List<Integer> snapshot() {
+                synchronized (list) {
+                    return new ArrayList<>(list);
+                }
+            }
+        };
+    }
+
+    private static Store versionedStore() {
+        VersionedExtent<Integer> extent = new VersionedExtent<>(Integer.class);
+        for (int i = 0; i < INITIAL_SIZE; i++) {
+            extent.add(i);
+        }
+        return new Store() {
+            public void add(Integer value) {
+                extent.add(value);
+            }
+
+            public List<Integer> snapshot() {
+                return extent.snapshot();
+            }
+        };
+    }
+
+    private static double run(int threads, Store store) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] sink = new long[threads];
+        Thread[] workers = new Thread[threads];
+        long deadline = System.nanoTime() + DURATION_MILLIS * 1_000_000L;
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long seed = 0x9E3779B97F4A7C15L * (id + 1);
+                long local = 0;
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    seed ^= seed << 13;
+                    seed ^= seed >>> 7;
+                    seed ^= seed << 17;
+                    if (Math.floorMod(seed, 100) < WRITE_PERCENT) {
+                        store.add((int) seed);
+                    } else {
+                        // A short report: walk the first 1,000 members of a stable view
+                        List<Integer> view = store.snapshot();
+                        for (int i = 0; i < 1_000; i++) {
+                            local += view.get(i);
+                        }
+                    }
+                    count++;
+                }
+                sink[id] = local;
+                operations.add(count);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() * 1000.0 / DURATION_MILLIS;
+    }
+}
@@ -0,0 +1,40 @@
+package com.prison.bench;
+
+import com.prison.model.Prisoner;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import com.prison.scheduling.VisitingRoomAllocator;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * 5000 approved visits on one day in 300 rooms open 8am-8pm: time to
+ * rebuild the allocation from the Visit extent. Run with e.g.
+ * java -Xms1g -Xmx1g -cp out com.prison.bench.VisitingRoomAllocatorBenchmark
+ */
+public class VisitingRoomAllocatorBenchmark {
+    private static final int ROOMS = 300;
+    private static final int VISITS = 5000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        LocalDate day = LocalDate.now().plusDays(12);
+        VisitingRoomAllocator allocator = new VisitingRoomAllocator(ROOMS, LocalTime.of(8, 0), LocalTime.of(20, 0), 15);
+        Visit.VisitType[] types = Visit.VisitType.values();
+        for (int i = 0; i < VISITS; i++) {
+            Prisoner prisoner = new Prisoner("Bench", "Prisoner" + i, 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+            Visitor visitor = new Visitor("Bench", "Visitor" + i, "555-" + i, "Friend");
+            new Visit(day, 30 + (i % 2) * 15, types[i % types.length], "VRB" + i, visitor, prisoner)
+                .setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+        }
+        System.out.println("Visits: " + VISITS + ", rooms: " + ROOMS);
+        for (int round = 0; round < ROUNDS; round++) {   // First round warms up
+            long start = System.nanoTime();
+            allocator.rebuild();
+            long rebuild = System.nanoTime() - start;
+            System.out.printf("  round %d: rebuild (%d placed, %d waiting) %7.2f ms%n",
+                round, allocator.getSchedule(day).size(), allocator.getWaitingList(day).size(), rebuild / 1e6);
+        }
+        allocator.close();
+    }
+}
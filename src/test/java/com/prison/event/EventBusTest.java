@@ -0,0 +1,170 @@
+package com.prison.event;
+
+import com.prison.model.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventBusTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testNoSubscribersNoEvents", () -> {
+            EventBus.reset();
+            assertTrue(!EventBus.hasSubscribers());
+            Prisoner prisoner = Fixtures.newPrisoner();
+            prisoner.setStatus("Released");  // Must not fail without subscribers
+            assertEquals("Released", prisoner.getStatus());
+        });
+
+        runTest("testPrisonerMoveEmitsCellChanges", () -> {
+            EventBus.reset();
+            Cell cell1 = new Cell(101, "Shared", 2, Cell.SecurityLevel.LOW);
+            Cell cell2 = new Cell(102, "Shared", 2, Cell.SecurityLevel.LOW);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            prisoner.setCurrentCell(cell1);
+
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+            prisoner.setCurrentCell(cell2);
+
+            // One event per move, with no intermediate null from the reverse side
+            assertEquals(1, events.size());
+            assertTrue(events.get(0).is(Prisoner.class, "currentCell"));
+            assertEquals(cell1, events.get(0).getOldValue());
+            assertEquals(cell2, events.get(0).getNewValue());
+
+            cell1.addPrisoner(prisoner);   // Same through the cell side
+            assertEquals(2, events.size());
+            assertEquals(cell2, events.get(1).getOldValue());
+            assertEquals(cell1, events.get(1).getNewValue());
+            assertEquals(List.of(prisoner), cell1.getPrisoners());
+            assertTrue(cell2.getPrisoners().isEmpty());
+
+            prisoner.assignToCell(cell2);
+            assertEquals(3, events.size());
+            assertEquals(cell1, events.get(2).getOldValue());
+            assertEquals(cell2, events.get(2).getNewValue());
+            assertTrue(cell1.getPrisoners().isEmpty());
+            EventBus.reset();
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testAssociationLinkEmittedOnce", () -> {
+            EventBus.reset();
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Punishment punishment = new Punishment("WARNING", "Verbal warning", LocalDate.now(), 1, "Active");
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+
+            prisoner.addPunishment(punishment);  // Reverse side triggers Punishment.addPrisoner
+            assertEquals(1, events.size());
+            assertEquals(ModelEvent.Type.LINKED, events.get(0).getType());
+            assertEquals(prisoner, events.get(0).getNewValue());
+
+            punishment.removePrisoner(prisoner);
+            assertEquals(2, events.size());
+            assertEquals(ModelEvent.Type.UNLINKED, events.get(1).getType());
+            EventBus.reset();
+        });
+
+        runTest("testConstructorEmitsOnlyCreated", () -> {
+            EventBus.reset();
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Mary", "Doe", "555-1234", "Sister");
+            Visit visit = new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID001", visitor, prisoner);
+            assertEquals(2, events.size());
+            assertEquals(ModelEvent.Type.CREATED, events.get(1).getType());
+            assertEquals(visit, events.get(1).getSource());
+
+            visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);  // No change, no event
+            assertEquals(3, events.size());
+            assertEquals(Visit.ApprovalStatus.PENDING, events.get(2).getOldValue());
+            EventBus.reset();
+            Visitor.clearExtent();
+            Visit.clearExtent();
+        });
+
+        runTest("testScheduleAndVisitLinksEmitted", () -> {
+            EventBus.reset();
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Prisoner other = Fixtures.newPrisoner();
+            Schedule schedule = new Schedule(LocalTime.of(9, 0), LocalTime.of(10, 0),
+                Schedule.ActivityType.Work, new Block("Block E", 10, Block.BlockType.MINIMUM_SECURITY));
+            Visit visit = new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID002",
+                new Visitor("Mary", "Doe", "555-1234", "Sister"), prisoner);
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+
+            schedule.addPrisoner(prisoner);  // Reverse side triggers Prisoner.addSchedule
+            assertEquals(1, events.size());
+            assertEquals(ModelEvent.Type.LINKED, events.get(0).getType());
+            assertEquals("schedules", events.get(0).getProperty());
+
+            prisoner.removeSchedule(schedule);
+            assertEquals(2, events.size());
+            assertEquals(ModelEvent.Type.UNLINKED, events.get(1).getType());
+
+            other.addVisit(visit);
+            assertEquals(3, events.size());
+            assertEquals("prisoner", events.get(2).getProperty());
+            assertEquals(prisoner, events.get(2).getOldValue());
+            assertEquals(other, events.get(2).getNewValue());
+            assertTrue(prisoner.getVisits().isEmpty());
+            EventBus.reset();
+            Schedule.clearExtent();
+            Block.clearExtent();
+            Visitor.clearExtent();
+            Visit.clearExtent();
+        });
+
+        runTest("testHistoryEntriesArePropertyChanges", () -> {
+            EventBus.reset();
+            MedicalRecord record = new MedicalRecord(LocalDate.of(2023, 1, 1), "Seasonal flu");
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+
+            record.addHistory("Prescribed rest");
+            record.removeHistory("Prescribed rest");
+            assertEquals(2, events.size());
+            assertEquals(ModelEvent.Type.CHANGED, events.get(0).getType());
+            assertTrue(events.get(0).is(MedicalRecord.class, "history"));
+            assertEquals(null, events.get(0).getOldValue());
+            assertEquals("Prescribed rest", events.get(0).getNewValue());
+            assertEquals(ModelEvent.Type.CHANGED, events.get(1).getType());
+            assertEquals("Prescribed rest", events.get(1).getOldValue());
+            assertEquals(null, events.get(1).getNewValue());
+            EventBus.reset();
+            MedicalRecord.clearExtent();
+        });
+
+        runTest("testAsyncSubscriberReceivesInOrder", () -> {
+            EventBus.reset();
+            List<ModelEvent> received = new ArrayList<>();
+            EventBus.subscribeAsync(event -> {
+                synchronized (received) {
+                    received.add(event);
+                }
+            });
+            Prisoner prisoner = Fixtures.newPrisoner();
+            for (int i = 0; i < 20_000; i++) {
+                prisoner.setStatus(i % 2 == 0 ? "Active" : "Isolated");
+            }
+            EventBus.flush();
+            synchronized (received) {
+                assertEquals(20_000, received.size());  // CREATED + 19999 status changes (first is a no-op)
+                assertEquals(ModelEvent.Type.CREATED, received.get(0).getType());
+                assertEquals("Isolated", received.get(19_999).getNewValue());
+            }
+            EventBus.reset();
+        });
+
+        Prisoner.clearExtent();
+        Punishment.clearExtent();
+    }
+}
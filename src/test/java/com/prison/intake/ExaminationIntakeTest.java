@@ -0,0 +1,200 @@
+package com.prison.intake;
+
+import com.prison.model.Doctor;
+import com.prison.model.MedicalExamination;
+import com.prison.model.MedicalRecord;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class ExaminationIntakeTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        Map<String, MedicalRecord> records = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            records.put("P" + i, new MedicalRecord(LocalDate.of(2023, 1, 1), "Screening " + i));
+        }
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            doctors.add(new Doctor("Dr", "Intake" + i, 5, "8am-4pm", "555-40" + i,
+                "intake" + i + "@clinic.com", "INT-" + i, "555-41" + i));
+        }
+
+        runTest("testLinesAreLinkedAndPersisted", () -> {
+            List<MedicalExamination> persisted = Collections.synchronizedList(new ArrayList<>());
+            ExaminationIntake intake = new ExaminationIntake(records::get, persisted::addAll, 2, 8, 3);
+            ExaminationIntake.Result result = intake.process(List.of(
+                "P1;INT-0;2024-02-01;Routine;Ibuprofen|Vitamin D",
+                "P2;INT-1;2024-02-01;Injury",
+                "P3;INT-0;2024-02-02;Complaint;",
+                "P4;INT-9;2024-02-02;Routine;",
+                "P5;INT-1;not-a-date;Routine;",
+                "P6;INT-1;2024-02-02;Checkup;",
+                "P999;INT-1;2024-02-02;Routine;",
+                "P7;INT-2;2999-01-01;Routine;"));
+
+            assertEquals(3, persisted.size());
+            assertEquals(3L, result.getPersisted());
+            assertEquals(5, result.getRejections().size());
+            assertEquals(4L, result.getRejections().get(0).getLineNumber());
+            assertEquals("validate", result.getRejections().get(0).getStage());
+            assertEquals("parse", result.getRejections().get(1).getStage());
+            assertEquals(1, records.get("P1").getExaminations().size());
+            MedicalExamination exam = records.get("P1").getExaminations().get(0);
+            assertEquals(doctors.get(0), exam.getDoctor());
+            assertEquals(List.of("Ibuprofen", "Vitamin D"), exam.getPrescription());
+            assertEquals(2, doctors.get(0).getWorkload().getExaminationCount());
+        });
+
+        runTest("testFailedBatchIsUnlinked", () -> {
+            Doctor doctor = new Doctor("Dr", "Unsaved", 5, "8am-4pm", "555-4090",
+                "unsaved@clinic.com", "INT-F", "555-4091");
+            MedicalRecord kept = new MedicalRecord(LocalDate.of(2023, 1, 1), "Kept");
+            MedicalRecord lost = new MedicalRecord(LocalDate.of(2023, 1, 1), "Lost");
+            Map<String, MedicalRecord> byKey = Map.of("K", kept, "L", lost);
+            ExaminationIntake intake = new ExaminationIntake(byKey::get, batch -> {
+                if (batch.get(0).getMedicalRecord() == lost) {
+                    throw new IllegalStateException("Storage unavailable");
+                }
+            }, 1, 8, 1);
+            int examinations = MedicalExamination.getExtent().size();
+            ExaminationIntake.Result result = intake.process(List.of(
+                "K;INT-F;2024-02-01;Routine;",
+                "L;INT-F;2024-02-02;Injury;Bandage"));
+
+            assertEquals(1L, result.getPersisted());
+            assertEquals(1, result.getRejections().size());
+            assertEquals("persist", result.getRejections().get(0).getStage());
+            assertEquals(1, kept.getExaminations().size());
+            assertEquals(0, lost.getExaminations().size());
+            assertEquals(List.of(kept.getExaminations().get(0)), doctor.getExaminations());
+            assertEquals(1, doctor.getWorkload().getExaminationCount());
+            assertEquals(examinations + 1, MedicalExamination.getExtent().size());
+        });
+
+        runTest("testSlowPersisterAppliesBackpressure", () -> {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                lines.add("P" + (i % 50) + ";INT-" + (i % 6) + ";2024-03-01;Routine;Paracetamol");
+            }
+            ExaminationIntake intake = new ExaminationIntake(records::get, batch -> {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 2, 4, 10);
+            ExaminationIntake.Result result = intake.process(lines);
+            assertEquals(200L, result.getPersisted());
+            assertTrue(result.getStages().get(0).getBlockedNanos() > 0);
+            assertEquals(4, result.getStages().size());
+            assertTrue(result.getStages().get(2).getThroughput() > 0);
+        });
+
+        runTest("testParallelLinkingKeepsListsConsistent", () -> {
+            int before = 0;
+            for (MedicalRecord record : records.values()) {
+                before += record.getExaminations().size();
+            }
+            int beforeDoctors = 0;
+            for (Doctor doctor : doctors) {
+                beforeDoctors += doctor.getExaminations().size();
+            }
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                lines.add("P" + (i % 50) + ";INT-" + (i % 6) + ";2024-04-0" + (1 + i % 9) + ";Routine;");
+            }
+            ExaminationIntake.Result result = new ExaminationIntake(records::get, batch -> { }, 4, 64, 100)
+                .process(lines);
+            assertEquals(3000L, result.getPersisted());
+            int after = 0;
+            for (MedicalRecord record : records.values()) {
+                after += record.getExaminations().size();
+            }
+            int afterDoctors = 0;
+            for (Doctor doctor : doctors) {
+                afterDoctors += doctor.getExaminations().size();
+            }
+            assertEquals(before + 3000, after);
+            assertEquals(beforeDoctors + 3000, afterDoctors);
+        });
+
+        runTest("testFailedLinkDeletesExamination", () -> {
+            Doctor doctor = new Doctor("Dr", "Unlinked", 5, "8am-4pm", "555-4092",
+                "unlinked@clinic.com", "INT-L", "555-4093");
+            MedicalRecord locked = new MedicalRecord(LocalDate.of(2023, 1, 1), "Locked") {
+                @Override
+                public void addExamination(MedicalExamination exam) {
+                    throw new IllegalStateException("Record is locked");
+                }
+            };
+            int examinations = MedicalExamination.getExtent().size();
+            ExaminationIntake.Result result = new ExaminationIntake(key -> locked, batch -> { }, 1, 8, 1)
+                .process(List.of("X;INT-L;2024-02-01;Routine;Bandage"));
+
+            assertEquals(0L, result.getPersisted());
+            assertEquals("link", result.getRejections().get(0).getStage());
+            assertTrue(doctor.getExaminations().isEmpty());
+            assertEquals(0, doctor.getWorkload().getExaminationCount());
+            assertEquals(examinations, MedicalExamination.getExtent().size());
+        });
+
+        runTest("testFailingInputAbortsRun", () -> {
+            Iterable<String> lines = () -> new Iterator<String>() {
+                private int read;
+
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public String next() {
+                    if (read == 500) {
+                        throw new IllegalStateException("Input closed");
+                    }
+                    read++;
+                    return "P" + (read % 50) + ";INT-" + (read % 6) + ";2024-05-01;Routine;";
+                }
+            };
+            List<MedicalExamination> persisted = Collections.synchronizedList(new ArrayList<>());
+            int examinations = MedicalExamination.getExtent().size();
+            assertThrows(IllegalStateException.class,
+                () -> new ExaminationIntake(records::get, persisted::addAll, 2, 64, 100).process(lines));
+
+            assertEquals(examinations + persisted.size(), MedicalExamination.getExtent().size());
+            assertTrue(intakeThreadsStopped());
+        });
+
+        runTest("testStageFailureAbortsRun", () -> {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                lines.add((i == 250 ? "BROKEN" : "P" + (i % 50)) + ";INT-" + (i % 6) + ";2024-06-01;Routine;");
+            }
+            List<MedicalExamination> persisted = Collections.synchronizedList(new ArrayList<>());
+            int examinations = MedicalExamination.getExtent().size();
+            assertThrows(AssertionError.class, () -> new ExaminationIntake(key -> {
+                if (key.equals("BROKEN")) {
+                    throw new AssertionError("Resolver bug");
+                }
+                return records.get(key);
+            }, persisted::addAll, 2, 64, 100).process(lines));
+
+            assertEquals(examinations + persisted.size(), MedicalExamination.getExtent().size());
+            assertTrue(intakeThreadsStopped());
+        });
+    }
+
+    private static boolean intakeThreadsStopped() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("intake-")) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
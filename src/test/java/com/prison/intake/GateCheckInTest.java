@@ -0,0 +1,150 @@
+package com.prison.intake;
+
+import com.prison.model.Director;
+import com.prison.model.Prisoner;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import com.prison.test.SimpleUnitTest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class GateCheckInTest extends SimpleUnitTest {
+    private static int ids;
+
+    public static void main(String[] args) {
+        Clock clock = Clock.fixed(Instant.now(), ZoneId.systemDefault());   // Scans never cross midnight
+        LocalDate today = LocalDate.now(clock);
+        Director director = new Director("Gate", "Keeper", 10, "8am-6pm", "555-6100",
+            "gate@prison.com", Director.DirectorRank.GENERAL);
+
+        runTest("testOutcomesOfBadgeScans", () -> {
+            Visit approved = newVisit("CHK-1", today, true);
+            Visit pending = newVisit("CHK-2", today, false);
+            Visit tomorrow = newVisit("CHK-3", today.plusDays(1), true);
+            try (GateCheckIn gate = new GateCheckIn(director, clock, 2, 16, 8, Duration.ofSeconds(1))) {
+                List<GateCheckIn.CheckIn> results = gate.checkIn(List.of("CHK-1", "CHK-2", "CHK-3", "NOBODY"));
+                assertEquals(GateCheckIn.Outcome.CHECKED_IN, results.get(0).getOutcome());
+                assertEquals(GateCheckIn.Outcome.NOT_APPROVED, results.get(1).getOutcome());
+                assertEquals(GateCheckIn.Outcome.WRONG_DAY, results.get(2).getOutcome());
+                assertEquals(GateCheckIn.Outcome.UNKNOWN_BADGE, results.get(3).getOutcome());
+                assertEquals(approved, results.get(0).getVisit());
+
+                assertEquals(Visit.ApprovalStatus.COMPLETED, approved.getApprovalStatus());
+                assertEquals(director, approved.getDirector());
+                assertTrue(director.getApprovedVisits().contains(approved));
+                assertEquals(Visit.ApprovalStatus.PENDING, pending.getApprovalStatus());
+                assertEquals(Visit.ApprovalStatus.APPROVED, tomorrow.getApprovalStatus());
+
+                assertEquals(GateCheckIn.Outcome.ALREADY_CHECKED_IN, gate.scan("CHK-1").join().getOutcome());
+            }
+        });
+
+        runTest("testCheckInKeepsEarlierDirectors", () -> {
+            Director approver = new Director("Visit", "Approver", 8, "9am-5pm", "555-6101",
+                "approver@prison.com", Director.DirectorRank.ASSISTANT);
+            Visit visit = newVisit("CHK-4", today, true);
+            approver.addApprovedVisit(visit);
+            try (GateCheckIn gate = new GateCheckIn(director, clock, 1, 4, 4, Duration.ofSeconds(1))) {
+                assertTrue(gate.scan("CHK-4").join().isCheckedIn());
+            }
+            assertEquals(List.of(approver, director), visit.getDirectors());
+            assertTrue(approver.getApprovedVisits().contains(visit));
+            assertTrue(director.getApprovedVisits().contains(visit));
+        });
+
+        runTest("testRepeatedScansAreCoalesced", () -> {
+            List<String> scans = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                newVisit("BURST-" + i, today, true);
+                scans.add("BURST-" + i);
+                scans.add("BURST-" + i);   // Badge scanned twice
+            }
+            try (GateCheckIn gate = new GateCheckIn(director, clock, 3, 32, 16, Duration.ofSeconds(1))) {
+                List<GateCheckIn.CheckIn> results = gate.checkIn(scans);
+                long checkedIn = results.stream().filter(GateCheckIn.CheckIn::isCheckedIn).count();
+                assertEquals(100L, checkedIn);
+                GateCheckIn.Stats stats = gate.getStats();
+                assertEquals(200L, stats.getScans());
+                assertEquals(100L, stats.getCount(GateCheckIn.Outcome.ALREADY_CHECKED_IN));
+                assertTrue(stats.getBatches() <= 200);
+                assertTrue(stats.getP50Nanos() <= stats.getP99Nanos());
+                assertTrue(stats.getP99Nanos() <= stats.getMaxNanos());
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Visit.ApprovalStatus.COMPLETED, Visitor.findVisitByVisitorID("BURST-" + i).getApprovalStatus());
+            }
+        });
+
+        runTest("testCloseHandlesQueuedScans", () -> {
+            newVisit("LAST-1", today, true);
+            GateCheckIn gate = new GateCheckIn(director, clock, 1, 4, 4, Duration.ofSeconds(1));
+            CompletableFuture<GateCheckIn.CheckIn> result = gate.scan("LAST-1");
+            gate.close();
+            assertTrue(result.isDone());
+            assertTrue(result.join().isCheckedIn());
+            assertThrows(IllegalStateException.class, () -> gate.scan("LAST-1"));
+        });
+
+        runTest("testScanRacingCloseIsFailed", () -> {
+            newVisit("RACE-1", today, true);
+            GateCheckIn gate = new GateCheckIn(director, clock, 1, 1, 1, Duration.ofSeconds(1));
+            List<CompletableFuture<GateCheckIn.CheckIn>> results = Collections.synchronizedList(new ArrayList<>());
+            Thread scanner = new Thread(() -> results.add(gate.scan("NOBODY")));
+            Thread closer = new Thread(gate::close);
+            synchronized (director) {   // Holds the worker in its batch update, so the queue stays full
+                results.add(gate.scan("RACE-1"));
+                results.add(gate.scan("NOBODY"));
+                scanner.start();
+                awaitWaiting(scanner);   // Past the closed check, blocked on the full queue
+                closer.start();
+                awaitWaiting(closer);
+                scanner.interrupt();     // Re-queues its put behind the stop marker
+                while (scanner.isInterrupted()) {
+                    Thread.onSpinWait();
+                }
+                awaitWaiting(scanner);
+            }
+            try {
+                closer.join(5000);
+                scanner.join(5000);
+                for (CompletableFuture<GateCheckIn.CheckIn> result : results) {
+                    result.get(5, TimeUnit.SECONDS);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            assertEquals(3, results.size());
+            assertEquals(GateCheckIn.Outcome.FAILED, results.get(2).join().getOutcome());
+        });
+
+        Visit.clearExtent();
+        Visitor.clearExtent();
+        Prisoner.clearExtent();
+    }
+
+    private static void awaitWaiting(Thread thread) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static Visit newVisit(String visitorID, LocalDate date, boolean approved) {
+        int id = ++ids;
+        Prisoner prisoner = new Prisoner("John", "Doe", 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+        Visitor visitor = new Visitor("Gate", "Visitor" + id, "555-61" + id, "Friend");
+        Visit visit = new Visit(date, 60, Visit.VisitType.FAMILY, visitorID, visitor, prisoner);
+        if (approved) {
+            visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+        }
+        return visit;
+    }
+}
@@ -0,0 +1,72 @@
+package com.prison.metrics;
+
+import com.prison.test.SimpleUnitTest;
+
+public class LatencyHistogramTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testBucketsAreContiguousAndNarrow", () -> {
+            for (long value = 0; value < 1 << 20; value++) {
+                int bucket = LatencyHistogram.index(value);
+                assertTrue(value <= LatencyHistogram.upperBound(bucket));
+                assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+            }
+            long value = 123_456_789L;
+            long width = LatencyHistogram.upperBound(LatencyHistogram.index(value))
+                - LatencyHistogram.upperBound(LatencyHistogram.index(value) - 1);
+            assertTrue(width <= value / 32);
+        });
+
+        runTest("testPercentilesWithinBucketPrecision", () -> {
+            LatencyHistogram histogram = new LatencyHistogram("test.percentiles");
+            for (long nanos = 1; nanos <= 10_000; nanos++) {
+                histogram.record(nanos * 1000);
+            }
+            assertEquals(10_000L, histogram.getCount());
+            assertEquals(10_000_000L, histogram.getMax());
+            assertTrue(Math.abs(histogram.getMean() - 5_000_500) < 1);
+            long p50 = histogram.getValueAtPercentile(50);
+            long p99 = histogram.getValueAtPercentile(99);
+            assertTrue(p50 >= 5_000_000 && p50 <= 5_000_000 * 1.04);
+            assertTrue(p99 >= 9_900_000 && p99 <= 9_900_000 * 1.04);
+            assertEquals(10_000_000L, histogram.getValueAtPercentile(100));
+        });
+
+        runTest("testOutOfRangeValuesAndReset", () -> {
+            LatencyHistogram histogram = new LatencyHistogram("test.range");
+            assertEquals(0L, histogram.getValueAtPercentile(99));
+            histogram.record(-5);
+            histogram.record(LatencyHistogram.MAX_TRACKABLE * 4);
+            assertEquals(2L, histogram.getCount());
+            assertEquals(0L, histogram.getValueAtPercentile(50));
+            assertEquals(LatencyHistogram.MAX_TRACKABLE * 4, histogram.getMax());
+            histogram.recordSince(0);   // Metrics were off at the start
+            assertEquals(2L, histogram.getCount());
+            histogram.reset();
+            assertEquals(0L, histogram.getCount());
+            assertEquals(0L, histogram.getMax());
+        });
+
+        runTest("testConcurrentRecording", () -> {
+            LatencyHistogram histogram = new LatencyHistogram("test.concurrent");
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                long offset = t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        histogram.record(i % 1000 + offset);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            assertEquals(200_000L, histogram.getCount());
+            assertEquals(1002L, histogram.getMax());
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.prison.metrics;
+
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.Charges;
+import com.prison.model.CourtCase;
+import com.prison.model.Guard;
+import com.prison.model.Prisoner;
+import com.prison.model.Staff;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class MetricsTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testNothingRecordedWhileOff", () -> {
+            reset();
+            Metrics.setEnabled(false);
+            Cell cell = new Cell(9101, "Standard", 2, Cell.SecurityLevel.LOW);
+            cell.addPrisoner(Fixtures.newPrisoner());
+            assertEquals(0L, Metrics.start());
+            assertEquals(0L, Metrics.counter("model.Cell.created").get());
+            assertEquals(0L, Metrics.histogram("model.Cell.link").getCount());
+        });
+
+        runTest("testConstructorsAndAssociations", () -> {
+            reset();
+            Metrics.setEnabled(true);
+            Cell cell = new Cell(9102, "Standard", 2, Cell.SecurityLevel.LOW);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            cell.addPrisoner(prisoner);
+            cell.removePrisoner(prisoner);
+            Block block = new Block("Metrics Block", 4, Block.BlockType.MINIMUM_SECURITY);
+            Guard guard = new Guard("Metric", "Guard", 2, "Day Shift", "555-7201", "metrics.guard@prison.com",
+                Guard.Rank.JUNIOR, "Baton");
+            guard.addBlock(block);
+            Metrics.setEnabled(false);
+
+            assertEquals(1L, Metrics.counter("model.Cell.created").get());
+            assertEquals(1L, Metrics.counter("model.Prisoner.created").get());
+            assertEquals(1L, Metrics.counter("model.Guard.created").get());
+            assertEquals(1L, Metrics.histogram("model.Cell.create").getCount());
+            assertEquals(1L, Metrics.histogram("model.Cell.link").getCount());
+            assertEquals(1L, Metrics.histogram("model.Cell.unlink").getCount());
+            assertEquals(1L, Metrics.counter("model.Guard.linked.blocks").get());
+            assertEquals(1L, Metrics.histogram("model.Staff.link").getCount());
+            assertEquals(1L, Metrics.histogram("model.Block.link").getCount());   // The reverse side
+            assertEquals(1.0, Metrics.getGauges().get("fanout.Block.staff.max").getAsDouble());
+            assertEquals((double) Cell.getExtent().size(), Metrics.getGauges().get("extent.Cell.size").getAsDouble());
+        });
+
+        runTest("testRolledBackWorkIsNotCounted", () -> {
+            reset();
+            Metrics.setEnabled(true);
+            Cell cell = new Cell(9103, "Standard", 2, Cell.SecurityLevel.LOW);
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                new Cell(9104, "Standard", 2, Cell.SecurityLevel.LOW);
+                cell.addPrisoner(Fixtures.newPrisoner());
+                throw new IllegalStateException("Rolled back.");
+            }));
+            UnitOfWork.run(() -> new Cell(9105, "Standard", 2, Cell.SecurityLevel.LOW));
+            Metrics.setEnabled(false);
+
+            assertEquals(2L, Metrics.counter("model.Cell.created").get());
+            assertEquals(0L, Metrics.counter("model.Prisoner.created").get());
+            assertEquals(0L, Metrics.counter("model.Cell.linked.prisoners").get());
+        });
+
+        runTest("testDeleteCascadeAndPersistence", () -> {
+            reset();
+            Metrics.setEnabled(true);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            CourtCase courtCase = new CourtCase(LocalDate.now().plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Metric");
+            new Charges("Theft", null, Charges.SeverityLevel.Minor, LocalDate.now(), prisoner, courtCase);
+            courtCase.delete();
+            String filename = "test_metrics_prisoners.ser";
+            try {
+                Prisoner.saveExtent(filename);
+                Prisoner.loadExtent(filename);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                new File(filename).delete();
+                Metrics.setEnabled(false);
+            }
+
+            assertEquals(1L, Metrics.counter("model.CourtCase.deleted").get());
+            assertEquals(1L, Metrics.counter("model.Charges.deleted").get());
+            assertEquals(1L, Metrics.histogram("model.CourtCase.delete").getCount());
+            assertEquals(1L, Metrics.histogram("model.Charges.delete").getCount());
+            assertTrue(Metrics.histogram("model.CourtCase.delete").getMax()
+                >= Metrics.histogram("model.Charges.delete").getMax());   // Includes its cascade
+            assertEquals(1L, Metrics.histogram("model.Prisoner.save").getCount());
+            assertEquals(1L, Metrics.histogram("model.Prisoner.load").getCount());
+        });
+
+        runTest("testTextExporter", () -> {
+            reset();
+            Metrics.setEnabled(true);
+            new Cell(9103, "Standard", 2, Cell.SecurityLevel.LOW);
+            Metrics.setEnabled(false);
+            String text = TextExporter.format();
+            assertTrue(text.contains("counter model.Cell.created 1\n"));
+            assertTrue(text.contains("histogram model.Cell.create count=1 "));
+            assertTrue(!text.contains("histogram model.Cell.link "));   // Empty histograms are left out
+            assertTrue(text.contains("gauge extent.Cell.size " + Cell.getExtent().size() + "\n"));
+            try {
+                Path file = Files.createTempFile("prison-metrics", ".txt");
+                TextExporter.writeTo(file);
+                assertEquals(text, Files.readString(file));
+                Files.delete(file);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        runTest("testJmxExporter", () -> {
+            reset();
+            Metrics.setEnabled(true);
+            new Cell(9104, "Standard", 2, Cell.SecurityLevel.LOW);
+            Metrics.setEnabled(false);
+            JmxExporter.register();
+            JmxExporter.register();   // Idempotent
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(JmxExporter.OBJECT_NAME);
+                assertEquals(1L, server.getAttribute(name, "model.Cell.created"));
+                assertEquals(1L, server.getAttribute(name, "model.Cell.create.count"));
+                assertEquals((double) Cell.getExtent().size(), server.getAttribute(name, "extent.Cell.size"));
+                assertTrue(server.getMBeanInfo(name).getAttributes().length > 3);
+                JmxExporter.unregister();
+                assertTrue(!server.isRegistered(name));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void reset() {
+        Metrics.reset();
+        Fixtures.resetModel();
+    }
+}
@@ -22,5 +22,20 @@ public class CellTest extends SimpleUnitTest {
                 new Cell(101, "Shared", 2, null);
             });
         });
+
+        runTest("testCellFindByCellNumber", () -> {
+            Cell.clearExtent();
+            Cell c = new Cell(1042, "Shared", 2, Cell.SecurityLevel.LOW);
+            assertEquals(c, Cell.findByCellNumber(1042));
+            assertThrows(ValidationException.class, () -> {
+                new Cell(1042, "Solitary", 1, Cell.SecurityLevel.HIGH);
+            });
+            assertEquals(1, Cell.getExtent().size());
+            c.setCellNumber(1043);
+            assertEquals(null, Cell.findByCellNumber(1042));
+            assertEquals(c, Cell.findByCellNumber(1043));
+            Cell.clearExtent();
+            assertEquals(null, Cell.findByCellNumber(1043));
+        });
     }
 }
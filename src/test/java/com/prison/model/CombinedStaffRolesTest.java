@@ -0,0 +1,142 @@
+package com.prison.model;
+
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.io.File;
+import java.time.LocalTime;
+import java.util.List;
+
+public class CombinedStaffRolesTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testOnePersonInTheStaffExtent", () -> {
+            Fixtures.resetModel();
+            CombinedStaff combined = combined("roles.one@prison.com", "LIC-ROLE-1");
+            Guard guard = new Guard("Plain", "Guard", 3, "Night Shift", "555-9001", "roles.guard@prison.com",
+                Guard.Rank.JUNIOR, "Baton");
+
+            assertEquals(List.of(combined, guard), Staff.getExtent());
+            assertEquals(List.of(guard), Guard.getGuardExtent());   // Roles are reached through their member
+            assertTrue(Doctor.getDoctorExtent().isEmpty());
+            assertEquals(combined, combined.getGuardRole().getIdentity());
+            assertEquals(combined, combined.getDoctorRole().getIdentity());
+            assertEquals(guard, guard.getIdentity());
+            assertEquals(combined, Staff.findByEmail("roles.one@prison.com"));
+            assertEquals(combined.getDoctorRole(), Doctor.findByLicenseNumber("LIC-ROLE-1"));
+        });
+
+        runTest("testRolesShareAttributes", () -> {
+            Fixtures.resetModel();
+            CombinedStaff combined = combined("roles.two@prison.com", "LIC-ROLE-2");
+            Guard guardRole = combined.getGuardRole();
+            Doctor doctorRole = combined.getDoctorRole();
+            assertEquals("Riley", guardRole.getName());
+            assertEquals("roles.two@prison.com", doctorRole.getEmail());
+
+            combined.setPhone("555-9999");
+            assertEquals("555-9999", guardRole.getPhone());
+            guardRole.setShiftHour("Night Shift");
+            assertEquals("Night Shift", combined.getShiftHour());
+            assertEquals(ShiftInterval.NIGHT, doctorRole.getShift());
+            doctorRole.setExperienceYears(11);
+            assertEquals(11, combined.getExperienceYears());
+
+            guardRole.setRank(Guard.Rank.CHIEF);
+            doctorRole.addSpecialisation("Trauma Care");
+            assertEquals(Guard.Rank.CHIEF, combined.getGuardRole().getRank());
+            assertEquals(List.of("Trauma Care"), combined.getDoctorRole().getSpecialisation());
+        });
+
+        runTest("testRolesShareLinks", () -> {
+            Fixtures.resetModel();
+            Block.clearExtent();
+            CombinedStaff combined = combined("roles.three@prison.com", "LIC-ROLE-3");
+            Block block = new Block("Roles", 4, Block.BlockType.MEDICAL);
+            combined.getGuardRole().addBlock(block);
+            assertEquals(List.of(block), combined.getBlocks());
+            assertEquals(List.of(block), combined.getDoctorRole().getBlocks());
+            assertEquals(List.<Staff>of(combined), block.getStaffMembers());
+
+            combined.getDoctorRole().removeBlock(block);
+            assertEquals(List.of(), combined.getBlocks());
+            assertEquals(List.of(), block.getStaffMembers());
+
+            block.addStaff(combined.getGuardRole());   // From the other side, too
+            block.addStaff(combined.getDoctorRole());
+            assertEquals(List.<Staff>of(combined), block.getStaff());
+            assertEquals(List.of(block), combined.getBlocks());
+            Schedule schedule = new Schedule(LocalTime.of(9, 0), LocalTime.of(10, 0), Schedule.ActivityType.Work, block);
+            schedule.addStaff(combined.getDoctorRole());
+            assertEquals(List.<Staff>of(combined), schedule.getStaffMembers());
+            assertEquals(List.of(schedule), combined.getGuardRole().getSchedules());
+            block.removeStaff(combined.getDoctorRole());
+            schedule.removeStaff(combined.getGuardRole());
+            assertEquals(List.of(), block.getStaff());
+            assertEquals(List.of(), schedule.getStaffMembers());
+            assertEquals(List.of(), combined.getSchedules());
+            Schedule.clearExtent();
+            Block.clearExtent();
+        });
+
+        runTest("testPersistenceKeepsOneIdentity", () -> {
+            try {
+                Fixtures.resetModel();
+                String filename = "test_combined_roles.ser";
+                CombinedStaff saved = combined("roles.four@prison.com", "LIC-ROLE-4");
+                saved.getGuardRole().setWeapon("Pistol");
+                Staff.saveExtent(filename);
+                Fixtures.resetModel();
+
+                Staff.loadExtent(filename);
+                assertEquals(1, Staff.getExtent().size());
+                CombinedStaff loaded = (CombinedStaff) Staff.getExtent().get(0);
+                assertEquals(loaded, loaded.getGuardRole().getIdentity());
+                assertEquals("Pistol", loaded.getGuardRole().getWeapon());
+                assertEquals("Riley", loaded.getDoctorRole().getName());
+                assertEquals(loaded, Staff.findByEmail("roles.four@prison.com"));
+                assertEquals(loaded.getDoctorRole(), Doctor.findByLicenseNumber("LIC-ROLE-4"));
+                new File(filename).delete();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            Fixtures.resetModel();
+        });
+
+        runTest("testPartitionClearAndLoadKeepIndexes", () -> {
+            try {
+                Fixtures.resetModel();
+                String filename = "test_combined_partition.ser";
+                CombinedStaff member = combined("roles.five@prison.com", "LIC-ROLE-5");
+                new Doctor("Dana", "Lee", 4, "8am-4pm", "555-9001", "doctor.five@prison.com", "LIC-DOC-5", "ext 9001");
+                new Guard("Gale", "Moss", 3, "Day Shift", "555-9002", "guard.five@prison.com", Guard.Rank.JUNIOR, "Baton");
+
+                Doctor.clearDoctorExtent();
+                Guard.clearGuardExtent();
+                assertEquals(null, Staff.findByEmail("doctor.five@prison.com"));
+                assertEquals(null, Doctor.findByLicenseNumber("LIC-DOC-5"));
+                assertEquals(null, Staff.findByEmail("guard.five@prison.com"));
+                assertEquals(member, Staff.findByEmail("roles.five@prison.com"));
+                assertEquals(member.getDoctorRole(), Doctor.findByLicenseNumber("LIC-ROLE-5"));
+
+                CombinedStaff.saveCombinedStaffExtent(filename);
+                CombinedStaff.clearCombinedStaffExtent();
+                assertEquals(null, Staff.findByEmail("roles.five@prison.com"));
+                assertEquals(null, Doctor.findByLicenseNumber("LIC-ROLE-5"));
+
+                CombinedStaff.loadCombinedStaffExtent(filename);
+                CombinedStaff.loadCombinedStaffExtent(filename);   // Replaces the members loaded just before
+                CombinedStaff loaded = CombinedStaff.getCombinedStaffExtent().get(0);
+                assertEquals(loaded, Staff.findByEmail("roles.five@prison.com"));
+                assertEquals(loaded.getDoctorRole(), Doctor.findByLicenseNumber("LIC-ROLE-5"));
+                new File(filename).delete();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            Fixtures.resetModel();
+        });
+    }
+
+    private static CombinedStaff combined(String email, String licenseNumber) {
+        return new CombinedStaff("Riley", "Quinn", 7, "Day Shift", "555-9000", email,
+            Guard.Rank.SENIOR, "Taser", licenseNumber, "ext 9000");
+    }
+}
@@ -19,13 +19,26 @@ public class DoctorTest extends SimpleUnitTest {
         });
 
         runTest("testDoctorSpecialization", () -> {
-            Doctor d = new Doctor("Dr", "House", 15, "9am-5pm", "555-0100", 
-                "house@hospital.com", "LIC-123", "555-0101");
+            Doctor d = new Doctor("Dr", "Wilson", 15, "9am-5pm", "555-0102", 
+                "wilson@hospital.com", "LIC-124", "555-0103");
             d.addSpecialisation("Diagnostic");
             assertEquals(1, d.getSpecialisation().size());
             assertThrows(EmptyStringException.class, () -> {
                 d.addSpecialisation(null);
             });
         });
+
+        runTest("testDoctorFindByLicenseNumber", () -> {
+            Doctor d = Doctor.findByLicenseNumber("LIC-123");
+            assertEquals("House", d.getSurname());
+            assertThrows(ValidationException.class, () -> {
+                new Doctor("Dr", "Copy", 1, "9am-5pm", "555-0104",
+                    "copy@hospital.com", "LIC-123", "555-0105");
+            });
+            d.setLicenseNumber("LIC-999");
+            assertEquals(null, Doctor.findByLicenseNumber("LIC-123"));
+            assertEquals(d, Doctor.findByLicenseNumber("LIC-999"));
+            assertThrows(ValidationException.class, () -> d.setLicenseNumber("LIC-124"));
+        });
     }
 }
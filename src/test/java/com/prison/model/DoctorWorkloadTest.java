@@ -0,0 +1,141 @@
+package com.prison.model;
+
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DoctorWorkloadTest extends SimpleUnitTest {
+    private static int sequence;
+
+    private static Doctor doctor(String surname) {
+        sequence++;
+        return new Doctor("Dr", surname, 10, "8am-4pm", "555-2" + sequence,
+            surname.toLowerCase() + sequence + "@clinic.com", "WL-" + sequence, "555-3" + sequence);
+    }
+
+    public static void main(String[] args) {
+        LocalDate monday = LocalDate.of(2024, 3, 4);
+
+        runTest("testExaminationsPerDay", () -> {
+            Doctor d = doctor("Grey");
+            MedicalExamination first = new MedicalExamination(monday, MedicalExamination.ReasonForVisit.Routine, d);
+            new MedicalExamination(monday, MedicalExamination.ReasonForVisit.Injury, d);
+            new MedicalExamination(monday.plusDays(2), MedicalExamination.ReasonForVisit.Complaint, d);
+            DoctorWorkload workload = d.getWorkload();
+            assertEquals(2, workload.getExaminationsOn(monday));
+            assertEquals(3, workload.getExaminationsBetween(monday, monday.plusDays(6)));
+
+            first.setDateOfExamination(monday.plusDays(1));
+            assertEquals(1, workload.getExaminationsOn(monday));
+            assertEquals(1, workload.getExaminationsOn(monday.plusDays(1)));
+
+            Doctor other = doctor("Yang");
+            first.setDoctor(other);
+            assertEquals(2, workload.getExaminationCount());
+            assertEquals(1, other.getWorkload().getExaminationCount());
+        });
+
+        runTest("testReportMinutesPerWeek", () -> {
+            Doctor d = doctor("Shepherd");
+            MedicalRecord record = new MedicalRecord(monday, "Fracture");
+            MedicalReport a = new MedicalReport(monday, "Cast", "R1", 30, "Low", d, record);
+            new MedicalReport(monday.plusDays(6), "Review", "R1", 15, "Low", d, record);
+            new MedicalReport(monday.plusDays(7), "Follow-up", "R2", 20, "Low", d, record);
+            DoctorWorkload workload = d.getWorkload();
+            assertTrue(workload.getReportMinutesInWeek(monday.plusDays(3)) == 45);
+            assertTrue(workload.getReportMinutesOverWeeks(monday.plusDays(7), 2) == 65);
+
+            a.setDuration(40);
+            a.setDate(monday.plusDays(8));
+            assertTrue(workload.getReportMinutesInWeek(monday) == 15);
+            assertTrue(workload.getReportMinutesInWeek(monday.plusDays(7)) == 60);
+
+            Doctor other = doctor("Karev");
+            a.setDoctor(other);
+            assertEquals(2, d.getMedicalReports().size());
+            assertTrue(workload.getTotalReportMinutes() == 35);
+            assertTrue(other.getWorkload().getTotalReportMinutes() == 40);
+
+            record.delete();
+            assertTrue(workload.getTotalReportMinutes() == 0);
+            assertEquals(0, workload.getReportMinutesPerWeek().size());
+        });
+
+        runTest("testOpenRecords", () -> {
+            Doctor d = doctor("Bailey");
+            MedicalRecord record = new MedicalRecord(monday, "Asthma");
+            record.setAssignedDoctor(d);
+            d.addMedicalRecord(new MedicalRecord(monday, "Flu"));
+            assertEquals(2, d.getWorkload().getOpenRecords());
+            record.delete();
+            assertEquals(1, d.getWorkload().getOpenRecords());
+        });
+
+        runTest("testSuggestRebalancing", () -> {
+            Doctor busy = doctor("Webber");
+            Doctor medium = doctor("Hunt");
+            Doctor idle = doctor("Robbins");
+            for (int i = 0; i < 7; i++) {
+                busy.addMedicalRecord(new MedicalRecord(monday, "Case " + i));
+            }
+            medium.addMedicalRecord(new MedicalRecord(monday, "Case M"));
+            medium.addMedicalRecord(new MedicalRecord(monday, "Case N"));
+            MedicalRecord newest = busy.getMedicalRecords().get(6);
+
+            List<DoctorWorkload.Reassignment> moves =
+                DoctorWorkload.suggestRebalancing(Arrays.asList(busy, medium, idle));
+            assertEquals(4, moves.size());
+            assertEquals(newest, moves.get(0).getRecord());
+            assertEquals(7, busy.getWorkload().getOpenRecords());   // Nothing applied yet
+
+            DoctorWorkload.applyRebalancing(moves);
+            assertEquals(3, busy.getWorkload().getOpenRecords());
+            assertEquals(3, medium.getWorkload().getOpenRecords());
+            assertEquals(3, idle.getWorkload().getOpenRecords());
+            assertEquals(idle, newest.getAssignedDoctor());
+            assertEquals(0, DoctorWorkload.suggestRebalancing(Arrays.asList(busy, medium, idle)).size());
+        });
+
+        runTest("testRebalancingRolledBackWithOuterUnit", () -> {
+            Doctor busy = doctor("Altman");
+            Doctor idle = doctor("Avery");
+            for (int i = 0; i < 4; i++) {
+                busy.addMedicalRecord(new MedicalRecord(monday, "Case " + i));
+            }
+            List<MedicalRecord> before = new ArrayList<>(busy.getMedicalRecords());
+            List<DoctorWorkload.Reassignment> moves = DoctorWorkload.suggestRebalancing(Arrays.asList(busy, idle));
+            assertEquals(2, moves.size());
+
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                DoctorWorkload.applyRebalancing(moves);
+                throw new IllegalStateException("Caller's unit fails after the rebalancing");
+            }));
+            assertEquals(before, busy.getMedicalRecords());
+            assertEquals(0, idle.getMedicalRecords().size());
+            assertEquals(4, busy.getWorkload().getOpenRecords());
+            assertEquals(0, idle.getWorkload().getOpenRecords());
+            for (MedicalRecord record : before) {
+                assertEquals(busy, record.getAssignedDoctor());
+            }
+        });
+
+        runTest("testRebalancingThousandsOfRecords", () -> {
+            List<Doctor> doctors = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                doctors.add(doctor("Load" + i));
+            }
+            for (int i = 0; i < 20_000; i++) {
+                doctors.get(i % 5).addMedicalRecord(new MedicalRecord(monday, "Bulk " + i));
+            }
+            List<DoctorWorkload.Reassignment> moves = DoctorWorkload.suggestRebalancing(doctors);   // Timed in bench.DoctorWorkloadBenchmark
+            assertEquals(17_500, moves.size());
+            DoctorWorkload.applyRebalancing(moves);
+            for (Doctor d : doctors) {
+                assertEquals(500, d.getWorkload().getOpenRecords());
+            }
+        });
+    }
+}
@@ -18,5 +18,20 @@ public class GuardTest extends SimpleUnitTest {
                     "blart@prison.com", null, "Baton");
             });
         });
+
+        runTest("testStaffFindByEmail", () -> {
+            Staff found = Staff.findByEmail("blart@prison.com");
+            assertEquals("Blart", found.getSurname());
+            assertThrows(ValidationException.class, () -> {
+                new Guard("Other", "Guard", 1, "Night Shift", "555-0101",
+                    "blart@prison.com", Guard.Rank.JUNIOR, null);
+            });
+            CombinedStaff combined = new CombinedStaff("Alex", "Taylor", 10, "Flexible", "555-0102",
+                "alex@prison.com", Guard.Rank.SENIOR, "Baton", "MD-777", "555-0103");
+            assertEquals(combined, Staff.findByEmail("alex@prison.com"));
+            combined.setEmail("a.taylor@prison.com");
+            assertEquals(null, Staff.findByEmail("alex@prison.com"));
+            assertEquals(combined, Staff.findByEmail("a.taylor@prison.com"));
+        });
     }
 }
@@ -0,0 +1,136 @@
+package com.prison.model;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.exception.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LinkBatchTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testReverseSideRebuiltAtEnd", () -> {
+            Cell cell1 = new Cell(601, "Shared", 100, Cell.SecurityLevel.LOW);
+            Cell cell2 = new Cell(602, "Shared", 100, Cell.SecurityLevel.LOW);
+            List<Prisoner> loaded = new ArrayList<>();
+            LinkBatch.run(() -> {
+                for (int i = 0; i < 100; i++) {
+                    Prisoner prisoner = Fixtures.newPrisoner();
+                    prisoner.setCurrentCell(i % 2 == 0 ? cell1 : cell2);
+                    loaded.add(prisoner);
+                }
+                assertEquals(0, cell1.getPrisoners().size());  // Not rebuilt yet
+            });
+            assertEquals(50, cell1.getPrisoners().size());
+            assertEquals(50, cell2.getPrisoners().size());
+            assertEquals(loaded.get(0), cell1.getPrisoners().get(0));
+            assertEquals(cell2, loaded.get(1).getCurrentCell());
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testMovesKeepOnlyFinalLink", () -> {
+            Cell cell1 = new Cell(611, "Shared", 4, Cell.SecurityLevel.LOW);
+            Cell cell2 = new Cell(612, "Shared", 4, Cell.SecurityLevel.LOW);
+            Prisoner settled = Fixtures.newPrisoner();
+            settled.setCurrentCell(cell1);  // Linked before the batch
+            Prisoner moving = Fixtures.newPrisoner();
+            LinkBatch.run(() -> {
+                moving.setCurrentCell(cell1);
+                moving.setCurrentCell(cell2);
+                cell2.addPrisoner(settled);   // Reverse-side call records the prisoner's side
+            });
+            assertEquals(0, cell1.getPrisoners().size());
+            assertEquals(2, cell2.getPrisoners().size());
+            assertEquals(cell2, settled.getCurrentCell());
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testBlocksVisitsAndCourtCases", () -> {
+            Block block = new Block("Block Z", 10, Block.BlockType.MINIMUM_SECURITY);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Ann", "Doe", "555-0601", "Sister");
+            CourtCase courtCase = new CourtCase(LocalDate.now().plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Lee");
+            List<Visit> visits = new ArrayList<>();
+            LinkBatch.run(() -> {
+                for (int i = 0; i < 5; i++) {
+                    block.addCell(new Cell(620 + i, "Single", 1, Cell.SecurityLevel.MEDIUM));
+                    visits.add(new Visit(LocalDate.now().plusDays(i + 1), 30, Visit.VisitType.FAMILY,
+                            "VID6" + i, visitor, prisoner));
+                }
+                new Charges("Theft", null, Charges.SeverityLevel.Minor, LocalDate.now(), prisoner, courtCase);
+            });
+            assertEquals(5, block.getCells().size());
+            assertEquals(block, block.getCells().get(4).getBlock());
+            assertEquals(visits, prisoner.getVisits());  // {ordered} is preserved
+            assertEquals(1, courtCase.getCharges().size());
+            Block.clearExtent();
+            Cell.clearExtent();
+            Visit.clearExtent();
+            Visitor.clearExtent();
+            Charges.clearExtent();
+            CourtCase.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testRolledBackConstructorIsNotLinked", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Meal meal = new Meal("Lunch", Meal.DietPlan.STANDARD, 700.0, Meal.MealType.Lunch);
+            LinkBatch.run(() -> {
+                new MealDelivery(LocalDateTime.now().plusHours(1), prisoner, meal);
+                try {
+                    new MealDelivery(LocalDateTime.now().plusHours(2), prisoner, null);
+                } catch (InvalidReferenceException e) {
+                    // Bad row skipped by the loader
+                }
+            });
+            assertEquals(1, prisoner.getMealDeliveries().size());
+            assertEquals(1, meal.getDeliveries().size());
+            MealDelivery.clearExtent();
+            Meal.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testOneEventPerChangeInBatch", () -> {
+            EventBus.reset();
+            Cell cell = new Cell(631, "Shared", 4, Cell.SecurityLevel.LOW);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+            LinkBatch.run(() -> prisoner.setCurrentCell(cell));
+            assertEquals(1, events.size());   // The rebuilt reverse side adds no LINKED
+            assertTrue(events.get(0).is(Prisoner.class, "currentCell"));
+            assertEquals(cell, events.get(0).getNewValue());
+            assertEquals(List.of(prisoner), cell.getPrisoners());
+            EventBus.reset();
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testRolledBackBatchRestoresBothSides", () -> {
+            Block block = new Block("Batch Undo", 4, Block.BlockType.MINIMUM_SECURITY);
+            Cell from = new Cell(632, "Shared", 4, Cell.SecurityLevel.LOW);
+            Cell to = new Cell(633, "Shared", 4, Cell.SecurityLevel.LOW);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            prisoner.setCurrentCell(from);
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> LinkBatch.run(() -> {
+                prisoner.setCurrentCell(to);
+                to.setBlock(block);
+                throw new IllegalStateException("Loader fails mid-batch");
+            })));
+            assertEquals(from, prisoner.getCurrentCell());
+            assertEquals(List.of(prisoner), from.getPrisoners());
+            assertTrue(to.getPrisoners().isEmpty());
+            assertEquals(null, to.getBlock());
+            assertTrue(block.getCells().isEmpty());
+            Block.clearExtent();
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+        });
+    }
+}
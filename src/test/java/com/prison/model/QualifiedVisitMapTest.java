@@ -0,0 +1,131 @@
+package com.prison.model;
+
+import com.prison.exception.ValidationException;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class QualifiedVisitMapTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        LocalDate base = LocalDate.now().plusDays(30);
+
+        runTest("testVisitsIterateInDateOrder", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor lawyer = new Visitor("Order", "Lawyer", "555-8001", "Lawyer");
+            Visit late = new Visit(base.plusDays(5), 60, Visit.VisitType.LAWYER, "QV-3", lawyer, prisoner);
+            Visit early = new Visit(base, 60, Visit.VisitType.LAWYER, "QV-1", lawyer, prisoner);
+            Visit middle = new Visit(base.plusDays(2), 60, Visit.VisitType.LAWYER, "QV-2", lawyer, prisoner);
+            Visit sameDay = new Visit(base.plusDays(2), 30, Visit.VisitType.LAWYER, "QV-4", lawyer, prisoner);
+
+            assertEquals(List.of(early, middle, sameDay, late), new ArrayList<>(lawyer.getVisits()));
+            assertEquals(List.of("QV-1", "QV-2", "QV-4", "QV-3"), new ArrayList<>(lawyer.getVisitsByVisitorID().keySet()));
+            assertEquals(List.of(middle, sameDay), lawyer.getVisitsBetween(base.plusDays(1), base.plusDays(4)));
+
+            early.setDate(base.plusDays(10));
+            assertEquals(List.of(middle, sameDay, late, early), new ArrayList<>(lawyer.getVisits()));
+            assertEquals(early, lawyer.getVisitByVisitorID("QV-1"));
+
+            lawyer.updateVisitVisitorID("QV-2", "QV-2B", middle);
+            assertEquals(middle, lawyer.getVisitByVisitorID("QV-2B"));
+            assertEquals(List.of(sameDay, middle, late, early), new ArrayList<>(lawyer.getVisits()));   // Re-keyed, so last of its day
+            lawyer.removeVisitByVisitorID("QV-4");
+            assertEquals(List.of(middle, late, early), new ArrayList<>(lawyer.getVisits()));
+        });
+
+        runTest("testLookupSurvivesGrowthAndRemoval", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Grow", "Visitor", "555-8002", "Lawyer");
+            Visit visit = new Visit(base, 60, Visit.VisitType.LAWYER, "GROW-0", visitor, prisoner);
+            Visit[] visits = new Visit[2000];
+            for (int i = 0; i < visits.length; i++) {   // One visit per key; reusing the lawyer's visit would be rejected
+                visits[i] = new Visit(base.plusDays(i % 20), 60, Visit.VisitType.LAWYER, "GROW-V" + i,
+                    new Visitor("Grow", "Visitor" + i, "555-82" + i, "Lawyer"), Fixtures.newPrisoner());
+            }
+            QualifiedVisitMap map = new QualifiedVisitMap();
+            Map<String, Visit> expected = new HashMap<>();
+            for (int i = 0; i < 2000; i++) {
+                map.put("G" + i, visits[i]);
+                expected.put("G" + i, visits[i]);
+            }
+            for (int i = 0; i < 2000; i += 3) {
+                assertEquals(visits[i], map.remove("G" + i));
+                expected.remove("G" + i);
+            }
+            assertEquals(expected.size(), map.size());
+            for (int i = 0; i < 2000; i++) {
+                assertEquals(expected.get("G" + i), map.get("G" + i));
+            }
+            assertEquals(expected, map);
+            assertTrue(map.containsValue(visits[1]));
+            assertEquals(false, map.containsValue(visits[0]));
+            assertEquals(false, map.containsValue(visit));
+            assertThrows(IllegalArgumentException.class, () -> map.put("G-AGAIN", visits[1]));
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertEquals(false, map.containsValue(visits[1]));
+        });
+
+        runTest("testVisitMovesToItsNewVisitor", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor first = new Visitor("Move", "First", "555-8010", "Friend");
+            Visitor second = new Visitor("Move", "Second", "555-8011", "Friend");
+            Visit moving = new Visit(base.plusDays(3), 60, Visit.VisitType.GENERAL, "MOVE-1", first, prisoner);
+            Visit staying = new Visit(base.plusDays(6), 60, Visit.VisitType.GENERAL, "MOVE-2", second, prisoner);
+
+            moving.setVisitor(second);
+            assertTrue(first.getVisits().isEmpty());
+            assertEquals(List.of(moving, staying), new ArrayList<>(second.getVisits()));
+            assertEquals(moving, Visitor.findVisitByVisitorID("MOVE-1"));
+
+            moving.setDate(base.plusDays(9));   // Re-sorts the only map holding it
+            assertEquals(List.of(staying, moving), new ArrayList<>(second.getVisits()));
+            assertTrue(second.getVisitsByVisitorID().containsValue(moving));
+            assertThrows(ValidationException.class, () -> second.addVisitByVisitorID("MOVE-3", moving));
+
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                moving.setVisitor(first);
+                throw new IllegalStateException("Fails after the move");
+            }));
+            assertEquals(second, moving.getVisitor());
+            assertTrue(first.getVisits().isEmpty());
+            assertEquals(List.of(staying, moving), new ArrayList<>(second.getVisits()));
+        });
+
+        runTest("testHashMapFromOldFilesIsConverted", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Old", "File", "555-8003", "Friend");
+            Visit second = new Visit(base.plusDays(3), 60, Visit.VisitType.FAMILY, "OLD-2", visitor, prisoner);
+            Visit first = new Visit(base, 60, Visit.VisitType.FAMILY, "OLD-1", visitor, prisoner);
+            Map<String, Visit> old = new HashMap<>(visitor.getVisitsByVisitorID());
+            QualifiedVisitMap converted = new QualifiedVisitMap(old);
+            assertEquals(List.of(first, second), new ArrayList<>(converted.values()));
+            assertEquals(old, converted);
+        });
+
+        runTest("testMapIsSerializable", () -> {
+            try {
+                Prisoner prisoner = Fixtures.newPrisoner();
+                Visitor visitor = new Visitor("Saved", "Visitor", "555-8004", "Friend");
+                new Visit(base, 60, Visit.VisitType.FAMILY, "SAVED-1", visitor, prisoner);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(visitor);
+                }
+                Visitor copy;
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                    copy = (Visitor) in.readObject();
+                }
+                assertEquals("SAVED-1", copy.getVisitByVisitorID("SAVED-1").getVisitorID());
+                assertEquals(1, copy.getVisits().size());
+            } catch (IOException | ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.prison.model;
+
+import com.prison.exception.ValidationException;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalTime;
+
+public class ShiftIntervalTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testParsesTwelveHourRanges", () -> {
+            ShiftInterval shift = ShiftInterval.parse("9AM-5PM");
+            assertEquals(LocalTime.of(9, 0), shift.getStart());
+            assertEquals(LocalTime.of(17, 0), shift.getEnd());
+            assertEquals(480, shift.getDurationMinutes());
+            assertEquals(shift, ShiftInterval.parse("9am - 5pm"));
+            assertEquals(ShiftInterval.of(LocalTime.of(9, 30), LocalTime.of(17, 0)), ShiftInterval.parse("9:30 AM - 5 PM"));
+            assertEquals(ShiftInterval.of(LocalTime.of(0, 0), LocalTime.of(12, 0)), ShiftInterval.parse("12AM-12PM"));
+        });
+
+        runTest("testParsesTwentyFourHourAndNamedShifts", () -> {
+            assertEquals(ShiftInterval.DAY, ShiftInterval.parse("06:00-14:00"));
+            assertEquals(ShiftInterval.NIGHT, ShiftInterval.parse("22-6"));
+            assertEquals(ShiftInterval.DAY, ShiftInterval.parse("Day Shift"));
+            assertEquals(ShiftInterval.NIGHT, ShiftInterval.parse("night"));
+            assertEquals(ShiftInterval.EVENING, ShiftInterval.parse("Swing Shift"));
+            assertEquals(ShiftInterval.ALL_DAY, ShiftInterval.parse("24/7"));
+            assertEquals(ShiftInterval.MINUTES_PER_DAY, ShiftInterval.ALL_DAY.getDurationMinutes());
+            assertTrue(ShiftInterval.ALL_DAY.covers(LocalTime.of(13, 0)));
+        });
+
+        runTest("testOvernightShifts", () -> {
+            ShiftInterval late = ShiftInterval.parse("4PM-12AM");
+            assertTrue(late.isOvernight());
+            assertEquals(480, late.getDurationMinutes());
+            assertTrue(late.covers(LocalTime.of(23, 59)));
+            assertTrue(!late.covers(LocalTime.of(0, 0)));
+
+            ShiftInterval night = ShiftInterval.NIGHT;
+            assertTrue(night.covers(LocalTime.of(2, 0)));
+            assertTrue(night.covers(LocalTime.of(22, 0)));
+            assertTrue(!night.covers(LocalTime.of(6, 0)));
+            assertTrue(night.overlaps(300, 360));
+            assertTrue(!night.overlaps(360, 1320));
+        });
+
+        runTest("testRejectsUnrecognisedText", () -> {
+            assertThrows(ValidationException.class, () -> ShiftInterval.parse("whenever"));
+            assertThrows(ValidationException.class, () -> ShiftInterval.parse("9-5pm"));
+            assertThrows(ValidationException.class, () -> ShiftInterval.parse("13PM-5PM"));
+            assertThrows(ValidationException.class, () -> ShiftInterval.parse("9:75-17:00"));
+            assertEquals(null, ShiftInterval.tryParse("On-Call"));
+        });
+
+        runTest("testStaffKeepsParsedShift", () -> {
+            Guard guard = new Guard("Shift", "Parser", 3, "8am-4pm", "555-7001",
+                "shift.parser@prison.com", Guard.Rank.JUNIOR, "Baton");
+            assertEquals(ShiftInterval.parse("8AM-4PM"), guard.getShift());
+            guard.setShiftHour("Night Shift");
+            assertEquals(ShiftInterval.NIGHT, guard.getShift());
+            guard.setShiftHour("Flexible");
+            assertEquals(null, guard.getShift());
+            Staff.clearExtent();
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package com.prison.model;
+
+import com.prison.exception.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.time.YearMonth;
+import java.util.List;
+
+public class VisitQuotaTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        YearMonth month = YearMonth.now().plusMonths(2);
+        YearMonth nextMonth = month.plusMonths(1);
+
+        runTest("testCountersFollowVisitChanges", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Quota", "Visitor", "555-7001", "Sister");
+            Visit visit = new Visit(month.atDay(3), 60, Visit.VisitType.FAMILY, "VQ001", visitor, prisoner);
+            assertEquals(1, prisoner.getVisitQuota().getRequested(month));
+            assertEquals(0, prisoner.getVisitQuota().getApproved(month));
+
+            visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            assertEquals(1, prisoner.getVisitQuota().getApproved(month));
+            assertEquals(1, visitor.getVisitQuota().getApproved(month));
+            assertEquals(1, prisoner.getVisitQuota().getRemaining(month));
+
+            visit.setDate(nextMonth.atDay(3));
+            assertEquals(0, prisoner.getVisitQuota().getRequested(month));
+            assertEquals(1, prisoner.getVisitQuota().getApproved(nextMonth));
+
+            visit.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            assertEquals(0, prisoner.getVisitQuota().getRequested(nextMonth));
+            assertEquals(0, visitor.getVisitQuota().getApproved(nextMonth));
+
+            Visitor other = new Visitor("Quota", "Brother", "555-7006", "Brother");
+            visit.setApprovalStatus(Visit.ApprovalStatus.PENDING);
+            visit.setVisitor(other);
+            assertEquals(0, visitor.getVisitQuota().getRequested(nextMonth));
+            assertEquals(1, other.getVisitQuota().getRequested(nextMonth));
+            assertEquals(1, prisoner.getVisitQuota().getRequested(nextMonth));
+        });
+
+        runTest("testApprovalBeyondMonthlyLimitIsRejected", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor mother = new Visitor("Quota", "Mother", "555-7002", "Mother");
+            Visitor father = new Visitor("Quota", "Father", "555-7003", "Father");
+            Visitor friend = new Visitor("Quota", "Friend", "555-7004", "Friend");
+            Visit first = new Visit(month.atDay(5), 60, Visit.VisitType.FAMILY, "VQ101", mother, prisoner);
+            Visit second = new Visit(month.atDay(12), 60, Visit.VisitType.FAMILY, "VQ102", father, prisoner);
+            Visit third = new Visit(month.atDay(19), 60, Visit.VisitType.GENERAL, "VQ103", friend, prisoner);
+            first.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            second.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            assertEquals(3, prisoner.getVisitQuota().getRequested(month));
+            assertTrue(!prisoner.getVisitQuota().hasRoom(month));
+
+            assertThrows(ValidationException.class, () -> third.setApprovalStatus(Visit.ApprovalStatus.APPROVED));
+            assertEquals(Visit.ApprovalStatus.PENDING, third.getApprovalStatus());
+            second.setApprovalStatus(Visit.ApprovalStatus.COMPLETED);   // Already counted, no new quota needed
+
+            third.setDate(nextMonth.atDay(2));
+            third.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            assertThrows(ValidationException.class, () -> third.setDate(month.atDay(20)));
+            assertEquals(nextMonth.atDay(2), third.getDate());
+            assertEquals(0, VisitQuota.audit().size());
+        });
+
+        runTest("testRolledBackChangesRestoreFieldsAndCounters", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Quota", "Cousin", "555-7007", "Cousin");
+            Visit early = new Visit(month.atDay(8), 60, Visit.VisitType.FAMILY, "VQ301", visitor, prisoner);
+            Visit late = new Visit(month.atDay(22), 60, Visit.VisitType.FAMILY, "VQ302", visitor, prisoner);
+
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                early.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+                early.setDate(nextMonth.atDay(1));
+                throw new IllegalStateException("Unit fails after the changes");
+            }));
+            assertEquals(Visit.ApprovalStatus.PENDING, early.getApprovalStatus());
+            assertEquals(month.atDay(8), early.getDate());
+            assertEquals(0, prisoner.getVisitQuota().getApproved(month));
+            assertEquals(2, prisoner.getVisitQuota().getRequested(month));
+            assertEquals(0, visitor.getVisitQuota().getRequested(nextMonth));
+            assertEquals(List.of(early, late), visitor.getVisitsBetween(month.atDay(1), nextMonth.atEndOfMonth()));
+        });
+
+        runTest("testVisitorLimitAndRollback", () -> {
+            Visitor lawyer = new Visitor("Quota", "Lawyer", "555-7005", "Lawyer");
+            Prisoner a = Fixtures.newPrisoner();
+            Prisoner b = Fixtures.newPrisoner();
+            Prisoner c = Fixtures.newPrisoner();
+            new Visit(month.atDay(1), 30, Visit.VisitType.LAWYER, "VQ201", lawyer, a)
+                .setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            new Visit(month.atDay(2), 30, Visit.VisitType.LAWYER, "VQ202", lawyer, b)
+                .setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            Visit third = new Visit(month.atDay(3), 30, Visit.VisitType.LAWYER, "VQ203", lawyer, c);
+            assertThrows(ValidationException.class, () -> third.setApprovalStatus(Visit.ApprovalStatus.APPROVED));
+
+            // A visit whose construction fails leaves no count behind
+            assertThrows(InvalidReferenceException.class, () ->
+                new Visit(month.atDay(4), 30, Visit.VisitType.LAWYER, "VQ204", lawyer, null));
+            assertEquals(3, lawyer.getVisitQuota().getRequested(month));
+            Prisoner.clearExtent();
+            Visitor.clearExtent();
+            Visit.clearExtent();
+        });
+    }
+}
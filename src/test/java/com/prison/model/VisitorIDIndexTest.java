@@ -0,0 +1,124 @@
+package com.prison.model;
+
+import com.prison.exception.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VisitorIDIndexTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        LocalDate day = LocalDate.now().plusDays(7);
+
+        runTest("testVisitorIDIsUniqueAcrossVisitors", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor mother = new Visitor("Index", "Mother", "555-9001", "Mother");
+            Visitor father = new Visitor("Index", "Father", "555-9002", "Father");
+            Visit visit = new Visit(day, 60, Visit.VisitType.FAMILY, "GATE-1", mother, prisoner);
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-1"));
+
+            assertThrows(ValidationException.class, () ->
+                new Visit(day, 60, Visit.VisitType.FAMILY, "GATE-1", father, prisoner));
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-1"));
+            assertEquals(0, father.getVisits().size());
+
+            mother.removeVisitByVisitorID("GATE-1");
+            assertEquals(null, Visitor.findVisitByVisitorID("GATE-1"));
+            Visit other = new Visit(day, 60, Visit.VisitType.FAMILY, "GATE-1", father, prisoner);
+            assertEquals(other, Visitor.findVisitByVisitorID("GATE-1"));
+        });
+
+        runTest("testRenamingMovesTheIndexEntry", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Index", "Brother", "555-9003", "Brother");
+            Visit visit = new Visit(day, 60, Visit.VisitType.FAMILY, "GATE-2", visitor, prisoner);
+            Visit taken = new Visit(day, 60, Visit.VisitType.FAMILY, "GATE-3", visitor, prisoner);
+
+            visit.setVisitorID("GATE-2B");
+            assertEquals(null, Visitor.findVisitByVisitorID("GATE-2"));
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-2B"));
+            assertEquals(visit, visitor.getVisitByVisitorID("GATE-2B"));
+
+            visitor.updateVisitVisitorID("GATE-2B", "GATE-2C", visit);
+            assertEquals("GATE-2C", visit.getVisitorID());
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-2C"));
+
+            assertThrows(ValidationException.class, () -> visit.setVisitorID("GATE-3"));
+            assertEquals("GATE-2C", visit.getVisitorID());
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-2C"));
+            assertEquals(taken, Visitor.findVisitByVisitorID("GATE-3"));
+        });
+
+        runTest("testRollbackRestoresVisitorIDs", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Index", "Sister", "555-9004", "Sister");
+            Visit visit = new Visit(day, 60, Visit.VisitType.FAMILY, "GATE-4", visitor, prisoner);
+
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                visit.setVisitorID("GATE-4B");
+                throw new IllegalStateException("Fails after the rename");
+            }));
+            assertEquals("GATE-4", visit.getVisitorID());
+            assertEquals(visit, visitor.getVisitByVisitorID("GATE-4"));
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-4"));
+            assertEquals(null, Visitor.findVisitByVisitorID("GATE-4B"));
+
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                visitor.removeVisitByVisitorID("GATE-4");
+                throw new IllegalStateException("Fails after the removal");
+            }));
+            assertEquals(visit, visitor.getVisitByVisitorID("GATE-4"));
+            assertEquals(visit, Visitor.findVisitByVisitorID("GATE-4"));
+        });
+
+        runTest("testConcurrentGateLookups", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            List<Visit> visits = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Visitor visitor = new Visitor("Gate", "Visitor" + i, "555-92" + i, "Friend");
+                visits.add(new Visit(day, 30, Visit.VisitType.GENERAL, "SCAN-" + i, visitor, prisoner));
+            }
+            AtomicInteger misses = new AtomicInteger();
+            List<Thread> gates = new ArrayList<>();
+            for (int g = 0; g < 4; g++) {
+                Thread gate = new Thread(() -> {
+                    for (int round = 0; round < 50; round++) {
+                        for (int i = 0; i < visits.size(); i++) {
+                            if (Visitor.findVisitByVisitorID("SCAN-" + i) != visits.get(i)) {
+                                misses.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+                gates.add(gate);
+                gate.start();
+            }
+            // Registrations continue while the gates scan
+            Visitor late = new Visitor("Gate", "Late", "555-9300", "Friend");
+            for (int i = 0; i < 100; i++) {
+                new Visit(day, 30, Visit.VisitType.GENERAL, "LATE-" + i, late, prisoner);
+            }
+            for (Thread gate : gates) {
+                try {
+                    gate.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            assertEquals(0, misses.get());
+            assertEquals(100, late.getVisits().size());
+            assertTrue(Visitor.findVisitByVisitorID("LATE-99") != null);
+        });
+
+        runTest("testClearExtentEmptiesTheIndex", () -> {
+            Visitor.clearExtent();
+            assertEquals(null, Visitor.findVisitByVisitorID("GATE-3"));
+            assertEquals(null, Visitor.findVisitByVisitorID(null));
+            Visit.clearExtent();
+            Prisoner.clearExtent();
+        });
+    }
+}
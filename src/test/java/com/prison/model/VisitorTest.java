@@ -23,5 +23,18 @@ public class VisitorTest extends SimpleUnitTest {
         runTest("testVisitorMaxVisits", () -> {
             assertEquals(2, Visitor.getMaxAmountOfVisitPerMonth());
         });
+
+        runTest("testVisitorFindByContactInfo", () -> {
+            Visitor visitor = new Visitor("Mary", "Doe", "555-1234", "Sister");
+            assertEquals(visitor, Visitor.findByContactInfo("555-1234"));
+            assertThrows(ValidationException.class, () -> {
+                new Visitor("John", "Doe", "555-1234", "Brother");
+            });
+            visitor.setContactInfo("555-9999");
+            assertEquals(null, Visitor.findByContactInfo("555-1234"));
+            assertEquals(visitor, Visitor.findByContactInfo("555-9999"));
+            Visitor.clearExtent();
+            assertEquals(null, Visitor.findByContactInfo("555-9999"));
+        });
     }
 }
@@ -0,0 +1,168 @@
+package com.prison.scheduling;
+
+import com.prison.model.Block;
+import com.prison.model.CombinedStaff;
+import com.prison.model.Guard;
+import com.prison.model.Schedule;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EmergencyDispatchTest extends SimpleUnitTest {
+    private static int ids;
+
+    public static void main(String[] args) {
+        runTest("testIndexFollowsAvailabilityAndBlocks", () -> {
+            Fixtures.resetModel();
+            Block north = block("North", Block.BlockType.MAXIMUM_SECURITY);
+            Block south = block("South", Block.BlockType.MAXIMUM_SECURITY);
+            CombinedStaff early = responder(north);
+            EmergencyDispatch dispatch = new EmergencyDispatch();
+            CombinedStaff late = responder(null);
+
+            assertEquals(List.of(early), dispatch.getAvailable(north, EmergencyDispatch.Capability.GUARD));
+            assertEquals(List.of(early), dispatch.getAvailable(north, EmergencyDispatch.Capability.DOCTOR));
+            assertEquals(List.of(late), dispatch.getUnplaced(EmergencyDispatch.Capability.GUARD));
+
+            late.addBlock(south);
+            assertEquals(List.of(), dispatch.getUnplaced(EmergencyDispatch.Capability.GUARD));
+            assertEquals(List.of(late), dispatch.getAvailable(south, EmergencyDispatch.Capability.DOCTOR));
+
+            early.setAvailableForEmergency(false);
+            assertTrue(!dispatch.isAvailable(early));
+            assertEquals(List.of(), dispatch.getAvailable(north, EmergencyDispatch.Capability.GUARD));
+            early.setAvailableForEmergency(true);
+            assertEquals(List.of(early), dispatch.getAvailable(north, EmergencyDispatch.Capability.GUARD));
+            early.removeBlock(north);
+            assertEquals(List.of(early), dispatch.getUnplaced(EmergencyDispatch.Capability.GUARD));
+            dispatch.close();
+        });
+
+        runTest("testSchedulesPlaceResponders", () -> {
+            Fixtures.resetModel();
+            Block east = block("East", Block.BlockType.MEDICAL);
+            Block west = block("West", Block.BlockType.MEDICAL);
+            EmergencyDispatch dispatch = new EmergencyDispatch();
+            CombinedStaff medic = responder(null);
+            Schedule rounds = new Schedule(LocalTime.of(8, 0), LocalTime.of(12, 0), Schedule.ActivityType.Medical, east);
+            medic.addSchedule(rounds);
+            assertEquals(List.of(medic), dispatch.getAvailable(east, EmergencyDispatch.Capability.DOCTOR));
+
+            rounds.setBlock(west);
+            assertEquals(List.of(), dispatch.getAvailable(east, EmergencyDispatch.Capability.DOCTOR));
+            assertEquals(List.of(medic), dispatch.getAvailable(west, EmergencyDispatch.Capability.DOCTOR));
+            medic.removeSchedule(rounds);
+            assertEquals(List.of(medic), dispatch.getUnplaced(EmergencyDispatch.Capability.DOCTOR));
+            dispatch.close();
+        });
+
+        runTest("testClaimsNearestFirst", () -> {
+            Fixtures.resetModel();
+            Block alarm = block("Alarm", Block.BlockType.MAXIMUM_SECURITY);
+            Block sameType = block("Twin", Block.BlockType.MAXIMUM_SECURITY);
+            Block other = block("Other", Block.BlockType.MINIMUM_SECURITY);
+            CombinedStaff far = responder(other);
+            CombinedStaff unplaced = responder(null);
+            CombinedStaff near = responder(sameType);
+            CombinedStaff here = responder(alarm);
+            CombinedStaff off = responder(alarm);
+            off.setAvailableForEmergency(false);
+            EmergencyDispatch dispatch = new EmergencyDispatch();
+
+            List<CombinedStaff> order = new ArrayList<>();
+            List<Integer> distances = new ArrayList<>();
+            Optional<EmergencyDispatch.Claim> claim;
+            while ((claim = dispatch.claimNearest(alarm, EmergencyDispatch.Capability.GUARD)).isPresent()) {
+                order.add(claim.get().getResponder());
+                distances.add(claim.get().getDistance());
+            }
+            assertEquals(List.of(here, near, far, unplaced), order);
+            assertEquals(List.of(0, 1, 2, EmergencyDispatch.UNPLACED_DISTANCE), distances);
+            assertEquals(0, dispatch.getAvailableCount());
+            assertEquals(List.of(), dispatch.getAvailable(alarm, EmergencyDispatch.Capability.DOCTOR));
+
+            near.addBlock(alarm);   // Claimed members stay out of the index
+            assertTrue(!dispatch.isAvailable(near));
+            assertEquals(alarm, dispatch.getClaim(near).getAlarmBlock());
+            assertTrue(dispatch.release(near));
+            assertTrue(!dispatch.release(near));
+            assertEquals(List.of(near), dispatch.getAvailable(alarm, EmergencyDispatch.Capability.DOCTOR));
+            assertEquals(near, dispatch.claimNearest(alarm, EmergencyDispatch.Capability.DOCTOR).get().getResponder());
+            dispatch.close();
+        });
+
+        runTest("testSimultaneousAlarmsNeverShareAResponder", () -> {
+            Fixtures.resetModel();
+            List<Block> blocks = new ArrayList<>();
+            for (int b = 0; b < 10; b++) {
+                blocks.add(block("Wing " + b, b % 2 == 0 ? Block.BlockType.MEDIUM_SECURITY : Block.BlockType.MAXIMUM_SECURITY));
+            }
+            for (int i = 0; i < 500; i++) {
+                responder(blocks.get(i % blocks.size()));
+            }
+            EmergencyDispatch dispatch = new EmergencyDispatch();
+            int threads = 8;
+            Set<CombinedStaff> responders = ConcurrentHashMap.newKeySet();
+            AtomicInteger claims = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> alarms = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int index = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; ; i++) {
+                        EmergencyDispatch.Capability capability = EmergencyDispatch.Capability.values()[i % 2];
+                        Optional<EmergencyDispatch.Claim> claim =
+                            dispatch.claimNearest(blocks.get((index + i) % blocks.size()), capability);
+                        if (claim.isEmpty()) {
+                            break;
+                        }
+                        claims.incrementAndGet();
+                        responders.add(claim.get().getResponder());
+                    }
+                });
+                alarms.add(thread);
+                thread.start();
+            }
+            start.countDown();
+            for (Thread thread : alarms) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            assertEquals(500, claims.get());
+            assertEquals(500, responders.size());
+            assertEquals(0, dispatch.getAvailableCount());
+            dispatch.close();
+            Fixtures.resetModel();
+        });
+    }
+
+    private static Block block(String name, Block.BlockType type) {
+        return new Block(name, 4, type);
+    }
+
+    private static CombinedStaff responder(Block block) {
+        int id = ++ids;
+        CombinedStaff member = new CombinedStaff("Responder", "No" + id, 6, "Day Shift", "555-" + id,
+            String.format("responder%05d@prison.com", id), Guard.Rank.SENIOR, "Taser", "LIC-" + id, "ext " + id);
+        member.setAvailableForEmergency(true);
+        if (block != null) {
+            member.addBlock(block);
+        }
+        return member;
+    }
+}
@@ -0,0 +1,121 @@
+package com.prison.scheduling;
+
+import com.prison.event.EventBus;
+import com.prison.model.Prisoner;
+import com.prison.model.Punishment;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import com.prison.tx.UnitOfWork;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class PunishmentExpirySchedulerTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        LocalDate today = LocalDate.of(2024, 5, 10);
+        Clock fixed = Clock.fixed(today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+
+        runTest("testRolledBackBatchIsQueuedAgain", () -> {
+            EventBus.reset();
+            Punishment.clearExtent();
+            Punishment due = new Punishment("WARNING", "Verbal", today.minusDays(10), 3, "Active");
+            PunishmentExpiryScheduler scheduler = new PunishmentExpiryScheduler(fixed);
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                assertEquals(List.of(due), scheduler.advance().getPunishments());
+                throw new IllegalStateException("Caller's unit fails after the batch");
+            }));
+            assertEquals("Active", due.getStatus());
+            assertEquals(1, scheduler.size());
+            assertEquals(List.of(due), scheduler.advance().getPunishments());
+            assertEquals(Punishment.STATUS_COMPLETED, due.getStatus());
+            assertEquals(0, scheduler.size());
+            scheduler.close();
+            EventBus.reset();
+        });
+
+        runTest("testDuePunishmentsCompleteInOneBatch", () -> {
+            EventBus.reset();
+            Punishment.clearExtent();
+            Prisoner p1 = Fixtures.newPrisoner();
+            Prisoner p2 = Fixtures.newPrisoner();
+            Punishment overdue = new Punishment("WARNING", "Verbal", today.minusDays(10), 3, "Active");
+            PunishmentExpiryScheduler scheduler = new PunishmentExpiryScheduler(fixed);
+            Punishment endsToday = new Punishment("EXTRA_DUTY", "Kitchen", today.minusDays(7), 7, "Active");
+            Punishment running = new Punishment("SOLITARY_CONFINEMENT", "Fight", today.minusDays(1), 5, "Active");
+            Punishment inactive = new Punishment("WARNING", "Old", today.minusDays(30), 1, "Completed");
+            overdue.addPrisoner(p1);
+            endsToday.addPrisoner(p1);
+            endsToday.addPrisoner(p2);
+            running.addPrisoner(p2);
+
+            assertEquals(3, scheduler.size());
+            assertEquals(today.minusDays(7), scheduler.getNextExpiry());
+
+            PunishmentExpiryScheduler.ExpiryBatch batch = scheduler.advance();
+            assertEquals(List.of(overdue, endsToday), batch.getPunishments());
+            assertEquals(List.of(p1, p2), batch.getPrisoners());
+            assertEquals(Punishment.STATUS_COMPLETED, overdue.getStatus());
+            assertEquals("Active", running.getStatus());
+            assertEquals("Completed", inactive.getStatus());
+            assertEquals(1, scheduler.size());
+            assertTrue(scheduler.advance().isEmpty());
+            scheduler.close();
+            EventBus.reset();
+        });
+
+        runTest("testQueueFollowsPunishmentChanges", () -> {
+            EventBus.reset();
+            Punishment.clearExtent();
+            PunishmentExpiryScheduler scheduler = new PunishmentExpiryScheduler(fixed);
+            Punishment p = new Punishment("EXTRA_DUTY", "Laundry", today, 10, "Active");
+            assertEquals(today.plusDays(10), scheduler.getNextExpiry());
+
+            p.setDuration(2);
+            assertEquals(List.of(p), scheduler.getExpiringBetween(today, today.plusDays(3)));
+            p.setStartDate(today.minusDays(5));
+            assertEquals(today.minusDays(3), scheduler.getNextExpiry());
+
+            p.setStatus("Suspended");
+            assertEquals(0, scheduler.size());
+            assertTrue(scheduler.advance().isEmpty());
+            assertEquals("Suspended", p.getStatus());
+
+            p.setStatus("Active");
+            assertEquals(List.of(p), scheduler.advance().getPunishments());
+            scheduler.close();
+            EventBus.reset();
+        });
+
+        runTest("testTimerFiresAtEndDate", () -> {
+            EventBus.reset();
+            Punishment.clearExtent();
+            // A clock that reaches the next midnight (UTC) in about 300 ms
+            Instant now = Instant.now();
+            LocalDate day = LocalDate.ofInstant(now, ZoneOffset.UTC).plusDays(1);
+            Duration untilMidnight = Duration.between(now, day.atStartOfDay(ZoneOffset.UTC).toInstant());
+            Clock clock = Clock.offset(Clock.systemUTC(), untilMidnight.minusMillis(300));
+
+            PunishmentExpiryScheduler scheduler = new PunishmentExpiryScheduler(clock);
+            BlockingQueue<PunishmentExpiryScheduler.ExpiryBatch> batches = new ArrayBlockingQueue<>(4);
+            scheduler.start(batches::add);
+            Punishment p = new Punishment("WARNING", "Curfew", day.minusDays(1), 1, "Active");
+            PunishmentExpiryScheduler.ExpiryBatch batch;
+            try {
+                batch = batches.poll(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            assertTrue(batch != null);
+            assertEquals(List.of(p), batch.getPunishments());
+            assertEquals(Punishment.STATUS_COMPLETED, p.getStatus());
+            scheduler.close();
+            EventBus.reset();
+        });
+    }
+}
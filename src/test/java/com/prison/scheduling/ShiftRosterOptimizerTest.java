@@ -0,0 +1,157 @@
+package com.prison.scheduling;
+
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.CombinedStaff;
+import com.prison.model.Doctor;
+import com.prison.model.Guard;
+import com.prison.model.Staff;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ShiftRosterOptimizerTest extends SimpleUnitTest {
+    private static int ids;
+
+    public static void main(String[] args) {
+        ShiftRosterOptimizer optimizer = new ShiftRosterOptimizer(ShiftRosterOptimizer.defaultMinimumGuards(),
+            5, 2, 50_000, Duration.ofSeconds(30), 42);
+
+        runTest("testEveryPlaceIsFilledWithinWorkingRules", () -> {
+            Fixtures.resetModel();
+            Block high = block("Roster High", Cell.SecurityLevel.HIGH);
+            Block low = block("Roster Low", Cell.SecurityLevel.LOW);
+            block("Roster Empty", null);
+            List<Staff> staff = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                staff.add(guard(i % 3 == 0 ? "Night Shift" : "9AM-5PM"));
+            }
+            ShiftRosterOptimizer.Roster roster = optimizer.optimize();
+
+            assertEquals(0, roster.getShortfall());
+            assertEquals(7 * 3 * (3 + 1), roster.getAssignments().size());
+            assertEquals(3, roster.getStaff(high, DayOfWeek.MONDAY, ShiftRosterOptimizer.Shift.NIGHT).size());
+            assertEquals(1, roster.getStaff(low, DayOfWeek.SUNDAY, ShiftRosterOptimizer.Shift.DAY).size());
+            for (Staff member : staff) {
+                assertTrue(roster.getShiftCount(member) <= 5);
+                List<ShiftRosterOptimizer.Assignment> week = roster.getAssignments().stream()
+                    .filter(a -> a.getStaff() == member).collect(Collectors.toList());
+                for (ShiftRosterOptimizer.Assignment a : week) {
+                    for (ShiftRosterOptimizer.Assignment b : week) {
+                        assertTrue(a == b || a.getDay() != b.getDay());
+                        boolean dayAfterNight = a.getShift() == ShiftRosterOptimizer.Shift.NIGHT
+                            && b.getShift() == ShiftRosterOptimizer.Shift.DAY && b.getDay() == a.getDay().plus(1)
+                            && b.getDay() != DayOfWeek.MONDAY;
+                        assertTrue(!dayAfterNight);
+                    }
+                }
+            }
+        });
+
+        runTest("testSubordinatesWorkWithASupervisor", () -> {
+            Fixtures.resetModel();
+            Block block = block("Roster Supervised", Cell.SecurityLevel.MEDIUM);
+            Guard chief = guard("Day Shift");
+            Guard lieutenant = guard("Day Shift");
+            List<Guard> juniors = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Guard junior = guard("Day Shift");
+                junior.addSupervisor(i == 0 ? chief : lieutenant);
+                juniors.add(junior);
+            }
+            for (int i = 0; i < 8; i++) {
+                guard(i % 2 == 0 ? "Evening Shift" : "Night Shift");
+            }
+            ShiftRosterOptimizer.Roster roster = optimizer.optimize();
+
+            assertEquals(0, roster.getShortfall());
+            assertEquals(0, roster.getSupervisorViolations());
+            for (ShiftRosterOptimizer.Assignment a : roster.getAssignments()) {
+                if (juniors.contains(a.getStaff())) {
+                    List<Staff> colleagues = roster.getStaff(block, a.getDay(), a.getShift());
+                    Guard supervisor = ((Guard) a.getStaff()).getSupervisors().get(0);
+                    assertTrue(colleagues.contains(supervisor));
+                }
+            }
+        });
+
+        runTest("testEmergencyStaffAreKeptFloating", () -> {
+            Fixtures.resetModel();
+            Block block = block("Roster Float", Cell.SecurityLevel.LOW);
+            for (int i = 0; i < 6; i++) {
+                guard("Day Shift");
+            }
+            CombinedStaff medic = combined(true);
+            CombinedStaff regular = combined(false);
+            new Doctor("Roster", "Doctor", 4, "Day Shift", "555-8100", "roster.doctor@prison.com", "LIC-8100", "ext 8100");
+            ShiftRosterOptimizer.Roster roster = optimizer.optimize();
+
+            assertEquals(0, roster.getShortfall());
+            assertEquals(21, roster.getAssignments().size());
+            assertTrue(roster.getAssignments().stream().noneMatch(a -> a.getStaff() == medic));
+            assertTrue(roster.getAssignments().stream().noneMatch(a -> a.getStaff() instanceof Doctor));
+            assertTrue(roster.getAssignments().stream().noneMatch(a -> a.getStaff() == regular.getGuardRole()));
+            assertEquals(5, roster.getShiftCount(medic));
+            int floating = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (ShiftRosterOptimizer.Shift shift : ShiftRosterOptimizer.Shift.values()) {
+                    floating += roster.getFloating(day, shift).size();
+                }
+            }
+            assertEquals(5, floating);
+            assertEquals(List.of(), roster.getStaff(block("Roster Unplanned", Cell.SecurityLevel.LOW),
+                DayOfWeek.MONDAY, ShiftRosterOptimizer.Shift.DAY));
+        });
+
+        runTest("testEmergencyStaffFillShortages", () -> {
+            Fixtures.resetModel();
+            block("Roster Short", Cell.SecurityLevel.LOW);
+            guard("Day Shift");
+            guard("Day Shift");
+            CombinedStaff medic = combined(true);
+            ShiftRosterOptimizer.Roster roster = optimizer.optimize();
+
+            assertEquals(21 - 15, roster.getShortfall());
+            assertEquals(5, (int) roster.getAssignments().stream().filter(a -> a.getStaff() == medic).count());
+        });
+
+        runTest("testSameSeedGivesSameRoster", () -> {
+            Fixtures.resetModel();
+            block("Roster Seed A", Cell.SecurityLevel.HIGH);
+            block("Roster Seed B", Cell.SecurityLevel.MEDIUM);
+            for (int i = 0; i < 30; i++) {
+                guard(i % 2 == 0 ? "2PM-10PM" : "6AM-2PM");
+            }
+            String first = optimizer.optimize().getAssignments().toString();
+            String second = optimizer.optimize().getAssignments().toString();
+            assertEquals(first, second);
+            Fixtures.resetModel();
+        });
+    }
+
+    private static Block block(String name, Cell.SecurityLevel level) {
+        Block block = new Block(name, 4, Block.BlockType.MEDIUM_SECURITY);
+        if (level != null) {
+            new Cell(++ids, "Standard", 2, level).setBlock(block);
+        }
+        return block;
+    }
+
+    private static Guard guard(String shiftHour) {
+        int id = ++ids;
+        return new Guard("Roster", "Guard" + id, 5, shiftHour, "555-" + id,
+            "roster.guard" + id + "@prison.com", Guard.Rank.JUNIOR, "Baton");
+    }
+
+    private static CombinedStaff combined(boolean availableForEmergency) {
+        int id = ++ids;
+        CombinedStaff member = new CombinedStaff("Roster", "Medic" + id, 6, "Day Shift", "555-" + id,
+            "roster.medic" + id + "@prison.com", Guard.Rank.SENIOR, "Taser", "LIC-" + id, "ext " + id);
+        member.setAvailableForEmergency(availableForEmergency);
+        return member;
+    }
+}
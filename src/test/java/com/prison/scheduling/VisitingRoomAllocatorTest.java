@@ -0,0 +1,156 @@
+package com.prison.scheduling;
+
+import com.prison.model.Prisoner;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class VisitingRoomAllocatorTest extends SimpleUnitTest {
+    private static final LocalTime OPENING = LocalTime.of(9, 0);
+    private static final LocalTime CLOSING = LocalTime.of(12, 0);
+    private static int ids;
+
+    public static void main(String[] args) {
+        LocalDate day = LocalDate.now().plusDays(10);
+
+        runTest("testDayIsPackedByPriority", () -> {
+            Fixtures.resetModel();
+            Visit general = approved(day, 120, Visit.VisitType.GENERAL);
+            Visit family = approved(day, 90, Visit.VisitType.FAMILY);
+            Visit lawyer = approved(day, 60, Visit.VisitType.LAWYER);
+            Visit pending = newVisit(day, 60, Visit.VisitType.LAWYER);
+            VisitingRoomAllocator allocator = new VisitingRoomAllocator(1, OPENING, CLOSING, 30);
+
+            assertEquals(LocalTime.of(9, 0), allocator.getPlacement(lawyer).getStart());
+            assertEquals(LocalTime.of(10, 0), allocator.getPlacement(family).getStart());
+            assertEquals(LocalTime.of(11, 30), allocator.getPlacement(family).getEnd());
+            assertEquals(null, allocator.getPlacement(general));
+            assertEquals(null, allocator.getPlacement(pending));
+            assertEquals(List.of(general), allocator.getWaitingList(day));
+            assertEquals(2, allocator.getSchedule(day).size());
+            assertEquals(5 / 6.0, allocator.getUtilization(day));
+            allocator.close();
+        });
+
+        runTest("testApprovalAndRejectionAreIncremental", () -> {
+            Fixtures.resetModel();
+            VisitingRoomAllocator allocator = new VisitingRoomAllocator(2, OPENING, CLOSING, 15);
+            Visit first = approved(day, 180, Visit.VisitType.FAMILY);
+            Visit second = approved(day, 100, Visit.VisitType.GENERAL);
+            assertEquals(1, allocator.getPlacement(first).getRoom());
+            assertEquals(2, allocator.getPlacement(second).getRoom());
+            assertEquals(LocalTime.of(10, 45), allocator.getPlacement(second).getEnd());   // Rounded up to the slot
+
+            Visit third = approved(day, 90, Visit.VisitType.GENERAL);
+            assertEquals(List.of(third), allocator.getWaitingList(day));
+
+            first.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            assertEquals(null, allocator.getPlacement(first));
+            assertEquals(1, allocator.getPlacement(third).getRoom());
+            assertTrue(allocator.getWaitingList(day).isEmpty());
+
+            third.setDate(day.plusDays(1));
+            assertTrue(allocator.getUtilization(day.plusDays(1)) > 0);
+            assertEquals(LocalTime.of(9, 0), allocator.getPlacement(third).getStart());
+            assertEquals(1, allocator.getSchedule(day).size());
+            allocator.close();
+        });
+
+        runTest("testLawyerDisplacesLowerPriorityVisit", () -> {
+            Fixtures.resetModel();
+            VisitingRoomAllocator allocator = new VisitingRoomAllocator(1, OPENING, CLOSING, 30);
+            Visit family = approved(day, 120, Visit.VisitType.FAMILY);
+            Visit general = approved(day, 60, Visit.VisitType.GENERAL);
+            Visit lawyer = approved(day, 60, Visit.VisitType.LAWYER);
+
+            assertEquals(LocalTime.of(11, 0), allocator.getPlacement(lawyer).getStart());
+            assertEquals(null, allocator.getPlacement(general));
+            assertEquals(List.of(general), allocator.getWaitingList(day));
+            assertEquals(LocalTime.of(9, 0), allocator.getPlacement(family).getStart());
+
+            lawyer.setDuration(30);
+            assertEquals(LocalTime.of(11, 0), allocator.getPlacement(lawyer).getStart());
+            assertEquals(List.of(general), allocator.getWaitingList(day));
+
+            general.setType(Visit.VisitType.LAWYER);
+            assertEquals(LocalTime.of(9, 0), allocator.getPlacement(general).getStart());
+            assertEquals(List.of(family), allocator.getWaitingList(day));
+            general.setDuration(30);
+            assertEquals(LocalTime.of(11, 30), allocator.getPlacement(general).getStart());
+            allocator.close();
+        });
+
+        runTest("testWaitingVisitChangingTypeLeavesNoStaleSlot", () -> {
+            Fixtures.resetModel();
+            VisitingRoomAllocator allocator = new VisitingRoomAllocator(1, OPENING, OPENING.plusHours(1), 30);
+            Visit lawyer = approved(day, 60, Visit.VisitType.LAWYER);
+            Visit family = approved(day, 30, Visit.VisitType.FAMILY);
+            Visit general = approved(day, 30, Visit.VisitType.GENERAL);
+            assertEquals(List.of(family, general), allocator.getWaitingList(day));
+
+            general.setType(Visit.VisitType.LAWYER);   // Moves ahead of family in the waiting order
+            assertEquals(List.of(general, family), allocator.getWaitingList(day));
+
+            lawyer.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            assertEquals(2, allocator.getSchedule(day).size());
+            assertTrue(allocator.getWaitingList(day).isEmpty());
+            general.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            family.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            assertTrue(allocator.getSchedule(day).isEmpty());
+            assertEquals(0.0, allocator.getUtilization(day));
+            allocator.close();
+        });
+
+        runTest("testRepackRemovesFragmentation", () -> {
+            Fixtures.resetModel();
+            VisitingRoomAllocator allocator = new VisitingRoomAllocator(1, OPENING, CLOSING, 30);
+            Visit a = approved(day, 60, Visit.VisitType.GENERAL);
+            Visit b = approved(day, 60, Visit.VisitType.GENERAL);
+            Visit c = approved(day, 60, Visit.VisitType.GENERAL);
+            a.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            c.setApprovalStatus(Visit.ApprovalStatus.REJECTED);
+            Visit longer = approved(day, 120, Visit.VisitType.GENERAL);
+            assertEquals(List.of(longer), allocator.getWaitingList(day));
+
+            allocator.repack(day);
+            assertEquals(LocalTime.of(9, 0), allocator.getPlacement(longer).getStart());
+            assertEquals(LocalTime.of(11, 0), allocator.getPlacement(b).getStart());
+            assertEquals(1.0, allocator.getUtilization(day));
+            allocator.close();
+        });
+
+        runTest("testThousandsOfVisitsAreRebuilt", () -> {
+            Fixtures.resetModel();
+            LocalDate busy = day.plusDays(2);
+            VisitingRoomAllocator allocator = new VisitingRoomAllocator(300, LocalTime.of(8, 0), LocalTime.of(20, 0), 15);
+            Visit.VisitType[] types = Visit.VisitType.values();
+            for (int i = 0; i < 5000; i++) {
+                approved(busy, 30 + (i % 2) * 15, types[i % types.length]);
+            }
+            assertEquals(5000, allocator.getSchedule(busy).size() + allocator.getWaitingList(busy).size());
+
+            allocator.rebuild();   // Timed in bench.VisitingRoomAllocatorBenchmark
+            assertTrue(allocator.getWaitingList(busy).isEmpty());
+            allocator.close();
+        });
+
+        Fixtures.resetModel();
+    }
+
+    private static Visit approved(LocalDate day, int minutes, Visit.VisitType type) {
+        Visit visit = newVisit(day, minutes, type);
+        visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+        return visit;
+    }
+
+    private static Visit newVisit(LocalDate day, int minutes, Visit.VisitType type) {
+        int id = ++ids;
+        Prisoner prisoner = new Prisoner("John", "Doe", 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+        Visitor visitor = new Visitor("Room", "Visitor" + id, "555-" + id, "Friend");
+        return new Visit(day, minutes, type, "VR" + id, visitor, prisoner);
+    }
+}
@@ -0,0 +1,67 @@
+package com.prison.search;
+
+import com.prison.event.EventBus;
+import com.prison.model.*;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.util.List;
+
+public class FullTextIndexTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testTermPhraseAndPrefixQueries", () -> {
+            EventBus.reset();
+            IncidentReport fight = new IncidentReport(LocalDate.now(), "Fight in the canteen during lunch", IncidentReport.Status.OPEN);
+            IncidentReport contraband = new IncidentReport(LocalDate.now(), "Contraband found during cell search", IncidentReport.Status.OPEN);
+            FullTextIndex index = new FullTextIndex();  // Picks up existing reports
+            assertEquals(List.of(fight, contraband), index.search("during"));
+            assertEquals(List.of(fight), index.searchPhrase("in the canteen"));
+            assertEquals(0, index.searchPhrase("the in canteen").size());
+            assertEquals(List.of(contraband), index.searchPrefix("contra"));
+            assertEquals(List.of(contraband), index.search("\"cell search\" CONTRA*"));
+            index.close();
+            IncidentReport.clearExtent();
+        });
+
+        runTest("testIncrementalUpdates", () -> {
+            EventBus.reset();
+            FullTextIndex index = new FullTextIndex();
+            Assignment assignment = new Assignment("Kitchen", "Prepare breakfast trays");
+            assertEquals(List.of(assignment), index.search("breakfast"));
+
+            assignment.setDescription("Clean laundry room");
+            assertEquals(0, index.search("breakfast").size());
+            assertEquals(List.of(assignment), index.search("laundry"));
+
+            MedicalRecord record = new MedicalRecord(LocalDate.of(2023, 1, 1), "Seasonal flu");
+            record.addHistory("Prescribed antiviral medication");
+            record.updateMedicalRecord("Bronchitis");
+            assertEquals(List.of(record), index.searchPhrase("antiviral medication"));
+            assertEquals(0, index.search("flu").size());
+            assertEquals(List.of(record), index.search(MedicalRecord.class, "bronchitis"));
+
+            record.removeHistory("Prescribed antiviral medication");
+            assertEquals(0, index.search("antiviral").size());
+            assertEquals(List.of(record), index.search("updated bronchitis"));  // Diagnosis and history entry
+            index.close();
+            Assignment.clearExtent();
+            MedicalRecord.clearExtent();
+        });
+
+        runTest("testChargesCreatedAndDeleted", () -> {
+            EventBus.reset();
+            FullTextIndex index = new FullTextIndex();
+            Prisoner prisoner = new Prisoner("John", "Doe", 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+            CourtCase courtCase = new CourtCase(LocalDate.now().plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Smith");
+            Charges charge = new Charges("Armed robbery of a jewelry store", null, Charges.SeverityLevel.Severe,
+                    LocalDate.now(), prisoner, courtCase);
+            assertEquals(List.of(charge), index.search(Charges.class, "jewel*"));
+            charge.delete();
+            assertEquals(0, index.search("jewelry").size());
+            index.close();
+            EventBus.reset();
+            Charges.clearExtent();
+            CourtCase.clearExtent();
+            Prisoner.clearExtent();
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.prison.test;
+
+import com.prison.event.EventBus;
+import com.prison.model.Assignment;
+import com.prison.model.Block;
+import com.prison.model.Cell;
+import com.prison.model.Charges;
+import com.prison.model.CourtCase;
+import com.prison.model.IncidentReport;
+import com.prison.model.Meal;
+import com.prison.model.MealDelivery;
+import com.prison.model.MedicalExamination;
+import com.prison.model.MedicalRecord;
+import com.prison.model.MedicalReport;
+import com.prison.model.Prisoner;
+import com.prison.model.Punishment;
+import com.prison.model.Schedule;
+import com.prison.model.Staff;
+import com.prison.model.Visit;
+import com.prison.model.Visitor;
+import java.time.LocalDate;
+
+/**
+ * Model objects and model resets shared by the tests.
+ */
+public final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * A valid prisoner, for tests that only need one to link to.
+     */
+    public static Prisoner newPrisoner() {
+        return new Prisoner("John", "Doe", 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+    }
+
+    /**
+     * Drops every event subscriber and empties every extent, so a test
+     * starts from an empty model. Staff.clearExtent() covers the guard,
+     * doctor, director and combined partitions.
+     */
+    public static void resetModel() {
+        EventBus.reset();
+        Staff.clearExtent();
+        Visit.clearExtent();
+        Visitor.clearExtent();
+        Punishment.clearExtent();
+        Schedule.clearExtent();
+        Assignment.clearExtent();
+        MealDelivery.clearExtent();
+        Meal.clearExtent();
+        IncidentReport.clearExtent();
+        MedicalExamination.clearExtent();
+        MedicalReport.clearExtent();
+        MedicalRecord.clearExtent();
+        Charges.clearExtent();
+        CourtCase.clearExtent();
+        Prisoner.clearExtent();
+        Cell.clearExtent();
+        Block.clearExtent();
+    }
+}
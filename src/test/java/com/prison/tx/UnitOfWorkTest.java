@@ -0,0 +1,394 @@
+package com.prison.tx;
+
+import com.prison.event.EventBus;
+import com.prison.event.ModelEvent;
+import com.prison.exception.*;
+import com.prison.model.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UnitOfWorkTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testFailedChargesLeavesCourtCaseUntouched", () -> {
+            CourtCase courtCase = new CourtCase(LocalDate.now().plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Smith");
+            assertThrows(InvalidReferenceException.class, () ->
+                new Charges("Theft", null, Charges.SeverityLevel.Minor, LocalDate.now(), null, courtCase));
+            assertEquals(0, courtCase.getCharges().size());
+            assertEquals(0, Charges.getExtent().size());
+            CourtCase.clearExtent();
+        });
+
+        runTest("testFailedVisitReleasesVisitorID", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Mary", "Doe", "555-0401", "Sister");
+            assertThrows(InvalidReferenceException.class, () ->
+                new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID301", visitor, null));
+            assertEquals(null, visitor.getVisitByVisitorID("VID301"));
+            Visit visit = new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID301", visitor, prisoner);
+            assertEquals(visit, visitor.getVisitByVisitorID("VID301"));
+            assertEquals(1, Visit.getExtent().size());
+            Visit.clearExtent();
+            Visitor.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testFailedMealDeliveryLeavesPrisonerUntouched", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            assertThrows(InvalidReferenceException.class, () ->
+                new MealDelivery(LocalDateTime.now().plusHours(1), prisoner, null));
+            assertEquals(0, prisoner.getMealDeliveries().size());
+            assertEquals(0, MealDelivery.getExtent().size());
+            Prisoner.clearExtent();
+        });
+
+        runTest("testRollbackUndoesRegistrationsLinksAndEvents", () -> {
+            EventBus.reset();
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Meal meal = new Meal("Lunch", Meal.DietPlan.STANDARD, 700.0, Meal.MealType.Lunch);
+            int eventsBefore = events.size();
+            assertThrows(ValidationException.class, () -> UnitOfWork.run(() -> {
+                new MealDelivery(LocalDateTime.now().plusHours(1), prisoner, meal);
+                new Cell(401, "Single", 1, Cell.SecurityLevel.LOW);
+                new Cell(401, "Single", 1, Cell.SecurityLevel.LOW);  // Duplicate number fails the unit
+            }));
+            assertEquals(0, prisoner.getMealDeliveries().size());
+            assertEquals(0, meal.getDeliveries().size());
+            assertEquals(0, MealDelivery.getExtent().size());
+            assertEquals(0, Cell.getExtent().size());
+            assertEquals(null, Cell.findByCellNumber(401));
+            assertEquals(eventsBefore, events.size());  // Nothing published for the rolled back unit
+            EventBus.reset();
+            Meal.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testCommitPublishesRegistrationsAfterWork", () -> {
+            EventBus.reset();
+            List<ModelEvent> events = new ArrayList<>();
+            EventBus.subscribe(events::add);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            UnitOfWork.run(() -> {
+                Visitor visitor = new Visitor("Tom", "Doe", "555-0402", "Brother");
+                new Visit(LocalDate.now().plusDays(1), 30, Visit.VisitType.GENERAL, "VID302", visitor, prisoner);
+                assertEquals(0, Visit.getExtent().size());  // Not visible before commit
+                assertEquals(1, events.size());             // Only the prisoner's CREATED so far
+            });
+            assertEquals(1, Visit.getExtent().size());
+            assertEquals(2, events.size());
+            EventBus.reset();
+            Visit.clearExtent();
+            Visitor.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testNestedFailureRollsBackToSavepoint", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Meal meal = new Meal("Dinner", Meal.DietPlan.STANDARD, 600.0, Meal.MealType.Dinner);
+            UnitOfWork.run(() -> {
+                new MealDelivery(LocalDateTime.now().plusHours(1), prisoner, meal);
+                try {
+                    new MealDelivery(LocalDateTime.now().plusHours(2), prisoner, null);
+                } catch (InvalidReferenceException e) {
+                    // Skip the bad row, keep the rest of the batch
+                }
+            });
+            assertEquals(1, prisoner.getMealDeliveries().size());
+            assertEquals(1, MealDelivery.getExtent().size());
+            MealDelivery.clearExtent();
+            Meal.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testConcurrentWriteToSameObjectRetries", () -> {
+            CourtCase courtCase = new CourtCase(LocalDate.now().plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Brown");
+            Prisoner first = Fixtures.newPrisoner();
+            Prisoner second = Fixtures.newPrisoner();
+            CountDownLatch touched = new CountDownLatch(1);
+            CountDownLatch otherCommitted = new CountDownLatch(1);
+            AtomicInteger attempts = new AtomicInteger();
+            Thread slow = new Thread(() -> UnitOfWork.run(() -> {
+                new Charges("Theft", null, Charges.SeverityLevel.Minor, LocalDate.now(), first, courtCase);
+                if (attempts.incrementAndGet() == 1) {
+                    touched.countDown();
+                    await(otherCommitted);
+                }
+            }));
+            slow.start();
+            await(touched);
+            new Charges("Fraud", null, Charges.SeverityLevel.Moderate, LocalDate.now(), second, courtCase);
+            otherCommitted.countDown();
+            try {
+                slow.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertEquals(2, attempts.get());  // First attempt conflicted on courtCase and was retried
+            assertEquals(2, courtCase.getCharges().size());
+            assertEquals(2, Charges.getExtent().size());
+            Charges.clearExtent();
+            CourtCase.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testRollbackUndoesDoctorLinksAndPunishmentStatus", () -> {
+            Doctor first = new Doctor("Dr", "First", 10, "9am-5pm", "555-0411", "uow.first@hospital.com", "LIC-UOW-1", "555-0412");
+            Doctor second = new Doctor("Dr", "Second", 10, "9am-5pm", "555-0413", "uow.second@hospital.com", "LIC-UOW-2", "555-0414");
+            MedicalRecord record = new MedicalRecord(LocalDate.now(), "Checkup");
+            record.setAssignedDoctor(first);
+            Punishment punishment = new Punishment("Isolation", "Fight", LocalDate.now(), 10, "Active");
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                record.setAssignedDoctor(second);
+                punishment.setStatus("Completed");
+                throw new IllegalStateException("Fails after the writes");
+            }));
+            assertEquals(first, record.getAssignedDoctor());
+            assertEquals(List.of(record), first.getMedicalRecords());
+            assertTrue(second.getMedicalRecords().isEmpty());
+            assertEquals(1, first.getWorkload().getOpenRecords());
+            assertEquals(0, second.getWorkload().getOpenRecords());
+            assertEquals("Active", punishment.getStatus());
+            Staff.clearExtent();
+            MedicalRecord.clearExtent();
+            Punishment.clearExtent();
+        });
+
+        runTest("testRollbackUndoesVisitCheckIn", () -> {
+            Director director = new Director("Roll", "Back", 10, "8am-6pm", "555-0415",
+                "uow.director@prison.com", Director.DirectorRank.GENERAL);
+            Visitor visitor = new Visitor("Uow", "Visitor", "555-0416", "Friend");
+            Visit visit = new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID401", visitor, Fixtures.newPrisoner());
+            visit.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+                visit.setApprovalStatus(Visit.ApprovalStatus.COMPLETED);
+                visit.addDirector(director);
+                throw new IllegalStateException("Fails after the check-in");
+            }));
+            assertEquals(Visit.ApprovalStatus.APPROVED, visit.getApprovalStatus());
+            assertTrue(visit.getDirectors().isEmpty());
+            assertTrue(director.getApprovedVisits().isEmpty());
+            Staff.clearExtent();
+            Visit.clearExtent();
+            Visitor.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testRollbackUndoesCellMoveAndPunishmentLink", () -> {
+            Cell first = new Cell(411, "Single", 1, Cell.SecurityLevel.LOW);
+            Cell second = new Cell(412, "Single", 1, Cell.SecurityLevel.LOW);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            prisoner.assignToCell(first);
+            Punishment punishment = new Punishment("Isolation", "Fight", LocalDate.now(), 10, "Active");
+            failAfter(() -> {
+                prisoner.setCurrentCell(second);
+                punishment.addPrisoner(prisoner);
+            });
+            assertEquals(first, prisoner.getCurrentCell());
+            assertEquals(List.of(prisoner), first.getPrisoners());
+            assertTrue(second.getPrisoners().isEmpty());
+            assertTrue(punishment.getPrisoners().isEmpty());
+            assertTrue(prisoner.getPunishments().isEmpty());
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+            Punishment.clearExtent();
+        });
+
+        runTest("testRollbackUndoesUnlinks", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Punishment punishment = new Punishment("Isolation", "Fight", LocalDate.now(), 10, "Active");
+            punishment.addPrisoner(prisoner);
+            CourtCase courtCase = new CourtCase(LocalDate.now().plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Grey");
+            prisoner.addCourtCase(courtCase);
+            failAfter(() -> {
+                prisoner.removePunishment(punishment);
+                prisoner.removeCourtCase(courtCase);
+            });
+            assertEquals(List.of(prisoner), punishment.getPrisoners());
+            assertEquals(List.of(punishment), prisoner.getPunishments());
+            assertEquals(List.of(courtCase), prisoner.getCourtCases());
+            CourtCase.clearExtent();
+            Prisoner.clearExtent();
+            Punishment.clearExtent();
+        });
+
+        runTest("testRollbackUndoesScheduleLinks", () -> {
+            Block first = new Block("A", 10, Block.BlockType.MINIMUM_SECURITY);
+            Block second = new Block("B", 10, Block.BlockType.MINIMUM_SECURITY);
+            Schedule schedule = new Schedule(LocalTime.of(9, 0), LocalTime.of(10, 0),
+                Schedule.ActivityType.Work, first);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Guard guard = new Guard("Sam", "Stone", 5, "8am-4pm", "555-0421", "uow.schedule@prison.com",
+                Guard.Rank.JUNIOR, "Baton");
+            failAfter(() -> {
+                schedule.setBlock(second);
+                prisoner.addSchedule(schedule);
+                guard.addSchedule(schedule);
+            });
+            assertEquals(first, schedule.getBlock());
+            assertEquals(List.of(schedule), first.getSchedules());
+            assertTrue(second.getSchedules().isEmpty());
+            assertTrue(schedule.getPrisoners().isEmpty());
+            assertTrue(prisoner.getSchedules().isEmpty());
+            assertTrue(schedule.getStaffMembers().isEmpty());
+            assertTrue(guard.getSchedules().isEmpty());
+            Schedule.clearExtent();
+            Block.clearExtent();
+            Staff.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testRollbackUndoesBlockLinks", () -> {
+            Block first = new Block("A", 10, Block.BlockType.MINIMUM_SECURITY);
+            Block second = new Block("B", 10, Block.BlockType.MINIMUM_SECURITY);
+            Cell cell = new Cell(421, "Single", 1, Cell.SecurityLevel.LOW);
+            cell.setBlock(first);
+            Guard guard = new Guard("Sam", "Stone", 5, "8am-4pm", "555-0422", "uow.block@prison.com",
+                Guard.Rank.JUNIOR, "Baton");
+            guard.addBlock(first);
+            failAfter(() -> {
+                cell.setBlock(second);
+                guard.setAssignedBlock(second);
+            });
+            assertEquals(first, cell.getBlock());
+            assertEquals(List.of(cell), first.getCells());
+            assertTrue(second.getCells().isEmpty());
+            assertEquals(List.of(first), guard.getBlocks());
+            assertEquals(List.<Staff>of(guard), first.getStaffMembers());
+            assertTrue(second.getStaffMembers().isEmpty());
+            Cell.clearExtent();
+            Block.clearExtent();
+            Staff.clearExtent();
+        });
+
+        runTest("testRollbackUndoesGuardLinks", () -> {
+            Guard guard = new Guard("Sam", "Stone", 5, "8am-4pm", "555-0423", "uow.guard@prison.com",
+                Guard.Rank.JUNIOR, "Baton");
+            Guard chief = new Guard("Kim", "Hale", 15, "8am-4pm", "555-0424", "uow.chief@prison.com",
+                Guard.Rank.CHIEF, "Pistol");
+            Meal meal = new Meal("Lunch", Meal.DietPlan.STANDARD, 700.0, Meal.MealType.Lunch);
+            IncidentReport incident = new IncidentReport(LocalDate.now(), "Fight", IncidentReport.Status.OPEN);
+            failAfter(() -> {
+                guard.addSupervisor(chief);
+                guard.addMeal(meal);
+                incident.addReportingGuard(guard);
+            });
+            assertTrue(guard.getSupervisors().isEmpty());
+            assertTrue(chief.getSubordinates().isEmpty());
+            assertTrue(guard.getMeals().isEmpty());
+            assertTrue(meal.getSupervisingGuards().isEmpty());
+            assertTrue(incident.getReportingGuards().isEmpty());
+            assertTrue(guard.getReportedIncidents().isEmpty());
+            Staff.clearExtent();
+            Meal.clearExtent();
+            IncidentReport.clearExtent();
+        });
+
+        runTest("testRollbackUndoesDirectorAndIncidentLinks", () -> {
+            Director director = new Director("Roll", "Back", 10, "8am-6pm", "555-0425",
+                "uow.links@prison.com", Director.DirectorRank.GENERAL);
+            Punishment punishment = new Punishment("Isolation", "Fight", LocalDate.now(), 10, "Active");
+            Assignment assignment = new Assignment("Audit", "Quarterly audit");
+            IncidentReport incident = new IncidentReport(LocalDate.now(), "Fight", IncidentReport.Status.OPEN);
+            IncidentReport related = new IncidentReport(LocalDate.now(), "Riot", IncidentReport.Status.OPEN);
+            failAfter(() -> {
+                director.addPunishment(punishment);
+                director.addAssignment(assignment);
+                incident.setReviewingDirector(director);
+                incident.setPunishment(punishment);
+                incident.setRelatedIncident(related);
+            });
+            assertTrue(director.getPunishments().isEmpty());
+            assertTrue(punishment.getDirectors().isEmpty());
+            assertTrue(director.getAssignments().isEmpty());
+            assertTrue(assignment.getDirectors().isEmpty());
+            assertEquals(null, incident.getReviewingDirector());
+            assertTrue(director.getReviewedIncidentReports().isEmpty());
+            assertEquals(null, incident.getPunishment());
+            assertEquals(null, punishment.getIncident());
+            assertEquals(null, incident.getRelatedIncident());
+            assertEquals(null, related.getRelatedIncident());
+            Staff.clearExtent();
+            Punishment.clearExtent();
+            Assignment.clearExtent();
+            IncidentReport.clearExtent();
+        });
+
+        runTest("testRollbackUndoesMedicalLinks", () -> {
+            Doctor doctor = new Doctor("Dr", "Link", 10, "9am-5pm", "555-0426", "uow.medical@hospital.com", "LIC-UOW-3", "555-0427");
+            MedicalRecord first = new MedicalRecord(LocalDate.now(), "Checkup");
+            MedicalRecord second = new MedicalRecord(LocalDate.now(), "Follow-up");
+            MedicalExamination exam = new MedicalExamination(LocalDate.now(), MedicalExamination.ReasonForVisit.Routine, doctor);
+            exam.setMedicalRecord(first);
+            exam.addPrescription("Rest");
+            first.addHistory("Flu");
+            failAfter(() -> {
+                exam.setMedicalRecord(second);
+                exam.removePrescription("Rest");
+                exam.addPrescription("Aspirin");
+                first.removeHistory("Flu");
+            });
+            assertEquals(first, exam.getMedicalRecord());
+            assertEquals(List.of(exam), first.getExaminations());
+            assertTrue(second.getExaminations().isEmpty());
+            assertEquals(List.of("Rest"), exam.getPrescription());
+            assertEquals(List.of("Flu"), first.getHistory());
+            Staff.clearExtent();
+            MedicalExamination.clearExtent();
+            MedicalRecord.clearExtent();
+        });
+
+        runTest("testRollbackUndoesAttributesAndNaturalKeys", () -> {
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Cell cell = new Cell(431, "Single", 1, Cell.SecurityLevel.LOW);
+            Guard guard = new Guard("Sam", "Stone", 5, "8am-4pm", "555-0428", "uow.key@prison.com",
+                Guard.Rank.JUNIOR, "Baton");
+            failAfter(() -> {
+                prisoner.setName("Jack");
+                prisoner.setSentenceYears(9);
+                prisoner.addPossession("Book");
+                cell.setCellNumber(432);
+                guard.setEmail("uow.renamed@prison.com");
+                guard.setShiftHour("4pm-12am");
+            });
+            assertEquals("John", prisoner.getName());
+            assertEquals(5, prisoner.getSentenceYears());
+            assertTrue(prisoner.getPossession().isEmpty());
+            assertEquals(431, cell.getCellNumber());
+            assertEquals(cell, Cell.findByCellNumber(431));
+            assertEquals(null, Cell.findByCellNumber(432));
+            assertEquals("uow.key@prison.com", guard.getEmail());
+            assertEquals(guard, Staff.findByEmail("uow.key@prison.com"));
+            assertEquals(null, Staff.findByEmail("uow.renamed@prison.com"));
+            assertEquals("8am-4pm", guard.getShiftHour());
+            Prisoner.clearExtent();
+            Cell.clearExtent();
+            Staff.clearExtent();
+        });
+    }
+
+    /**
+     * Runs work in a unit of work that fails once it is done.
+     */
+    private static void failAfter(Runnable work) {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+            work.run();
+            throw new IllegalStateException("Fails after the writes");
+        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.prison.util;
+
+import com.prison.model.Director;
+import com.prison.model.Guard;
+import com.prison.model.Staff;
+import com.prison.test.SimpleUnitTest;
+import java.util.List;
+
+public class PartitionedExtentTest extends SimpleUnitTest {
+    abstract static class Animal {}
+    static class Dog extends Animal {}
+    static class Puppy extends Dog {}
+    static class Cat extends Animal {}
+
+    public static void main(String[] args) {
+        runTest("testViewsByClassAndSupertype", () -> {
+            PartitionedExtent<Animal> animals = new PartitionedExtent<>(Animal.class);
+            Dog dog = new Dog();
+            Puppy puppy = new Puppy();
+            Cat cat = new Cat();
+            animals.add(dog);
+            animals.add(cat);
+            animals.add(puppy);
+
+            assertEquals(List.of(dog, cat, puppy), animals.snapshot());
+            assertEquals(List.of(dog, puppy), animals.view(Dog.class).snapshot());
+            assertEquals(List.of(puppy), animals.view(Puppy.class).snapshot());
+            assertEquals(List.of(cat), animals.view(Cat.class).snapshot());
+            assertEquals(3, animals.size());
+            assertTrue(animals.view(Dog.class).contains(puppy));
+            assertTrue(!animals.view(Cat.class).contains(dog));
+        });
+
+        runTest("testViewIsCachedAndSeesNewPartitions", () -> {
+            PartitionedExtent<Animal> animals = new PartitionedExtent<>(Animal.class);
+            PartitionedExtent.View<Dog> dogs = animals.view(Dog.class);
+            assertTrue(dogs.snapshot().isEmpty());
+            Puppy puppy = new Puppy();
+            animals.add(puppy);   // First Puppy: creates the partition after the view
+            assertEquals(List.of(puppy), dogs.snapshot());
+            assertTrue(dogs == animals.view(Dog.class));
+        });
+
+        runTest("testSnapshotIsPointInTimeAndImmutable", () -> {
+            PartitionedExtent<Animal> animals = new PartitionedExtent<>(Animal.class);
+            Dog dog = new Dog();
+            animals.add(dog);
+            animals.add(new Cat());
+            List<Animal> before = animals.snapshot();
+            animals.add(new Puppy());
+            animals.remove(dog);
+            assertEquals(2, before.size());
+            assertEquals(dog, before.get(0));
+            assertEquals(2, animals.size());
+            assertThrows(UnsupportedOperationException.class, () -> before.add(new Cat()));
+        });
+
+        runTest("testClearAndReplaceOnlyTouchTheViewsPartitions", () -> {
+            PartitionedExtent<Animal> animals = new PartitionedExtent<>(Animal.class);
+            Cat cat = new Cat();
+            animals.add(new Dog());
+            animals.add(new Puppy());
+            animals.add(cat);
+
+            animals.view(Dog.class).clear();
+            assertEquals(List.of(cat), animals.snapshot());
+
+            Dog dog = new Dog();
+            Puppy puppy = new Puppy();
+            animals.view(Dog.class).replaceAll(List.of(puppy, dog));
+            assertEquals(List.of(dog, puppy), animals.view(Dog.class).snapshot());
+            assertEquals(List.of(cat), animals.view(Cat.class).snapshot());
+            assertThrows(IllegalArgumentException.class, () -> addUnchecked(animals, "not an animal"));
+        });
+
+        runTest("testStaffIsStoredOnce", () -> {
+            Staff.clearExtent();
+            Guard guard = new Guard("Part", "Guard", 2, "Day Shift", "555-7101", "partitioned.guard@prison.com",
+                Guard.Rank.SENIOR, "Baton");
+            Director director = new Director("Part", "Director", 20, "9am-5pm", "555-7102",
+                "partitioned.director@prison.com", Director.DirectorRank.GENERAL);
+
+            assertEquals(List.of(guard), Guard.getGuardExtent());
+            assertEquals(List.of(director), Director.getDirectorExtent());
+            assertEquals(2, Staff.getExtent().size());
+            assertEquals(2, VersionedExtent.captureAll().get(Staff.class).size());
+
+            Guard.clearGuardExtent();
+            assertEquals(List.of(director), Staff.getExtent());
+            Staff.clearExtent();
+            assertTrue(Director.getDirectorExtent().isEmpty());
+        });
+    }
+
+    /**
+     * What a caller holding the extent through an unchecked cast could do.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addUnchecked(PartitionedExtent<?> extent, Object element) {
+        ((PartitionedExtent<Object>) extent).add(element);
+    }
+}
@@ -0,0 +1,103 @@
+package com.prison.util;
+
+import com.prison.test.SimpleUnitTest;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class PrimitiveCollectionsTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testIntObjectMapPutGetRemove", () -> {
+            IntObjectMap<String> map = new IntObjectMap<>();
+            assertEquals(null, map.put(101, "A"));
+            assertEquals("A", map.put(101, "B"));
+            assertEquals("B", map.get(101));
+            assertTrue(map.containsKey(101));
+            assertEquals(1, map.size());
+            assertEquals("B", map.remove(101));
+            assertTrue(map.isEmpty());
+            assertEquals(null, map.get(101));
+        });
+
+        runTest("testIntObjectMapZeroAndNegativeKeys", () -> {
+            IntObjectMap<String> map = new IntObjectMap<>();
+            map.put(0, "zero");
+            map.put(-5, "minus");
+            assertEquals("zero", map.get(0));
+            assertEquals("minus", map.get(-5));
+            assertEquals(2, map.size());
+            assertEquals(2, map.keys().length);
+            map.remove(0);
+            assertTrue(!map.containsKey(0));
+        });
+
+        runTest("testIntObjectMapMatchesHashMap", () -> {
+            IntObjectMap<Integer> map = new IntObjectMap<>();
+            Map<Integer, Integer> reference = new HashMap<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 50_000; i++) {
+                int key = random.nextInt(2_000) - 1_000;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(reference.remove(key), map.remove(key));
+                } else {
+                    assertEquals(reference.put(key, i), map.put(key, i));
+                }
+            }
+            assertEquals(reference.size(), map.size());
+            for (Map.Entry<Integer, Integer> entry : reference.entrySet()) {
+                assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+            assertEquals(reference.size(), map.values().size());
+        });
+
+        runTest("testLongObjectMapMatchesHashMap", () -> {
+            LongObjectMap<Long> map = new LongObjectMap<>(4);
+            Map<Long, Long> reference = new HashMap<>();
+            Random random = new Random(7);
+            for (int i = 0; i < 50_000; i++) {
+                long key = random.nextInt(2_000) * 0x1_0000_0001L;
+                if (random.nextInt(3) == 0) {
+                    assertEquals(reference.remove(key), map.remove(key));
+                } else {
+                    assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+                }
+            }
+            assertEquals(reference.size(), map.size());
+            for (long key : map.keys()) {
+                assertEquals(reference.get(key), map.get(key));
+            }
+        });
+
+        runTest("testIntSetAndLongSet", () -> {
+            IntSet ints = new IntSet();
+            LongSet longs = new LongSet();
+            Set<Integer> reference = new HashSet<>();
+            Random random = new Random(1);
+            for (int i = 0; i < 20_000; i++) {
+                int value = random.nextInt(500);
+                if (random.nextBoolean()) {
+                    assertEquals(reference.add(value), ints.add(value));
+                    longs.add(value);
+                } else {
+                    assertEquals(reference.remove(value), ints.remove(value));
+                    longs.remove(value);
+                }
+            }
+            assertEquals(reference.size(), ints.size());
+            assertEquals(reference.size(), longs.size());
+            for (int value : ints.toArray()) {
+                assertTrue(reference.contains(value));
+                assertTrue(longs.contains(value));
+            }
+            ints.clear();
+            assertTrue(ints.isEmpty());
+        });
+
+        runTest("testInvalidExpectedSize", () -> {
+            assertThrows(IllegalArgumentException.class, () -> new IntObjectMap<String>(-1));
+            assertThrows(IllegalArgumentException.class, () -> new IntSet(-1));
+        });
+    }
+}
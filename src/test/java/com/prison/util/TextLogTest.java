@@ -0,0 +1,98 @@
+package com.prison.util;
+
+import com.prison.model.MedicalRecord;
+import com.prison.test.SimpleUnitTest;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+public class TextLogTest extends SimpleUnitTest {
+    public static void main(String[] args) throws IOException {
+        MappedSegmentStore small = new MappedSegmentStore(Files.createTempDirectory("textlog-test"), 256);
+
+        runTest("testAppendAndReadAcrossSegments", () -> {
+            TextLog log = new TextLog(small);
+            for (int i = 0; i < 100; i++) {
+                log.add("Entry " + i + " - übung");  // Non-ASCII survives the UTF-8 round trip
+            }
+            assertEquals(100, log.size());
+            assertEquals("Entry 0 - übung", log.get(0));
+            assertEquals("Entry 99 - übung", log.get(99));
+            assertTrue(small.getMappedBytes() > 256);  // Rolled over to further segments
+            assertThrows(IndexOutOfBoundsException.class, () -> log.get(100));
+        });
+
+        runTest("testRemoveDropsEntry", () -> {
+            TextLog log = new TextLog(small);
+            log.add("a");
+            log.add("b");
+            log.add("c");
+            assertTrue(log.remove("b"));
+            assertEquals(List.of("a", "c"), log);
+            assertTrue(!log.remove("x"));
+        });
+
+        runTest("testReleasedSegmentsAreDropped", () -> {
+            try {
+                Path directory = Files.createTempDirectory("textlog-release");
+                MappedSegmentStore store = new MappedSegmentStore(directory, 256);
+                TextLog log = new TextLog(store);
+                for (int i = 0; i < 100; i++) {
+                    log.add("Entry " + i);
+                }
+                long mapped = store.getMappedBytes();
+                assertTrue(mapped > 1024);
+                log.subList(0, 90).clear();   // Removes entry by entry, releasing each
+                assertEquals("Entry 90", log.get(0));
+                assertTrue(store.getMappedBytes() < mapped);
+                assertEquals(store.getMappedBytes() / 256, (long) directory.toFile().list().length);
+
+                log.clear();
+                assertEquals(0L, store.getLiveBytes());
+                assertEquals(256L, store.getMappedBytes());   // Only the segment being written
+                log.add("Reused");
+                assertEquals("Reused", log.get(0));
+                assertEquals(256L, store.getMappedBytes());
+
+                store.close();
+                assertEquals(0L, store.getMappedBytes());
+                assertEquals(0, directory.toFile().list().length);
+                assertThrows(IllegalStateException.class, () -> log.add("Closed"));
+                assertThrows(IndexOutOfBoundsException.class, () -> log.get(0));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        runTest("testOversizedEntryRejected", () -> {
+            TextLog log = new TextLog(small);
+            assertThrows(IllegalArgumentException.class, () -> log.add("x".repeat(300)));
+            assertEquals(0, log.size());
+        });
+
+        runTest("testMedicalHistorySurvivesSerialization", () -> {
+            MedicalRecord record = new MedicalRecord(LocalDate.of(2023, 1, 1), "Flu");
+            record.addHistory("Initial visit");
+            record.updateMedicalRecord("Recovered");
+            List<String> history = record.getHistory();
+            assertEquals(2, history.size());
+            assertThrows(UnsupportedOperationException.class, () -> history.add("x"));
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(record);
+                }
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                    MedicalRecord copy = (MedicalRecord) in.readObject();
+                    assertEquals(record.getHistory(), copy.getHistory());
+                    assertEquals("Initial visit", copy.getHistory().get(0));
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+            MedicalRecord.clearExtent();
+        });
+    }
+}
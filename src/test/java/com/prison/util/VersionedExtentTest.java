@@ -0,0 +1,74 @@
+package com.prison.util;
+
+import com.prison.model.Cell;
+import com.prison.model.Prisoner;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VersionedExtentTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testSnapshotIsPointInTime", () -> {
+            VersionedExtent<String> extent = new VersionedExtent<>(String.class);
+            extent.add("a");
+            extent.add("b");
+            List<String> before = extent.snapshot();
+            extent.add("c");
+            extent.remove("a");
+            assertEquals(2, before.size());
+            assertEquals("a", before.get(0));
+            assertEquals(List.of("b", "c"), extent.snapshot());
+            assertThrows(UnsupportedOperationException.class, () -> before.add("d"));
+        });
+
+        runTest("testGetExtentDoesNotSeeLaterMutations", () -> {
+            Prisoner.clearExtent();
+            Fixtures.newPrisoner();
+            List<Prisoner> report = Prisoner.getExtent();
+            Prisoner second = Fixtures.newPrisoner();
+            assertEquals(1, report.size());
+            assertEquals(2, Prisoner.getExtent().size());
+            for (Prisoner prisoner : report) {  // Iterating while mutating must not throw
+                Fixtures.newPrisoner();
+            }
+            assertTrue(Prisoner.getExtent().contains(second));
+            Prisoner.clearExtent();
+        });
+
+        runTest("testCaptureAllIsConsistentAcrossExtents", () -> {
+            Prisoner.clearExtent();
+            Cell.clearExtent();
+            // Writer keeps the two extents the same size: one Cell per Prisoner
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 1; running.get() && i < 20_000; i++) {
+                        new Cell(50_000 + i, "Single", 1, Cell.SecurityLevel.LOW);
+                        Fixtures.newPrisoner();
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            writer.start();
+            for (int i = 0; i < 2_000; i++) {
+                ExtentSnapshot snapshot = VersionedExtent.captureAll();
+                int cells = snapshot.get(Cell.class).size();
+                int prisoners = snapshot.get(Prisoner.class).size();
+                assertTrue(cells == prisoners || cells == prisoners + 1);
+            }
+            running.set(false);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertEquals(null, failure.get());
+            Prisoner.clearExtent();
+            Cell.clearExtent();
+        });
+    }
+}
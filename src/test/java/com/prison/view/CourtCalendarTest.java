@@ -0,0 +1,89 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.model.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+public class CourtCalendarTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        LocalDate day = LocalDate.of(2024, 9, 10);
+
+        runTest("testCasesByDateAndJudge", () -> {
+            EventBus.reset();
+            CourtCase early = new CourtCase(day, CourtCase.CaseStatus.PENDING, "Judge Wapner");
+            CourtCalendar calendar = new CourtCalendar();
+            CourtCase late = new CourtCase(day, CourtCase.CaseStatus.PENDING, "Judge Dredd");
+            new CourtCase(day.plusDays(1), CourtCase.CaseStatus.PENDING, "Judge Dredd");
+
+            assertEquals(List.of(late, early), calendar.getCases(day));
+            assertEquals(List.of(early), calendar.getCases(day, "Judge Wapner"));
+            assertEquals(3, calendar.getCasesBetween(day, day.plusDays(1)).size());
+
+            early.setCourtDate(day.plusDays(1));
+            early.setJudgeName("Judge Dredd");
+            assertEquals(List.of(late), calendar.getCases(day));
+            assertEquals(2, calendar.getCases(day.plusDays(1), "Judge Dredd").size());
+
+            late.delete();
+            assertEquals(0, calendar.getCases(day).size());
+            calendar.close();
+            EventBus.reset();
+            CourtCase.clearExtent();
+        });
+
+        runTest("testDefendantsFollowCharges", () -> {
+            EventBus.reset();
+            CourtCalendar calendar = new CourtCalendar();
+            CourtCase courtCase = new CourtCase(day, CourtCase.CaseStatus.PENDING, "Judge Judy");
+            Prisoner p1 = Fixtures.newPrisoner();
+            Prisoner p2 = Fixtures.newPrisoner();
+            Charges first = new Charges("Theft", "s.1", Charges.SeverityLevel.Minor, day, p1, courtCase);
+            new Charges("Fraud", "s.2", Charges.SeverityLevel.Moderate, day, p1, courtCase);
+            Charges third = new Charges("Assault", "s.3", Charges.SeverityLevel.Severe, day, p2, courtCase);
+
+            assertEquals(List.of(p1, p2), calendar.getDefendants(courtCase));
+            assertEquals(List.of(p1, p2), courtCase.getPrisoners());
+
+            first.delete();
+            assertEquals(List.of(p1, p2), calendar.getDefendants(courtCase));   // Still charged with fraud
+            third.setPrisoner(p1);
+            assertEquals(List.of(p1), calendar.getDefendants(courtCase));
+            assertEquals(List.of(p1), calendar.getTransportRoster(day));
+            calendar.close();
+            EventBus.reset();
+            CourtCase.clearExtent();
+            Charges.clearExtent();
+        });
+
+        runTest("testMonthlyDocketsInOnePass", () -> {
+            EventBus.reset();
+            CourtCalendar calendar = new CourtCalendar();
+            Prisoner p1 = Fixtures.newPrisoner();
+            Prisoner p2 = Fixtures.newPrisoner();
+            CourtCase a = new CourtCase(day, CourtCase.CaseStatus.PENDING, "Judge Judy");
+            CourtCase b = new CourtCase(day, CourtCase.CaseStatus.PENDING, "Judge Judy");
+            CourtCase c = new CourtCase(day.plusDays(3), CourtCase.CaseStatus.APPEAL, "Judge Dredd");
+            new CourtCase(day.plusMonths(1), CourtCase.CaseStatus.PENDING, "Judge Judy");
+            new Charges("Theft", "s.1", Charges.SeverityLevel.Minor, day, p1, a);
+            new Charges("Theft", "s.1", Charges.SeverityLevel.Minor, day, p1, b);
+            new Charges("Arson", "s.9", Charges.SeverityLevel.Severe, day, p2, c);
+
+            List<CourtCalendar.Docket> dockets = calendar.getMonthlyDockets(YearMonth.of(2024, 9));
+            assertEquals(2, dockets.size());
+            assertEquals(day, dockets.get(0).getDate());
+            assertEquals(List.of(a, b), dockets.get(0).getCases());
+            assertEquals(List.of(p1), dockets.get(0).getDefendants());
+            assertEquals("Judge Dredd", dockets.get(1).getJudgeName());
+            assertEquals(List.of(p2), dockets.get(1).getDefendants());
+            assertEquals(List.of(day, day.plusDays(3)), calendar.getCourtDays(YearMonth.of(2024, 9)));
+            calendar.close();
+            EventBus.reset();
+            CourtCase.clearExtent();
+            Charges.clearExtent();
+        });
+    }
+}
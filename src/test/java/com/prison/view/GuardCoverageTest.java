@@ -0,0 +1,173 @@
+package com.prison.view;
+
+import com.prison.model.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class GuardCoverageTest extends SimpleUnitTest {
+    private static int ids;
+
+    public static void main(String[] args) {
+        runTest("testCountsGuardsPerShiftSlot", () -> {
+            Fixtures.resetModel();
+            Block block = new Block("Coverage A", 10, Block.BlockType.MEDIUM_SECURITY);
+            Cell cell = cell(block);
+            for (int i = 0; i < 4; i++) {
+                prisoner(cell);
+            }
+            guard("6AM-2PM", Guard.Rank.JUNIOR).addBlock(block);
+            GuardCoverage coverage = new GuardCoverage();
+            guard("10PM-6AM", Guard.Rank.LIEUTENANT).addBlock(block);
+
+            GuardCoverage.BlockCoverage a = coverage.getCoverage(block);
+            assertEquals(4, a.getPrisoners());
+            assertEquals(1, a.getGuardsAt(LocalTime.of(7, 0)));
+            assertEquals(1, a.getGuardsAt(LocalTime.of(3, 0)));
+            assertEquals(0, a.getGuardsAt(LocalTime.of(15, 0)));
+            assertEquals(0.25, a.getRatio(6));
+            assertEquals(0.5, a.getWeightedRatio(23));
+            assertEquals(0.0, a.getMinimumWeightedRatio());
+            coverage.close();
+        });
+
+        runTest("testFollowsAssignmentsShiftsAndRanks", () -> {
+            Fixtures.resetModel();
+            Block block = new Block("Coverage B", 10, Block.BlockType.MAXIMUM_SECURITY);
+            Block other = new Block("Coverage C", 10, Block.BlockType.MINIMUM_SECURITY);
+            Cell cell = cell(block);
+            prisoner(cell);
+            prisoner(cell);
+            GuardCoverage coverage = new GuardCoverage();
+            Guard guard = guard("9AM-5PM", Guard.Rank.JUNIOR);
+            guard.addBlock(block);
+            assertEquals(0.5, coverage.getCoverage(block).getWeightedRatio(9));
+
+            guard.setRank(Guard.Rank.LIEUTENANT);
+            assertEquals(1.0, coverage.getCoverage(block).getWeightedRatio(9));
+
+            guard.setShiftHour("Night Shift");
+            assertEquals(0, coverage.getCoverage(block).getGuards(9));
+            assertEquals(1, coverage.getCoverage(block).getGuards(23));
+
+            guard.setAssignedBlock(other);
+            assertEquals(0, coverage.getCoverage(block).getGuards(23));
+            assertEquals(1, coverage.getCoverage(other).getGuards(23));
+            guard.removeBlock(other);
+            assertEquals(0, coverage.getCoverage(other).getGuards(23));
+            coverage.close();
+        });
+
+        runTest("testCombinedStaffCountWithTheirGuardRank", () -> {
+            Fixtures.resetModel();
+            Block block = new Block("Coverage D", 10, Block.BlockType.MEDICAL);
+            prisoner(cell(block));
+            GuardCoverage coverage = new GuardCoverage();
+            CombinedStaff medic = new CombinedStaff("Combined", "Cover", 5, "Day Shift", "555-7100",
+                "combined.cover@prison.com", Guard.Rank.CHIEF, "Taser", "LIC-7100", "ext 7100");
+            medic.addBlock(block);
+            assertEquals(1.5, coverage.getCoverage(block).getWeightedGuards(8));
+            medic.getGuardRole().setRank(Guard.Rank.JUNIOR);
+            assertEquals(1.0, coverage.getCoverage(block).getWeightedGuards(8));
+
+            Doctor doctor = new Doctor("Not", "AGuard", 5, "Day Shift", "555-7101",
+                "not.a.guard@prison.com", "LIC-7101", "ext 7101");
+            doctor.addBlock(block);
+            assertEquals(1, coverage.getCoverage(block).getGuards(8));
+            coverage.close();
+        });
+
+        runTest("testFollowsPrisonersAndCells", () -> {
+            Fixtures.resetModel();
+            Block block = new Block("Coverage E", 10, Block.BlockType.MEDIUM_SECURITY);
+            Block other = new Block("Coverage F", 10, Block.BlockType.MEDIUM_SECURITY);
+            Cell cell = cell(block);
+            Cell elsewhere = cell(other);
+            GuardCoverage coverage = new GuardCoverage();
+            Prisoner moving = prisoner(cell);
+            prisoner(cell);
+            assertEquals(2, coverage.getCoverage(block).getPrisoners());
+
+            moving.setCurrentCell(elsewhere);
+            assertEquals(1, coverage.getCoverage(block).getPrisoners());
+            assertEquals(1, coverage.getCoverage(other).getPrisoners());
+
+            cell.setBlock(other);
+            assertEquals(0, coverage.getCoverage(block).getPrisoners());
+            assertEquals(2, coverage.getCoverage(other).getPrisoners());
+            coverage.close();
+        });
+
+        runTest("testFindsGapsBelowTheRequiredRatio", () -> {
+            Fixtures.resetModel();
+            Block block = new Block("Coverage G", 10, Block.BlockType.MAXIMUM_SECURITY);
+            Cell cell = cell(block);
+            for (int i = 0; i < 10; i++) {
+                prisoner(cell);
+            }
+            guard("6AM-2PM", Guard.Rank.JUNIOR).addBlock(block);
+            guard("2PM-10PM", Guard.Rank.JUNIOR).addBlock(block);
+            GuardCoverage coverage = new GuardCoverage();
+
+            List<GuardCoverage.Gap> gaps = coverage.findGaps(0.1);
+            assertEquals(2, gaps.size());
+            assertEquals(LocalTime.of(0, 0), gaps.get(0).getFrom());
+            assertEquals(LocalTime.of(6, 0), gaps.get(0).getTo());
+            assertEquals(LocalTime.of(22, 0), gaps.get(1).getFrom());
+            assertEquals(LocalTime.MIDNIGHT, gaps.get(1).getTo());
+            assertEquals(0.0, gaps.get(1).getWeightedRatio());
+            assertTrue(coverage.findGaps(0.05).size() == 2);
+            coverage.close();
+        });
+
+        runTest("testFacilityCoverageForThousandsOfStaff", () -> {
+            Fixtures.resetModel();
+            String[] shifts = {"6AM-2PM", "2PM-10PM", "10PM-6AM", "8am-4pm", "9AM-5PM"};
+            Guard.Rank[] ranks = Guard.Rank.values();
+            Block[] blocks = new Block[50];
+            for (int b = 0; b < blocks.length; b++) {
+                blocks[b] = new Block("Load " + b, 20, Block.BlockType.MEDIUM_SECURITY);
+                Cell cell = cell(blocks[b]);
+                for (int i = 0; i < 20; i++) {
+                    prisoner(cell);
+                }
+            }
+            GuardCoverage coverage = new GuardCoverage();
+            for (int i = 0; i < 5000; i++) {
+                guard(shifts[i % shifts.length], ranks[i % ranks.length]).addBlock(blocks[i % blocks.length]);
+            }
+            List<GuardCoverage.BlockCoverage> facility = coverage.getFacilityCoverage();
+            assertEquals(50, facility.size());
+            int onDuty = 0;
+            for (GuardCoverage.BlockCoverage block : facility) {
+                onDuty += block.getGuards(10);
+            }
+            assertEquals(3000, onDuty);   // Day, 8-4 and 9-5 shifts
+
+            coverage.rebuild();   // Timed in bench.GuardCoverageBenchmark
+            assertEquals(3000, coverage.getFacilityCoverage().stream().mapToInt(c -> c.getGuards(10)).sum());
+            coverage.close();
+            Fixtures.resetModel();
+        });
+    }
+
+    private static Guard guard(String shiftHour, Guard.Rank rank) {
+        int id = ++ids;
+        return new Guard("Cover", "Guard" + id, 5, shiftHour, "555-" + id,
+            "cover.guard" + id + "@prison.com", rank, "Baton");
+    }
+
+    private static Cell cell(Block block) {
+        Cell cell = new Cell(++ids, "Standard", 50, Cell.SecurityLevel.MEDIUM);
+        cell.setBlock(block);
+        return cell;
+    }
+
+    private static Prisoner prisoner(Cell cell) {
+        Prisoner prisoner = new Prisoner("Cover", "Prisoner" + ++ids, 30, "Theft", LocalDate.of(2020, 1, 1), 5, "None", "Active");
+        prisoner.setCurrentCell(cell);
+        return prisoner;
+    }
+}
@@ -0,0 +1,143 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.model.*;
+import com.prison.test.Fixtures;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class MaterializedViewTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testPrisonersPerBlockFollowsMovesAndCellTransfers", () -> {
+            EventBus.reset();
+            Block blockA = new Block("Block A", 10, Block.BlockType.MEDIUM_SECURITY);
+            Block blockB = new Block("Block B", 10, Block.BlockType.MAXIMUM_SECURITY);
+            Cell cell1 = new Cell(201, "Shared", 4, Cell.SecurityLevel.LOW);
+            Cell cell2 = new Cell(202, "Shared", 4, Cell.SecurityLevel.LOW);
+            blockA.addCell(cell1);
+            blockB.addCell(cell2);
+            Prisoner p1 = Fixtures.newPrisoner();
+            p1.setCurrentCell(cell1);  // Present before the view is created
+
+            MaterializedView<Prisoner, Block> view = ModelViews.prisonersPerBlock();
+            assertEquals(1L, view.getCount(blockA));
+
+            Prisoner p2 = Fixtures.newPrisoner();
+            p2.setCurrentCell(cell1);
+            assertEquals(2L, view.getCount(blockA));
+
+            p1.setCurrentCell(cell2);
+            assertEquals(1L, view.getCount(blockA));
+            assertEquals(1L, view.getCount(blockB));
+
+            blockA.removeCell(cell1);
+            blockB.addCell(cell1);  // p2 moves with its cell
+            assertEquals(0L, view.getCount(blockA));
+            assertEquals(2L, view.getCount(blockB));
+            view.close();
+            EventBus.reset();
+            Block.clearExtent();
+            Cell.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testPendingVisitsPerDirector", () -> {
+            EventBus.reset();
+            MaterializedView<Visit, Director> view = ModelViews.pendingVisitsPerDirector();
+            Director director = new Director("Alice", "Boss", 10, "8am-6pm", "555-0300",
+                    "view.alice@prison.com", Director.DirectorRank.GENERAL);
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Mary", "Doe", "555-0301", "Sister");
+            Visit visit1 = new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID101", visitor, prisoner);
+            Visit visit2 = new Visit(LocalDate.now().plusDays(2), 30, Visit.VisitType.GENERAL, "VID102", visitor, prisoner);
+            visit1.addDirector(director);
+            visit2.addDirector(director);
+            assertEquals(2L, view.getCount(director));
+
+            visit1.setApprovalStatus(Visit.ApprovalStatus.APPROVED);
+            assertEquals(1L, view.getCount(director));
+
+            visit2.removeDirector(director);
+            assertEquals(0L, view.getCount(director));
+            assertTrue(view.getCounts().isEmpty());
+
+            visit2.addDirector(director);
+            assertEquals(1L, view.getCount(director));
+            visit2.setDirector(null);   // Listeners see the visit already unlinked
+            assertEquals(0L, view.getCount(director));
+            assertTrue(!director.getApprovedVisits().contains(visit2));
+            view.close();
+            EventBus.reset();
+            Director.clearDirectorExtent();
+            Staff.clearExtent();
+            Visitor.clearExtent();
+            Visit.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testActivePunishmentsPerPrisoner", () -> {
+            EventBus.reset();
+            MaterializedView<Punishment, Prisoner> view = ModelViews.activePunishmentsPerPrisoner();
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Punishment warning = new Punishment("WARNING", "Verbal warning", LocalDate.now(), 1, "Active");
+            Punishment duty = new Punishment("EXTRA_DUTY", "Kitchen duty", LocalDate.now(), 7, "Active");
+            prisoner.addPunishment(warning);
+            prisoner.addPunishment(duty);
+            assertEquals(2L, view.getCount(prisoner));
+
+            warning.setStatus("Completed");
+            assertEquals(1L, view.getCount(prisoner));
+            warning.setStatus("Active");
+            assertEquals(2L, view.getCount(prisoner));
+
+            duty.removePrisoner(prisoner);
+            assertEquals(1L, view.getCount(prisoner));
+            view.close();
+            EventBus.reset();
+            Punishment.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testDeliveriesPerMealAndRebuild", () -> {
+            EventBus.reset();
+            MaterializedView<MealDelivery, Meal> view = ModelViews.deliveriesPerMeal();
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Meal breakfast = new Meal("Breakfast", Meal.DietPlan.VEGETARIAN, 400.0, Meal.MealType.Breakfast);
+            Meal lunch = new Meal("Lunch", Meal.DietPlan.STANDARD, 700.0, Meal.MealType.Lunch);
+            MealDelivery delivery = new MealDelivery(LocalDateTime.now().plusHours(1), prisoner, breakfast);
+            new MealDelivery(LocalDateTime.now().plusHours(2), prisoner, breakfast);
+            assertEquals(2L, view.getCount(breakfast));
+
+            delivery.setMeal(lunch);
+            assertEquals(1L, view.getCount(breakfast));
+            assertEquals(1L, view.getCount(lunch));
+
+            MealDelivery.clearExtent();  // Extent replaced without events
+            view.rebuild();
+            assertEquals(0L, view.getCount(breakfast));
+            view.close();
+            EventBus.reset();
+            Meal.clearExtent();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testSumAggregate", () -> {
+            EventBus.reset();
+            Prisoner prisoner = Fixtures.newPrisoner();
+            Visitor visitor = new Visitor("Tom", "Doe", "555-0302", "Brother");
+            MaterializedView<Visit, Prisoner> minutes = new MaterializedView<Visit, Prisoner>(
+                    Visit.class, Visit::getExtent, visit -> true,
+                    visit -> java.util.List.of(visit.getPrisoner()), Visit::getDuration);
+            new Visit(LocalDate.now().plusDays(1), 60, Visit.VisitType.FAMILY, "VID201", visitor, prisoner);
+            new Visit(LocalDate.now().plusDays(2), 45, Visit.VisitType.FAMILY, "VID202", visitor, prisoner);
+            assertEquals(105.0, minutes.getSum(prisoner));
+            assertEquals(2L, minutes.getCount(prisoner));
+            minutes.close();
+            EventBus.reset();
+            Visitor.clearExtent();
+            Visit.clearExtent();
+            Prisoner.clearExtent();
+        });
+    }
+}
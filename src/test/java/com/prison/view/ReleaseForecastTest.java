@@ -0,0 +1,80 @@
+package com.prison.view;
+
+import com.prison.event.EventBus;
+import com.prison.model.*;
+import com.prison.test.SimpleUnitTest;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ReleaseForecastTest extends SimpleUnitTest {
+    public static void main(String[] args) {
+        runTest("testReleaseDateIsExact", () -> {
+            Prisoner p = prisoner(LocalDate.of(2020, 2, 29), 5);
+            assertEquals(LocalDate.of(2025, 2, 28), p.getReleaseDate());
+        });
+
+        runTest("testWindowsFollowSentenceChanges", () -> {
+            EventBus.reset();
+            Prisoner.clearExtent();
+            Prisoner early = prisoner(LocalDate.of(2021, 3, 1), 4);
+            ReleaseForecast forecast = new ReleaseForecast();
+            Prisoner late = prisoner(LocalDate.of(2022, 3, 15), 3);
+            Prisoner never = prisoner(LocalDate.of(2024, 1, 1), 20);
+
+            assertEquals(List.of(early, late),
+                forecast.getReleasesBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)));
+            assertEquals(List.of(early), forecast.getNextReleases(LocalDate.of(2025, 1, 1), 1));
+
+            early.setSentenceYears(6);
+            late.setDateOfStart(LocalDate.of(2022, 3, 10));
+            assertEquals(List.of(late),
+                forecast.getReleasesBetween(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)));
+            assertEquals(LocalDate.of(2025, 3, 10), forecast.getReleaseDate(late));
+            assertEquals(List.of(late, early, never), forecast.getNextReleases(LocalDate.of(2025, 1, 1), 10));
+            forecast.close();
+            EventBus.reset();
+            Prisoner.clearExtent();
+        });
+
+        runTest("testMonthlyForecastPerBlock", () -> {
+            EventBus.reset();
+            Block blockA = new Block("Release A", 10, Block.BlockType.MEDIUM_SECURITY);
+            Block blockB = new Block("Release B", 10, Block.BlockType.MINIMUM_SECURITY);
+            Cell cellA = new Cell(801, "Single", 4, Cell.SecurityLevel.LOW);
+            Cell cellB = new Cell(802, "Single", 4, Cell.SecurityLevel.LOW);
+            blockA.addCell(cellA);
+            blockB.addCell(cellB);
+            ReleaseForecast forecast = new ReleaseForecast();
+            Prisoner p1 = prisoner(LocalDate.of(2020, 6, 1), 6);
+            Prisoner p2 = prisoner(LocalDate.of(2021, 6, 20), 5);
+            Prisoner p3 = prisoner(LocalDate.of(2023, 7, 5), 3);
+            p1.setCurrentCell(cellA);
+            p2.setCurrentCell(cellB);
+            p3.setCurrentCell(cellA);
+
+            ReleaseForecast.MonthlyForecast june = forecast.getMonthlyForecast(YearMonth.of(2026, 6));
+            assertEquals(2, june.getTotal());
+            assertEquals(1, june.getReleases(blockA));
+            assertEquals(1, june.getReleases(blockB));
+
+            p2.setCurrentCell(cellA);   // Blocks are resolved when the forecast is read
+            assertEquals(2, forecast.getMonthlyForecast(YearMonth.of(2026, 6)).getReleases(blockA));
+
+            List<Integer> totals = forecast.forecast(YearMonth.of(2026, 5), YearMonth.of(2026, 8))
+                .map(ReleaseForecast.MonthlyForecast::getTotal)
+                .collect(Collectors.toList());
+            assertEquals(List.of(0, 2, 1, 0), totals);
+            forecast.close();
+            EventBus.reset();
+            Prisoner.clearExtent();
+            Cell.clearExtent();
+            Block.clearExtent();
+        });
+    }
+
+    private static Prisoner prisoner(LocalDate start, int years) {
+        return new Prisoner("John", "Doe", 30, "Theft", start, years, "None", "Active");
+    }
+}